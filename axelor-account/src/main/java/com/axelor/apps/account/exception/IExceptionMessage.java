@@ -313,6 +313,11 @@ public interface IExceptionMessage {
   /** Batch realize fixed asset lines */
   static final String BATCH_REALIZED_FIXED_ASSET_LINE = /*$$(*/ "Realized fixed asset lines" /*)*/;
 
+  /** Batch auto reconcile */
+  static final String BATCH_AUTO_RECONCILE_1 = /*$$(*/ "Reconcile(s) created" /*)*/;
+
+  static final String BATCH_AUTO_RECONCILE_2 = /*$$(*/ "Duration : %.1f s" /*)*/;
+
   /** Cfonb export service */
   static final String CFONB_EXPORT_1 = /*$$(*/
       "You must configure a RIB for the reimbursement" /*)*/;
@@ -756,6 +761,9 @@ public interface IExceptionMessage {
   String INVOICES_MISSING_PRINTING_SETTINGS = /*$$(*/
       "Please fill printing settings on following invoices: %s" /*)*/;
   String INVOICE_PRINTING_IO_ERROR = /*$$(*/ "Error on uploading printed invoice:" /*)*/;
+  String INVOICE_PRINTING_COPY_NUMBER = /*$$(*/
+      "The number of copies of the invoice %s should be greater than 0." /*)*/;
+  String INVOICES_PRINTED = /*$$(*/ "%s invoice(s) printed." /*)*/;
 
   /*
    * Reconcile Group
@@ -52,6 +52,8 @@ import com.axelor.apps.account.db.repo.ReconcileManagementRepository;
 import com.axelor.apps.account.db.repo.ReconcileRepository;
 import com.axelor.apps.account.db.repo.SubrogationReleaseManagementRepository;
 import com.axelor.apps.account.db.repo.SubrogationReleaseRepository;
+import com.axelor.apps.account.service.AccountBalanceCubeService;
+import com.axelor.apps.account.service.AccountBalanceCubeServiceImpl;
 import com.axelor.apps.account.service.AccountManagementAccountService;
 import com.axelor.apps.account.service.AccountManagementServiceAccountImpl;
 import com.axelor.apps.account.service.AccountingReportService;
@@ -83,6 +85,8 @@ import com.axelor.apps.account.service.ReconcileGroupSequenceService;
 import com.axelor.apps.account.service.ReconcileGroupSequenceServiceImpl;
 import com.axelor.apps.account.service.ReconcileGroupService;
 import com.axelor.apps.account.service.ReconcileGroupServiceImpl;
+import com.axelor.apps.account.service.ReconcileMatchingService;
+import com.axelor.apps.account.service.ReconcileMatchingServiceImpl;
 import com.axelor.apps.account.service.ReconcileService;
 import com.axelor.apps.account.service.ReconcileServiceImpl;
 import com.axelor.apps.account.service.SubrogationReleaseService;
@@ -91,6 +95,8 @@ import com.axelor.apps.account.service.TemplateMessageAccountService;
 import com.axelor.apps.account.service.TemplateMessageAccountServiceImpl;
 import com.axelor.apps.account.service.app.AppAccountService;
 import com.axelor.apps.account.service.app.AppAccountServiceImpl;
+import com.axelor.apps.account.service.debtrecovery.DebtRecoveryAgingService;
+import com.axelor.apps.account.service.debtrecovery.DebtRecoveryAgingServiceImpl;
 import com.axelor.apps.account.service.invoice.InvoiceLineService;
 import com.axelor.apps.account.service.invoice.InvoiceLineServiceImpl;
 import com.axelor.apps.account.service.invoice.InvoiceService;
@@ -150,6 +156,8 @@ public class AccountModule extends AxelorModule {
 
     bind(AccountingReportService.class).to(AccountingReportServiceImpl.class);
 
+    bind(AccountBalanceCubeService.class).to(AccountBalanceCubeServiceImpl.class);
+
     bind(JournalRepository.class).to(JournalManagementRepository.class);
 
     bind(PaymentVoucherRepository.class).to(PaymentVoucherManagementRepository.class);
@@ -226,6 +234,8 @@ public class AccountModule extends AxelorModule {
 
     bind(ReconcileGroupService.class).to(ReconcileGroupServiceImpl.class);
 
+    bind(ReconcileMatchingService.class).to(ReconcileMatchingServiceImpl.class);
+
     bind(SubrogationReleaseRepository.class).to(SubrogationReleaseManagementRepository.class);
 
     bind(PeriodServiceImpl.class).to(PeriodServiceAccountImpl.class);
@@ -235,5 +245,7 @@ public class AccountModule extends AxelorModule {
     bind(FixedAssetService.class).to(FixedAssetServiceImpl.class);
 
     bind(FixedAssetLineService.class).to(FixedAssetLineServiceImpl.class);
+
+    bind(DebtRecoveryAgingService.class).to(DebtRecoveryAgingServiceImpl.class);
   }
 }
@@ -0,0 +1,59 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.db.AccountingReport;
+import com.axelor.apps.base.db.Period;
+import com.axelor.exception.AxelorException;
+import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Maintain the account balance cube: debit and credit of the validated move lines pre-summed by
+ * company, fiscal year, period, account, partner and journal.
+ */
+public interface AccountBalanceCubeService {
+
+  /**
+   * Rebuild the cells of a period from its validated move lines.
+   *
+   * @param period a fiscal period.
+   */
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  void computePeriod(Period period);
+
+  /**
+   * Get the closed periods whose balances can be read from the cube for the given report. Periods
+   * whose balances were not computed at closure are left out, their move lines are read instead.
+   * Return an empty list if the report filters cannot be applied on the cube.
+   *
+   * @param accountingReport
+   * @return the list of periods to read from the cube.
+   */
+  List<Period> getCubePeriodList(AccountingReport accountingReport);
+
+  /**
+   * Sum the debit and credit of the cells of the given periods matching the report filters.
+   *
+   * @param accountingReport
+   * @param periodList periods returned by {@link #getCubePeriodList(AccountingReport)}.
+   * @return an array with the total debit and the total credit.
+   */
+  BigDecimal[] getBalance(AccountingReport accountingReport, List<Period> periodList);
+}
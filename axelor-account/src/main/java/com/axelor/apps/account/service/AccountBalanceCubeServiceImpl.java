@@ -0,0 +1,224 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.db.Account;
+import com.axelor.apps.account.db.AccountBalanceCell;
+import com.axelor.apps.account.db.AccountingReport;
+import com.axelor.apps.account.db.Journal;
+import com.axelor.apps.account.db.repo.AccountingReportRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.apps.base.db.Period;
+import com.axelor.apps.base.db.repo.PeriodRepository;
+import com.axelor.apps.base.db.repo.YearRepository;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AccountBalanceCubeServiceImpl implements AccountBalanceCubeService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected PeriodRepository periodRepo;
+
+  @Inject
+  public AccountBalanceCubeServiceImpl(PeriodRepository periodRepo) {
+    this.periodRepo = periodRepo;
+  }
+
+  protected AccountBalanceCell createCell(
+      Period period,
+      Journal journal,
+      Account account,
+      Partner partner,
+      BigDecimal debit,
+      BigDecimal credit) {
+    AccountBalanceCell cell = new AccountBalanceCell();
+    cell.setCompany(period.getYear().getCompany());
+    cell.setYear(period.getYear());
+    cell.setPeriod(period);
+    cell.setJournal(journal);
+    cell.setAccount(account);
+    cell.setPartner(partner);
+    cell.setDebit(debit != null ? debit : BigDecimal.ZERO);
+    cell.setCredit(credit != null ? credit : BigDecimal.ZERO);
+    return cell;
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void computePeriod(Period period) {
+    long startTime = System.currentTimeMillis();
+    EntityManager em = JPA.em();
+
+    em.createQuery("DELETE FROM AccountBalanceCell self WHERE self.period = :period")
+        .setParameter("period", period)
+        .executeUpdate();
+
+    List<Object[]> rows =
+        em.createQuery(
+                "SELECT self.move.journal.id, self.account.id, partner.id, "
+                    + "SUM(self.debit), SUM(self.credit) "
+                    + "FROM MoveLine self LEFT JOIN self.partner partner "
+                    + "WHERE self.move.period = :period "
+                    + "AND self.move.statusSelect = :statusValidated "
+                    + "AND self.move.ignoreInAccountingOk = false "
+                    + "GROUP BY self.move.journal.id, self.account.id, partner.id",
+                Object[].class)
+            .setParameter("period", period)
+            .setParameter("statusValidated", MoveRepository.STATUS_VALIDATED)
+            .getResultList();
+
+    for (Object[] row : rows) {
+      em.persist(
+          createCell(
+              period,
+              em.getReference(Journal.class, row[0]),
+              em.getReference(Account.class, row[1]),
+              row[2] != null ? em.getReference(Partner.class, row[2]) : null,
+              (BigDecimal) row[3],
+              (BigDecimal) row[4]));
+    }
+
+    period.setAccountBalanceComputedOk(true);
+    periodRepo.save(period);
+
+    log.debug(
+        "Account balance cube : {} cells computed for period {} in {} ms",
+        rows.size(),
+        period.getName(),
+        System.currentTimeMillis() - startTime);
+  }
+
+  @Override
+  public List<Period> getCubePeriodList(AccountingReport accountingReport) {
+    if (!isCubeApplicable(accountingReport)) {
+      return Collections.emptyList();
+    }
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("company", accountingReport.getCompany());
+    params.put("typeFiscal", YearRepository.TYPE_FISCAL);
+    params.put("statusClosed", PeriodRepository.STATUS_CLOSED);
+    StringBuilder filter =
+        new StringBuilder(
+            "self.year.company = :company AND self.year.typeSelect = :typeFiscal "
+                + "AND self.statusSelect = :statusClosed AND self.accountBalanceComputedOk = true");
+    if (accountingReport.getPeriod() != null) {
+      filter.append(" AND self = :period");
+      params.put("period", accountingReport.getPeriod());
+    }
+    if (accountingReport.getYear() != null) {
+      filter.append(" AND self.year = :year");
+      params.put("year", accountingReport.getYear());
+    }
+    if (accountingReport.getDateFrom() != null) {
+      filter.append(" AND self.fromDate >= :dateFrom");
+      params.put("dateFrom", accountingReport.getDateFrom());
+    }
+    if (accountingReport.getDateTo() != null) {
+      filter.append(" AND self.toDate <= :dateTo");
+      params.put("dateTo", accountingReport.getDateTo());
+    }
+    if (accountingReport.getDate() != null) {
+      filter.append(" AND self.toDate <= :date");
+      params.put("date", accountingReport.getDate());
+    }
+
+    return periodRepo.all().filter(filter.toString()).bind(params).fetch();
+  }
+
+  /**
+   * The cube only holds validated moves by period, account, partner and journal, so reports
+   * filtering on anything else are computed from the move lines.
+   */
+  protected boolean isCubeApplicable(AccountingReport accountingReport) {
+    int typeSelect = accountingReport.getTypeSelect();
+    return accountingReport.getCompany() != null
+        && accountingReport.getCurrency() == null
+        && accountingReport.getPaymentMode() == null
+        && typeSelect < AccountingReportRepository.EXPORT_PAYROLL_JOURNAL_ENTRY
+        && typeSelect != AccountingReportRepository.REPORT_CHEQUE_DEPOSIT
+        && typeSelect != AccountingReportRepository.REPORT_AGED_BALANCE;
+  }
+
+  @Override
+  public BigDecimal[] getBalance(AccountingReport accountingReport, List<Period> periodList) {
+    if (periodList.isEmpty()) {
+      return new BigDecimal[] {BigDecimal.ZERO, BigDecimal.ZERO};
+    }
+
+    StringBuilder queryStr =
+        new StringBuilder(
+            "SELECT SUM(self.debit), SUM(self.credit) FROM AccountBalanceCell self "
+                + "WHERE self.company = :company AND self.period IN (:periodList)");
+    if (accountingReport.getJournal() != null) {
+      queryStr.append(" AND self.journal = :journal");
+    }
+    boolean filterAccounts =
+        accountingReport.getAccountSet() != null && !accountingReport.getAccountSet().isEmpty();
+    if (filterAccounts) {
+      queryStr.append(" AND (self.account IN (:accountSet)");
+      String parentAccount = "self.account";
+      for (int i = 0; i < 6; i++) {
+        parentAccount += ".parentAccount";
+        queryStr.append(" OR ").append(parentAccount).append(" IN (:accountSet)");
+      }
+      queryStr.append(")");
+    }
+    boolean filterPartners =
+        accountingReport.getPartnerSet() != null && !accountingReport.getPartnerSet().isEmpty();
+    if (filterPartners) {
+      queryStr.append(" AND self.partner IN (:partnerSet)");
+    }
+    if (accountingReport.getTypeSelect() == AccountingReportRepository.REPORT_PARNER_BALANCE) {
+      queryStr.append(" AND self.account.useForPartnerBalance = true");
+    }
+
+    TypedQuery<Object[]> query = JPA.em().createQuery(queryStr.toString(), Object[].class);
+    query.setParameter("company", accountingReport.getCompany());
+    query.setParameter("periodList", periodList);
+    if (accountingReport.getJournal() != null) {
+      query.setParameter("journal", accountingReport.getJournal());
+    }
+    if (filterAccounts) {
+      query.setParameter("accountSet", accountingReport.getAccountSet());
+    }
+    if (filterPartners) {
+      query.setParameter("partnerSet", accountingReport.getPartnerSet());
+    }
+
+    Object[] result = query.getSingleResult();
+    return new BigDecimal[] {
+      result[0] != null ? (BigDecimal) result[0] : BigDecimal.ZERO,
+      result[1] != null ? (BigDecimal) result[1] : BigDecimal.ZERO
+    };
+  }
+}
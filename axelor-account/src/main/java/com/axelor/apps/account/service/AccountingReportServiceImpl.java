@@ -27,6 +27,7 @@ import com.axelor.apps.account.exception.IExceptionMessage;
 import com.axelor.apps.account.service.app.AppAccountService;
 import com.axelor.apps.account.service.config.AccountConfigService;
 import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Period;
 import com.axelor.apps.base.db.repo.SequenceRepository;
 import com.axelor.apps.base.service.administration.SequenceService;
 import com.axelor.apps.base.service.app.AppBaseService;
@@ -60,6 +61,12 @@ public class AccountingReportServiceImpl implements AccountingReportService {
 
   protected AccountRepository accountRepo;
 
+  protected AccountBalanceCubeService accountBalanceCubeService;
+
+  protected AccountingReport accountingReport;
+
+  protected List<Period> cubePeriodList;
+
   protected List<Object> params = new ArrayList<Object>();
   protected int paramNumber = 1;
 
@@ -67,10 +74,12 @@ public class AccountingReportServiceImpl implements AccountingReportService {
   public AccountingReportServiceImpl(
       AppAccountService appBaseService,
       AccountingReportRepository accountingReportRepo,
-      AccountRepository accountRepo) {
+      AccountRepository accountRepo,
+      AccountBalanceCubeService accountBalanceCubeService) {
     this.accountingReportRepo = accountingReportRepo;
     this.accountRepo = accountRepo;
     this.appBaseService = appBaseService;
+    this.accountBalanceCubeService = accountBalanceCubeService;
   }
 
   @SuppressWarnings("unchecked")
@@ -111,6 +120,8 @@ public class AccountingReportServiceImpl implements AccountingReportService {
   }
 
   public String buildQuery(AccountingReport accountingReport) throws AxelorException {
+    this.accountingReport = accountingReport;
+    this.cubePeriodList = null;
     query = "";
     paramNumber = 1;
     params = new ArrayList<Object>();
@@ -339,25 +350,10 @@ public class AccountingReportServiceImpl implements AccountingReportService {
    */
   public BigDecimal getDebitBalance() {
 
-    Query q =
-        JPA.em()
-            .createQuery(
-                "select SUM(self.debit) FROM MoveLine as self WHERE " + query, BigDecimal.class);
-
-    int i = 1;
-
-    for (Object param : params.toArray()) {
-      q.setParameter(i++, param);
-    }
-
-    BigDecimal result = (BigDecimal) q.getSingleResult();
+    BigDecimal result = this.getBalance(true);
     log.debug("Total debit : {}", result);
 
-    if (result != null) {
-      return result;
-    } else {
-      return BigDecimal.ZERO;
-    }
+    return result;
   }
 
   /**
@@ -366,25 +362,69 @@ public class AccountingReportServiceImpl implements AccountingReportService {
    */
   public BigDecimal getCreditBalance() {
 
-    Query q =
-        JPA.em()
-            .createQuery(
-                "select SUM(self.credit) FROM MoveLine as self WHERE " + query, BigDecimal.class);
+    BigDecimal result = this.getBalance(false);
+    log.debug("Total credit : {}", result);
+
+    return result;
+  }
+
+  /**
+   * Sum the debit or credit of the move lines matching the query. Closed periods are read from the
+   * account balance cube, only the move lines of the other periods are aggregated.
+   *
+   * @param debit true to sum the debit, false to sum the credit
+   * @return the total
+   */
+  protected BigDecimal getBalance(boolean debit) {
+
+    List<Period> cubePeriodList = getCubePeriodList();
+
+    String queryStr =
+        "select SUM(self."
+            + (debit ? "debit" : "credit")
+            + ") FROM MoveLine as self WHERE "
+            + query;
+    if (!cubePeriodList.isEmpty()) {
+      queryStr += " AND self.move.period NOT IN (?" + (params.size() + 1) + ")";
+    }
+
+    Query q = JPA.em().createQuery(queryStr, BigDecimal.class);
 
     int i = 1;
 
     for (Object param : params.toArray()) {
       q.setParameter(i++, param);
     }
+    if (!cubePeriodList.isEmpty()) {
+      q.setParameter(i, cubePeriodList);
+    }
 
     BigDecimal result = (BigDecimal) q.getSingleResult();
-    log.debug("Total debit : {}", result);
+    if (result == null) {
+      result = BigDecimal.ZERO;
+    }
 
-    if (result != null) {
-      return result;
-    } else {
-      return BigDecimal.ZERO;
+    if (!cubePeriodList.isEmpty()) {
+      BigDecimal[] cubeBalance =
+          accountBalanceCubeService.getBalance(accountingReport, cubePeriodList);
+      result = result.add(debit ? cubeBalance[0] : cubeBalance[1]);
+    }
+
+    return result;
+  }
+
+  /**
+   * Get the closed periods read from the account balance cube, computed once for the report of the
+   * current query.
+   */
+  protected List<Period> getCubePeriodList() {
+    if (cubePeriodList == null) {
+      cubePeriodList =
+          accountingReport != null
+              ? accountBalanceCubeService.getCubePeriodList(accountingReport)
+              : new ArrayList<>();
     }
+    return cubePeriodList;
   }
 
   public BigDecimal getDebitBalanceType4() {
@@ -19,10 +19,20 @@ package com.axelor.apps.account.service;
 
 import com.axelor.apps.account.db.FixedAssetLine;
 import com.axelor.exception.AxelorException;
+import java.util.List;
 
 public interface FixedAssetLineService {
 
   public void realize(FixedAssetLine fixedAssetLine) throws AxelorException;
 
+  /**
+   * Realize several lines at once, posting one move per company, journal, accounts and month. Each
+   * line is linked to the move it was posted in.
+   *
+   * @param fixedAssetLineList planned lines of validated fixed assets
+   * @throws AxelorException
+   */
+  public void realize(List<FixedAssetLine> fixedAssetLineList) throws AxelorException;
+
   public void generateDisposalMove(FixedAssetLine fixedAssetLine) throws AxelorException;
 }
@@ -19,6 +19,7 @@ package com.axelor.apps.account.service;
 
 import com.axelor.apps.account.db.Account;
 import com.axelor.apps.account.db.FixedAsset;
+import com.axelor.apps.account.db.FixedAssetCategory;
 import com.axelor.apps.account.db.FixedAssetLine;
 import com.axelor.apps.account.db.Journal;
 import com.axelor.apps.account.db.Move;
@@ -35,8 +36,12 @@ import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +61,39 @@ public class FixedAssetLineServiceImpl implements FixedAssetLineService {
 
     generateMove(fixedAssetLine);
 
+    updateRealizedLine(fixedAssetLine);
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void realize(List<FixedAssetLine> fixedAssetLineList) throws AxelorException {
+
+    Map<List<Object>, List<FixedAssetLine>> fixedAssetLineMap = new LinkedHashMap<>();
+
+    for (FixedAssetLine fixedAssetLine : fixedAssetLineList) {
+      FixedAsset fixedAsset = fixedAssetLine.getFixedAsset();
+      FixedAssetCategory fixedAssetCategory = fixedAsset.getFixedAssetCategory();
+      List<Object> key =
+          Arrays.asList(
+              fixedAsset.getCompany().getId(),
+              fixedAsset.getJournal().getId(),
+              fixedAssetCategory.getChargeAccount().getId(),
+              fixedAssetCategory.getDepreciationAccount().getId(),
+              YearMonth.from(fixedAssetLine.getDepreciationDate()));
+      fixedAssetLineMap.computeIfAbsent(key, k -> new ArrayList<>()).add(fixedAssetLine);
+    }
+
+    for (List<FixedAssetLine> consolidatedLineList : fixedAssetLineMap.values()) {
+      Move move = generateConsolidatedMove(consolidatedLineList);
+      for (FixedAssetLine fixedAssetLine : consolidatedLineList) {
+        fixedAssetLine.setDepreciationAccountMove(move);
+        updateRealizedLine(fixedAssetLine);
+      }
+    }
+  }
+
+  protected void updateRealizedLine(FixedAssetLine fixedAssetLine) {
+
     fixedAssetLine.setStatusSelect(FixedAssetLineRepository.STATUS_REALIZED);
 
     FixedAsset fixedAsset = fixedAssetLine.getFixedAsset();
@@ -154,6 +192,91 @@ public class FixedAssetLineServiceImpl implements FixedAssetLineService {
     fixedAssetLine.setDepreciationAccountMove(move);
   }
 
+  /**
+   * Generate a single move for lines sharing the same company, journal, accounts and month. Each
+   * line keeps its own debit and credit move lines, with the partner and the origin of its fixed
+   * asset.
+   */
+  protected Move generateConsolidatedMove(List<FixedAssetLine> fixedAssetLineList)
+      throws AxelorException {
+    FixedAsset firstFixedAsset = fixedAssetLineList.get(0).getFixedAsset();
+
+    Journal journal = firstFixedAsset.getJournal();
+    Company company = firstFixedAsset.getCompany();
+    Partner partner = firstFixedAsset.getPartner();
+    Account debitLineAccount = firstFixedAsset.getFixedAssetCategory().getChargeAccount();
+    Account creditLineAccount = firstFixedAsset.getFixedAssetCategory().getDepreciationAccount();
+
+    LocalDate date = null;
+    for (FixedAssetLine fixedAssetLine : fixedAssetLineList) {
+      if (date == null || fixedAssetLine.getDepreciationDate().isAfter(date)) {
+        date = fixedAssetLine.getDepreciationDate();
+      }
+      if (partner != null && !partner.equals(fixedAssetLine.getFixedAsset().getPartner())) {
+        partner = null;
+      }
+    }
+
+    log.debug(
+        "Creating a consolidated fixed asset depreciation accounting entry for {} lines (Company : {}, Journal : {})",
+        new Object[] {fixedAssetLineList.size(), company.getName(), journal.getCode()});
+
+    Move move =
+        moveCreateService.createMove(
+            journal,
+            company,
+            company.getCurrency(),
+            partner,
+            date,
+            null,
+            MoveRepository.TECHNICAL_ORIGIN_AUTOMATIC);
+
+    if (move != null) {
+      int counter = 1;
+
+      for (FixedAssetLine fixedAssetLine : fixedAssetLineList) {
+        FixedAsset fixedAsset = fixedAssetLine.getFixedAsset();
+        BigDecimal amount = fixedAssetLine.getDepreciation();
+
+        MoveLine debitMoveLine =
+            new MoveLine(
+                move,
+                fixedAsset.getPartner(),
+                debitLineAccount,
+                date,
+                null,
+                counter++,
+                amount,
+                BigDecimal.ZERO,
+                fixedAsset.getName(),
+                fixedAsset.getReference(),
+                null,
+                BigDecimal.ZERO,
+                date);
+        move.getMoveLineList().add(debitMoveLine);
+
+        MoveLine creditMoveLine =
+            new MoveLine(
+                move,
+                fixedAsset.getPartner(),
+                creditLineAccount,
+                date,
+                null,
+                counter++,
+                BigDecimal.ZERO,
+                amount,
+                fixedAsset.getName(),
+                fixedAsset.getReference(),
+                null,
+                BigDecimal.ZERO,
+                date);
+        move.getMoveLineList().add(creditMoveLine);
+      }
+    }
+
+    return moveRepo.save(move);
+  }
+
   @Override
   @Transactional(rollbackOn = {AxelorException.class, Exception.class})
   public void generateDisposalMove(FixedAssetLine fixedAssetLine) throws AxelorException {
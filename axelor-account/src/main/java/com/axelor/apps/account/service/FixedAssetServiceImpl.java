@@ -50,7 +50,16 @@ public class FixedAssetServiceImpl implements FixedAssetService {
   @Override
   public FixedAsset generateAndcomputeLines(FixedAsset fixedAsset) {
 
-    BigDecimal depreciationValue = this.computeDepreciationValue(fixedAsset);
+    int scale = Beans.get(AppBaseService.class).getNbDecimalDigitForUnitPrice();
+    boolean isDegressive = fixedAsset.getComputationMethodSelect().equals("degressive");
+    // Rate and coefficient do not change along the schedule, compute them once per asset.
+    BigDecimal depreciationFactor = this.computeDepreciationFactor(fixedAsset);
+    BigDecimal depreciationValue =
+        this.computeDepreciation(
+            fixedAsset, fixedAsset.getGrossValue(), true, depreciationFactor, scale);
+    // The linear depreciation is based on the residual value of the asset, which does not change
+    // while the lines are generated.
+    BigDecimal linearDepreciationValue = null;
     BigDecimal cumulativeValue = depreciationValue;
     LocalDate depreciationDate = fixedAsset.getFirstDepreciationDate();
     LocalDate acquisitionDate = fixedAsset.getAcquisitionDate();
@@ -58,7 +67,6 @@ public class FixedAssetServiceImpl implements FixedAssetService {
     boolean isProrataTemporis = fixedAsset.getFixedAssetCategory().getIsProrataTemporis();
     LocalDate endDate = depreciationDate.plusMonths(fixedAsset.getDurationInMonth());
     int counter = 1;
-    int scale = Beans.get(AppBaseService.class).getNbDecimalDigitForUnitPrice();
     numberOfDepreciation--;
 
     while (depreciationDate.isBefore(endDate)) {
@@ -85,7 +93,7 @@ public class FixedAssetServiceImpl implements FixedAssetService {
         continue;
       }
 
-      if (fixedAsset.getComputationMethodSelect().equals("degressive")) {
+      if (isDegressive) {
         if (counter > 2 && fixedAsset.getNumberOfDepreciation() > 3) {
           if (counter == 3) {
             int remainingYear = fixedAsset.getNumberOfDepreciation() - 3;
@@ -96,12 +104,21 @@ public class FixedAssetServiceImpl implements FixedAssetService {
           }
         } else {
           depreciationValue =
-              this.computeDepreciation(fixedAsset, fixedAssetLine.getResidualValue(), false);
+              this.computeDepreciation(
+                  fixedAsset,
+                  fixedAssetLine.getResidualValue(),
+                  false,
+                  depreciationFactor,
+                  scale);
         }
         depreciationDate = depreciationDate.plusMonths(fixedAsset.getPeriodicityInMonth());
       } else {
-        depreciationValue =
-            this.computeDepreciation(fixedAsset, fixedAsset.getResidualValue(), false);
+        if (linearDepreciationValue == null) {
+          linearDepreciationValue =
+              this.computeDepreciation(
+                  fixedAsset, fixedAsset.getResidualValue(), false, depreciationFactor, scale);
+        }
+        depreciationValue = linearDepreciationValue;
         depreciationDate = depreciationDate.plusMonths(fixedAsset.getPeriodicityInMonth());
       }
       depreciationValue = depreciationValue.setScale(scale, RoundingMode.HALF_EVEN);
@@ -112,12 +129,6 @@ public class FixedAssetServiceImpl implements FixedAssetService {
     return fixedAsset;
   }
 
-  private BigDecimal computeDepreciationValue(FixedAsset fixedAsset) {
-    BigDecimal depreciationValue = BigDecimal.ZERO;
-    depreciationValue = this.computeDepreciation(fixedAsset, fixedAsset.getGrossValue(), true);
-    return depreciationValue;
-  }
-
   private BigDecimal computeProrataTemporis(FixedAsset fixedAsset, boolean isFirstYear) {
     float prorataTemporis = 1;
     if (isFirstYear && fixedAsset.getFixedAssetCategory().getIsProrataTemporis()) {
@@ -133,25 +144,35 @@ public class FixedAssetServiceImpl implements FixedAssetService {
     return new BigDecimal(prorataTemporis);
   }
 
-  private BigDecimal computeDepreciation(
-      FixedAsset fixedAsset, BigDecimal residualValue, boolean isFirstYear) {
-
-    int scale = Beans.get(AppBaseService.class).getNbDecimalDigitForUnitPrice();
+  /**
+   * Compute the depreciation rate multiplied by the degressive coefficient, in percent. The
+   * product is exact so it can be reused for every line of the schedule.
+   */
+  private BigDecimal computeDepreciationFactor(FixedAsset fixedAsset) {
     int numberOfDepreciation =
         fixedAsset.getFixedAssetCategory().getIsProrataTemporis()
             ? fixedAsset.getNumberOfDepreciation() - 1
             : fixedAsset.getNumberOfDepreciation();
     float depreciationRate = 1f / numberOfDepreciation * 100f;
     BigDecimal ddRate = BigDecimal.ONE;
-    BigDecimal prorataTemporis = this.computeProrataTemporis(fixedAsset, isFirstYear);
     if (fixedAsset.getComputationMethodSelect().equals("degressive")) {
       ddRate = fixedAsset.getDegressiveCoef();
     }
-    return residualValue
-        .multiply(new BigDecimal(depreciationRate))
-        .multiply(ddRate)
-        .multiply(prorataTemporis)
-        .divide(new BigDecimal(100), scale);
+    return new BigDecimal(depreciationRate).multiply(ddRate);
+  }
+
+  private BigDecimal computeDepreciation(
+      FixedAsset fixedAsset,
+      BigDecimal residualValue,
+      boolean isFirstYear,
+      BigDecimal depreciationFactor,
+      int scale) {
+
+    BigDecimal depreciation = residualValue.multiply(depreciationFactor);
+    if (isFirstYear) {
+      depreciation = depreciation.multiply(this.computeProrataTemporis(fixedAsset, true));
+    }
+    return depreciation.divide(new BigDecimal(100), scale);
   }
 
   @Override
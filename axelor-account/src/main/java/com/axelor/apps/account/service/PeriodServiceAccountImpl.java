@@ -36,16 +36,19 @@ public class PeriodServiceAccountImpl extends PeriodServiceImpl {
 
   protected MoveValidateService moveValidateService;
   protected MoveRepository moveRepository;
+  protected AccountBalanceCubeService accountBalanceCubeService;
 
   @Inject
   public PeriodServiceAccountImpl(
       PeriodRepository periodRepo,
       AdjustHistoryService adjustHistoryService,
       MoveValidateService moveValidateService,
-      MoveRepository moveRepository) {
+      MoveRepository moveRepository,
+      AccountBalanceCubeService accountBalanceCubeService) {
     super(periodRepo, adjustHistoryService);
     this.moveValidateService = moveValidateService;
     this.moveRepository = moveRepository;
+    this.accountBalanceCubeService = accountBalanceCubeService;
   }
 
   @Transactional(rollbackOn = {AxelorException.class, Exception.class})
@@ -56,6 +59,21 @@ public class PeriodServiceAccountImpl extends PeriodServiceImpl {
     }
 
     super.close(period);
+
+    if (period.getYear().getTypeSelect() == YearRepository.TYPE_FISCAL) {
+      accountBalanceCubeService.computePeriod(period);
+    }
+  }
+
+  /** The account balances of an adjusted period are computed again when it is closed. */
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void adjust(Period period) {
+    super.adjust(period);
+
+    period = periodRepo.find(period.getId());
+    period.setAccountBalanceComputedOk(false);
+    periodRepo.save(period);
   }
 
   public List<Move> getMoveListToValidate(Period period) {
@@ -0,0 +1,214 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.service.move.MoveLineReconcileKey;
+import com.google.common.base.Strings;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory matching engine for mass lettering. Open move lines are gathered by {@link
+ * MoveLineReconcileKey}, then, inside each group, matched in three passes:
+ *
+ * <ol>
+ *   <li>same reference and same amount,
+ *   <li>same amount, oldest lines first,
+ *   <li>remaining amounts, debit and credit lines consumed by date (FIFO).
+ * </ol>
+ *
+ * This class works on light {@link OpenItem} objects only and does not access the database, the
+ * resulting {@link Match} list has to be persisted by {@link ReconcileMatchingService}.
+ */
+public class ReconcileMatcher {
+
+  protected static final Comparator<OpenItem> BY_DATE =
+      Comparator.comparing(
+              (OpenItem item) -> item.date, Comparator.nullsLast(Comparator.naturalOrder()))
+          .thenComparingLong(item -> item.id);
+
+  protected final Map<MoveLineReconcileKey, Group> groups = new LinkedHashMap<>();
+
+  public void add(MoveLineReconcileKey key, OpenItem item) {
+    Group group = groups.computeIfAbsent(key, k -> new Group());
+    if (item.debit) {
+      group.debits.add(item);
+    } else {
+      group.credits.add(item);
+    }
+  }
+
+  public int getGroupCount() {
+    return groups.size();
+  }
+
+  public List<Match> match() {
+    List<Match> matchList = new ArrayList<>();
+    for (Group group : groups.values()) {
+      if (!group.debits.isEmpty() && !group.credits.isEmpty()) {
+        group.match(matchList);
+      }
+    }
+    return matchList;
+  }
+
+  /** Debit and credit open lines sharing the same {@link MoveLineReconcileKey}. */
+  protected static class Group {
+
+    protected final List<OpenItem> debits = new ArrayList<>();
+    protected final List<OpenItem> credits = new ArrayList<>();
+
+    protected void match(List<Match> matchList) {
+      debits.sort(BY_DATE);
+      credits.sort(BY_DATE);
+
+      Map<BigDecimal, Deque<OpenItem>> creditsByAmount = new HashMap<>();
+      Map<String, List<OpenItem>> creditsByReference = new HashMap<>();
+      for (OpenItem credit : credits) {
+        creditsByAmount.computeIfAbsent(credit.amountKey(), k -> new ArrayDeque<>()).add(credit);
+        if (credit.reference != null) {
+          creditsByReference.computeIfAbsent(credit.reference, k -> new ArrayList<>()).add(credit);
+        }
+      }
+
+      // Same reference and same amount
+      if (!creditsByReference.isEmpty()) {
+        for (OpenItem debit : debits) {
+          if (debit.reference == null) {
+            continue;
+          }
+          List<OpenItem> candidates = creditsByReference.get(debit.reference);
+          if (candidates == null) {
+            continue;
+          }
+          for (OpenItem credit : candidates) {
+            if (!credit.isClosed() && credit.remaining.compareTo(debit.remaining) == 0) {
+              matchList.add(consume(debit, credit));
+              break;
+            }
+          }
+        }
+      }
+
+      // Same amount, oldest first
+      for (OpenItem debit : debits) {
+        if (debit.isClosed()) {
+          continue;
+        }
+        Deque<OpenItem> candidates = creditsByAmount.get(debit.amountKey());
+        if (candidates == null) {
+          continue;
+        }
+        while (!candidates.isEmpty() && candidates.peekFirst().isClosed()) {
+          candidates.pollFirst();
+        }
+        OpenItem credit = candidates.pollFirst();
+        if (credit != null) {
+          matchList.add(consume(debit, credit));
+        }
+      }
+
+      // Remaining amounts by date
+      int debitIndex = 0;
+      int creditIndex = 0;
+      while (true) {
+        debitIndex = nextOpen(debits, debitIndex);
+        creditIndex = nextOpen(credits, creditIndex);
+        if (debitIndex >= debits.size() || creditIndex >= credits.size()) {
+          break;
+        }
+        matchList.add(consume(debits.get(debitIndex), credits.get(creditIndex)));
+      }
+    }
+
+    protected int nextOpen(List<OpenItem> items, int index) {
+      while (index < items.size() && items.get(index).isClosed()) {
+        index++;
+      }
+      return index;
+    }
+
+    protected Match consume(OpenItem debit, OpenItem credit) {
+      BigDecimal amount = debit.remaining.min(credit.remaining);
+      debit.remaining = debit.remaining.subtract(amount);
+      credit.remaining = credit.remaining.subtract(amount);
+      return new Match(debit.id, credit.id, amount);
+    }
+  }
+
+  /** Light representation of an open move line. */
+  public static class OpenItem {
+
+    protected final long id;
+    protected final boolean debit;
+    protected final LocalDate date;
+    protected final String reference;
+    protected BigDecimal remaining;
+
+    public OpenItem(
+        long id, boolean debit, LocalDate date, String reference, BigDecimal amountRemaining) {
+      this.id = id;
+      this.debit = debit;
+      this.date = date;
+      this.reference = Strings.isNullOrEmpty(reference) ? null : reference.trim();
+      this.remaining = amountRemaining;
+    }
+
+    protected boolean isClosed() {
+      return remaining.signum() <= 0;
+    }
+
+    protected BigDecimal amountKey() {
+      return remaining.signum() == 0 ? BigDecimal.ZERO : remaining.stripTrailingZeros();
+    }
+  }
+
+  /** A reconciliation to create between two move lines. */
+  public static class Match {
+
+    protected final long debitMoveLineId;
+    protected final long creditMoveLineId;
+    protected final BigDecimal amount;
+
+    public Match(long debitMoveLineId, long creditMoveLineId, BigDecimal amount) {
+      this.debitMoveLineId = debitMoveLineId;
+      this.creditMoveLineId = creditMoveLineId;
+      this.amount = amount;
+    }
+
+    public long getDebitMoveLineId() {
+      return debitMoveLineId;
+    }
+
+    public long getCreditMoveLineId() {
+      return creditMoveLineId;
+    }
+
+    public BigDecimal getAmount() {
+      return amount;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.db.Reconcile;
+import com.axelor.apps.account.service.ReconcileMatcher.Match;
+import com.axelor.apps.base.db.Company;
+import com.axelor.exception.AxelorException;
+import com.google.inject.persist.Transactional;
+import java.util.List;
+
+public interface ReconcileMatchingService {
+
+  /** Number of open move lines loaded per query. */
+  int FETCH_SIZE = 5000;
+
+  /** Number of reconciles created and confirmed in the same transaction. */
+  int CHUNK_SIZE = 200;
+
+  /**
+   * Load every open reconcilable move line of the company and compute the reconciliations to do
+   * with a {@link ReconcileMatcher}.
+   *
+   * @param company the company of the move lines.
+   * @return the list of reconciliations to create.
+   */
+  List<Match> findMatches(Company company);
+
+  /**
+   * Create and confirm the reconciles of the given chunk in a single transaction.
+   *
+   * @param matchList a chunk of matches, at most {@link #CHUNK_SIZE} are expected.
+   * @return the number of confirmed reconciles.
+   * @throws AxelorException if one of the reconciles cannot be confirmed, in which case the whole
+   *     chunk is rolled back.
+   */
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  int reconcile(List<Match> matchList) throws AxelorException;
+
+  /**
+   * Create and confirm the reconcile of a single match in its own transaction.
+   *
+   * @param match a match computed by {@link #findMatches(Company)}.
+   * @return the confirmed reconcile or null if the move lines are no longer open.
+   * @throws AxelorException
+   */
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  Reconcile reconcile(Match match) throws AxelorException;
+}
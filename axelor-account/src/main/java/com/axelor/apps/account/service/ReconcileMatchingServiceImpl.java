@@ -0,0 +1,147 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.Reconcile;
+import com.axelor.apps.account.db.repo.MoveLineRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.service.ReconcileMatcher.Match;
+import com.axelor.apps.account.service.ReconcileMatcher.OpenItem;
+import com.axelor.apps.account.service.move.MoveLineReconcileKey;
+import com.axelor.apps.base.db.Company;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import javax.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ReconcileMatchingServiceImpl implements ReconcileMatchingService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected static final String OPEN_MOVE_LINE_QUERY =
+      "SELECT self.id, self.account.id, partner.id, self.debit, self.amountRemaining, "
+          + "self.date, self.origin "
+          + "FROM MoveLine self LEFT JOIN self.partner partner "
+          + "WHERE self.move.company = :company "
+          + "AND self.move.statusSelect IN (:statusDaybook, :statusValidated) "
+          + "AND self.account.reconcileOk = true "
+          + "AND self.amountRemaining > 0 "
+          + "AND self.id > :lastId "
+          + "ORDER BY self.id";
+
+  protected MoveLineRepository moveLineRepository;
+  protected ReconcileService reconcileService;
+
+  @Inject
+  public ReconcileMatchingServiceImpl(
+      MoveLineRepository moveLineRepository, ReconcileService reconcileService) {
+    this.moveLineRepository = moveLineRepository;
+    this.reconcileService = reconcileService;
+  }
+
+  @Override
+  public List<Match> findMatches(Company company) {
+    long startTime = System.currentTimeMillis();
+    ReconcileMatcher matcher = new ReconcileMatcher();
+
+    TypedQuery<Object[]> query = JPA.em().createQuery(OPEN_MOVE_LINE_QUERY, Object[].class);
+    query.setParameter("company", company);
+    query.setParameter("statusDaybook", MoveRepository.STATUS_DAYBOOK);
+    query.setParameter("statusValidated", MoveRepository.STATUS_VALIDATED);
+    query.setMaxResults(FETCH_SIZE);
+
+    long lastId = 0L;
+    int openItemCount = 0;
+    List<Object[]> rows;
+    do {
+      query.setParameter("lastId", lastId);
+      rows = query.getResultList();
+      for (Object[] row : rows) {
+        lastId = (Long) row[0];
+        BigDecimal debit = (BigDecimal) row[3];
+        matcher.add(
+            new MoveLineReconcileKey(company.getId(), (Long) row[1], (Long) row[2]),
+            new OpenItem(
+                lastId,
+                debit.signum() > 0,
+                (LocalDate) row[5],
+                (String) row[6],
+                (BigDecimal) row[4]));
+      }
+      openItemCount += rows.size();
+    } while (rows.size() == FETCH_SIZE);
+
+    List<Match> matchList = matcher.match();
+
+    log.debug(
+        "Reconcile matching : {} open move lines in {} groups, {} matches found in {} ms",
+        openItemCount,
+        matcher.getGroupCount(),
+        matchList.size(),
+        System.currentTimeMillis() - startTime);
+
+    return matchList;
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public int reconcile(List<Match> matchList) throws AxelorException {
+    int count = 0;
+    for (Match match : matchList) {
+      if (reconcile(match) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public Reconcile reconcile(Match match) throws AxelorException {
+    MoveLine debitMoveLine = moveLineRepository.find(match.getDebitMoveLineId());
+    MoveLine creditMoveLine = moveLineRepository.find(match.getCreditMoveLineId());
+    if (debitMoveLine == null || creditMoveLine == null) {
+      return null;
+    }
+
+    // Amounts may have changed since the matches were computed.
+    BigDecimal amount =
+        match
+            .getAmount()
+            .min(debitMoveLine.getAmountRemaining())
+            .min(creditMoveLine.getAmountRemaining());
+    if (amount.signum() <= 0) {
+      return null;
+    }
+
+    Reconcile reconcile =
+        reconcileService.createReconcile(debitMoveLine, creditMoveLine, amount, false);
+    if (reconcile == null) {
+      return null;
+    }
+    return reconcileService.confirmReconcile(reconcile, true);
+  }
+}
@@ -35,6 +35,7 @@ import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.apps.base.db.repo.PeriodRepository;
 import com.axelor.apps.base.db.repo.YearRepository;
 import com.axelor.apps.base.service.AdjustHistoryService;
+import com.axelor.apps.base.service.PeriodService;
 import com.axelor.apps.base.service.YearServiceImpl;
 import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
@@ -60,6 +61,8 @@ public class YearServiceAccountImpl extends YearServiceImpl {
   protected ReportedBalanceLineRepository reportedBalanceLineRepo;
   protected AdjustHistoryService adjustHistoryService;
   protected PartnerRepository partnerRepository;
+  protected PeriodService periodService;
+  protected AccountBalanceCubeService accountBalanceCubeService;
 
   @Inject
   public YearServiceAccountImpl(
@@ -67,12 +70,16 @@ public class YearServiceAccountImpl extends YearServiceImpl {
       PartnerRepository partnerRepository,
       ReportedBalanceLineRepository reportedBalanceLineRepo,
       YearRepository yearRepo,
-      AdjustHistoryService adjustHistoryService) {
+      AdjustHistoryService adjustHistoryService,
+      PeriodService periodService,
+      AccountBalanceCubeService accountBalanceCubeService) {
     super(yearRepo);
     this.accountConfigService = accountConfigService;
     this.partnerRepository = partnerRepository;
     this.reportedBalanceLineRepo = reportedBalanceLineRepo;
     this.adjustHistoryService = adjustHistoryService;
+    this.periodService = periodService;
+    this.accountBalanceCubeService = accountBalanceCubeService;
   }
 
   /**
@@ -86,12 +93,7 @@ public class YearServiceAccountImpl extends YearServiceImpl {
     year = yearRepo.find(year.getId());
 
     for (Period period : year.getPeriodList()) {
-      if (period.getStatusSelect() == PeriodRepository.STATUS_ADJUSTING) {
-        adjustHistoryService.setEndDate(period);
-      }
-
-      period.setStatusSelect(PeriodRepository.STATUS_CLOSED);
-      period.setClosureDateTime(LocalDateTime.now());
+      closePeriod(period);
     }
     Company company = year.getCompany();
     if (company == null) {
@@ -170,6 +172,22 @@ public class YearServiceAccountImpl extends YearServiceImpl {
     yearRepo.save(year);
   }
 
+  /**
+   * Close a period of the year like a period closed on its own, so that its moves are validated and
+   * its account balances computed. The balances of a period already closed are only computed if
+   * they are missing.
+   *
+   * @param period a period of the year to close
+   */
+  protected void closePeriod(Period period) {
+    if (period.getStatusSelect() != PeriodRepository.STATUS_CLOSED) {
+      periodService.close(period);
+    } else if (period.getYear().getTypeSelect() == YearRepository.TYPE_FISCAL
+        && !period.getAccountBalanceComputedOk()) {
+      accountBalanceCubeService.computePeriod(period);
+    }
+  }
+
   /**
    * Procédure permettant de rectifier un exercice comptable
    *
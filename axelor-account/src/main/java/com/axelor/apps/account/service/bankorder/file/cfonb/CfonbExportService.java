@@ -36,20 +36,23 @@ import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.service.PartnerService;
 import com.axelor.apps.tool.StringTool;
 import com.axelor.apps.tool.file.FileTool;
+import com.axelor.apps.tool.file.FixedWidthRecordLayout;
+import com.axelor.apps.tool.file.FixedWidthWriter;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.google.inject.Inject;
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class CfonbExportService {
 
@@ -86,6 +89,92 @@ public class CfonbExportService {
     this.sepa = sepa;
   }
 
+  /** Enregistrement 'émetteur' d'un virement de remboursements */
+  protected static final FixedWidthRecordLayout TRANSFER_SENDER_LAYOUT =
+      FixedWidthRecordLayout.builder()
+          .numeric("a", 2) // Code enregistrement
+          .numeric("b1", 2) // Code opération
+          .filler(8) // Zone réservée
+          .alphaNumeric("b3", 6) // Numéro d'émetteur
+          .filler(1) // Code CCD
+          .filler(6) // Zone réservée
+          .numeric("c1", 5) // Date d'échéance
+          .alphaNumeric("c2", 24) // Nom/Raison sociale du donneur d'ordre
+          .filler(7) // Référence de la remise
+          .filler(17) // Zone réservée
+          .filler(2) // Zone réservée
+          .alphaNumeric("d2", 1) // Code monnaie
+          .filler(5) // Zone réservée
+          .numeric("d3", 5) // Code guichet de la banque du donneur d'ordre
+          .alphaNumeric("d4", 11) // Numéro de compte du donneur d’ordre
+          .filler(16) // Identifiant du donneur d'ordre
+          .filler(31) // Zone réservée
+          .numeric("g1", 5) // Code établissement de la banque du donneur d'ordre
+          .filler(6) // Zone réservée
+          .build();
+
+  /** Enregistrement 'émetteur' d'un prélèvement */
+  protected static final FixedWidthRecordLayout DIRECT_DEBIT_SENDER_LAYOUT =
+      FixedWidthRecordLayout.builder()
+          .numeric("a", 2) // Code enregistrement
+          .numeric("b1", 2) // Code opération
+          .filler(8) // Zone réservée
+          .alphaNumeric("b3", 6) // Numéro d'émetteur
+          .filler(7) // Zone réservée
+          .numeric("c1", 5) // Date d'échéance
+          .alphaNumeric("c2", 24) // Nom/Raison sociale du donneur d'ordre
+          .filler(7) // Référence de la remise
+          .filler(17) // Zone réservée
+          .filler(8) // Zone réservée
+          .numeric("d3", 5) // Code guichet de la banque du donneur d'ordre
+          .alphaNumeric("d4", 11) // Numéro de compte du donneur d’ordre
+          .filler(16) // Zone réservée
+          .filler(31) // Zone réservée
+          .numeric("g1", 5) // Code établissement de la banque du donneur d'ordre
+          .filler(6) // Zone réservée
+          .build();
+
+  /** Enregistrement 'destinataire' */
+  protected static final FixedWidthRecordLayout RECIPIENT_LAYOUT =
+      FixedWidthRecordLayout.builder()
+          .numeric("a", 2) // Code enregistrement
+          .numeric("b1", 2) // Code opération
+          .filler(8) // Zone réservée
+          .alphaNumeric("b3", 6) // Numéro d'émetteur
+          .alphaNumeric("c1", 12) // Référence
+          .alphaNumeric("c2", 24) // Nom/Raison sociale du bénéficiaire
+          .alphaNumeric("d1", 24) // Domiciliation
+          .filler(8) // Déclaration de la balance des paiement
+          .numeric("d3", 5) // Code guichet de la banque du bénéficiaire / du débiteur
+          .alphaNumeric("d4", 11) // Numéro de compte du bénéficiaire / du débiteur
+          .numeric("e", 16) // Montant
+          .alphaNumeric("f", 31) // Libellé
+          .numeric("g1", 5) // Code établissement de la banque du bénéficiaire / du débiteur
+          .filler(6) // Zone réservée
+          .build();
+
+  /** Enregistrement 'total' */
+  protected static final FixedWidthRecordLayout TOTAL_LAYOUT =
+      FixedWidthRecordLayout.builder()
+          .numeric("a", 2) // Code enregistrement
+          .numeric("b1", 2) // Code opération
+          .filler(8) // Zone réservée
+          .alphaNumeric("b3", 6) // Numéro d'émetteur
+          .filler(12) // Zone réservée
+          .filler(24) // Zone réservée
+          .filler(24) // Zone réservée
+          .filler(8) // Zone réservée
+          .filler(5) // Zone réservée
+          .filler(11) // Zone réservée
+          .numeric("e", 16) // Montant de la remise
+          .filler(31) // Zone réservée
+          .filler(5) // Zone réservée
+          .filler(6) // Zone réservée
+          .build();
+
+  protected static final String TRANSFER_FILE_PREFIX = "virement";
+  protected static final String DIRECT_DEBIT_FILE_PREFIX = "prelevement";
+
   /**
    * ************************************** Export CFONB
    * ****************************************************
@@ -113,26 +202,23 @@ public class CfonbExportService {
     // 		un enregistrement destinataire (code 06)
     // 		un enregistrement total (code 08)
 
-    String senderCFONB = this.createSenderReimbursementCFONB(datetime, bankDetails);
-    List<String> multiRecipientCFONB = new ArrayList<String>();
-    for (Reimbursement reimbursement : reimbursementList) {
-      reimbursement = reimbursementRepo.find(reimbursement.getId());
-
-      multiRecipientCFONB.add(this.createRecipientCFONB(reimbursement));
-    }
-    String totalCFONB =
-        this.createReimbursementTotalCFONB(
-            this.getTotalAmountReimbursementExport(reimbursementList));
+    this.exportCFONBFile(
+        datetime,
+        cfonbConfigService.getAccountConfig(company).getReimbursementExportFolderPathCFONB(),
+        TRANSFER_FILE_PREFIX,
+        writer -> {
+          this.writeSenderReimbursementCFONB(writer, datetime, bankDetails);
 
-    //		cfonbToolService.testLength(senderCFONB, totalCFONB, multiRecipientCFONB, company);
+          BigDecimal totalAmount = BigDecimal.ZERO;
+          for (Reimbursement reimbursement : reimbursementList) {
+            reimbursement = reimbursementRepo.find(reimbursement.getId());
 
-    //		List<String> cFONB = this.createCFONBExport(senderCFONB, multiRecipientCFONB, totalCFONB);
+            this.writeRecipientCFONB(writer, reimbursement);
+            totalAmount = totalAmount.add(reimbursement.getAmountReimbursed());
+          }
 
-    // Mise en majuscule des enregistrement
-    //		cFONB = this.toUpperCase(cFONB);
-
-    //		this.createCFONBFile(cFONB, datetime,
-    // company.getAccountConfig().getReimbursementExportFolderPathCFONB(), "virement");
+          this.writeReimbursementTotalCFONB(writer, totalAmount);
+        });
   }
 
   /**
@@ -162,38 +248,18 @@ public class CfonbExportService {
     // 		un enregistrement destinataire (code 06)
     // 		un enregistrement total (code 08)
 
-    String senderCFONB = this.createSenderMonthlyExportCFONB(scheduleDate, bankDetails);
-    List<String> multiRecipientCFONB = new ArrayList<String>();
+    this.exportCFONBFile(
+        processingDateTime,
+        cfonbConfigService.getAccountConfig(company).getPaymentScheduleExportFolderPathCFONB(),
+        DIRECT_DEBIT_FILE_PREFIX,
+        writer -> {
+          this.writeSenderMonthlyExportCFONB(writer, scheduleDate, bankDetails);
 
-    List<DirectDebitManagement> directDebitManagementList = new ArrayList<DirectDebitManagement>();
-    for (PaymentScheduleLine paymentScheduleLine : paymentScheduleLineList) {
-      paymentScheduleLine = paymentScheduleLineRepo.find(paymentScheduleLine.getId());
-      if (paymentScheduleLine.getDirectDebitManagement() == null) {
-        multiRecipientCFONB.add(this.createRecipientCFONB(paymentScheduleLine, true));
-      } else {
-        if (!directDebitManagementList.contains(paymentScheduleLine.getDirectDebitManagement())) {
-          directDebitManagementList.add(paymentScheduleLine.getDirectDebitManagement());
-        }
-      }
-    }
-
-    for (DirectDebitManagement directDebitManagement : directDebitManagementList) {
-      multiRecipientCFONB.add(this.createRecipientCFONB(directDebitManagement, false));
-    }
-
-    String totalCFONB =
-        this.createPaymentScheduleTotalCFONB(
-            company, this.getTotalAmountPaymentSchedule(paymentScheduleLineList));
+          BigDecimal totalAmount =
+              this.writePaymentScheduleRecipientsCFONB(writer, paymentScheduleLineList, true);
 
-    //		cfonbToolService.testLength(senderCFONB, totalCFONB, multiRecipientCFONB, company);
-
-    //		List<String> cFONB = this.createCFONBExport(senderCFONB, multiRecipientCFONB, totalCFONB);
-
-    // Mise en majuscule des enregistrement
-    //		cFONB = this.toUpperCase(cFONB);
-
-    //		this.createCFONBFile(cFONB, processingDateTime,
-    // company.getAccountConfig().getPaymentScheduleExportFolderPathCFONB(), "prelevement");
+          this.writePaymentScheduleTotalCFONB(writer, totalAmount);
+        });
   }
 
   /**
@@ -224,39 +290,17 @@ public class CfonbExportService {
     // 		un enregistrement destinataire (code 06)
     // 		un enregistrement total (code 08)
 
-    String senderCFONB = this.createSenderMonthlyExportCFONB(scheduleDate, bankDetails);
-    List<String> multiRecipientCFONB = new ArrayList<String>();
+    this.exportCFONBFile(
+        processingDateTime,
+        cfonbConfigService.getAccountConfig(company).getPaymentScheduleExportFolderPathCFONB(),
+        DIRECT_DEBIT_FILE_PREFIX,
+        writer -> {
+          this.writeSenderMonthlyExportCFONB(writer, scheduleDate, bankDetails);
 
-    List<DirectDebitManagement> directDebitManagementList = new ArrayList<DirectDebitManagement>();
+          BigDecimal totalAmount = this.writeInvoiceRecipientsCFONB(writer, company, invoiceList);
 
-    for (Invoice invoice : invoiceList) {
-      invoice = invoiceRepo.find(invoice.getId());
-      if (invoice.getDirectDebitManagement() == null) {
-        multiRecipientCFONB.add(this.createRecipientCFONB(company, invoice));
-      } else {
-        if (!directDebitManagementList.contains(invoice.getDirectDebitManagement())) {
-          directDebitManagementList.add(invoice.getDirectDebitManagement());
-        }
-      }
-    }
-
-    for (DirectDebitManagement directDebitManagement : directDebitManagementList) {
-      multiRecipientCFONB.add(this.createRecipientCFONB(directDebitManagement, true));
-    }
-
-    BigDecimal amount = this.getTotalAmountInvoice(invoiceList);
-
-    String totalCFONB = this.createPaymentScheduleTotalCFONB(company, amount);
-
-    //		cfonbToolService.testLength(senderCFONB, totalCFONB, multiRecipientCFONB, company);
-
-    //		List<String> cFONB = this.createCFONBExport(senderCFONB, multiRecipientCFONB, totalCFONB);
-
-    // Mise en majuscule des enregistrement
-    //		cFONB = this.toUpperCase(cFONB);
-
-    //		this.createCFONBFile(cFONB, processingDateTime,
-    // company.getAccountConfig().getPaymentScheduleExportFolderPathCFONB(), "prelevement");
+          this.writePaymentScheduleTotalCFONB(writer, totalAmount);
+        });
   }
 
   /**
@@ -290,205 +334,175 @@ public class CfonbExportService {
     // 		un enregistrement destinataire (code 06)
     // 		un enregistrement total (code 08)
 
-    String senderCFONB = this.createSenderMonthlyExportCFONB(scheduleDate, bankDetails);
-    List<String> multiRecipientCFONB = new ArrayList<String>();
+    this.exportCFONBFile(
+        processingDateTime,
+        cfonbConfigService.getAccountConfig(company).getPaymentScheduleExportFolderPathCFONB(),
+        DIRECT_DEBIT_FILE_PREFIX,
+        writer -> {
+          this.writeSenderMonthlyExportCFONB(writer, scheduleDate, bankDetails);
+
+          // Echéanciers
+          BigDecimal totalAmount =
+              this.writePaymentScheduleRecipientsCFONB(writer, paymentScheduleLineList, false);
+
+          // Factures
+          totalAmount =
+              totalAmount.add(this.writeInvoiceRecipientsCFONB(writer, company, invoiceList));
+
+          this.writePaymentScheduleTotalCFONB(writer, totalAmount);
+        });
+  }
+
+  /**
+   * Procédure permettant d'écrire les enregistrements 'destinataire' d'une liste d'échéances, les
+   * échéances d'un même objet de gestion de prélèvement étant regroupées
+   *
+   * @param writer Le fichier CFONB
+   * @param paymentScheduleLineList Une liste d'échéances
+   * @param mensu
+   * @return Le montant total à prélever
+   * @throws AxelorException
+   * @throws IOException
+   */
+  private BigDecimal writePaymentScheduleRecipientsCFONB(
+      FixedWidthWriter writer, List<PaymentScheduleLine> paymentScheduleLineList, boolean mensu)
+      throws AxelorException, IOException {
+
+    if (paymentScheduleLineList == null) {
+      return BigDecimal.ZERO;
+    }
+
+    BigDecimal totalAmount = BigDecimal.ZERO;
+    Set<DirectDebitManagement> directDebitManagementSet = new LinkedHashSet<>();
 
-    // Echéanciers
-    List<DirectDebitManagement> directDebitManagementList = new ArrayList<DirectDebitManagement>();
     for (PaymentScheduleLine paymentScheduleLine : paymentScheduleLineList) {
       paymentScheduleLine = paymentScheduleLineRepo.find(paymentScheduleLine.getId());
       if (paymentScheduleLine.getDirectDebitManagement() == null) {
-        multiRecipientCFONB.add(this.createRecipientCFONB(paymentScheduleLine, false));
+        this.writeRecipientCFONB(writer, paymentScheduleLine, mensu);
       } else {
-        if (!directDebitManagementList.contains(paymentScheduleLine.getDirectDebitManagement())) {
-          directDebitManagementList.add(paymentScheduleLine.getDirectDebitManagement());
-        }
+        directDebitManagementSet.add(paymentScheduleLine.getDirectDebitManagement());
       }
+      totalAmount = totalAmount.add(paymentScheduleLine.getDirectDebitAmount());
     }
 
-    for (DirectDebitManagement directDebitManagement : directDebitManagementList) {
-      multiRecipientCFONB.add(this.createRecipientCFONB(directDebitManagement, false));
+    for (DirectDebitManagement directDebitManagement : directDebitManagementSet) {
+      this.writeRecipientCFONB(writer, directDebitManagement, false);
     }
 
-    // Factures
-    directDebitManagementList = new ArrayList<DirectDebitManagement>();
+    return totalAmount;
+  }
+
+  /**
+   * Procédure permettant d'écrire les enregistrements 'destinataire' d'une liste de factures, les
+   * factures d'un même objet de gestion de prélèvement étant regroupées
+   *
+   * @param writer Le fichier CFONB
+   * @param company Une société
+   * @param invoiceList Une liste de factures
+   * @return Le montant total à prélever
+   * @throws AxelorException
+   * @throws IOException
+   */
+  private BigDecimal writeInvoiceRecipientsCFONB(
+      FixedWidthWriter writer, Company company, List<Invoice> invoiceList)
+      throws AxelorException, IOException {
+
+    if (invoiceList == null) {
+      return BigDecimal.ZERO;
+    }
+
+    BigDecimal totalAmount = BigDecimal.ZERO;
+    Set<DirectDebitManagement> directDebitManagementSet = new LinkedHashSet<>();
+
     for (Invoice invoice : invoiceList) {
       invoice = invoiceRepo.find(invoice.getId());
       if (invoice.getDirectDebitManagement() == null) {
-        multiRecipientCFONB.add(this.createRecipientCFONB(company, invoice));
+        this.writeRecipientCFONB(writer, company, invoice);
       } else {
-        if (!directDebitManagementList.contains(invoice.getDirectDebitManagement())) {
-          directDebitManagementList.add(invoice.getDirectDebitManagement());
-        }
+        directDebitManagementSet.add(invoice.getDirectDebitManagement());
       }
+      totalAmount = totalAmount.add(invoice.getDirectDebitAmount());
     }
 
-    for (DirectDebitManagement directDebitManagement : directDebitManagementList) {
-      multiRecipientCFONB.add(this.createRecipientCFONB(directDebitManagement, true));
+    for (DirectDebitManagement directDebitManagement : directDebitManagementSet) {
+      this.writeRecipientCFONB(writer, directDebitManagement, true);
     }
 
-    BigDecimal amount =
-        this.getTotalAmountPaymentSchedule(paymentScheduleLineList)
-            .add(this.getTotalAmountInvoice(invoiceList));
-
-    String totalCFONB = this.createPaymentScheduleTotalCFONB(company, amount);
-
-    //		cfonbToolService.testLength(senderCFONB, totalCFONB, multiRecipientCFONB, company);
-
-    //		List<String> cFONB = this.createCFONBExport(senderCFONB, multiRecipientCFONB, totalCFONB);
-
-    // Mise en majuscule des enregistrement
-    //		cFONB = this.toUpperCase(cFONB);
-
-    //		this.createCFONBFile(cFONB, processingDateTime,
-    // company.getAccountConfig().getPaymentScheduleExportFolderPathCFONB(), "prelevement");
+    return totalAmount;
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'émetteur' pour un virement des remboursements
+   * Fonction permettant d'écrire un enregistrement 'émetteur' pour un virement des remboursements
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param ZonedDateTime Une heure
-   * @return Un enregistrement 'emetteur'
-   * @throws AxelorException
+   * @param bankDetails Le RIB du donneur d'ordre
+   * @throws IOException
    */
-  private String createSenderReimbursementCFONB(
-      ZonedDateTime zonedDateTime, BankDetails bankDetails) throws AxelorException {
-
-    DateFormat ddmmFormat = new SimpleDateFormat("ddMM");
-    String date = ddmmFormat.format(zonedDateTime.toLocalDate());
-    date +=
-        String.format("%s", StringTool.truncLeft(String.format("%s", zonedDateTime.getYear()), 1));
-
-    // Récupération des valeurs
-    String a = this.cfonbConfig.getSenderRecordCodeExportCFONB(); // Code enregistrement
-    String b1 = this.cfonbConfig.getTransferOperationCodeExportCFONB(); // Code opération
-    String b2 = ""; // Zone réservée
-    String b3 = this.cfonbConfig.getSenderNumExportCFONB(); // Numéro d'émetteur
-    String c1One = ""; // Code CCD
-    String c1Two = ""; // Zone réservée
-    String c1Three = date; // Date d'échéance
-    String c2 =
-        this.cfonbConfig.getSenderNameCodeExportCFONB(); // Nom/Raison sociale du donneur d'ordre
-    String d1One = ""; // Référence de la remise
-    String d1Two = ""; // Zone réservée
-    String d2One = ""; // Zone réservée
-    String d2Two = "E"; // Code monnaie
-    String d2Three = ""; // Zone réservée
-    String d3 = bankDetails.getSortCode(); // Code guichet de la banque du donneur d'ordre
-    String d4 = bankDetails.getAccountNbr(); // Numéro de compte du donneur d’ordre
-    String e = ""; // Identifiant du donneur d'ordre
-    String f = ""; // Zone réservée
-    String g1 = bankDetails.getBankCode(); // Code établissement de la banque du donneur d'ordre
-    String g2 = ""; // Zone réservée
-
-    // Tronquage / remplissage à droite (chaine de caractère)
-    b2 = StringTool.fillStringRight(b2, ' ', 8);
-    b3 = StringTool.fillStringRight(b3, ' ', 6);
-    c1One = StringTool.fillStringRight(c1One, ' ', 1);
-    c1Two = StringTool.fillStringRight(c1Two, ' ', 6);
-    c2 = StringTool.fillStringRight(c2, ' ', 24);
-    d1One = StringTool.fillStringRight(d1One, ' ', 7);
-    d1Two = StringTool.fillStringRight(d1Two, ' ', 17);
-    d2One = StringTool.fillStringRight(d2One, ' ', 2);
-    d2Three = StringTool.fillStringRight(d2Three, ' ', 5);
-    d4 = StringTool.fillStringRight(d4, ' ', 11);
-    e = StringTool.fillStringRight(e, ' ', 16);
-    f = StringTool.fillStringRight(f, ' ', 31);
-    g2 = StringTool.fillStringRight(g2, ' ', 6);
-
-    // Tronquage / remplissage à gauche (nombre)
-    a = StringTool.fillStringLeft(a, '0', 2);
-    b1 = StringTool.fillStringLeft(b1, '0', 2);
-    c1Three = StringTool.fillStringLeft(c1Three, '0', 5);
-    d3 = StringTool.fillStringLeft(d3, '0', 5);
-    g1 = StringTool.fillStringLeft(g1, '0', 5);
-
-    // Vérification AN / N / A
-    //		cfonbToolService.testDigital(a, "");
-    //		cfonbToolService.testDigital(b1, "");
-    //		cfonbToolService.testDigital(d3, "");
-    //		cfonbToolService.testDigital(g1, "");
-
-    // création de l'enregistrement
-    return a + b1 + b2 + b3 + c1One + c1Two + c1Three + c2 + d1One + d1Two + d2One + d2Two + d2Three
-        + d3 + d4 + e + f + g1 + g2;
+  private void writeSenderReimbursementCFONB(
+      FixedWidthWriter writer, ZonedDateTime zonedDateTime, BankDetails bankDetails)
+      throws IOException {
+
+    writer.write(
+        TRANSFER_SENDER_LAYOUT,
+        this.cfonbConfig.getSenderRecordCodeExportCFONB(),
+        this.cfonbConfig.getTransferOperationCodeExportCFONB(),
+        this.cfonbConfig.getSenderNumExportCFONB(),
+        this.getDueDate(zonedDateTime.toLocalDate()),
+        this.toCFONB(this.cfonbConfig.getSenderNameCodeExportCFONB()),
+        "E",
+        bankDetails.getSortCode(),
+        bankDetails.getAccountNbr(),
+        bankDetails.getBankCode());
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'émetteur' pour un export de prélèvement de
+   * Fonction permettant d'écrire un enregistrement 'émetteur' pour un export de prélèvement de
    * mensu
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param localDate Une date
-   * @return Un enregistrement 'emetteur'
-   * @throws AxelorException
+   * @param bankDetails Le RIB du donneur d'ordre
+   * @throws IOException
    */
-  private String createSenderMonthlyExportCFONB(LocalDate localDate, BankDetails bankDetails)
-      throws AxelorException {
+  private void writeSenderMonthlyExportCFONB(
+      FixedWidthWriter writer, LocalDate localDate, BankDetails bankDetails) throws IOException {
+
+    writer.write(
+        DIRECT_DEBIT_SENDER_LAYOUT,
+        this.cfonbConfig.getSenderRecordCodeExportCFONB(),
+        this.cfonbConfig.getDirectDebitOperationCodeExportCFONB(),
+        this.cfonbConfig.getSenderNumExportCFONB(),
+        this.getDueDate(localDate),
+        this.toCFONB(this.cfonbConfig.getSenderNameCodeExportCFONB()),
+        bankDetails.getSortCode(),
+        bankDetails.getAccountNbr(),
+        bankDetails.getBankCode());
+  }
+
+  /**
+   * Date d'échéance au format JJMMA
+   *
+   * @param localDate Une date
+   * @return La date formatée
+   */
+  private String getDueDate(LocalDate localDate) {
 
-    DateFormat ddmmFormat = new SimpleDateFormat("ddMM");
-    String date = ddmmFormat.format(localDate.atTime(LocalTime.now()).toLocalDate());
-    date += String.format("%s", StringTool.truncLeft(String.format("%s", localDate.getYear()), 1));
-
-    // Récupération des valeurs
-    String a = this.cfonbConfig.getSenderRecordCodeExportCFONB(); // Code enregistrement
-    String b1 = this.cfonbConfig.getDirectDebitOperationCodeExportCFONB(); // Code opération
-    String b2 = ""; // Zone réservée
-    String b3 = this.cfonbConfig.getSenderNumExportCFONB(); // Numéro d'émetteur
-    String c1One = ""; // Zone réservée
-    String c1Two = date; // Date d'échéance
-    String c2 =
-        this.cfonbConfig.getSenderNameCodeExportCFONB(); // Nom/Raison sociale du donneur d'ordre
-    String d1One = ""; // Référence de la remise
-    String d1Two = ""; // Zone réservée
-    String d2 = ""; // Zone réservée
-    String d3 = bankDetails.getSortCode(); // Code guichet de la banque du donneur d'ordre
-    String d4 = bankDetails.getAccountNbr(); // Numéro de compte du donneur d’ordre
-    String e = ""; // Zone réservée
-    String f = ""; // Zone réservée
-    String g1 = bankDetails.getBankCode(); // Code établissement de la banque du donneur d'ordre
-    String g2 = ""; // Zone réservée
-
-    // Tronquage / remplissage à droite (chaine de caractère)
-    b2 = StringTool.fillStringRight(b2, ' ', 8);
-    b3 = StringTool.fillStringRight(b3, ' ', 6);
-    c1One = StringTool.fillStringRight(c1One, ' ', 7);
-    c2 = StringTool.fillStringRight(c2, ' ', 24);
-    d1One = StringTool.fillStringRight(d1One, ' ', 7);
-    d1Two = StringTool.fillStringRight(d1Two, ' ', 17);
-    d2 = StringTool.fillStringRight(d2, ' ', 8);
-    d4 = StringTool.fillStringRight(d4, ' ', 11);
-    e = StringTool.fillStringRight(e, ' ', 16);
-    f = StringTool.fillStringRight(f, ' ', 31);
-    g2 = StringTool.fillStringRight(g2, ' ', 6);
-
-    // Tronquage / remplissage à gauche (nombre)
-    a = StringTool.fillStringLeft(a, '0', 2);
-    b1 = StringTool.fillStringLeft(b1, '0', 2);
-    c1Two = StringTool.fillStringLeft(c1Two, '0', 5);
-    d3 = StringTool.fillStringLeft(d3, '0', 5);
-    g1 = StringTool.fillStringLeft(g1, '0', 5);
-
-    // Vérification AN / N / A
-    //		cfonbToolService.testDigital(a, "");
-    //		cfonbToolService.testDigital(b1, "");
-    //		cfonbToolService.testDigital(d3, "");
-    //		cfonbToolService.testDigital(g1, "");
-
-    // création de l'enregistrement
-    return a + b1 + b2 + b3 + c1One + c1Two + c2 + d1One + d1Two + d2 + d3 + d4 + e + f + g1 + g2;
+    return localDate.format(DateTimeFormatter.ofPattern("ddMM"))
+        + StringTool.truncLeft(String.format("%s", localDate.getYear()), 1);
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'destinataire' pour un virement de remboursement
+   * Fonction permettant d'écrire un enregistrement 'destinataire' pour un virement de
+   * remboursement
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param reimbursement Un remboursement
-   * @return Un enregistrement 'destinataire'
    * @throws AxelorException
+   * @throws IOException
    */
-  private String createRecipientCFONB(Reimbursement reimbursement) throws AxelorException {
+  private void writeRecipientCFONB(FixedWidthWriter writer, Reimbursement reimbursement)
+      throws AxelorException, IOException {
     BankDetails bankDetails = reimbursement.getBankDetails();
 
     if (bankDetails == null) {
@@ -506,20 +520,21 @@ public class CfonbExportService {
         this.getPayeurPartnerName(reimbursement.getPartner()); // Nom/Raison sociale du bénéficiaire
     String operationCode = this.cfonbConfig.getTransferOperationCodeExportCFONB(); // Code opération
 
-    return this.createRecipientCFONB(amount, ref, partner, bankDetails, operationCode);
+    this.writeRecipientCFONB(writer, amount, ref, partner, bankDetails, operationCode);
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'destinataire' pour un export de prélèvement
+   * Fonction permettant d'écrire un enregistrement 'destinataire' pour un export de prélèvement
    * d'une échéance
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param paymentScheduleLine Une échéance
-   * @return Un enregistrement 'destinataire'
    * @throws AxelorException
+   * @throws IOException
    */
-  private String createRecipientCFONB(PaymentScheduleLine paymentScheduleLine, boolean mensu)
-      throws AxelorException {
+  private void writeRecipientCFONB(
+      FixedWidthWriter writer, PaymentScheduleLine paymentScheduleLine, boolean mensu)
+      throws AxelorException, IOException {
     PaymentSchedule paymentSchedule = paymentScheduleLine.getPaymentSchedule();
     Partner partner = paymentSchedule.getPartner();
     BankDetails bankDetails =
@@ -532,20 +547,22 @@ public class CfonbExportService {
     String operationCode =
         this.cfonbConfig.getDirectDebitOperationCodeExportCFONB(); // Code opération
 
-    return this.createRecipientCFONB(amount, ref, partnerName, bankDetails, operationCode);
+    this.writeRecipientCFONB(writer, amount, ref, partnerName, bankDetails, operationCode);
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'destinataire' pour un export de prélèvement de
+   * Fonction permettant d'écrire un enregistrement 'destinataire' pour un export de prélèvement de
    * plusieurs échéances par le biais d'un objet de gestion de prélèvement
    *
-   * @param company Une société
-   * @param paymentScheduleLine Une échéance
-   * @return Un enregistrement 'destinataire'
+   * @param writer Le fichier CFONB
+   * @param directDebitManagement Un objet de gestion de prélèvement
+   * @param isForInvoice
    * @throws AxelorException
+   * @throws IOException
    */
-  private String createRecipientCFONB(
-      DirectDebitManagement directDebitManagement, boolean isForInvoice) throws AxelorException {
+  private void writeRecipientCFONB(
+      FixedWidthWriter writer, DirectDebitManagement directDebitManagement, boolean isForInvoice)
+      throws AxelorException, IOException {
     BankDetails bankDetails = null;
     String partnerName = "";
     if (isForInvoice) {
@@ -577,7 +594,7 @@ public class CfonbExportService {
     String operationCode =
         this.cfonbConfig.getDirectDebitOperationCodeExportCFONB(); // Code opération
 
-    return this.createRecipientCFONB(amount, ref, partnerName, bankDetails, operationCode);
+    this.writeRecipientCFONB(writer, amount, ref, partnerName, bankDetails, operationCode);
   }
 
   private BigDecimal getAmount(DirectDebitManagement directDebitManagement, boolean isForInvoice) {
@@ -598,15 +615,17 @@ public class CfonbExportService {
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'destinataire' pour un export de prélèvement
+   * Fonction permettant d'écrire un enregistrement 'destinataire' pour un export de prélèvement
    * d'une facture
    *
+   * @param writer Le fichier CFONB
    * @param company Une société
-   * @param moveLine L' écriture d'export des prélèvement d'une facture
-   * @return Un enregistrement 'destinataire'
+   * @param invoice Une facture
    * @throws AxelorException
+   * @throws IOException
    */
-  private String createRecipientCFONB(Company company, Invoice invoice) throws AxelorException {
+  private void writeRecipientCFONB(FixedWidthWriter writer, Company company, Invoice invoice)
+      throws AxelorException, IOException {
     Partner partner = invoice.getPartner();
     BankDetails bankDetails = partnerService.getDefaultBankDetails(partner);
     if (bankDetails == null) {
@@ -624,170 +643,137 @@ public class CfonbExportService {
     String operationCode =
         this.cfonbConfig.getDirectDebitOperationCodeExportCFONB(); // Code opération
 
-    return this.createRecipientCFONB(amount, ref, partnerName, bankDetails, operationCode);
+    this.writeRecipientCFONB(writer, amount, ref, partnerName, bankDetails, operationCode);
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'destinataire'
+   * Fonction permettant d'écrire un enregistrement 'destinataire'
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param amount Le montant de l'enregistrement
    * @param ref Une référence de prélèvement
-   * @param label Un libellé
    * @param partner Un tiers payeur
    * @param bankDetails Un RIB
    * @param operationCode Le code d'opération défini par société
-   * @return L'enregistrement 'destinataire'
    * @throws AxelorException
+   * @throws IOException
    */
-  private String createRecipientCFONB(
-      BigDecimal amount, String ref, String partner, BankDetails bankDetails, String operationCode)
-      throws AxelorException {
+  private void writeRecipientCFONB(
+      FixedWidthWriter writer,
+      BigDecimal amount,
+      String ref,
+      String partner,
+      BankDetails bankDetails,
+      String operationCode)
+      throws AxelorException, IOException {
     this.testBankDetailsField(bankDetails);
 
-    String amountFixed = amount.setScale(2).toString().replace(".", "");
-
-    // Récupération des valeurs
-    String a = this.cfonbConfig.getRecipientRecordCodeExportCFONB(); // Code enregistrement
-    String b1 = operationCode; // Code opération
-    String b2 = ""; // Zone réservée
-    String b3 = this.cfonbConfig.getSenderNumExportCFONB(); // Numéro d'émetteur
-    String c1 = ref; // Référence
-    String c2 = partner; // Nom/Raison sociale du bénéficiaire
-    String d1 = bankDetails.getBankAddress().getAddress(); // Domiciliation
-    String d2 = ""; // Déclaration de la balance des paiement
-    String d3 =
-        bankDetails.getSortCode(); // Code guichet de la banque du donneur d'ordre / du débiteur
-    String d4 = bankDetails.getAccountNbr(); // Numéro de compte du bénéficiaire / du débiteur
-    String e = amountFixed; // Montant du virement
-    String f = ref; // Libellé
-    String g1 =
-        bankDetails
-            .getBankCode(); // Code établissement de la banque du donneur d'ordre / du débiteur
-    String g2 = ""; // Zone réservée
-
-    // Tronquage / remplissage à droite (chaine de caractère)
-    b2 = StringTool.fillStringRight(b2, ' ', 8);
-    b3 = StringTool.fillStringRight(b3, ' ', 6);
-    c1 = StringTool.fillStringRight(c1, ' ', 12);
-    c2 = StringTool.fillStringRight(c2, ' ', 24);
-    d1 = StringTool.fillStringRight(d1, ' ', 24);
-    d2 = StringTool.fillStringRight(d2, ' ', 8);
-    d4 = StringTool.fillStringRight(d4, ' ', 11);
-    f = StringTool.fillStringRight(f, ' ', 31);
-    g2 = StringTool.fillStringRight(g2, ' ', 6);
-
-    // Tronquage / remplissage à gauche (nombre)
-    a = StringTool.fillStringLeft(a, '0', 2);
-    b1 = StringTool.fillStringLeft(b1, '0', 2);
-    d3 = StringTool.fillStringLeft(d3, '0', 5);
-    e = StringTool.fillStringLeft(e, '0', 16);
-    g1 = StringTool.fillStringLeft(g1, '0', 5);
-
-    return a + b1 + b2 + b3 + c1 + c2 + d1 + d2 + d3 + d4 + e + f + g1 + g2;
+    writer.write(
+        RECIPIENT_LAYOUT,
+        this.cfonbConfig.getRecipientRecordCodeExportCFONB(),
+        operationCode,
+        this.cfonbConfig.getSenderNumExportCFONB(),
+        this.toCFONB(ref),
+        this.toCFONB(partner),
+        this.toCFONB(bankDetails.getBankAddress().getAddress()),
+        bankDetails.getSortCode(),
+        bankDetails.getAccountNbr(),
+        this.normalizeAmount(amount),
+        this.toCFONB(ref),
+        bankDetails.getBankCode());
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'total' au format CFONB pour un remboursement
+   * Fonction permettant d'écrire un enregistrement 'total' au format CFONB pour un remboursement
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param amount Le montant total des enregistrements 'destinataire'
-   * @return
+   * @throws IOException
    */
-  private String createReimbursementTotalCFONB(BigDecimal amount) {
+  private void writeReimbursementTotalCFONB(FixedWidthWriter writer, BigDecimal amount)
+      throws IOException {
 
     // Code opération
     String operationCode = this.cfonbConfig.getTransferOperationCodeExportCFONB();
 
-    return this.createTotalCFONB(amount, operationCode);
+    this.writeTotalCFONB(writer, amount, operationCode);
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'total' au format CFONB pour un échéancier
+   * Fonction permettant d'écrire un enregistrement 'total' au format CFONB pour un échéancier
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param amount Le montant total des enregistrements 'destinataire'
-   * @return L'enregistrement 'total'
+   * @throws IOException
    */
-  private String createPaymentScheduleTotalCFONB(Company company, BigDecimal amount) {
+  private void writePaymentScheduleTotalCFONB(FixedWidthWriter writer, BigDecimal amount)
+      throws IOException {
 
     // Code opération
     String operationCode = this.cfonbConfig.getDirectDebitOperationCodeExportCFONB();
 
-    return this.createTotalCFONB(amount, operationCode);
+    this.writeTotalCFONB(writer, amount, operationCode);
   }
 
   /**
-   * Fonction permettant de créer un enregistrement 'total' au format CFONB
+   * Fonction permettant d'écrire un enregistrement 'total' au format CFONB
    *
-   * @param company Une société
+   * @param writer Le fichier CFONB
    * @param amount Le montant total des enregistrements 'destinataire'
-   * @param operationCode Le type d'opération :
-   *     <ul>
-   *       <li>0 = Virement
-   *       <li>1 = Prélèvement
-   *     </ul>
+   * @param operationCode Le code d'opération défini par société
+   * @throws IOException
+   */
+  private void writeTotalCFONB(FixedWidthWriter writer, BigDecimal amount, String operationCode)
+      throws IOException {
+
+    writer.write(
+        TOTAL_LAYOUT,
+        this.cfonbConfig.getTotalRecordCodeExportCFONB(),
+        operationCode,
+        this.cfonbConfig.getSenderNumExportCFONB(),
+        this.normalizeAmount(amount));
+  }
+
+  private String normalizeAmount(BigDecimal amount) {
+
+    return amount.setScale(2).toString().replace(".", "");
+  }
+
+  /**
+   * Mise en majuscule et sans accent d'une zone alphanumérique
    *
-   * @return L'enregistrement 'total'
+   * @param value La valeur de la zone
+   * @return La valeur nettoyée
    */
-  private String createTotalCFONB(BigDecimal amount, String operationCode) {
-    String totalAmount = amount.setScale(2).toString().replace(".", "");
-
-    // Récupération des valeurs
-    String a = this.cfonbConfig.getTotalRecordCodeExportCFONB(); // Code enregistrement
-    String b1 = operationCode; // Code opération
-    String b2 = ""; // Zone réservée
-    String b3 = this.cfonbConfig.getSenderNumExportCFONB(); // Numéro d'émetteur
-    String c1 = ""; // Zone réservée
-    String c2 = ""; // Zone réservée
-    String d1 = ""; // Zone réservée
-    String d2 = ""; // Zone réservée
-    String d3 = ""; // Zone réservée
-    String d4 = ""; // Zone réservée
-    String e = totalAmount; // Montant de la remise
-    String f = ""; // Zone réservée
-    String g1 = ""; // Zone réservée
-    String g2 = ""; // Zone réservée
-
-    // Tronquage / remplissage à droite (chaine de caractère)
-    b2 = StringTool.fillStringRight(b2, ' ', 8);
-    b3 = StringTool.fillStringRight(b3, ' ', 6);
-    c1 = StringTool.fillStringRight(c1, ' ', 12);
-    c2 = StringTool.fillStringRight(c2, ' ', 24);
-    d1 = StringTool.fillStringRight(d1, ' ', 24);
-    d2 = StringTool.fillStringRight(d2, ' ', 8);
-    d3 = StringTool.fillStringRight(d3, ' ', 5);
-    d4 = StringTool.fillStringRight(d4, ' ', 11);
-    f = StringTool.fillStringRight(f, ' ', 31);
-    g1 = StringTool.fillStringRight(g1, ' ', 5);
-    g2 = StringTool.fillStringRight(g2, ' ', 6);
-
-    // Tronquage / remplissage à gauche (nombre)
-    a = StringTool.fillStringLeft(a, '0', 2);
-    b1 = StringTool.fillStringLeft(b1, '0', 2);
-    e = StringTool.fillStringLeft(e, '0', 16);
-
-    return a + b1 + b2 + b3 + c1 + c2 + d1 + d2 + d3 + d4 + e + f + g1 + g2;
+  private String toCFONB(String value) {
+
+    return value == null ? null : StringTool.deleteAccent(value.toUpperCase());
   }
 
   /**
-   * Procédure permettant de créer un fichier CFONB au format .dat
+   * Procédure permettant de créer un fichier CFONB au format .dat, les enregistrements étant écrits
+   * au fur et à mesure. Le fichier est supprimé en cas d'erreur.
    *
-   * @param cFONB Le contenu du fichier, des enregistrements CFONB
    * @param ZonedDateTime La date permettant de déterminer le nom du fichier créé
    * @param destinationFolder Le répertoire de destination
    * @param prefix Le préfix utilisé
+   * @param content Ecrit les enregistrements du fichier
    * @throws AxelorException
    */
-  private void createCFONBFile(
-      List<String> cFONB, ZonedDateTime zonedDateTime, String destinationFolder, String prefix)
+  protected void exportCFONBFile(
+      ZonedDateTime zonedDateTime, String destinationFolder, String prefix, CfonbContent content)
       throws AxelorException {
-    DateFormat yyyyMMddHHmmssFormat = new SimpleDateFormat("yyyyMMddHHmmss");
-    String dateFileName = yyyyMMddHHmmssFormat.format(zonedDateTime);
+    String dateFileName = zonedDateTime.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
     String fileName = String.format("%s%s.dat", prefix, dateFileName);
 
+    File file = null;
+    boolean done = false;
     try {
-      FileTool.writer(destinationFolder, fileName, cFONB);
+      file = FileTool.create(destinationFolder, fileName);
+      try (FixedWidthWriter writer = new FixedWidthWriter(new FileWriter(file))) {
+        content.write(writer);
+      }
+      done = true;
     } catch (IOException e) {
       throw new AxelorException(
           e.getCause(),
@@ -795,9 +781,19 @@ public class CfonbExportService {
           I18n.get(IExceptionMessage.CFONB_EXPORT_2),
           I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
           e);
+    } finally {
+      if (!done && file != null) {
+        file.delete();
+      }
     }
   }
 
+  @FunctionalInterface
+  protected interface CfonbContent {
+
+    void write(FixedWidthWriter writer) throws AxelorException, IOException;
+  }
+
   /**
    * Méthode permettant de construire le Nom/Raison sociale du tiers payeur d'un mémoire
    *
@@ -813,57 +809,6 @@ public class CfonbExportService {
     }
   }
 
-  /**
-   * Méthode permettant de calculer le montant total des remboursements
-   *
-   * @param reimbursementList Une liste de remboursement
-   * @return Le montant total
-   */
-  private BigDecimal getTotalAmountReimbursementExport(List<Reimbursement> reimbursementList) {
-    BigDecimal totalAmount = BigDecimal.ZERO;
-    for (Reimbursement reimbursement : reimbursementList) {
-      reimbursement = reimbursementRepo.find(reimbursement.getId());
-      totalAmount = totalAmount.add(reimbursement.getAmountReimbursed());
-    }
-    return totalAmount;
-  }
-
-  /**
-   * Fonction permettant de récupérer le montant total à prélever d'une liste d'échéance de mensu
-   *
-   * @param paymentScheduleLineList Une liste d'échéance de mensu
-   * @return Le montant total à prélever
-   */
-  private BigDecimal getTotalAmountPaymentSchedule(
-      List<PaymentScheduleLine> paymentScheduleLineList) {
-    BigDecimal totalAmount = BigDecimal.ZERO;
-
-    for (PaymentScheduleLine paymentScheduleLine : paymentScheduleLineList) {
-
-      totalAmount =
-          totalAmount.add(
-              paymentScheduleLineRepo.find(paymentScheduleLine.getId()).getDirectDebitAmount());
-    }
-    return totalAmount;
-  }
-
-  /**
-   * Fonction permettant de récupérer le montant total à prélever d'une liste d'échéance de mensu
-   *
-   * @param paymentScheduleLineList Une liste d'échéance de mensu
-   * @return Le montant total à prélever
-   */
-  private BigDecimal getTotalAmountInvoice(List<Invoice> invoiceList) {
-    BigDecimal totalAmount = BigDecimal.ZERO;
-
-    for (Invoice invoice : invoiceList) {
-
-      totalAmount = totalAmount.add(invoiceRepo.find(invoice.getId()).getDirectDebitAmount());
-    }
-
-    return totalAmount;
-  }
-
   /**
    * Procédure permettant de vérifier la conformité des champs en rapport avec les exports CFONB
    * d'une société
@@ -22,17 +22,20 @@ import com.axelor.apps.account.exception.IExceptionMessage;
 import com.axelor.apps.account.service.app.AppAccountService;
 import com.axelor.apps.account.service.config.CfonbConfigService;
 import com.axelor.apps.base.db.Company;
-import com.axelor.apps.tool.file.FileTool;
+import com.axelor.apps.tool.file.FixedWidthReader;
+import com.axelor.apps.tool.file.FixedWidthRecordLayout;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
+import java.io.FileReader;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,8 +46,27 @@ public class CfonbImportService {
   protected CfonbConfigService cfonbConfigService;
   protected AppAccountService appAccountService;
 
+  /**
+   * Zones lues des enregistrements d'un fichier de rejets, communes aux enregistrements en-tête,
+   * détail et fin
+   */
+  protected static final FixedWidthRecordLayout RECORD_LAYOUT =
+      FixedWidthRecordLayout.builder()
+          .alphaNumeric("recordCode", 2) // Code enregistrement
+          .alphaNumeric("operationCode", 2) // Code opération
+          .filler(4)
+          .alphaNumeric("senderOperationCode", 2) // Code opération d'un enregistrement émetteur
+          .alphaNumeric("headerDate", 6) // Date de l'en-tête
+          .filler(136)
+          .alphaNumeric("reference", 31) // Ref prélèvement ou remboursement
+          .filler(31)
+          .alphaNumeric("rejectDate", 6) // Date de rejet
+          .filler(6)
+          .alphaNumeric("rejectReason", 2) // Motif du rejet
+          .numeric("amount", 12) // Montant
+          .build();
+
   protected CfonbConfig cfonbConfig;
-  protected List<String> importFile;
 
   @Inject
   public CfonbImportService(
@@ -119,68 +141,15 @@ public class CfonbImportService {
       String fileName, Company company, int operation, int optionalOperation)
       throws AxelorException, IOException {
 
-    //		un enregistrement "en-tête" (code 31)
-    // 		un enregistrement "détail" (code 34)
-    // 		un enregistrement "fin" (code 39)
-
-    this.testCompanyImportCFONBField(company);
-
-    this.importFile = FileTool.reader(fileName);
-
-    if (appAccountService.getAppAccount().getTransferAndDirectDebitInterbankCode() == null) {
-      throw new AxelorException(
-          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-          I18n.get(IExceptionMessage.CFONB_IMPORT_1),
-          I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION));
-    }
-
-    String headerCFONB = null;
-    List<String> multiDetailsCFONB = null;
-    String endingCFONB = null;
     List<String[]> importDataList = new ArrayList<String[]>();
 
-    // Pour chaque sequence, on récupère les enregistrements, et on les vérifie.
-    // Ensuite on supprime les lignes traitées du fichier chargé en mémoire
-    // Et on recommence l'opération jusqu'à ne plus avoir de ligne à traiter
-    while (this.importFile != null && this.importFile.size() != 0) {
-      headerCFONB = this.getHeaderCFONB(this.importFile, operation, optionalOperation);
-      if (headerCFONB == null) {
-        throw new AxelorException(
-            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-            I18n.get(IExceptionMessage.CFONB_IMPORT_2),
-            I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
-            fileName);
-      }
-      this.importFile.remove(headerCFONB);
-
-      multiDetailsCFONB = this.getDetailsCFONB(this.importFile, operation, optionalOperation);
-      if (multiDetailsCFONB.isEmpty()) {
-        throw new AxelorException(
-            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-            I18n.get(IExceptionMessage.CFONB_IMPORT_3),
-            I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
-            fileName);
-      }
-      for (String detail : multiDetailsCFONB) {
-        this.importFile.remove(detail);
-      }
-
-      endingCFONB = this.getEndingCFONB(this.importFile, operation, optionalOperation);
-      if (endingCFONB == null) {
-        throw new AxelorException(
-            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-            I18n.get(IExceptionMessage.CFONB_IMPORT_4),
-            I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
-            fileName);
-      }
-      this.importFile.remove(endingCFONB);
-
-      this.testLength(headerCFONB, multiDetailsCFONB, endingCFONB, company);
+    this.importCFONB(
+        fileName,
+        company,
+        operation,
+        optionalOperation,
+        (lotDataList, headerDate) -> importDataList.addAll(lotDataList));
 
-      importDataList.addAll(
-          this.getDetailDataAndCheckAmount(
-              operation, headerCFONB, multiDetailsCFONB, endingCFONB, fileName));
-    }
     return importDataList;
   }
 
@@ -203,14 +172,43 @@ public class CfonbImportService {
       String fileName, Company company, int operation, int optionalOperation)
       throws AxelorException, IOException {
 
+    Map<List<String[]>, String> importDataList = new HashMap<List<String[]>, String>();
+
+    this.importCFONB(fileName, company, operation, optionalOperation, importDataList::put);
+
+    return importDataList;
+  }
+
+  /**
+   * Lecture du fichier enregistrement par enregistrement, chaque lot étant contrôlé puis transmis
+   * dès sa lecture terminée
+   *
+   * @param fileName
+   * @param company
+   * @param operation Le type d'opération :
+   *     <ul>
+   *       <li>0 = Virement
+   *       <li>1 = Prélèvement
+   *     </ul>
+   *
+   * @param lotConsumer Reçoit les infos de rejet et la date de l'en-tête de chaque lot
+   * @throws AxelorException
+   * @throws IOException
+   */
+  protected void importCFONB(
+      String fileName,
+      Company company,
+      int operation,
+      int optionalOperation,
+      BiConsumer<List<String[]>, String> lotConsumer)
+      throws AxelorException, IOException {
+
     //		un enregistrement "en-tête" (code 31)
     // 		un enregistrement "détail" (code 34)
     // 		un enregistrement "fin" (code 39)
 
     this.testCompanyImportCFONBField(company);
 
-    this.importFile = FileTool.reader(fileName);
-
     if (appAccountService.getAppAccount().getTransferAndDirectDebitInterbankCode() == null) {
       throw new AxelorException(
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
@@ -218,101 +216,133 @@ public class CfonbImportService {
           I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION));
     }
 
-    String headerCFONB = null;
-    List<String> multiDetailsCFONB = null;
-    String endingCFONB = null;
-    Map<List<String[]>, String> importDataList = new HashMap<List<String[]>, String>();
+    RecordMatcher headerMatcher =
+        new RecordMatcher(
+            this.getHeaderRecordCode(operation),
+            this.getHeaderRecordCode(optionalOperation),
+            operation,
+            optionalOperation);
+    RecordMatcher detailMatcher =
+        new RecordMatcher(
+            this.getDetailRecordCode(operation),
+            this.getDetailRecordCode(optionalOperation),
+            operation,
+            optionalOperation);
+    RecordMatcher endingMatcher =
+        new RecordMatcher(
+            this.getEndingRecordCode(operation),
+            this.getEndingRecordCode(optionalOperation),
+            operation,
+            optionalOperation);
+
+    // Seuls les virements et prélèvements ont des infos de rejet à récupérer
+    boolean readDetails = operation == 0 || operation == 1;
+
+    try (FixedWidthReader reader = new FixedWidthReader(new FileReader(fileName))) {
+
+      // Pour chaque sequence, on lit l'en-tête, les détails puis la fin, et on les vérifie.
+      // On recommence l'opération jusqu'à la fin du fichier
+      while (reader.hasNext()) {
+        String headerCFONB = reader.next();
+        if (!headerMatcher.matches(headerCFONB)) {
+          throw new AxelorException(
+              TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+              I18n.get(IExceptionMessage.CFONB_IMPORT_2),
+              I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
+              fileName);
+        }
 
-    // Pour chaque sequence, on récupère les enregistrements, et on les vérifie.
-    // Ensuite on supprime les lignes traitées du fichier chargé en mémoire
-    // Et on recommence l'opération jusqu'à ne plus avoir de ligne à traiter
-    while (this.importFile != null && this.importFile.size() != 0) {
-      headerCFONB = this.getHeaderCFONB(this.importFile, operation, optionalOperation);
-      if (headerCFONB == null) {
-        throw new AxelorException(
-            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-            I18n.get(IExceptionMessage.CFONB_IMPORT_2),
-            I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
-            fileName);
-      }
-      this.importFile.remove(headerCFONB);
-
-      multiDetailsCFONB = this.getDetailsCFONB(this.importFile, operation, optionalOperation);
-      if (multiDetailsCFONB.isEmpty()) {
-        throw new AxelorException(
-            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-            I18n.get(IExceptionMessage.CFONB_IMPORT_3),
-            I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
-            fileName);
-      }
-      for (String detail : multiDetailsCFONB) {
-        this.importFile.remove(detail);
-      }
+        List<String[]> lotDataList = new ArrayList<String[]>();
+        int detailCount = 0;
+        long totalAmount = 0;
+        while (reader.hasNext() && detailMatcher.matches(reader.peek())) {
+          String detailCFONB = reader.next();
+          detailCount++;
+          if (readDetails) {
+            lotDataList.add(this.getDetailData(detailCFONB));
+            totalAmount += this.getAmount(detailCFONB);
+          }
+        }
+        if (detailCount == 0) {
+          throw new AxelorException(
+              TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+              I18n.get(IExceptionMessage.CFONB_IMPORT_3),
+              I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
+              fileName);
+        }
 
-      endingCFONB = this.getEndingCFONB(this.importFile, operation, optionalOperation);
-      if (endingCFONB == null) {
-        throw new AxelorException(
-            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-            I18n.get(IExceptionMessage.CFONB_IMPORT_4),
-            I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
-            fileName);
-      }
-      this.importFile.remove(endingCFONB);
+        String endingCFONB = reader.next();
+        if (endingCFONB == null || !endingMatcher.matches(endingCFONB)) {
+          throw new AxelorException(
+              TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+              I18n.get(IExceptionMessage.CFONB_IMPORT_4),
+              I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.EXCEPTION),
+              fileName);
+        }
 
-      this.testLength(headerCFONB, multiDetailsCFONB, endingCFONB, company);
+        if (readDetails) {
+          this.checkTotalAmount(totalAmount, endingCFONB, fileName);
+        }
 
-      importDataList.put(
-          this.getDetailDataAndCheckAmount(
-              operation, headerCFONB, multiDetailsCFONB, endingCFONB, fileName),
-          this.getHeaderDate(headerCFONB));
+        lotConsumer.accept(lotDataList, this.getHeaderDate(headerCFONB));
+      }
     }
-    return importDataList;
   }
 
-  private List<String[]> getDetailDataAndCheckAmount(
-      int operation,
-      String headerCFONB,
-      List<String> multiDetailsCFONB,
-      String endingCFONB,
-      String fileName)
-      throws AxelorException {
-    List<String[]> importDataList = new ArrayList<String[]>();
-    switch (operation) {
-      case 0:
-        for (String detailCFONB : multiDetailsCFONB) {
-          importDataList.add(this.getDetailData(detailCFONB));
-        }
-        this.checkTotalAmount(multiDetailsCFONB, endingCFONB, fileName, 228, 240);
-        break;
-      case 1:
-        for (String detailCFONB : multiDetailsCFONB) {
-          importDataList.add(this.getDetailData(detailCFONB));
-        }
-        this.checkTotalAmount(multiDetailsCFONB, endingCFONB, fileName, 228, 240);
-        break;
-      default:
-        break;
+  /**
+   * Reconnaissance d'un type d'enregistrement à partir de ses codes enregistrement et opération
+   */
+  private class RecordMatcher {
+
+    private final String recordCode;
+    private final String optionalRecordCode;
+    private final String operationCode;
+    private final String optionalOperationCode;
+    private final boolean checkSenderOperationCode;
+
+    private RecordMatcher(
+        String recordCode, String optionalRecordCode, int operation, int optionalOperation) {
+      this.recordCode = recordCode;
+      this.optionalRecordCode = optionalRecordCode;
+      this.operationCode = getImportOperationCode(operation);
+      this.optionalOperationCode = getImportOperationCode(optionalOperation);
+      this.checkSenderOperationCode = optionalOperation == 999;
+
+      log.debug(
+          "Obtention enregistrement CFONB: recordCode = {}, operationCode = {}, optionalRecordCode = {}, optionalOperationCode = {}",
+          recordCode,
+          operationCode,
+          optionalRecordCode,
+          optionalOperationCode);
+    }
+
+    private boolean matches(String record) {
+      String code = RECORD_LAYOUT.read(record, "recordCode");
+      if (!code.equals(recordCode) && !code.equals(optionalRecordCode)) {
+        return false;
+      }
+
+      String recordOperationCode = RECORD_LAYOUT.read(record, "operationCode");
+      return (checkSenderOperationCode
+              && RECORD_LAYOUT.read(record, "senderOperationCode").equals(operationCode))
+          || recordOperationCode.equals(operationCode)
+          || recordOperationCode.equals(optionalOperationCode);
     }
-    return importDataList;
   }
 
-  private void checkTotalAmount(
-      List<String> multiDetailsCFONB,
-      String endingCFONB,
-      String fileName,
-      int amountPosStart,
-      int amountPosEnd)
+  private long getAmount(String detailCFONB) {
+    return Long.parseLong(RECORD_LAYOUT.getField("amount").read(detailCFONB));
+  }
+
+  private void checkTotalAmount(long totalAmount, String endingCFONB, String fileName)
       throws AxelorException {
-    int totalAmount = 0;
-    for (String detailCFONB : multiDetailsCFONB) {
-      totalAmount += Integer.parseInt(detailCFONB.substring(amountPosStart, amountPosEnd));
-    }
 
-    int totalRecord = Integer.parseInt(endingCFONB.substring(amountPosStart, amountPosEnd));
+    long totalRecord = this.getAmount(endingCFONB);
 
     log.debug(
         "Controle du montant total des enregistrement détail ({}) et du montant de l'enregistrement total ({})",
-        new Object[] {totalAmount, totalRecord});
+        totalAmount,
+        totalRecord);
 
     if (totalAmount != totalRecord) {
       throw new AxelorException(
@@ -324,16 +354,6 @@ public class CfonbImportService {
     }
   }
 
-  private void testLength(
-      String headerCFONB, List<String> multiDetailsCFONB, String endingCFONB, Company company)
-      throws AxelorException {
-    //		cfonbToolService.testLength(headerCFONB, 240);
-    //		cfonbToolService.testLength(endingCFONB, 240);
-    //		for(String detailCFONB : multiDetailsCFONB)  {
-    //			cfonbToolService.testLength(detailCFONB, 240);
-    //		}
-  }
-
   /**
    * Fonction permettant de récupérer les infos de rejet d'un prélèvement ou virement
    *
@@ -344,14 +364,17 @@ public class CfonbImportService {
     String[] detailData = new String[4];
     log.debug("detailCFONB : {}", detailCFONB);
 
-    detailData[0] = detailCFONB.substring(214, 220); // Date de rejet
+    String amount = RECORD_LAYOUT.getField("amount").read(detailCFONB);
+
+    detailData[0] = RECORD_LAYOUT.getField("rejectDate").read(detailCFONB); // Date de rejet
     detailData[1] =
-        detailCFONB.substring(152, 183).split("/")[0].trim(); // Ref prélèvement ou remboursement
-    detailData[2] =
-        detailCFONB.substring(228, 240).substring(0, 10)
-            + "."
-            + detailCFONB.substring(228, 240).substring(10); // Montant rejeté
-    detailData[3] = detailCFONB.substring(226, 228); // Motif du rejet
+        RECORD_LAYOUT
+            .getField("reference")
+            .read(detailCFONB)
+            .split("/")[0]
+            .trim(); // Ref prélèvement ou remboursement
+    detailData[2] = amount.substring(0, 10) + "." + amount.substring(10); // Montant rejeté
+    detailData[3] = RECORD_LAYOUT.getField("rejectReason").read(detailCFONB); // Motif du rejet
 
     log.debug(
         "Obtention des données d'un enregistrement détail CFONB: Date de rejet = {}, Ref prélèvement = {}, Montant rejeté = {}, Motif du rejet = {}",
@@ -368,7 +391,7 @@ public class CfonbImportService {
    * @return Les infos de rejet d'un prélèvement ou virement
    */
   private String getHeaderDate(String headerCFONB) {
-    return headerCFONB.substring(10, 16);
+    return RECORD_LAYOUT.getField("headerDate").read(headerCFONB);
   }
 
   /**
@@ -389,45 +412,6 @@ public class CfonbImportService {
     cfonbConfigService.getDirectDebitOperationCodeImportCFONB(this.cfonbConfig);
   }
 
-  /**
-   * @param file
-   * @param company
-   * @param operation Le type d'opération :
-   *     <ul>
-   *       <li>0 = Virement
-   *       <li>1 = Prélèvement
-   *     </ul>
-   *
-   * @return
-   */
-  private String getHeaderCFONB(List<String> file, int operation, int optionalOperation) {
-    String recordCode = this.getHeaderRecordCode(operation);
-    String optionalRecordCode = this.getHeaderRecordCode(optionalOperation);
-    String operationCode = this.getImportOperationCode(operation);
-    String optionalOperationCode = this.getImportOperationCode(optionalOperation);
-
-    log.debug(
-        "Obtention enregistrement en-tête CFONB: recordCode = {}, operationCode = {}, optionalRecordCode = {}, optionalOperationCode = {}",
-        new Object[] {recordCode, operationCode, optionalRecordCode, optionalOperationCode});
-
-    for (String s : file) {
-      log.debug("file line : {}", s);
-      log.debug("s.substring(0, 2) : {}", s.substring(0, 2));
-      if (s.substring(0, 2).equals(recordCode) || s.substring(0, 2).equals(optionalRecordCode)) {
-        log.debug("s.substring(8, 10) : {}", s.substring(8, 10));
-        log.debug("s.substring(2, 4) : {}", s.substring(2, 4));
-        if ((s.substring(8, 10).equals(operationCode) && optionalOperation == 999)
-            || s.substring(2, 4).equals(operationCode)
-            || s.substring(2, 4).equals(optionalOperationCode)) {
-          return s;
-        }
-      } else {
-        break;
-      }
-    }
-    return null;
-  }
-
   /**
    * Fonction permettant de récupérer le code d'enregistrement en-tête
    *
@@ -449,44 +433,6 @@ public class CfonbImportService {
     return "999";
   }
 
-  /**
-   * @param file
-   * @param company
-   * @param operation Le type d'opération :
-   *     <ul>
-   *       <li>0 = Virement
-   *       <li>1 = Prélèvement
-   *     </ul>
-   *
-   * @return
-   */
-  private List<String> getDetailsCFONB(List<String> file, int operation, int optionalOperation) {
-
-    List<String> stringList = new ArrayList<String>();
-    String recordCode = this.getDetailRecordCode(operation);
-    String operationCode = this.getImportOperationCode(operation);
-    String optionalRecordCode = this.getDetailRecordCode(optionalOperation);
-    String optionalOperationCode = this.getImportOperationCode(optionalOperation);
-
-    log.debug(
-        "Obtention enregistrement détails CFONB: recordCode = {}, operationCode = {}, optionalRecordCode = {}, optionalOperationCode = {}",
-        new Object[] {recordCode, operationCode, optionalRecordCode, optionalOperationCode});
-
-    for (String s : file) {
-      if (s.substring(0, 2).equals(recordCode) || s.substring(0, 2).equals(optionalRecordCode)) {
-        if ((s.substring(8, 10).equals(operationCode) && optionalOperation == 999)
-            || s.substring(2, 4).equals(operationCode)
-            || s.substring(2, 4).equals(optionalOperationCode)) {
-          stringList.add(s);
-        }
-      } else {
-        break;
-      }
-    }
-
-    return stringList;
-  }
-
   /**
    * Fonction permettant de récupérer le code d'enregistrement détail
    *
@@ -508,40 +454,6 @@ public class CfonbImportService {
     return "999";
   }
 
-  /**
-   * @param file
-   * @param company
-   * @param operation Le type d'opération :
-   *     <ul>
-   *       <li>0 = Virement
-   *       <li>1 = Prélèvement
-   *     </ul>
-   *
-   * @return
-   */
-  private String getEndingCFONB(List<String> file, int operation, int optionalOperation) {
-    String operationCode = this.getImportOperationCode(operation);
-    String recordCode = this.getEndingRecordCode(operation);
-    String optionalRecordCode = this.getEndingRecordCode(optionalOperation);
-    String optionalOperationCode = this.getImportOperationCode(optionalOperation);
-
-    log.debug(
-        "Obtention enregistrement fin CFONB: recordCode = {}, operationCode = {}, optionalRecordCode = {}, optionalOperationCode = {}",
-        new Object[] {recordCode, operationCode, optionalRecordCode, optionalOperationCode});
-    for (String s : file) {
-      if (s.substring(0, 2).equals(recordCode) || s.substring(0, 2).equals(optionalRecordCode)) {
-        if ((s.substring(8, 10).equals(operationCode) && optionalOperation == 999)
-            || s.substring(2, 4).equals(operationCode)
-            || s.substring(2, 4).equals(optionalOperationCode)) {
-          return s;
-        }
-      } else {
-        break;
-      }
-    }
-    return null;
-  }
-
   /**
    * Fonction permettant de récupérer le code d'enregistrement fin
    *
@@ -0,0 +1,100 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.batch;
+
+import com.axelor.apps.account.db.AccountingBatch;
+import com.axelor.apps.account.exception.IExceptionMessage;
+import com.axelor.apps.account.service.ReconcileMatcher.Match;
+import com.axelor.apps.account.service.ReconcileMatchingService;
+import com.axelor.db.JPA;
+import com.axelor.exception.service.TraceBackService;
+import com.axelor.i18n.I18n;
+import com.google.inject.Inject;
+import java.util.List;
+
+public class BatchAutoReconcile extends BatchStrategy {
+
+  protected ReconcileMatchingService reconcileMatchingService;
+
+  protected long duration;
+
+  @Inject
+  public BatchAutoReconcile(ReconcileMatchingService reconcileMatchingService) {
+    super();
+    this.reconcileMatchingService = reconcileMatchingService;
+  }
+
+  @Override
+  protected void process() {
+    long startTime = System.currentTimeMillis();
+    AccountingBatch accountingBatch = batch.getAccountingBatch();
+
+    List<Match> matchList = reconcileMatchingService.findMatches(accountingBatch.getCompany());
+    JPA.clear();
+
+    for (int from = 0; from < matchList.size(); from += ReconcileMatchingService.CHUNK_SIZE) {
+      List<Match> chunk =
+          matchList.subList(
+              from, Math.min(from + ReconcileMatchingService.CHUNK_SIZE, matchList.size()));
+      try {
+        int count = reconcileMatchingService.reconcile(chunk);
+        for (int i = 0; i < count; i++) {
+          incrementDone();
+        }
+      } catch (Exception e) {
+        JPA.clear();
+        reconcileOneByOne(chunk);
+      }
+      JPA.clear();
+    }
+
+    duration = System.currentTimeMillis() - startTime;
+  }
+
+  /** Fall back on one transaction per reconcile to isolate the failing ones. */
+  protected void reconcileOneByOne(List<Match> chunk) {
+    for (Match match : chunk) {
+      try {
+        if (reconcileMatchingService.reconcile(match) != null) {
+          incrementDone();
+        }
+      } catch (Exception e) {
+        incrementAnomaly();
+        TraceBackService.trace(e, null, batch.getId());
+      }
+      JPA.clear();
+    }
+  }
+
+  @Override
+  protected void stop() {
+    String comment =
+        String.format(
+            "\t* %s " + I18n.get(IExceptionMessage.BATCH_AUTO_RECONCILE_1) + "\n",
+            batch.getDone());
+    comment +=
+        String.format(
+            "\t* " + I18n.get(IExceptionMessage.BATCH_AUTO_RECONCILE_2) + "\n", duration / 1000f);
+    comment +=
+        String.format(
+            "\t" + I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.ALARM_ENGINE_BATCH_4),
+            batch.getAnomaly());
+    addComment(comment);
+    super.stop();
+  }
+}
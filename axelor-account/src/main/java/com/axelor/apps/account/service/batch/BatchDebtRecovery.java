@@ -21,6 +21,7 @@ import com.axelor.apps.account.db.DebtRecovery;
 import com.axelor.apps.account.db.repo.DebtRecoveryRepository;
 import com.axelor.apps.account.exception.IExceptionMessage;
 import com.axelor.apps.account.service.debtrecovery.DebtRecoveryActionService;
+import com.axelor.apps.account.service.debtrecovery.DebtRecoveryAgingService;
 import com.axelor.apps.account.service.debtrecovery.DebtRecoveryService;
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Partner;
@@ -48,6 +49,7 @@ public class BatchDebtRecovery extends BatchStrategy {
   protected MessageRepository messageRepository;
   protected DebtRecoveryRepository debtRecoveryRepository;
   protected DebtRecoveryActionService debtRecoveryActionService;
+  protected DebtRecoveryAgingService debtRecoveryAgingService;
 
   @Inject
   public BatchDebtRecovery(
@@ -55,12 +57,14 @@ public class BatchDebtRecovery extends BatchStrategy {
       PartnerRepository partnerRepository,
       DebtRecoveryRepository debtRecoveryRepository,
       DebtRecoveryActionService debtRecoveryActionService,
-      MessageRepository messageRepository) {
+      MessageRepository messageRepository,
+      DebtRecoveryAgingService debtRecoveryAgingService) {
     super(debtRecoveryService);
     this.partnerRepository = partnerRepository;
     this.debtRecoveryRepository = debtRecoveryRepository;
     this.debtRecoveryActionService = debtRecoveryActionService;
     this.messageRepository = messageRepository;
+    this.debtRecoveryAgingService = debtRecoveryAgingService;
   }
 
   @Override
@@ -107,18 +111,23 @@ public class BatchDebtRecovery extends BatchStrategy {
                     + "AND self.id NOT IN ("
                     + Beans.get(BlockingService.class)
                         .listOfBlockedPartner(company, BlockingRepository.REMINDER_BLOCKING)
-                    + ")")
+                    + ") "
+                    + "AND "
+                    + debtRecoveryAgingService.getBatchPartnerFilter()
+                    + " AND self.id > :_lastId")
+            .bind(debtRecoveryAgingService.getBatchPartnerParams())
             .bind("_company", company)
             .order("id");
 
-    int offset = 0;
+    // Reset partners leave the candidate filter, so page on the id rather than on an offset.
+    long lastId = 0L;
     List<Partner> partnerList;
 
-    while (!(partnerList = query.fetch(FETCH_LIMIT, offset)).isEmpty()) {
+    while (!(partnerList = query.bind("_lastId", lastId).fetch(FETCH_LIMIT)).isEmpty()) {
       findBatch();
 
       for (Partner partner : partnerList) {
-        ++offset;
+        lastId = partner.getId();
 
         try {
           boolean remindedOk = debtRecoveryService.debtRecoveryGenerate(partner, company);
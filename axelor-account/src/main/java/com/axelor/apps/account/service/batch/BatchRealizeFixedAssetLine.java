@@ -24,15 +24,17 @@ import com.axelor.apps.account.exception.IExceptionMessage;
 import com.axelor.apps.account.service.FixedAssetLineService;
 import com.axelor.apps.base.service.administration.AbstractBatch;
 import com.axelor.db.JPA;
+import com.axelor.db.Query;
 import com.axelor.exception.service.TraceBackService;
 import com.axelor.i18n.I18n;
-import com.axelor.inject.Beans;
 import com.google.inject.Inject;
 import java.time.LocalDate;
 import java.util.List;
 
 public class BatchRealizeFixedAssetLine extends AbstractBatch {
 
+  protected static final int CHUNK_SIZE = 100;
+
   private FixedAssetLineService fixedAssetLineService;
 
   @Inject FixedAssetLineRepository fixedAssetLineRepo;
@@ -44,27 +46,59 @@ public class BatchRealizeFixedAssetLine extends AbstractBatch {
 
   @Override
   protected void process() {
-    List<FixedAssetLine> fixedAssetLineList =
-        Beans.get(FixedAssetLineRepository.class)
+    Query<FixedAssetLine> query =
+        fixedAssetLineRepo
             .all()
             .filter(
-                "self.statusSelect = ?1 and self.depreciationDate < ?2",
-                FixedAssetLineRepository.STATUS_PLANNED,
-                LocalDate.now())
-            .fetch();
-    for (FixedAssetLine fixedAssetLine : fixedAssetLineList) {
+                "self.statusSelect = :statusPlanned AND self.depreciationDate < :date "
+                    + "AND self.fixedAsset.statusSelect > :statusDraft")
+            .bind("statusPlanned", FixedAssetLineRepository.STATUS_PLANNED)
+            .bind("date", LocalDate.now())
+            .bind("statusDraft", FixedAssetRepository.STATUS_DRAFT)
+            // Keep the lines posted in the same consolidated move together.
+            .order("fixedAsset.company")
+            .order("fixedAsset.journal")
+            .order("fixedAsset.fixedAssetCategory")
+            .order("depreciationDate")
+            .order("id");
+
+    // Realized lines leave the query, only the lines in anomaly have to be skipped.
+    int offset = 0;
+    List<FixedAssetLine> fixedAssetLineList;
+
+    while (!(fixedAssetLineList = query.fetch(CHUNK_SIZE, offset)).isEmpty()) {
       try {
-        fixedAssetLine = fixedAssetLineRepo.find(fixedAssetLine.getId());
-        if (fixedAssetLine.getFixedAsset().getStatusSelect() > FixedAssetRepository.STATUS_DRAFT) {
-          fixedAssetLineService.realize(fixedAssetLine);
+        fixedAssetLineService.realize(fixedAssetLineList);
+        for (int i = 0; i < fixedAssetLineList.size(); i++) {
           incrementDone();
         }
+      } catch (Exception e) {
+        JPA.clear();
+        offset += realizeOneByOne(fixedAssetLineList);
+      }
+      JPA.clear();
+    }
+  }
+
+  /**
+   * Realize the lines of a chunk which could not be posted together, each one with its own move.
+   *
+   * @return the number of lines in anomaly.
+   */
+  protected int realizeOneByOne(List<FixedAssetLine> fixedAssetLineList) {
+    int anomaly = 0;
+    for (FixedAssetLine fixedAssetLine : fixedAssetLineList) {
+      try {
+        fixedAssetLineService.realize(fixedAssetLineRepo.find(fixedAssetLine.getId()));
+        incrementDone();
       } catch (Exception e) {
         incrementAnomaly();
+        anomaly++;
         TraceBackService.trace(e);
       }
       JPA.clear();
     }
+    return anomaly;
   }
 
   @Override
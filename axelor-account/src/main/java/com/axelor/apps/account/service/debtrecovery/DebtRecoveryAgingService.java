@@ -0,0 +1,80 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.debtrecovery;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aging of the open items of a partner, computed by the database on the partner / amount remaining
+ * / due date index so that debt recovery never has to load the whole move line history of a
+ * partner. As the figures are read from the move lines themselves, they follow every change of
+ * the amount remaining without any extra bookkeeping.
+ */
+public interface DebtRecoveryAgingService {
+
+  /**
+   * Get the due move lines of a partner which can be reminded: debit lines of non blocked invoices
+   * whose mail transit time is over, and rejected payment schedule lines.
+   *
+   * @param partner
+   * @param company
+   * @return the due move lines, oldest due date first.
+   */
+  List<MoveLine> getDueMoveLineList(Partner partner, Company company);
+
+  /**
+   * Get the oldest due date of the move lines returned by {@link #getDueMoveLineList(Partner,
+   * Company)}.
+   *
+   * @param partner
+   * @param company
+   * @return the oldest due date, or null if nothing is due.
+   */
+  LocalDate getOldestDueDate(Partner partner, Company company);
+
+  /**
+   * Sum the amount remaining of the credit move lines of a partner on partner balance accounts.
+   *
+   * @param partner
+   * @param company the company, or null for all the companies.
+   * @return the amount to subtract from the balance due.
+   */
+  BigDecimal getOpenCreditAmount(Partner partner, Company company);
+
+  /**
+   * Get a JPQL condition on a partner query selecting the partners the debt recovery batch has to
+   * process: partners with an overdue open debit, and partners whose debt recovery has to be
+   * reset. The company is bound to the {@code _company} parameter.
+   *
+   * @return the condition on {@code self}.
+   */
+  String getBatchPartnerFilter();
+
+  /**
+   * Get the parameters used by {@link #getBatchPartnerFilter()} besides {@code _company}.
+   *
+   * @return the parameters to bind.
+   */
+  Map<String, Object> getBatchPartnerParams();
+}
@@ -0,0 +1,146 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.debtrecovery;
+
+import com.axelor.apps.account.db.AccountConfig;
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.account.service.app.AppAccountService;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.db.JPA;
+import com.google.inject.Inject;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+public class DebtRecoveryAgingServiceImpl implements DebtRecoveryAgingService {
+
+  protected static final String DUE_MOVE_LINE_FROM =
+      "FROM MoveLine self "
+          + "JOIN self.move move "
+          + "JOIN self.account account "
+          + "LEFT JOIN move.invoice invoice "
+          + "WHERE self.partner = :partner AND move.company = :company "
+          + "AND move.ignoreInDebtRecoveryOk = false "
+          + "AND move.statusSelect IN (:statusDaybook, :statusValidated) "
+          + "AND account.useForPartnerBalance = true "
+          + "AND self.debit > 0 AND self.amountRemaining > 0 "
+          + "AND self.dueDate IS NOT NULL AND self.dueDate <= :todayDate "
+          + "AND ((invoice IS NOT NULL AND invoice.debtRecoveryBlockingOk = false "
+          + "AND invoice.schedulePaymentOk = false AND invoice.invoiceDate < :invoiceDateLimit) "
+          + "OR (invoice IS NULL AND self.paymentScheduleLine IS NOT NULL))";
+
+  protected AppAccountService appAccountService;
+
+  @Inject
+  public DebtRecoveryAgingServiceImpl(AppAccountService appAccountService) {
+    this.appAccountService = appAccountService;
+  }
+
+  @Override
+  public List<MoveLine> getDueMoveLineList(Partner partner, Company company) {
+    TypedQuery<MoveLine> query =
+        JPA.em()
+            .createQuery(
+                "SELECT self " + DUE_MOVE_LINE_FROM + " ORDER BY self.dueDate, self.id",
+                MoveLine.class);
+    bindDueMoveLineParams(query, partner, company);
+    return query.getResultList();
+  }
+
+  @Override
+  public LocalDate getOldestDueDate(Partner partner, Company company) {
+    TypedQuery<LocalDate> query =
+        JPA.em().createQuery("SELECT MIN(self.dueDate) " + DUE_MOVE_LINE_FROM, LocalDate.class);
+    bindDueMoveLineParams(query, partner, company);
+    return query.getSingleResult();
+  }
+
+  @Override
+  public BigDecimal getOpenCreditAmount(Partner partner, Company company) {
+    String queryStr =
+        "SELECT SUM(self.amountRemaining) FROM MoveLine self "
+            + "WHERE self.partner = :partner "
+            + "AND self.move.statusSelect IN (:statusDaybook, :statusValidated) "
+            + "AND self.account.useForPartnerBalance = true "
+            + "AND self.credit > 0";
+    if (company != null) {
+      queryStr += " AND self.move.company = :company";
+    }
+
+    TypedQuery<BigDecimal> query = JPA.em().createQuery(queryStr, BigDecimal.class);
+    query.setParameter("partner", partner);
+    query.setParameter("statusDaybook", MoveRepository.STATUS_DAYBOOK);
+    query.setParameter("statusValidated", MoveRepository.STATUS_VALIDATED);
+    if (company != null) {
+      query.setParameter("company", company);
+    }
+
+    BigDecimal amount = query.getSingleResult();
+    return amount != null ? amount : BigDecimal.ZERO;
+  }
+
+  @Override
+  public String getBatchPartnerFilter() {
+    return "(self.id IN (SELECT ml.partner.id FROM MoveLine ml "
+        + "WHERE ml.move.company = :_company "
+        + "AND ml.move.statusSelect IN (:_agingStatusDaybook, :_agingStatusValidated) "
+        + "AND ml.move.ignoreInDebtRecoveryOk = false "
+        + "AND ml.account.useForPartnerBalance = true "
+        + "AND ml.debit > 0 AND ml.amountRemaining > 0 "
+        + "AND (ml.dueDate IS NULL OR ml.dueDate <= :_agingTodayDate)) "
+        + "OR self.id IN (SELECT accSit.partner.id FROM AccountingSituation accSit "
+        + "WHERE accSit.company = :_company "
+        + "AND (accSit.debtRecovery.debtRecoveryMethodLine IS NOT NULL "
+        + "OR accSit.debtRecovery.waitDebtRecoveryMethodLine IS NOT NULL "
+        + "OR accSit.debtRecovery.balanceDue != 0 "
+        + "OR accSit.debtRecovery.balanceDueDebtRecovery != 0)))";
+  }
+
+  @Override
+  public Map<String, Object> getBatchPartnerParams() {
+    Map<String, Object> params = new HashMap<>();
+    params.put("_agingStatusDaybook", MoveRepository.STATUS_DAYBOOK);
+    params.put("_agingStatusValidated", MoveRepository.STATUS_VALIDATED);
+    params.put("_agingTodayDate", appAccountService.getTodayDate());
+    return params;
+  }
+
+  protected void bindDueMoveLineParams(Query query, Partner partner, Company company) {
+    LocalDate todayDate = appAccountService.getTodayDate();
+
+    int mailTransitTime = 0;
+    AccountConfig accountConfig = company.getAccountConfig();
+    if (accountConfig != null) {
+      mailTransitTime = accountConfig.getMailTransitTime();
+    }
+
+    query.setParameter("partner", partner);
+    query.setParameter("company", company);
+    query.setParameter("statusDaybook", MoveRepository.STATUS_DAYBOOK);
+    query.setParameter("statusValidated", MoveRepository.STATUS_VALIDATED);
+    query.setParameter("todayDate", todayDate);
+    // invoiceDate + mailTransitTime < today
+    query.setParameter("invoiceDateLimit", todayDate.minusDays(mailTransitTime));
+  }
+}
@@ -23,13 +23,11 @@ import com.axelor.apps.account.db.DebtRecovery;
 import com.axelor.apps.account.db.DebtRecoveryHistory;
 import com.axelor.apps.account.db.DebtRecoveryMethod;
 import com.axelor.apps.account.db.Invoice;
-import com.axelor.apps.account.db.Move;
 import com.axelor.apps.account.db.MoveLine;
 import com.axelor.apps.account.db.PaymentScheduleLine;
 import com.axelor.apps.account.db.repo.AccountingSituationRepository;
 import com.axelor.apps.account.db.repo.DebtRecoveryRepository;
 import com.axelor.apps.account.db.repo.MoveLineRepository;
-import com.axelor.apps.account.db.repo.MoveRepository;
 import com.axelor.apps.account.db.repo.PaymentScheduleLineRepository;
 import com.axelor.apps.account.exception.IExceptionMessage;
 import com.axelor.apps.account.service.AccountCustomerService;
@@ -72,6 +70,7 @@ public class DebtRecoveryService {
 
   protected AppAccountService appAccountService;
   protected MessageRepository messageRepo;
+  protected DebtRecoveryAgingService debtRecoveryAgingService;
 
   @Inject
   public DebtRecoveryService(
@@ -83,7 +82,8 @@ public class DebtRecoveryService {
       AccountConfigService accountConfigService,
       DebtRecoveryRepository debtRecoveryRepo,
       AppAccountService appAccountService,
-      MessageRepository messageRepo) {
+      MessageRepository messageRepo,
+      DebtRecoveryAgingService debtRecoveryAgingService) {
 
     this.debtRecoverySessionService = debtRecoverySessionService;
     this.debtRecoveryActionService = debtRecoveryActionService;
@@ -94,6 +94,7 @@ public class DebtRecoveryService {
     this.debtRecoveryRepo = debtRecoveryRepo;
     this.appAccountService = appAccountService;
     this.messageRepo = messageRepo;
+    this.debtRecoveryAgingService = debtRecoveryAgingService;
   }
 
   public void testCompanyField(Company company) throws AxelorException {
@@ -108,10 +109,12 @@ public class DebtRecoveryService {
    *
    * @param moveLineList
    * @param partner
+   * @param company
    * @return Le solde exigible relançable
    */
-  public BigDecimal getBalanceDueDebtRecovery(List<MoveLine> moveLineList, Partner partner) {
-    BigDecimal balanceSubstract = this.getSubstractBalanceDue(partner);
+  public BigDecimal getBalanceDueDebtRecovery(
+      List<MoveLine> moveLineList, Partner partner, Company company) {
+    BigDecimal balanceSubstract = this.getSubstractBalanceDue(partner, company);
     BigDecimal balanceDueDebtRecovery = BigDecimal.ZERO;
     for (MoveLine moveLine : moveLineList) {
       balanceDueDebtRecovery = balanceDueDebtRecovery.add(moveLine.getAmountRemaining());
@@ -120,18 +123,8 @@ public class DebtRecoveryService {
     return balanceDueDebtRecovery;
   }
 
-  public BigDecimal getSubstractBalanceDue(Partner partner) {
-    List<? extends MoveLine> moveLineQuery =
-        moveLineRepo.all().filter("self.partner = ?1", partner).fetch();
-    BigDecimal balance = BigDecimal.ZERO;
-    for (MoveLine moveLine : moveLineQuery) {
-      if (moveLine.getCredit().compareTo(BigDecimal.ZERO) > 0) {
-        if (moveLine.getAccount() != null && moveLine.getAccount().getUseForPartnerBalance()) {
-          balance = balance.subtract(moveLine.getAmountRemaining());
-        }
-      }
-    }
-    return balance;
+  public BigDecimal getSubstractBalanceDue(Partner partner, Company company) {
+    return debtRecoveryAgingService.getOpenCreditAmount(partner, company).negate();
   }
 
   /**
@@ -198,12 +191,11 @@ public class DebtRecoveryService {
    */
   public LocalDate getReferenceDate(DebtRecovery debtRecovery) {
     AccountingSituation accountingSituation = debtRecovery.getAccountingSituation();
-    List<MoveLine> moveLineList =
-        this.getMoveLineDebtRecovery(
-            accountingSituation.getPartner(), accountingSituation.getCompany());
 
     // Date la plus ancienne des lignes d'écriture
-    LocalDate minMoveLineDate = getOldDateMoveLine(moveLineList);
+    LocalDate minMoveLineDate =
+        debtRecoveryAgingService.getOldestDueDate(
+            accountingSituation.getPartner(), accountingSituation.getCompany());
     log.debug("minMoveLineDate : {}", minMoveLineDate);
 
     // 2: Date la plus récente des relances
@@ -224,53 +216,8 @@ public class DebtRecoveryService {
    * @param company Une société
    * @return La liste de ligne d'écriture
    */
-  @SuppressWarnings("unchecked")
   public List<MoveLine> getMoveLineDebtRecovery(Partner partner, Company company) {
-    List<MoveLine> moveLineList = new ArrayList<MoveLine>();
-
-    List<MoveLine> moveLineQuery = (List<MoveLine>) this.getMoveLine(partner, company);
-
-    int mailTransitTime = company.getAccountConfig().getMailTransitTime();
-
-    for (MoveLine moveLine : moveLineQuery) {
-      if (moveLine.getMove() != null && !moveLine.getMove().getIgnoreInDebtRecoveryOk()) {
-        Move move = moveLine.getMove();
-        // facture exigibles non bloquée en relance et dont la date de facture + délai
-        // d'acheminement < date du jour
-        if (move.getStatusSelect() != MoveRepository.STATUS_CANCELED
-            && move.getInvoice() != null
-            && !move.getInvoice().getDebtRecoveryBlockingOk()
-            && !move.getInvoice().getSchedulePaymentOk()
-            && ((move.getInvoice().getInvoiceDate()).plusDays(mailTransitTime))
-                .isBefore(appAccountService.getTodayDate())) {
-          if ((moveLine.getDebit().compareTo(BigDecimal.ZERO) > 0)
-              && moveLine.getDueDate() != null
-              && (appAccountService.getTodayDate().isAfter(moveLine.getDueDate())
-                  || appAccountService.getTodayDate().isEqual(moveLine.getDueDate()))) {
-            if (moveLine.getAccount() != null && moveLine.getAccount().getUseForPartnerBalance()) {
-              if (moveLine.getAmountRemaining().compareTo(BigDecimal.ZERO) > 0) {
-                moveLineList.add(moveLine);
-              }
-            }
-          }
-        }
-        // échéances rejetées qui ne sont pas bloqués
-        else if (move.getInvoice() == null) {
-          if (moveLine.getPaymentScheduleLine() != null
-              && (moveLine.getDebit().compareTo(BigDecimal.ZERO) > 0)
-              && moveLine.getDueDate() != null
-              && (appAccountService.getTodayDate().isAfter(moveLine.getDueDate())
-                  || appAccountService.getTodayDate().isEqual(moveLine.getDueDate()))) {
-            if (moveLine.getAccount() != null && moveLine.getAccount().getUseForPartnerBalance()) {
-              if (moveLine.getAmountRemaining().compareTo(BigDecimal.ZERO) > 0) {
-                moveLineList.add(moveLine);
-              }
-            }
-          }
-        }
-      }
-    }
-    return moveLineList;
+    return debtRecoveryAgingService.getDueMoveLineList(partner, company);
   }
 
   public List<Invoice> getInvoiceList(List<MoveLine> moveLineList) {
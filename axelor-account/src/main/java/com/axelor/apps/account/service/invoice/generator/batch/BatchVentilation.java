@@ -19,14 +19,24 @@ package com.axelor.apps.account.service.invoice.generator.batch;
 
 import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.exception.IExceptionMessage;
+import com.axelor.apps.account.service.AccountCustomerService;
+import com.axelor.apps.account.service.AccountingService;
 import com.axelor.apps.account.service.invoice.InvoiceService;
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Partner;
+import com.axelor.apps.base.db.repo.PartnerRepository;
 import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.IException;
 import com.axelor.exception.service.TraceBackService;
 import com.axelor.i18n.I18n;
 import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,43 +44,119 @@ public class BatchVentilation extends BatchWkf {
 
   static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  protected static final int PAGE_SIZE = 1000;
+
+  protected AccountCustomerService accountCustomerService;
+
+  protected PartnerRepository partnerRepo;
+
   @Inject
-  public BatchVentilation(InvoiceService invoiceService) {
+  public BatchVentilation(
+      InvoiceService invoiceService,
+      AccountCustomerService accountCustomerService,
+      PartnerRepository partnerRepo) {
 
     super(invoiceService);
+    this.accountCustomerService = accountCustomerService;
+    this.partnerRepo = partnerRepo;
   }
 
+  /**
+   * Ventilate the invoices page by page, one transaction per invoice. The partner balances are only
+   * flagged during the ventilation and computed once for every partner at the end.
+   *
+   * <p>The invoices are ventilated one after the other: an invoice and its move take their numbers
+   * from the sequences of its operation type and of its journal, which are shared by most of the
+   * invoices of a batch and must number them in ventilation order.
+   */
   @Override
   protected void process() {
 
-    for (Invoice invoice : invoices(batch.getInvoiceBatch(), true)) {
+    Company company = batch.getInvoiceBatch().getCompany();
+    Long batchId = batch.getId();
+    Set<Long> partnerIdSet = new HashSet<>();
 
-      try {
+    AccountingService.setUpdateCustomerAccount(false);
 
-        invoiceService.ventilate(invoiceRepo.find(invoice.getId()));
-        updateInvoice(invoiceRepo.find(invoice.getId()));
+    try {
+      long lastId = 0L;
+      List<Object[]> invoiceIdList;
 
-      } catch (AxelorException e) {
+      while (!(invoiceIdList = fetchInvoiceIdPage(lastId)).isEmpty()) {
+
+        for (Object[] invoiceId : invoiceIdList) {
+          partnerIdSet.add((Long) invoiceId[1]);
+          ventilateInvoice((Long) invoiceId[0], batchId);
+        }
+        lastId = (Long) invoiceIdList.get(invoiceIdList.size() - 1)[0];
+      }
+    } finally {
+      AccountingService.setUpdateCustomerAccount(true);
+    }
+
+    updatePartnerAccountingSituations(new ArrayList<>(partnerIdSet), company);
+  }
+
+  protected List<Object[]> fetchInvoiceIdPage(long lastId) {
+
+    return invoiceIdPage(findBatch().getInvoiceBatch(), true, lastId, PAGE_SIZE);
+  }
 
-        TraceBackService.trace(
-            new AxelorException(
-                e, e.getCategory(), I18n.get("Invoice") + " %s", invoice.getInvoiceId()),
-            IException.INVOICE_ORIGIN,
-            batch.getId());
-        incrementAnomaly();
+  protected void ventilateInvoice(Long invoiceId, Long batchId) {
 
-      } catch (Exception e) {
+    try {
 
-        TraceBackService.trace(
-            new Exception(String.format(I18n.get("Invoice") + " %s", invoice.getInvoiceId()), e),
-            IException.INVOICE_ORIGIN,
-            batch.getId());
-        incrementAnomaly();
+      ventilate(invoiceId, batchId);
+      incrementDone();
 
-      } finally {
+    } catch (AxelorException e) {
 
-        JPA.clear();
+      TraceBackService.trace(
+          new AxelorException(e, e.getCategory(), I18n.get("Invoice") + " %s", invoiceId),
+          IException.INVOICE_ORIGIN,
+          batchId);
+      incrementAnomaly();
+
+    } catch (Exception e) {
+
+      TraceBackService.trace(
+          new Exception(String.format(I18n.get("Invoice") + " %s", invoiceId), e),
+          IException.INVOICE_ORIGIN,
+          batchId);
+      incrementAnomaly();
+
+    } finally {
+
+      JPA.clear();
+    }
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected void ventilate(Long invoiceId, Long batchId) throws AxelorException {
+
+    Invoice invoice = invoiceRepo.find(invoiceId);
+    invoiceService.ventilate(invoice);
+    invoice.addBatchSetItem(batchRepo.find(batchId));
+  }
+
+  protected void updatePartnerAccountingSituations(List<Long> partnerIdList, Company company) {
+
+    for (int i = 0; i < partnerIdList.size(); i += FETCH_LIMIT) {
+      List<Partner> partnerList =
+          partnerRepo
+              .all()
+              .filter("self.id IN (:partnerIds)")
+              .bind(
+                  "partnerIds",
+                  partnerIdList.subList(i, Math.min(i + FETCH_LIMIT, partnerIdList.size())))
+              .fetch();
+      try {
+        accountCustomerService.updatePartnerAccountingSituation(
+            partnerList, company, true, true, false);
+      } catch (AxelorException e) {
+        TraceBackService.trace(e, IException.INVOICE_ORIGIN, batch.getId());
       }
+      JPA.clear();
     }
   }
 
@@ -21,11 +21,14 @@ import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.db.InvoiceBatch;
 import com.axelor.apps.account.db.repo.InvoiceRepository;
 import com.axelor.apps.account.service.invoice.InvoiceService;
+import com.axelor.db.JPA;
 import com.axelor.inject.Beans;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,11 +66,7 @@ public abstract class BatchWkf extends BatchStrategy {
       params.add(invoiceBatch.getCompany());
 
       query += " AND self.statusSelect = ?2";
-      if (isTo) {
-        params.add(invoiceBatch.getToStatusSelect());
-      } else {
-        params.add(invoiceBatch.getFromStatusSelect());
-      }
+      params.add(getStatusSelect(invoiceBatch, isTo));
 
       LOG.debug("Query: {}", query);
 
@@ -77,4 +76,43 @@ public abstract class BatchWkf extends BatchStrategy {
       return new ArrayList<Invoice>();
     }
   }
+
+  /**
+   * Récupérer une page des factures à traiter, sans charger les factures.
+   *
+   * @param invoiceBatch Le batch de facturation concerné.
+   * @param lastId L'id de la dernière facture de la page précédente.
+   * @param limit La taille de la page.
+   * @return Une liste d'id de facture et id de tiers, triée par id de facture.
+   */
+  protected static List<Object[]> invoiceIdPage(
+      InvoiceBatch invoiceBatch, boolean isTo, long lastId, int limit) {
+
+    if (invoiceBatch.getOnSelectOk()) {
+      return invoiceBatch
+          .getInvoiceSet()
+          .stream()
+          .filter(invoice -> invoice.getId() > lastId)
+          .sorted(Comparator.comparing(Invoice::getId))
+          .limit(limit)
+          .map(invoice -> new Object[] {invoice.getId(), invoice.getPartner().getId()})
+          .collect(Collectors.toList());
+    }
+
+    return JPA.em()
+        .createQuery(
+            "SELECT self.id, self.partner.id FROM Invoice self "
+                + "WHERE self.company = :company AND self.statusSelect = :statusSelect "
+                + "AND self.id > :lastId ORDER BY self.id",
+            Object[].class)
+        .setParameter("company", invoiceBatch.getCompany())
+        .setParameter("statusSelect", getStatusSelect(invoiceBatch, isTo))
+        .setParameter("lastId", lastId)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  private static Integer getStatusSelect(InvoiceBatch invoiceBatch, boolean isTo) {
+    return isTo ? invoiceBatch.getToStatusSelect() : invoiceBatch.getFromStatusSelect();
+  }
 }
@@ -24,9 +24,9 @@ import com.axelor.apps.account.exception.IExceptionMessage;
 import com.axelor.apps.account.report.IReport;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.report.engine.ReportSettings;
-import com.axelor.apps.tool.ModelTool;
-import com.axelor.apps.tool.ThrowConsumer;
+import com.axelor.apps.tool.RequestScopeTool;
 import com.axelor.apps.tool.file.PdfTool;
+import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
@@ -38,15 +38,29 @@ import com.google.inject.Singleton;
 import com.google.inject.persist.Transactional;
 import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.MethodHandles;
 import java.nio.file.Path;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /** Implementation of the service printing invoices. */
 @Singleton
 public class InvoicePrintServiceImpl implements InvoicePrintService {
 
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Number of invoices rendered at the same time by a mass printing. */
+  protected static final int PRINT_WORKER_COUNT = 4;
+
   @Inject private InvoiceRepository invoiceRepo;
 
   @Override
@@ -77,7 +91,11 @@ public class InvoicePrintServiceImpl implements InvoicePrintService {
       if (!forceRefresh && invoice.getPrintedPDF() != null) {
 
         Path path = MetaFiles.getPath(invoice.getPrintedPDF().getFileName());
-        return path.toFile();
+        if (path.toFile().exists()) {
+          return path.toFile();
+        }
+        // the stored file is missing, print it again
+        return printAndSave(invoice);
       } else {
 
         // generate a new printing
@@ -117,7 +135,6 @@ public class InvoicePrintServiceImpl implements InvoicePrintService {
 
   @Override
   public String printInvoices(List<Long> ids) throws IOException, AxelorException {
-    List<File> printedInvoices = new ArrayList<>();
     List<String> invalidPrintSettingsInvoiceIds = checkInvalidPrintSettingsInvoices(ids);
 
     if (invalidPrintSettingsInvoiceIds.size() > 0) {
@@ -127,31 +144,64 @@ public class InvoicePrintServiceImpl implements InvoicePrintService {
           invalidPrintSettingsInvoiceIds.toString());
     }
 
-    ModelTool.apply(
-        Invoice.class,
-        ids,
-        new ThrowConsumer<Invoice>() {
-          @Override
-          public void accept(Invoice invoice) throws Exception {
-            printedInvoices.add(printCopiesToFile(invoice, false));
-          }
-        });
+    List<File> printedInvoices = new ArrayList<>();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(1, Math.min(PRINT_WORKER_COUNT, ids.size())));
+
+    try {
+      List<Future<List<File>>> futureList = new ArrayList<>();
+      for (Long id : ids) {
+        Callable<List<File>> task = () -> printCopies(id);
+        futureList.add(
+            executor.submit(
+                RequestScopeTool.asCurrentSubject(RequestScopeTool.inRequestScope(task))));
+      }
+
+      // futures are read in the order of the ids so the merged file keeps that order
+      for (Future<List<File>> future : futureList) {
+        printedInvoices.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof AxelorException) {
+        throw (AxelorException) cause;
+      }
+      throw new AxelorException(cause, TraceBackRepository.TYPE_TECHNICAL);
+    } finally {
+      executor.shutdownNow();
+    }
 
+    log.debug("Merging {} invoice printings", ids.size());
     String fileName = getInvoiceFilesName(true);
     return PdfTool.mergePdfToFileLink(printedInvoices, fileName);
   }
 
-  public List<String> checkInvalidPrintSettingsInvoices(List<Long> ids) {
+  /** Print an invoice and repeat the file for each copy of the invoice. */
+  protected List<File> printCopies(Long id) throws AxelorException {
+    Invoice invoice = invoiceRepo.find(id);
+    int copyNumber = invoice.getInvoicesCopySelect();
+    if (copyNumber <= 0) {
+      throw new AxelorException(
+          invoice,
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(IExceptionMessage.INVOICE_PRINTING_COPY_NUMBER),
+          invoice.getInvoiceId());
+    }
+    return Collections.nCopies(copyNumber, getPrintedInvoice(invoice, false));
+  }
 
-    List<String> invalidPrintSettingsInvoiceIds = new ArrayList<>();
+  public List<String> checkInvalidPrintSettingsInvoices(List<Long> ids) {
 
-    for (Long id : ids) {
-      Invoice invoice = invoiceRepo.find(id);
-      if (invoice.getPrintingSettings() == null) {
-        invalidPrintSettingsInvoiceIds.add(invoice.getInvoiceId());
-      }
-    }
-    return invalidPrintSettingsInvoiceIds;
+    return JPA.em()
+        .createQuery(
+            "SELECT self.invoiceId FROM Invoice self "
+                + "WHERE self.id IN (:ids) AND self.printingSettings IS NULL",
+            String.class)
+        .setParameter("ids", ids)
+        .getResultList();
   }
 
   @Override
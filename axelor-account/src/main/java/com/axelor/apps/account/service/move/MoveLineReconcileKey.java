@@ -0,0 +1,91 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.service.move;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.db.Model;
+import java.util.Objects;
+
+/**
+ * Immutable grouping key used to gather move lines which can be reconciled together: same
+ * company, same account and same partner.
+ */
+public final class MoveLineReconcileKey {
+
+  private final Long companyId;
+  private final Long accountId;
+  private final Long partnerId;
+  private final int hash;
+
+  public MoveLineReconcileKey(Long companyId, Long accountId, Long partnerId) {
+    this.companyId = companyId;
+    this.accountId = accountId;
+    this.partnerId = partnerId;
+    this.hash = Objects.hash(companyId, accountId, partnerId);
+  }
+
+  public static MoveLineReconcileKey of(MoveLine moveLine) {
+    return new MoveLineReconcileKey(
+        getId(moveLine.getMove().getCompany()),
+        getId(moveLine.getAccount()),
+        getId(moveLine.getPartner()));
+  }
+
+  private static Long getId(Model model) {
+    return model != null ? model.getId() : null;
+  }
+
+  public Long getCompanyId() {
+    return companyId;
+  }
+
+  public Long getAccountId() {
+    return accountId;
+  }
+
+  public Long getPartnerId() {
+    return partnerId;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof MoveLineReconcileKey)) {
+      return false;
+    }
+    MoveLineReconcileKey other = (MoveLineReconcileKey) obj;
+    return hash == other.hash
+        && Objects.equals(companyId, other.companyId)
+        && Objects.equals(accountId, other.accountId)
+        && Objects.equals(partnerId, other.partnerId);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "MoveLineReconcileKey(company=%s, account=%s, partner=%s)",
+        companyId, accountId, partnerId);
+  }
+}
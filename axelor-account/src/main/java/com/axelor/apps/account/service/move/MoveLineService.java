@@ -44,6 +44,7 @@ import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.base.db.Partner;
 import com.axelor.apps.base.service.CurrencyService;
 import com.axelor.apps.base.service.config.CompanyConfigService;
+import com.axelor.db.Model;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
@@ -54,11 +55,15 @@ import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -586,64 +591,60 @@ public class MoveLineService {
     return moveLines;
   }
 
+  /**
+   * Find the line already consolidated under the given keys. The keys are expected to contain the
+   * analytic signature of the move line, see {@link #getAnalyticSignature(MoveLine)}, so that a
+   * single lookup is enough.
+   *
+   * @param map the consolidated move lines
+   * @param moveLine the move line to consolidate
+   * @param keys the consolidation keys of the move line
+   * @return the consolidated move line with the same keys, or null if there is none
+   */
   public MoveLine findConsolidateMoveLine(
       Map<List<Object>, MoveLine> map, MoveLine moveLine, List<Object> keys) {
-    if (map != null && !map.isEmpty()) {
-
-      Map<List<Object>, MoveLine> copyMap = new HashMap<List<Object>, MoveLine>(map);
-      while (!copyMap.isEmpty()) {
-
-        if (map.containsKey(keys)) {
+    if (map == null || map.isEmpty()) {
+      return null;
+    }
+    return map.get(keys);
+  }
 
-          MoveLine moveLineIt = map.get(keys);
-          int count = 0;
-          if (moveLineIt.getAnalyticMoveLineList() == null
-              && moveLine.getAnalyticMoveLineList() == null) {
-            return moveLineIt;
-          } else if (moveLineIt.getAnalyticMoveLineList() == null
-              || moveLine.getAnalyticMoveLineList() == null) {
-            break;
-          }
-          List<AnalyticMoveLine> list1 = moveLineIt.getAnalyticMoveLineList();
-          List<AnalyticMoveLine> list2 = moveLine.getAnalyticMoveLineList();
-          List<AnalyticMoveLine> copyList = new ArrayList<AnalyticMoveLine>(list1);
-          if (list1.size() == list2.size()) {
-            for (AnalyticMoveLine analyticDistributionLine : list2) {
-              for (AnalyticMoveLine analyticDistributionLineIt : copyList) {
-                if (analyticDistributionLine
-                        .getAnalyticAxis()
-                        .equals(analyticDistributionLineIt.getAnalyticAxis())
-                    && analyticDistributionLine
-                        .getAnalyticAccount()
-                        .equals(analyticDistributionLineIt.getAnalyticAccount())
-                    && analyticDistributionLine
-                        .getAccount()
-                        .equals(analyticDistributionLineIt.getAccount())
-                    && analyticDistributionLine
-                        .getPercentage()
-                        .equals(analyticDistributionLineIt.getPercentage())
-                    && ((analyticDistributionLine.getAnalyticJournal() == null
-                            && analyticDistributionLineIt.getAnalyticJournal() == null)
-                        || analyticDistributionLine
-                            .getAnalyticJournal()
-                            .equals(analyticDistributionLineIt.getAnalyticJournal()))) {
-                  copyList.remove(analyticDistributionLineIt);
-                  count++;
-                  break;
-                }
-              }
-            }
-            if (count == list1.size()) {
-              return moveLineIt;
-            }
-          }
-        } else {
-          return null;
-        }
-      }
+  /**
+   * Compute a canonical signature of the analytic distribution of a move line. Two move lines
+   * have the same signature if their analytic move lines have the same axis, analytic account,
+   * account, percentage and analytic journal, whatever their order.
+   *
+   * @param moveLine
+   * @return the analytic signature, empty if the move line has no analytic move line
+   */
+  public String getAnalyticSignature(MoveLine moveLine) {
+    List<AnalyticMoveLine> analyticMoveLineList = moveLine.getAnalyticMoveLineList();
+    if (analyticMoveLineList == null || analyticMoveLineList.isEmpty()) {
+      return "";
     }
+    List<String> signatureList = new ArrayList<>(analyticMoveLineList.size());
+    for (AnalyticMoveLine analyticMoveLine : analyticMoveLineList) {
+      signatureList.add(getAnalyticSignature(analyticMoveLine));
+    }
+    Collections.sort(signatureList);
+    return String.join(";", signatureList);
+  }
 
-    return null;
+  protected String getAnalyticSignature(AnalyticMoveLine analyticMoveLine) {
+    BigDecimal percentage = analyticMoveLine.getPercentage();
+    return getId(analyticMoveLine.getAnalyticAxis())
+        + "|"
+        + getId(analyticMoveLine.getAnalyticAccount())
+        + "|"
+        + getId(analyticMoveLine.getAccount())
+        + "|"
+        + (percentage == null ? "" : percentage.stripTrailingZeros().toPlainString())
+        + "|"
+        + getId(analyticMoveLine.getAnalyticJournal());
+  }
+
+  protected Long getId(Model model) {
+    return model != null ? model.getId() : null;
   }
 
   /**
@@ -653,7 +654,7 @@ public class MoveLineService {
    */
   public List<MoveLine> consolidateMoveLines(List<MoveLine> moveLines) {
 
-    Map<List<Object>, MoveLine> map = new HashMap<List<Object>, MoveLine>();
+    Map<List<Object>, MoveLine> map = new LinkedHashMap<>();
     MoveLine consolidateMoveLine = null;
 
     for (MoveLine moveLine : moveLines) {
@@ -663,6 +664,7 @@ public class MoveLineService {
       keys.add(moveLine.getAccount());
       keys.add(moveLine.getTaxLine());
       keys.add(moveLine.getAnalyticDistributionTemplate());
+      keys.add(getAnalyticSignature(moveLine));
 
       consolidateMoveLine = this.findConsolidateMoveLine(map, moveLine, keys);
       if (consolidateMoveLine != null) {
@@ -697,34 +699,8 @@ public class MoveLineService {
 
         if (consolidateMoveLine.getAnalyticMoveLineList() != null
             && !consolidateMoveLine.getAnalyticMoveLineList().isEmpty()) {
-          for (AnalyticMoveLine analyticDistributionLine :
-              consolidateMoveLine.getAnalyticMoveLineList()) {
-            for (AnalyticMoveLine analyticDistributionLineIt : moveLine.getAnalyticMoveLineList()) {
-              if (analyticDistributionLine
-                      .getAnalyticAxis()
-                      .equals(analyticDistributionLineIt.getAnalyticAxis())
-                  && analyticDistributionLine
-                      .getAnalyticAccount()
-                      .equals(analyticDistributionLineIt.getAnalyticAccount())
-                  && analyticDistributionLine
-                      .getAccount()
-                      .equals(analyticDistributionLineIt.getAccount())
-                  && analyticDistributionLine
-                      .getPercentage()
-                      .equals(analyticDistributionLineIt.getPercentage())
-                  && ((analyticDistributionLine.getAnalyticJournal() == null
-                          && analyticDistributionLineIt.getAnalyticJournal() == null)
-                      || analyticDistributionLine
-                          .getAnalyticJournal()
-                          .equals(analyticDistributionLineIt.getAnalyticJournal()))) {
-                analyticDistributionLine.setAmount(
-                    analyticDistributionLine
-                        .getAmount()
-                        .add(analyticDistributionLineIt.getAmount()));
-                break;
-              }
-            }
-          }
+          consolidateAnalyticMoveLines(
+              consolidateMoveLine.getAnalyticMoveLineList(), moveLine.getAnalyticMoveLineList());
         }
       } else {
         map.put(keys, moveLine);
@@ -767,6 +743,34 @@ public class MoveLineService {
     return moveLines;
   }
 
+  /**
+   * Add the amounts of the analytic move lines to the consolidated ones. Both lists are expected to
+   * have the same analytic signature.
+   *
+   * @param consolidateAnalyticMoveLineList
+   * @param analyticMoveLineList
+   */
+  protected void consolidateAnalyticMoveLines(
+      List<AnalyticMoveLine> consolidateAnalyticMoveLineList,
+      List<AnalyticMoveLine> analyticMoveLineList) {
+
+    Map<String, Deque<AnalyticMoveLine>> analyticMoveLineMap = new HashMap<>();
+    for (AnalyticMoveLine analyticMoveLine : analyticMoveLineList) {
+      analyticMoveLineMap
+          .computeIfAbsent(getAnalyticSignature(analyticMoveLine), k -> new ArrayDeque<>())
+          .add(analyticMoveLine);
+    }
+
+    for (AnalyticMoveLine consolidateAnalyticMoveLine : consolidateAnalyticMoveLineList) {
+      Deque<AnalyticMoveLine> analyticMoveLines =
+          analyticMoveLineMap.get(getAnalyticSignature(consolidateAnalyticMoveLine));
+      if (analyticMoveLines != null && !analyticMoveLines.isEmpty()) {
+        consolidateAnalyticMoveLine.setAmount(
+            consolidateAnalyticMoveLine.getAmount().add(analyticMoveLines.poll().getAmount()));
+      }
+    }
+  }
+
   /**
    * Fonction permettant de récuperer la ligne d'écriture (au credit et non complétement lettrée sur
    * le compte client) de la facture
@@ -937,7 +941,7 @@ public class MoveLineService {
     List<MoveLine> reconciliableCreditMoveLineList = getReconciliableCreditMoveLines(moveLineList);
     List<MoveLine> reconciliableDebitMoveLineList = getReconciliableDebitMoveLines(moveLineList);
 
-    Map<List<Object>, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap = new HashMap<>();
+    Map<MoveLineReconcileKey, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap = new HashMap<>();
 
     populateCredit(moveLineMap, reconciliableCreditMoveLineList);
 
@@ -958,37 +962,27 @@ public class MoveLineService {
   }
 
   private void populateCredit(
-      Map<List<Object>, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap,
+      Map<MoveLineReconcileKey, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap,
       List<MoveLine> reconciliableMoveLineList) {
     populateMoveLineMap(moveLineMap, reconciliableMoveLineList, true);
   }
 
   private void populateDebit(
-      Map<List<Object>, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap,
+      Map<MoveLineReconcileKey, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap,
       List<MoveLine> reconciliableMoveLineList) {
     populateMoveLineMap(moveLineMap, reconciliableMoveLineList, false);
   }
 
   private void populateMoveLineMap(
-      Map<List<Object>, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap,
+      Map<MoveLineReconcileKey, Pair<List<MoveLine>, List<MoveLine>>> moveLineMap,
       List<MoveLine> reconciliableMoveLineList,
       boolean isCredit) {
     for (MoveLine moveLine : reconciliableMoveLineList) {
 
-      Move move = moveLine.getMove();
+      MoveLineReconcileKey key = MoveLineReconcileKey.of(moveLine);
 
-      List<Object> keys = new ArrayList<Object>();
-
-      keys.add(move.getCompany());
-      keys.add(moveLine.getAccount());
-      keys.add(moveLine.getPartner());
-
-      Pair<List<MoveLine>, List<MoveLine>> moveLineLists = moveLineMap.get(keys);
-
-      if (moveLineLists == null) {
-        moveLineLists = Pair.of(new ArrayList<>(), new ArrayList<>());
-        moveLineMap.put(keys, moveLineLists);
-      }
+      Pair<List<MoveLine>, List<MoveLine>> moveLineLists =
+          moveLineMap.computeIfAbsent(key, k -> Pair.of(new ArrayList<>(), new ArrayList<>()));
 
       List<MoveLine> moveLineList = isCredit ? moveLineLists.getLeft() : moveLineLists.getRight();
       moveLineList.add(moveLine);
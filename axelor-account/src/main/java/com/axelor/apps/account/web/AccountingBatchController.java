@@ -194,4 +194,13 @@ public class AccountingBatchController {
     if (batch != null) response.setFlash(batch.getComments());
     response.setReload(true);
   }
+
+  public void actionAutoReconcile(ActionRequest request, ActionResponse response) {
+
+    AccountingBatch accountingBatch = request.getContext().asType(AccountingBatch.class);
+    accountingBatch = accountingBatchRepo.find(accountingBatch.getId());
+    Batch batch = accountingBatchService.autoReconcile(accountingBatch);
+    if (batch != null) response.setFlash(batch.getComments());
+    response.setReload(true);
+  }
 }
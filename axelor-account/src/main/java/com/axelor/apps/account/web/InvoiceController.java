@@ -309,6 +309,7 @@ public class InvoiceController {
                 });
         fileLink = invoicePrintService.printInvoices(ids);
         title = I18n.get("Invoices");
+        response.setFlash(String.format(I18n.get(IExceptionMessage.INVOICES_PRINTED), ids.size()));
       } else {
         throw new AxelorException(
             TraceBackRepository.CATEGORY_MISSING_FIELD, I18n.get(IExceptionMessage.INVOICE_3));
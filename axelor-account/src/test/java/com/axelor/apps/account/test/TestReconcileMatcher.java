@@ -0,0 +1,155 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.account.test;
+
+import com.axelor.apps.account.service.ReconcileMatcher;
+import com.axelor.apps.account.service.ReconcileMatcher.Match;
+import com.axelor.apps.account.service.ReconcileMatcher.OpenItem;
+import com.axelor.apps.account.service.move.MoveLineReconcileKey;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TestReconcileMatcher {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final LocalDate DATE = LocalDate.of(2019, 1, 15);
+
+  private static final MoveLineReconcileKey KEY = new MoveLineReconcileKey(1L, 411L, 1L);
+
+  @Test
+  public void matchSameReferenceAndAmount() {
+    ReconcileMatcher matcher = new ReconcileMatcher();
+    matcher.add(KEY, new OpenItem(1L, true, DATE, "INV0002", new BigDecimal("100.00")));
+    matcher.add(KEY, new OpenItem(2L, false, DATE.minusDays(5), "INV0001", new BigDecimal("100")));
+    matcher.add(KEY, new OpenItem(3L, false, DATE, " INV0002 ", new BigDecimal("100.00")));
+
+    List<Match> matchList = matcher.match();
+
+    Assert.assertEquals(1, matchList.size());
+    assertMatch(matchList.get(0), 1L, 3L, "100");
+  }
+
+  @Test
+  public void matchSameAmountOldestFirst() {
+    ReconcileMatcher matcher = new ReconcileMatcher();
+    matcher.add(KEY, new OpenItem(1L, true, DATE, null, new BigDecimal("50")));
+    matcher.add(KEY, new OpenItem(2L, false, DATE.minusDays(1), null, new BigDecimal("20")));
+    matcher.add(KEY, new OpenItem(3L, false, DATE.plusDays(2), null, new BigDecimal("50.0")));
+    matcher.add(KEY, new OpenItem(4L, false, DATE, null, new BigDecimal("50.00")));
+
+    List<Match> matchList = matcher.match();
+
+    Assert.assertEquals(1, matchList.size());
+    assertMatch(matchList.get(0), 1L, 4L, "50");
+  }
+
+  @Test
+  public void matchPartialAmount() {
+    ReconcileMatcher matcher = new ReconcileMatcher();
+    matcher.add(KEY, new OpenItem(1L, true, DATE, "INV0001", new BigDecimal("100")));
+    matcher.add(KEY, new OpenItem(2L, false, DATE, "INV0001", new BigDecimal("60")));
+
+    List<Match> matchList = matcher.match();
+
+    Assert.assertEquals(1, matchList.size());
+    assertMatch(matchList.get(0), 1L, 2L, "60");
+  }
+
+  @Test
+  public void matchSeveralLinesByDate() {
+    ReconcileMatcher matcher = new ReconcileMatcher();
+    matcher.add(KEY, new OpenItem(1L, true, DATE.minusDays(10), null, new BigDecimal("100")));
+    matcher.add(KEY, new OpenItem(2L, true, DATE, null, new BigDecimal("40")));
+    matcher.add(KEY, new OpenItem(3L, false, DATE.plusDays(1), null, new BigDecimal("70")));
+    matcher.add(KEY, new OpenItem(4L, false, DATE.minusDays(2), null, new BigDecimal("30")));
+
+    List<Match> matchList = matcher.match();
+
+    Assert.assertEquals(2, matchList.size());
+    assertMatch(matchList.get(0), 1L, 4L, "30");
+    assertMatch(matchList.get(1), 1L, 3L, "70");
+  }
+
+  @Test
+  public void keepGroupsApart() {
+    ReconcileMatcher matcher = new ReconcileMatcher();
+    matcher.add(KEY, new OpenItem(1L, true, DATE, null, new BigDecimal("10")));
+    matcher.add(
+        new MoveLineReconcileKey(1L, 411L, 2L),
+        new OpenItem(2L, false, DATE, null, new BigDecimal("10")));
+    matcher.add(
+        new MoveLineReconcileKey(1L, 401L, 1L),
+        new OpenItem(3L, false, DATE, null, new BigDecimal("10")));
+
+    Assert.assertEquals(3, matcher.getGroupCount());
+    Assert.assertTrue(matcher.match().isEmpty());
+  }
+
+  @Test
+  public void throughput() {
+    int lineCount = 1_000_000;
+    int groupCount = 1000;
+    ReconcileMatcher matcher = new ReconcileMatcher();
+    BigDecimal totalAmount = BigDecimal.ZERO;
+
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < lineCount / 2; i++) {
+      MoveLineReconcileKey key = new MoveLineReconcileKey(1L, 411L, (long) (i % groupCount));
+      BigDecimal amount = BigDecimal.valueOf(i % 500 + 1, 0).add(BigDecimal.valueOf(i % 97, 2));
+      String reference = i % 10 == 0 ? String.format("INV%07d", i) : null;
+      matcher.add(key, new OpenItem(2L * i, true, DATE.plusDays(i % 30), reference, amount));
+      matcher.add(
+          key, new OpenItem(2L * i + 1, false, DATE.plusDays(i % 31), reference, amount));
+      totalAmount = totalAmount.add(amount);
+    }
+    long loadDuration = System.currentTimeMillis() - startTime;
+
+    startTime = System.currentTimeMillis();
+    List<Match> matchList = matcher.match();
+    long matchDuration = System.currentTimeMillis() - startTime;
+
+    log.info(
+        "{} open lines loaded in {} ms, {} reconciles matched in {} ms",
+        lineCount,
+        loadDuration,
+        matchList.size(),
+        matchDuration);
+
+    BigDecimal matchedAmount = BigDecimal.ZERO;
+    for (Match match : matchList) {
+      matchedAmount = matchedAmount.add(match.getAmount());
+    }
+    Assert.assertEquals(groupCount, matcher.getGroupCount());
+    Assert.assertEquals(lineCount / 2, matchList.size());
+    Assert.assertEquals(0, totalAmount.compareTo(matchedAmount));
+  }
+
+  private static void assertMatch(
+      Match match, long debitMoveLineId, long creditMoveLineId, String amount) {
+    Assert.assertEquals(debitMoveLineId, match.getDebitMoveLineId());
+    Assert.assertEquals(creditMoveLineId, match.getCreditMoveLineId());
+    Assert.assertEquals(0, new BigDecimal(amount).compareTo(match.getAmount()));
+  }
+}
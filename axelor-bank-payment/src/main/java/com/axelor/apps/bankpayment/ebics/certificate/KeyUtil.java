@@ -106,7 +106,7 @@ public class KeyUtil {
       digest = MessageDigest.getInstance("SHA-256", "BC").digest(hash.getBytes("US-ASCII"));
     } catch (GeneralSecurityException | UnsupportedEncodingException e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
 
     return new String(Hex.encodeHex(digest, false)).getBytes();
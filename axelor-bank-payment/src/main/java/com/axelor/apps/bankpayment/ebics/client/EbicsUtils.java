@@ -24,6 +24,7 @@ import com.axelor.i18n.I18n;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -31,8 +32,11 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
 import javax.crypto.Cipher;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import javax.xml.parsers.DocumentBuilder;
@@ -52,6 +56,11 @@ import org.w3c.dom.traversal.NodeIterator;
  */
 public class EbicsUtils {
 
+  /** Application setting of the deflate level of the order data, 0 to 9. */
+  public static final String COMPRESSION_LEVEL_SETTING = "ebics.compression.level";
+
+  private static final int BUFFER_SIZE = 8192;
+
   /**
    * Compresses an input of byte array
    *
@@ -76,7 +85,7 @@ public class EbicsUtils {
 
     output = new ByteArrayOutputStream(toZip.length);
     buffer = new byte[1024];
-    compressor = new Deflater(Deflater.BEST_COMPRESSION);
+    compressor = new Deflater(getCompressionLevel());
     compressor.setInput(toZip);
     compressor.finish();
 
@@ -89,13 +98,44 @@ public class EbicsUtils {
       output.close();
     } catch (IOException e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
     compressor.end();
 
     return output.toByteArray();
   }
 
+  /**
+   * Compresses what is written to the returned stream into the given output, as {@link
+   * #zip(byte[])} does.
+   *
+   * @param output the stream to write the compressed data to
+   * @return the stream to write the data to compress to
+   */
+  public static OutputStream zip(OutputStream output) {
+
+    return new DeflaterOutputStream(output, new Deflater(getCompressionLevel()), BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          def.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the deflate level of the order data, {@link Deflater#DEFAULT_COMPRESSION} unless set
+   * in the application settings. The best compression is seldom worth its cost on large files.
+   *
+   * @return the deflate level
+   */
+  public static int getCompressionLevel() {
+    return AppSettings.get().getInt(COMPRESSION_LEVEL_SETTING, Deflater.DEFAULT_COMPRESSION);
+  }
+
   /**
    * Generates a random nonce.
    *
@@ -119,7 +159,7 @@ public class EbicsUtils {
       secureRandom = SecureRandom.getInstance("SHA1PRNG");
       return secureRandom.generateSeed(16);
     } catch (NoSuchAlgorithmException e) {
-      throw new AxelorException(e.getCause(), TraceBackRepository.TYPE_FUNCTIONNAL, e.getMessage());
+      throw new AxelorException(e, TraceBackRepository.TYPE_FUNCTIONNAL, e.getMessage());
     }
   }
 
@@ -148,8 +188,7 @@ public class EbicsUtils {
       try {
         count = decompressor.inflate(buf);
       } catch (DataFormatException e) {
-        throw new AxelorException(
-            e.getCause(), TraceBackRepository.TYPE_FUNCTIONNAL, e.getMessage());
+        throw new AxelorException(e, TraceBackRepository.TYPE_FUNCTIONNAL, e.getMessage());
       }
       output.write(buf, 0, count);
     }
@@ -157,7 +196,7 @@ public class EbicsUtils {
     try {
       output.close();
     } catch (IOException e) {
-      throw new AxelorException(e.getCause(), TraceBackRepository.TYPE_FUNCTIONNAL, e.getMessage());
+      throw new AxelorException(e, TraceBackRepository.TYPE_FUNCTIONNAL, e.getMessage());
     }
 
     decompressor.end();
@@ -165,6 +204,26 @@ public class EbicsUtils {
     return output.toByteArray();
   }
 
+  /**
+   * Uncompresses what is written to the returned stream into the given output, as {@link
+   * #unzip(byte[])} does.
+   *
+   * @param output the stream to write the uncompressed data to
+   * @return the stream to write the compressed data to
+   */
+  public static OutputStream unzip(OutputStream output) {
+    return new InflaterOutputStream(output, new Inflater(), BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inf.end();
+        }
+      }
+    };
+  }
+
   /**
    * Canonizes an input with inclusive c14n without comments algorithm.
    *
@@ -210,7 +269,7 @@ public class EbicsUtils {
       return output.toByteArray();
     } catch (Exception e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
   }
 
@@ -255,6 +314,20 @@ public class EbicsUtils {
     return encryptOrDecrypt(Cipher.ENCRYPT_MODE, input, keySpec);
   }
 
+  /**
+   * Encrypts what is written to the returned stream into the given output, as {@link
+   * #encrypt(byte[], SecretKeySpec)} does.
+   *
+   * @param output the stream to write the encrypted data to
+   * @param keySpec the key spec
+   * @return the stream to write the data to encrypt to
+   * @throws AxelorException
+   */
+  public static OutputStream encrypt(OutputStream output, SecretKeySpec keySpec)
+      throws AxelorException {
+    return new CipherOutputStream(output, createCipher(Cipher.ENCRYPT_MODE, keySpec));
+  }
+
   /**
    * Decrypts the given input according to key spec.
    *
@@ -278,6 +351,23 @@ public class EbicsUtils {
    */
   private static byte[] encryptOrDecrypt(int mode, byte[] input, SecretKeySpec keySpec)
       throws AxelorException {
+    try {
+      return createCipher(mode, keySpec).doFinal(input);
+    } catch (GeneralSecurityException e) {
+      throw new AxelorException(
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+    }
+  }
+
+  /**
+   * Creates the cipher of the order data, for the given mode and key spec.
+   *
+   * @param mode the encryption-decryption mode.
+   * @param keySpec the key spec.
+   * @return the initialized cipher.
+   * @throws AxelorException
+   */
+  public static Cipher createCipher(int mode, SecretKeySpec keySpec) throws AxelorException {
     IvParameterSpec iv;
     Cipher cipher;
 
@@ -285,10 +375,10 @@ public class EbicsUtils {
     try {
       cipher = Cipher.getInstance("AES/CBC/ISO10126Padding", BouncyCastleProvider.PROVIDER_NAME);
       cipher.init(mode, keySpec, iv);
-      return cipher.doFinal(input);
+      return cipher;
     } catch (GeneralSecurityException e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
   }
 
@@ -303,7 +393,7 @@ public class EbicsUtils {
       return new SimpleDateFormat(AppSettings.get().get("date.format")).parse(date);
     } catch (Exception e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
   }
 
@@ -18,6 +18,7 @@
 package com.axelor.apps.bankpayment.ebics.client;
 
 import com.axelor.apps.bankpayment.db.EbicsTransferState;
+import com.axelor.apps.bankpayment.db.EbicsUser;
 import com.axelor.apps.bankpayment.ebics.interfaces.ContentFactory;
 import com.axelor.apps.bankpayment.ebics.io.ByteArrayContentFactory;
 import com.axelor.apps.bankpayment.ebics.io.Joiner;
@@ -33,11 +34,20 @@ import com.axelor.apps.bankpayment.ebics.xml.TransferResponseElement;
 import com.axelor.apps.bankpayment.ebics.xml.UInitializationRequestElement;
 import com.axelor.apps.bankpayment.ebics.xml.UTransferRequestElement;
 import com.axelor.exception.AxelorException;
+import com.axelor.exception.db.repo.TraceBackRepository;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
 import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.Hibernate;
 import org.jdom.JDOMException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Handling of file transfers. Files can be transferred to and fetched from the bank. Every transfer
@@ -66,6 +76,8 @@ import org.jdom.JDOMException;
  */
 public class FileTransfer {
 
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
   /**
    * Constructs a new FileTransfer session
    *
@@ -95,47 +107,103 @@ public class FileTransfer {
 
     initializer = new UInitializationRequestElement(session, orderType, content, signature);
 
-    initializer.build();
-
-    initializer.validate();
-    ByteArrayOutputStream bout = new ByteArrayOutputStream();
     try {
-      initializer.save(bout);
-    } catch (JDOMException e) {
-      // TODO Bloc catch généré automatiquement
-      e.printStackTrace();
+      initializer.build();
+
+      initializer.validate();
+      if (log.isDebugEnabled()) {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try {
+          initializer.save(bout);
+          log.debug("EBICS upload initialization request:\n{}", bout);
+        } catch (JDOMException e) {
+          log.debug("EBICS upload initialization request can't be printed", e);
+        }
+      }
+
+      httpCode = sender.send(new ByteArrayContentFactory(initializer.prettyPrint()));
+
+      EbicsUtils.checkHttpCode(httpCode);
+      response =
+          new InitializationResponseElement(
+              sender.getResponseBody(),
+              orderType,
+              DefaultEbicsRootElement.generateName(orderType),
+              session.getUser());
+      response.build();
+      response.report(new EbicsRootElement[] {initializer, response});
+      state = new EbicsTransferState();
+      state.setNumSegments(initializer.getSegmentNumber());
+      state.setTransactionId(response.getTransactionId());
+
+      // the next segment is prepared while the current one is sent
+      loadSegmentData();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<UTransferRequestElement> nextUploader =
+            prepareSegment(executor, initializer, 1, state, orderType);
+        int segNumber = 1;
+        while (segNumber <= state.getNumSegments()) {
+          UTransferRequestElement uploader = getUploader(nextUploader);
+          if (segNumber < state.getNumSegments()) {
+            nextUploader = prepareSegment(executor, initializer, segNumber + 1, state, orderType);
+          }
+          sendSegment(uploader, orderType);
+          segNumber++;
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    } finally {
+      initializer.close();
     }
-    System.out.println(
-        "Requete ----------------------------------------------------------------------------");
-    System.out.println(bout.toString());
+  }
 
-    httpCode = sender.send(new ByteArrayContentFactory(initializer.prettyPrint()));
+  /**
+   * Load the bank and the authentication certificate of the user on the calling thread. The
+   * segments are built and signed on another thread, which must not load them lazily outside of
+   * the persistence context of the request.
+   */
+  protected void loadSegmentData() {
+    EbicsUser user = session.getUser();
+    Hibernate.initialize(user.getEbicsPartner().getEbicsBank());
+    Hibernate.initialize(user.getX002Certificate());
+  }
 
-    EbicsUtils.checkHttpCode(httpCode);
-    response =
-        new InitializationResponseElement(
-            sender.getResponseBody(),
-            orderType,
-            DefaultEbicsRootElement.generateName(orderType),
-            session.getUser());
-    response.build();
-    response.report(new EbicsRootElement[] {initializer, response});
-    state = new EbicsTransferState();
-    state.setNumSegments(initializer.getSegmentNumber());
-    state.setTransactionId(response.getTransactionId());
-    int segNumber = 1;
-    while (segNumber <= state.getNumSegments()) {
-      state.setSegmentNumber(segNumber);
-      if (segNumber == state.getSegmentNumber()) {
-        state.setLastSegment(true);
+  protected Future<UTransferRequestElement> prepareSegment(
+      ExecutorService executor,
+      UInitializationRequestElement initializer,
+      int segmentNumber,
+      EbicsTransferState state,
+      OrderType orderType) {
+    boolean lastSegment = segmentNumber == state.getNumSegments();
+    byte[] transactionId = state.getTransactionId();
+
+    return executor.submit(
+        () ->
+            buildSegment(
+                initializer.getContent(segmentNumber),
+                segmentNumber,
+                lastSegment,
+                transactionId,
+                orderType));
+  }
+
+  protected UTransferRequestElement getUploader(Future<UTransferRequestElement> uploader)
+      throws IOException, AxelorException {
+    try {
+      return uploader.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AxelorException) {
+        throw (AxelorException) e.getCause();
       }
-      sendFile(
-          initializer.getContent(segNumber),
-          segNumber,
-          state.getLastSegment(),
-          state.getTransactionId(),
-          orderType);
-      segNumber++;
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL);
     }
   }
 
@@ -157,17 +225,34 @@ public class FileTransfer {
       byte[] transactionId,
       OrderType orderType)
       throws IOException, AxelorException {
+    sendSegment(
+        buildSegment(factory, segmentNumber, lastSegment, transactionId, orderType), orderType);
+  }
+
+  protected UTransferRequestElement buildSegment(
+      ContentFactory factory,
+      int segmentNumber,
+      boolean lastSegment,
+      byte[] transactionId,
+      OrderType orderType)
+      throws AxelorException {
     UTransferRequestElement uploader;
-    HttpRequestSender sender;
-    TransferResponseElement response;
-    int httpCode;
 
     uploader =
         new UTransferRequestElement(
             session, orderType, segmentNumber, lastSegment, transactionId, factory);
-    sender = new HttpRequestSender(session);
     uploader.build();
     uploader.validate();
+    return uploader;
+  }
+
+  protected void sendSegment(UTransferRequestElement uploader, OrderType orderType)
+      throws IOException, AxelorException {
+    HttpRequestSender sender;
+    TransferResponseElement response;
+    int httpCode;
+
+    sender = new HttpRequestSender(session);
     httpCode = sender.send(new ByteArrayContentFactory(uploader.prettyPrint()));
     EbicsUtils.checkHttpCode(httpCode);
     response =
@@ -220,7 +305,7 @@ public class FileTransfer {
     state.setSegmentNumber(response.getSegmentsNumber());
     state.setTransactionId(response.getTransactionId());
     state.setSegmentNumber(response.getSegmentNumber());
-    joiner = new Joiner(session.getUser());
+    joiner = new Joiner(session.getUser(), response.getTransactionKey(), dest);
     joiner.append(response.getOrderData());
     while (state.getSegmentNumber() <= state.getNumSegments()) {
       if (state.getSegmentNumber() == state.getNumSegments()) {
@@ -235,7 +320,7 @@ public class FileTransfer {
       state.setSegmentNumber(state.getSegmentNumber() + 1);
     }
 
-    joiner.writeTo(dest, response.getTransactionKey());
+    joiner.close();
     receipt =
         new ReceiptRequestElement(
             session, state.getTransactionId(), DefaultEbicsRootElement.generateName(orderType));
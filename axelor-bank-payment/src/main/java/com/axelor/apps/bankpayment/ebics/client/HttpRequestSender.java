@@ -128,7 +128,7 @@ public class HttpRequestSender {
     } catch (IOException e) {
       e.printStackTrace();
       throw new AxelorException(
-          e.getCause(),
+          e,
           TraceBackRepository.CATEGORY_MISSING_FIELD,
           I18n.get("Connection error: %s"),
           e.getMessage());
@@ -238,7 +238,7 @@ public class HttpRequestSender {
     } catch (Exception e) {
       e.printStackTrace();
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.TYPE_TECHNICAL, I18n.get("Error adding certificate"));
+          e, TraceBackRepository.TYPE_TECHNICAL, I18n.get("Error adding certificate"));
     }
 
     return client;
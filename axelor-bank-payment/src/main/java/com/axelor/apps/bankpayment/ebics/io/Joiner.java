@@ -23,14 +23,18 @@ import com.axelor.apps.bankpayment.ebics.service.EbicsUserService;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.inject.Beans;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
 
 /**
  * A simple mean to join downloaded segments from the bank ebics server.
  *
+ * <p>Each segment is decrypted and uncompressed into the output as soon as it is appended, so the
+ * whole download is never held in memory.
+ *
  * @author Hachani
  */
 public class Joiner {
@@ -39,42 +43,49 @@ public class Joiner {
    * Constructs a new <code>Joiner</code> object.
    *
    * @param user the ebics user.
+   * @param transactionKey the transaction key
+   * @param output the output stream.
+   * @throws AxelorException
    */
-  public Joiner(EbicsUser user) {
-    this.user = user;
-    buffer = new ByteArrayOutputStream();
+  public Joiner(EbicsUser user, byte[] transactionKey, OutputStream output)
+      throws AxelorException {
+    try {
+      cipher =
+          EbicsUtils.createCipher(
+              Cipher.DECRYPT_MODE,
+              Beans.get(EbicsUserService.class).decryptTransactionKey(user, transactionKey));
+    } catch (GeneralSecurityException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_INCONSISTENCY, e.getMessage());
+    } catch (IOException e) {
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL, e.getMessage());
+    }
+    this.output = EbicsUtils.unzip(new BufferedOutputStream(output));
   }
 
   public void append(byte[] data) throws AxelorException {
     try {
-      buffer.write(data);
-      buffer.flush();
+      byte[] decrypted = cipher.update(data);
+      if (decrypted != null) {
+        output.write(decrypted);
+      }
     } catch (IOException e) {
-      throw new AxelorException(e.getCause(), TraceBackRepository.TYPE_TECHNICAL, e.getMessage());
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL, e.getMessage());
     }
   }
 
   /**
-   * Writes the joined part to an output stream.
+   * Writes the end of the joined parts and closes the output stream.
    *
-   * @param output the output stream.
-   * @param transactionKey the transaction key
    * @throws EbicsException
    */
-  public void writeTo(OutputStream output, byte[] transactionKey) throws AxelorException {
+  public void close() throws AxelorException {
     try {
-      byte[] decrypted;
-
-      buffer.close();
-      decrypted =
-          Beans.get(EbicsUserService.class).decrypt(user, buffer.toByteArray(), transactionKey);
-      output.write(EbicsUtils.unzip(decrypted));
+      output.write(cipher.doFinal());
       output.close();
     } catch (GeneralSecurityException e) {
-      throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_INCONSISTENCY, e.getMessage());
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_INCONSISTENCY, e.getMessage());
     } catch (IOException e) {
-      throw new AxelorException(e.getCause(), TraceBackRepository.TYPE_TECHNICAL, e.getMessage());
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL, e.getMessage());
     }
   }
 
@@ -82,6 +93,6 @@ public class Joiner {
   // DATA MEMBERS
   // --------------------------------------------------------------------
 
-  private EbicsUser user;
-  private ByteArrayOutputStream buffer;
+  private Cipher cipher;
+  private OutputStream output;
 }
@@ -21,14 +21,24 @@ import com.axelor.apps.bankpayment.ebics.client.EbicsUtils;
 import com.axelor.apps.bankpayment.ebics.interfaces.ContentFactory;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import javax.crypto.spec.SecretKeySpec;
 
 /**
  * A mean to split a given input file to 1MB portions. this i useful to handle big file uploading.
  *
+ * <p>The input is compressed and encrypted through chained streams into a temporary file, which is
+ * deleted on {@link #close()}.
+ *
  * @author Hachani
  */
-public class Splitter {
+public class Splitter implements Closeable {
 
   /**
    * Constructs a new <code>FileSplitter</code> with a given file.
@@ -66,14 +76,20 @@ public class Splitter {
   public final void readInput(boolean isCompressionEnabled, SecretKeySpec keySpec)
       throws AxelorException {
     try {
-      if (isCompressionEnabled) {
-        input = EbicsUtils.zip(input);
+      contentFile = File.createTempFile("ebics", ".segments");
+
+      try (OutputStream encrypted =
+              EbicsUtils.encrypt(
+                  new BufferedOutputStream(new FileOutputStream(contentFile)), keySpec);
+          OutputStream output = isCompressionEnabled ? EbicsUtils.zip(encrypted) : encrypted) {
+        output.write(input);
       }
-      content = EbicsUtils.encrypt(input, keySpec);
+
       segmentation();
     } catch (Exception e) {
+      close();
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
   }
 
@@ -88,43 +104,44 @@ public class Splitter {
    */
   private void segmentation() {
 
-    numSegments = content.length / 1048576; // (1024 * 1024)
+    contentLength = contentFile.length();
+
+    numSegments = (int) (contentLength / 1048576); // (1024 * 1024)
 
-    if (content.length % 1048576 != 0) {
+    if (contentLength % 1048576 != 0) {
       numSegments++;
     }
 
-    segmentSize = content.length / numSegments;
+    segmentSize = (int) (contentLength / numSegments);
   }
 
   /**
-   * Returns the content of a data segment according to a given segment number.
+   * Returns the content of a data segment according to a given segment number. The segment is read
+   * from the temporary file of the encrypted content, only when needed.
    *
    * @param segmentNumber the segment number
    * @return
+   * @throws AxelorException
    */
-  public ContentFactory getContent(int segmentNumber) {
+  public ContentFactory getContent(int segmentNumber) throws AxelorException {
     byte[] segment;
-    int offset;
+    long offset;
 
-    offset = segmentSize * (segmentNumber - 1);
-    if (content.length < segmentSize + offset) {
-      segment = new byte[content.length - offset];
+    offset = (long) segmentSize * (segmentNumber - 1);
+    if (contentLength < segmentSize + offset) {
+      segment = new byte[(int) (contentLength - offset)];
     } else {
       segment = new byte[segmentSize];
     }
 
-    System.arraycopy(content, offset, segment, 0, segment.length);
-    return new ByteArrayContentFactory(segment);
-  }
+    try (RandomAccessFile content = new RandomAccessFile(contentFile, "r")) {
+      content.seek(offset);
+      content.readFully(segment);
+    } catch (IOException e) {
+      throw new AxelorException(e, TraceBackRepository.TYPE_TECHNICAL, e.getMessage());
+    }
 
-  /**
-   * Returns the hole content.
-   *
-   * @return the input content.
-   */
-  public byte[] getContent() {
-    return content;
+    return new ByteArrayContentFactory(segment);
   }
 
   /**
@@ -136,12 +153,22 @@ public class Splitter {
     return numSegments;
   }
 
+  /** Deletes the temporary file of the encrypted content. */
+  @Override
+  public void close() {
+    if (contentFile != null) {
+      contentFile.delete();
+      contentFile = null;
+    }
+  }
+
   // --------------------------------------------------------------------
   // DATA MEMBERS
   // --------------------------------------------------------------------
 
   private byte[] input;
-  private byte[] content;
+  private File contentFile;
+  private long contentLength;
   private int segmentSize;
   private int numSegments;
 }
@@ -97,7 +97,7 @@ public class EbicsCertificateService {
               CertificateFactory.getInstance("X.509", "BC").generateCertificate(instream);
     } catch (CertificateException | NoSuchProviderException e) {
       throw new AxelorException(
-          e.getCause(),
+          e,
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
           I18n.get("Error in bank certificate of type %s"),
           type);
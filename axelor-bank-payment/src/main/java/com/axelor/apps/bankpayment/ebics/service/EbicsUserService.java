@@ -187,6 +187,21 @@ public class EbicsUserService {
    */
   public byte[] decrypt(EbicsUser user, byte[] encryptedData, byte[] transactionKey)
       throws AxelorException, GeneralSecurityException, IOException {
+    return decryptData(encryptedData, decryptTransactionKey(user, transactionKey));
+  }
+
+  /**
+   * Decrypts the transaction key of a download with the user encryption key.
+   *
+   * @param user the ebics user
+   * @param transactionKey the transaction key
+   * @return the key spec of the order data.
+   * @throws AxelorException
+   * @throws GeneralSecurityException
+   * @throws IOException
+   */
+  public SecretKeySpec decryptTransactionKey(EbicsUser user, byte[] transactionKey)
+      throws AxelorException, GeneralSecurityException, IOException {
     Cipher cipher;
     int blockSize;
     ByteArrayOutputStream outputStream;
@@ -200,7 +215,7 @@ public class EbicsUserService {
       outputStream.write(cipher.doFinal(transactionKey, j * blockSize, blockSize));
     }
 
-    return decryptData(encryptedData, outputStream.toByteArray());
+    return new SecretKeySpec(outputStream.toByteArray(), "EAS");
   }
 
   /**
@@ -221,13 +236,13 @@ public class EbicsUserService {
    * form.
    *
    * @param input The encrypted data
-   * @param key The secret key.
+   * @param keySpec The secret key.
    * @return The decrypted data sent from the EBICS bank.
    * @throws GeneralSecurityException
    * @throws IOException
    */
-  private byte[] decryptData(byte[] input, byte[] key) throws AxelorException {
-    return EbicsUtils.decrypt(input, new SecretKeySpec(key, "EAS"));
+  private byte[] decryptData(byte[] input, SecretKeySpec keySpec) throws AxelorException {
+    return EbicsUtils.decrypt(input, keySpec);
   }
 
   @Transactional
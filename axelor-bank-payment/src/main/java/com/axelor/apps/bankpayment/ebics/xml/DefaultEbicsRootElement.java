@@ -95,7 +95,7 @@ public abstract class DefaultEbicsRootElement implements EbicsRootElement {
       xmlOutputter.output(document, output);
     } catch (IOException | JDOMException e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
 
     return output.toByteArray();
@@ -212,7 +212,7 @@ public abstract class DefaultEbicsRootElement implements EbicsRootElement {
       out.close();
     } catch (IOException e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
   }
 
@@ -59,7 +59,7 @@ public abstract class DefaultResponseElement extends DefaultEbicsRootElement {
       document = XmlObject.Factory.parse(factory.getContent());
     } catch (XmlException | IOException e) {
       throw new AxelorException(
-          e.getCause(), TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
+          e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, e.getMessage());
     }
   }
 
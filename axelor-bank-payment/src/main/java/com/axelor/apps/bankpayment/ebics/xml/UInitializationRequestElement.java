@@ -269,7 +269,7 @@ public class UInitializationRequestElement extends InitializationRequestElement
    * @param segment the segment number
    * @return the content of the given segment
    */
-  public ContentFactory getContent(int segment) {
+  public ContentFactory getContent(int segment) throws AxelorException {
     return splitter.getContent(segment);
   }
 
@@ -282,6 +282,11 @@ public class UInitializationRequestElement extends InitializationRequestElement
     return splitter.getSegmentNumber();
   }
 
+  /** Releases the encrypted content of the segments, once they are sent. */
+  public void close() {
+    splitter.close();
+  }
+
   // --------------------------------------------------------------------
   // DATA MEMBERS
   // --------------------------------------------------------------------
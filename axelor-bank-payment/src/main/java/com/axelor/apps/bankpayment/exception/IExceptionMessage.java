@@ -203,6 +203,8 @@ public interface IExceptionMessage {
       "Missing bank statement file format" /*)*/;
   static final String BANK_STATEMENT_EBICS_PARTNER = /*$$(*/
       "Error with EBICS partner %s: %s" /*)*/;
+  static final String BANK_STATEMENT_AFB120_RECORD_LENGTH = /*$$(*/
+      "Record %s of the bank statement file is not %s characters long" /*)*/;
 
   /*
    * Batch direct debit
@@ -0,0 +1,90 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankorder;
+
+import com.axelor.apps.bankpayment.db.BankOrder;
+import com.axelor.apps.bankpayment.db.BankOrderLine;
+import com.axelor.apps.bankpayment.db.repo.BankOrderRepository;
+import java.math.BigDecimal;
+
+/**
+ * Control sums of a bank order (number of lines, total amount and total amount in company
+ * currency), computed incrementally while the lines are created. Sums computed on separate
+ * partitions of the lines can be merged before being applied to the bank order.
+ */
+public class BankOrderControlSums {
+
+  private int nbOfLines;
+  private BigDecimal totalAmount = BigDecimal.ZERO;
+  private BigDecimal companyCurrencyTotalAmount = BigDecimal.ZERO;
+
+  public BankOrderControlSums add(BankOrderLine bankOrderLine) {
+    return add(bankOrderLine.getBankOrderAmount(), bankOrderLine.getCompanyCurrencyAmount());
+  }
+
+  public BankOrderControlSums add(BigDecimal amount, BigDecimal companyCurrencyAmount) {
+    nbOfLines++;
+    if (amount != null) {
+      totalAmount = totalAmount.add(amount);
+    }
+    if (companyCurrencyAmount != null) {
+      companyCurrencyTotalAmount = companyCurrencyTotalAmount.add(companyCurrencyAmount);
+    }
+    return this;
+  }
+
+  public BankOrderControlSums merge(BankOrderControlSums other) {
+    nbOfLines += other.nbOfLines;
+    totalAmount = totalAmount.add(other.totalAmount);
+    companyCurrencyTotalAmount = companyCurrencyTotalAmount.add(other.companyCurrencyTotalAmount);
+    return this;
+  }
+
+  /**
+   * Set the totals of the bank order from the control sums, the same way as {@link
+   * BankOrderService#updateTotalAmounts(BankOrder)} does from its lines.
+   *
+   * @param bankOrder
+   */
+  public void apply(BankOrder bankOrder) {
+    if (bankOrder.getOrderTypeSelect().equals(BankOrderRepository.ORDER_TYPE_SEND_BANK_ORDER)) {
+      bankOrder.setArithmeticTotal(bankOrder.getBankOrderTotalAmount());
+    } else {
+      bankOrder.setArithmeticTotal(totalAmount);
+    }
+
+    if (!bankOrder.getIsMultiCurrency()) {
+      bankOrder.setBankOrderTotalAmount(bankOrder.getArithmeticTotal());
+    }
+
+    bankOrder.setCompanyCurrencyTotalAmount(companyCurrencyTotalAmount);
+    bankOrder.setNbOfLines(nbOfLines);
+  }
+
+  public int getNbOfLines() {
+    return nbOfLines;
+  }
+
+  public BigDecimal getTotalAmount() {
+    return totalAmount;
+  }
+
+  public BigDecimal getCompanyCurrencyTotalAmount() {
+    return companyCurrencyTotalAmount;
+  }
+}
@@ -278,11 +278,7 @@ public class BankOrderLineService {
     domain += " AND self.active = true";
 
     // filter on the result from bankPartner if the option is active.
-    EbicsPartner ebicsPartner =
-        Beans.get(EbicsPartnerRepository.class)
-            .all()
-            .filter("? MEMBER OF self.bankDetailsSet", bankOrder.getSenderBankDetails())
-            .fetchOne();
+    EbicsPartner ebicsPartner = findEbicsPartner(bankOrder);
 
     if (ebicsPartnerIsFiltering(ebicsPartner, bankOrder.getOrderTypeSelect())) {
       domain +=
@@ -358,6 +354,22 @@ public class BankOrderLineService {
 
   public void checkBankDetails(BankDetails bankDetails, BankOrder bankOrder)
       throws AxelorException {
+    checkBankDetails(bankDetails, bankOrder, findEbicsPartner(bankOrder));
+  }
+
+  /**
+   * Check the receiver bank details of a line against a bank order, the EBICS partner of the sender
+   * bank details being already known, so that the lines of a bank order can be checked without
+   * looking it up again for each of them.
+   *
+   * @param bankDetails The receiver bank details
+   * @param bankOrder The bank order
+   * @param ebicsPartner The EBICS partner of the sender bank details, may be null
+   * @throws AxelorException
+   */
+  public void checkBankDetails(
+      BankDetails bankDetails, BankOrder bankOrder, EbicsPartner ebicsPartner)
+      throws AxelorException {
     if (bankDetails == null) {
       throw new AxelorException(
           TraceBackRepository.CATEGORY_INCONSISTENCY,
@@ -372,12 +384,6 @@ public class BankOrderLineService {
     }
 
     // filter on the result from bankPartner if the option is active.
-    EbicsPartner ebicsPartner =
-        Beans.get(EbicsPartnerRepository.class)
-            .all()
-            .filter("? MEMBER OF self.bankDetailsSet", bankOrder.getSenderBankDetails())
-            .fetchOne();
-
     if (ebicsPartnerIsFiltering(ebicsPartner, bankOrder.getOrderTypeSelect())) {
 
       if (!ebicsPartner.getReceiverBankDetailsSet().contains(bankDetails)) {
@@ -411,6 +417,13 @@ public class BankOrderLineService {
     }
   }
 
+  public EbicsPartner findEbicsPartner(BankOrder bankOrder) {
+    return Beans.get(EbicsPartnerRepository.class)
+        .all()
+        .filter("? MEMBER OF self.bankDetailsSet", bankOrder.getSenderBankDetails())
+        .fetchOne();
+  }
+
   private boolean ebicsPartnerIsFiltering(EbicsPartner ebicsPartner, int orderType) {
     return (ebicsPartner != null)
         && (ebicsPartner.getFilterReceiverBD())
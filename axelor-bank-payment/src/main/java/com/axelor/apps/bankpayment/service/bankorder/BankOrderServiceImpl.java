@@ -200,17 +200,16 @@ public class BankOrderServiceImpl implements BankOrderService {
 
   @Override
   public void updateTotalAmounts(BankOrder bankOrder) throws AxelorException {
-    if (bankOrder.getOrderTypeSelect().equals(BankOrderRepository.ORDER_TYPE_SEND_BANK_ORDER)) {
-      bankOrder.setArithmeticTotal(bankOrder.getBankOrderTotalAmount());
-    } else {
-      bankOrder.setArithmeticTotal(this.computeBankOrderTotalAmount(bankOrder));
-    }
+    BankOrderControlSums controlSums = new BankOrderControlSums();
 
-    if (!bankOrder.getIsMultiCurrency()) {
-      bankOrder.setBankOrderTotalAmount(bankOrder.getArithmeticTotal());
+    List<BankOrderLine> bankOrderLines = bankOrder.getBankOrderLineList();
+    if (bankOrderLines != null) {
+      for (BankOrderLine bankOrderLine : bankOrderLines) {
+        controlSums.add(bankOrderLine);
+      }
     }
 
-    bankOrder.setCompanyCurrencyTotalAmount(this.computeCompanyCurrencyTotalAmount(bankOrder));
+    controlSums.apply(bankOrder);
   }
 
   @Override
@@ -243,12 +242,18 @@ public class BankOrderServiceImpl implements BankOrderService {
       List<BankOrderLine> bankOrderLines, int orderType, BigDecimal arithmeticTotal)
       throws AxelorException {
     BigDecimal totalAmount = BigDecimal.ZERO;
+    BankOrder bankOrder = null;
+    EbicsPartner ebicsPartner = null;
     for (BankOrderLine bankOrderLine : bankOrderLines) {
 
       bankOrderLineService.checkPreconditions(bankOrderLine);
       totalAmount = totalAmount.add(bankOrderLine.getBankOrderAmount());
+      if (bankOrderLine.getBankOrder() != bankOrder) {
+        bankOrder = bankOrderLine.getBankOrder();
+        ebicsPartner = bankOrderLineService.findEbicsPartner(bankOrder);
+      }
       bankOrderLineService.checkBankDetails(
-          bankOrderLine.getReceiverBankDetails(), bankOrderLine.getBankOrder());
+          bankOrderLine.getReceiverBankDetails(), bankOrder, ebicsPartner);
     }
     if (!totalAmount.equals(arithmeticTotal)) {
       throw new AxelorException(
@@ -28,6 +28,7 @@ import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.tool.file.FileTool;
 import com.axelor.apps.tool.xml.Marschaller;
+import com.axelor.apps.tool.xml.RepeatedElementWriter;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
@@ -36,12 +37,16 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
+import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.namespace.QName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -130,8 +135,7 @@ public class BankOrderFileService {
 
     switch (fileExtension) {
       case FILE_EXTENSION_XML:
-        return Marschaller.marschalFile(
-            fileToCreate, context, this.getFolderPath(), this.computeFileName());
+        return generateXmlFile();
 
       case FILE_EXTENSION_TXT:
         try {
@@ -154,6 +158,83 @@ public class BankOrderFileService {
     }
   }
 
+  protected File generateXmlFile() throws JAXBException, IOException, AxelorException {
+
+    return Marschaller.marschalFile(
+        fileToCreate, context, this.getFolderPath(), this.computeFileName());
+  }
+
+  /**
+   * Create the order XML file, building and writing the transactions of the bank order lines one
+   * by one instead of keeping all of them in the document.
+   *
+   * @param transactionList the transaction list of the document, empty
+   * @param transactionTag the tag of a transaction in the document
+   * @param transactionClass the class of a transaction
+   * @param transactionBuilder builds the transaction of a bank order line
+   * @throws AxelorException
+   * @throws IOException
+   * @throws JAXBException
+   * @throws DatatypeConfigurationException
+   */
+  protected <T> File generateStreamedFile(
+      List<T> transactionList,
+      String transactionTag,
+      Class<T> transactionClass,
+      TransactionBuilder<T> transactionBuilder)
+      throws JAXBException, IOException, AxelorException, DatatypeConfigurationException {
+
+    Iterator<BankOrderLine> bankOrderLineIt = bankOrderLineList.iterator();
+
+    if (!bankOrderLineIt.hasNext()) {
+      return generateXmlFile();
+    }
+
+    T firstTransaction = transactionBuilder.build(bankOrderLineIt.next());
+    QName transactionName =
+        new QName(((JAXBElement<?>) fileToCreate).getName().getNamespaceURI(), transactionTag);
+    File file = FileTool.create(this.getFolderPath(), this.computeFileName());
+
+    RepeatedElementWriter<T> transactionWriter =
+        RepeatedElementWriter.open(
+            fileToCreate,
+            Marschaller.getContext(context),
+            transactionList,
+            firstTransaction,
+            transactionName,
+            transactionClass,
+            file);
+
+    if (transactionWriter == null) {
+      log.debug("Bank order file {} can't be streamed, marshalling whole file", file.getName());
+      while (bankOrderLineIt.hasNext()) {
+        transactionList.add(transactionBuilder.build(bankOrderLineIt.next()));
+      }
+      return generateXmlFile();
+    }
+
+    boolean done = false;
+    try {
+      while (bankOrderLineIt.hasNext()) {
+        transactionWriter.write(transactionBuilder.build(bankOrderLineIt.next()));
+      }
+      done = true;
+    } finally {
+      transactionWriter.close();
+      if (!done) {
+        Files.deleteIfExists(file.toPath());
+      }
+    }
+
+    return file;
+  }
+
+  @FunctionalInterface
+  protected interface TransactionBuilder<T> {
+
+    T build(BankOrderLine bankOrderLine) throws AxelorException, DatatypeConfigurationException;
+  }
+
   public String computeFileName() {
 
     return String.format(
@@ -19,6 +19,7 @@ package com.axelor.apps.bankpayment.service.bankorder.file.directdebit;
 
 import com.axelor.apps.bankpayment.db.BankOrder;
 import com.axelor.apps.bankpayment.service.bankorder.file.BankOrderFileService;
+import javax.xml.datatype.DatatypeFactory;
 
 public abstract class BankOrderFile008Service extends BankOrderFileService {
 
@@ -27,6 +28,8 @@ public abstract class BankOrderFile008Service extends BankOrderFileService {
   protected static final String BIC_NOT_PROVIDED = "NOTPROVIDED";
   protected static final String CURRENCY_CODE = "EUR";
 
+  protected DatatypeFactory datatypeFactory;
+
   public BankOrderFile008Service(BankOrder bankOrder) {
     super(bankOrder);
 
@@ -57,12 +57,15 @@ public class BankOrderFile00100102Service extends BankOrderFileService {
 
   protected static final String BIC_NOT_PROVIDED = "NOTPROVIDED";
 
+  protected ObjectFactory factory;
+
   @Inject
   public BankOrderFile00100102Service(BankOrder bankOrder) {
 
     super(bankOrder);
 
     context = "com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_02";
+    factory = new ObjectFactory();
     fileExtension = FILE_EXTENSION_XML;
   }
 
@@ -80,8 +83,6 @@ public class BankOrderFile00100102Service extends BankOrderFileService {
 
     DatatypeFactory datatypeFactory = DatatypeFactory.newInstance();
 
-    ObjectFactory factory = new ObjectFactory();
-
     ServiceLevel2Choice svcLvl = factory.createServiceLevel2Choice();
     svcLvl.setCd(ServiceLevel1Code.SEPA);
 
@@ -127,89 +128,6 @@ public class BankOrderFile00100102Service extends BankOrderFileService {
     pmtInf.setDbtrAcct(dbtrAcct);
     pmtInf.setDbtrAgt(dbtrAgt);
 
-    CreditTransferTransactionInformation1 cdtTrfTxInf = null;
-    PaymentIdentification1 pmtId = null;
-    AmountType2Choice amt = null;
-    CurrencyAndAmount instdAmt = null;
-    PartyIdentification8 cbtr = null;
-    CashAccount7 cbtrAcct = null;
-    BranchAndFinancialInstitutionIdentification3 cbtrAgt = null;
-    RemittanceInformation1 rmtInf = null;
-
-    for (BankOrderLine bankOrderLine : bankOrderLineList) {
-
-      BankDetails receiverBankDetails = bankOrderLine.getReceiverBankDetails();
-
-      // Reference
-      pmtId = factory.createPaymentIdentification1();
-      //			pmtId.setInstrId(bankOrderLine.getSequence());
-      pmtId.setEndToEndId(bankOrderLine.getSequence());
-
-      // Amount
-      instdAmt = factory.createCurrencyAndAmount();
-      instdAmt.setCcy(bankOrderCurrency.getCode());
-      instdAmt.setValue(bankOrderLine.getBankOrderAmount());
-
-      amt = factory.createAmountType2Choice();
-      amt.setInstdAmt(instdAmt);
-
-      // Receiver
-      cbtr = factory.createPartyIdentification8();
-      cbtr.setNm(receiverBankDetails.getOwnerName());
-
-      // IBAN
-      iban = factory.createAccountIdentification3Choice();
-      iban.setIBAN(receiverBankDetails.getIban());
-
-      cbtrAcct = factory.createCashAccount7();
-      cbtrAcct.setId(iban);
-
-      // BIC
-      finInstnId = factory.createFinancialInstitutionIdentification5Choice();
-
-      fillBic(finInstnId, receiverBankDetails.getBank());
-
-      cbtrAgt = factory.createBranchAndFinancialInstitutionIdentification3();
-      cbtrAgt.setFinInstnId(finInstnId);
-
-      rmtInf = factory.createRemittanceInformation1();
-
-      String ustrd = "";
-      if (!Strings.isNullOrEmpty(bankOrderLine.getReceiverReference())) {
-        ustrd += bankOrderLine.getReceiverReference();
-      }
-      if (!Strings.isNullOrEmpty(bankOrderLine.getReceiverLabel())) {
-        if (!Strings.isNullOrEmpty(ustrd)) {
-          ustrd += " - ";
-        }
-        ustrd += bankOrderLine.getReceiverLabel();
-      }
-
-      if (!Strings.isNullOrEmpty(ustrd)) {
-        rmtInf.getUstrd().add(ustrd);
-      }
-
-      //			StructuredRemittanceInformation6 strd = factory.createStructuredRemittanceInformation6();
-      //
-      //			CreditorReferenceInformation1 cdtrRefInf = factory.createCreditorReferenceInformation1();
-      //			cdtrRefInf.setCdtrRef(bankOrderLine.getReceiverReference());
-      //
-      //			strd.setCdtrRefInf(cdtrRefInf);
-      //
-      //			rmtInf.getStrd().add(strd);
-
-      // Transaction
-      cdtTrfTxInf = factory.createCreditTransferTransactionInformation1();
-      cdtTrfTxInf.setPmtId(pmtId);
-      cdtTrfTxInf.setAmt(amt);
-      cdtTrfTxInf.setCdtr(cbtr);
-      cdtTrfTxInf.setCdtrAcct(cbtrAcct);
-      cdtTrfTxInf.setCdtrAgt(cbtrAgt);
-      cdtTrfTxInf.setRmtInf(rmtInf);
-
-      pmtInf.getCdtTrfTxInf().add(cdtTrfTxInf);
-    }
-
     // Header
     GroupHeader1 grpHdr = factory.createGroupHeader1();
 
@@ -240,7 +158,94 @@ public class BankOrderFile00100102Service extends BankOrderFileService {
 
     fileToCreate = factory.createDocument(xml);
 
-    return super.generateFile();
+    return generateStreamedFile(
+        pmtInf.getCdtTrfTxInf(),
+        "CdtTrfTxInf",
+        CreditTransferTransactionInformation1.class,
+        this::createCdtTrfTxInf);
+  }
+
+  /**
+   * Build the transaction of a bank order line, <CdtTrfTxInf> tag.
+   *
+   * @param bankOrderLine
+   * @return the transaction
+   */
+  protected CreditTransferTransactionInformation1 createCdtTrfTxInf(BankOrderLine bankOrderLine) {
+
+    BankDetails receiverBankDetails = bankOrderLine.getReceiverBankDetails();
+
+    // Reference
+    PaymentIdentification1 pmtId = factory.createPaymentIdentification1();
+    //			pmtId.setInstrId(bankOrderLine.getSequence());
+    pmtId.setEndToEndId(bankOrderLine.getSequence());
+
+    // Amount
+    CurrencyAndAmount instdAmt = factory.createCurrencyAndAmount();
+    instdAmt.setCcy(bankOrderCurrency.getCode());
+    instdAmt.setValue(bankOrderLine.getBankOrderAmount());
+
+    AmountType2Choice amt = factory.createAmountType2Choice();
+    amt.setInstdAmt(instdAmt);
+
+    // Receiver
+    PartyIdentification8 cbtr = factory.createPartyIdentification8();
+    cbtr.setNm(receiverBankDetails.getOwnerName());
+
+    // IBAN
+    AccountIdentification3Choice iban = factory.createAccountIdentification3Choice();
+    iban.setIBAN(receiverBankDetails.getIban());
+
+    CashAccount7 cbtrAcct = factory.createCashAccount7();
+    cbtrAcct.setId(iban);
+
+    // BIC
+    FinancialInstitutionIdentification5Choice finInstnId =
+        factory.createFinancialInstitutionIdentification5Choice();
+
+    fillBic(finInstnId, receiverBankDetails.getBank());
+
+    BranchAndFinancialInstitutionIdentification3 cbtrAgt =
+        factory.createBranchAndFinancialInstitutionIdentification3();
+    cbtrAgt.setFinInstnId(finInstnId);
+
+    RemittanceInformation1 rmtInf = factory.createRemittanceInformation1();
+
+    String ustrd = "";
+    if (!Strings.isNullOrEmpty(bankOrderLine.getReceiverReference())) {
+      ustrd += bankOrderLine.getReceiverReference();
+    }
+    if (!Strings.isNullOrEmpty(bankOrderLine.getReceiverLabel())) {
+      if (!Strings.isNullOrEmpty(ustrd)) {
+        ustrd += " - ";
+      }
+      ustrd += bankOrderLine.getReceiverLabel();
+    }
+
+    if (!Strings.isNullOrEmpty(ustrd)) {
+      rmtInf.getUstrd().add(ustrd);
+    }
+
+    //			StructuredRemittanceInformation6 strd = factory.createStructuredRemittanceInformation6();
+    //
+    //			CreditorReferenceInformation1 cdtrRefInf = factory.createCreditorReferenceInformation1();
+    //			cdtrRefInf.setCdtrRef(bankOrderLine.getReceiverReference());
+    //
+    //			strd.setCdtrRefInf(cdtrRefInf);
+    //
+    //			rmtInf.getStrd().add(strd);
+
+    // Transaction
+    CreditTransferTransactionInformation1 cdtTrfTxInf =
+        factory.createCreditTransferTransactionInformation1();
+    cdtTrfTxInf.setPmtId(pmtId);
+    cdtTrfTxInf.setAmt(amt);
+    cdtTrfTxInf.setCdtr(cbtr);
+    cdtTrfTxInf.setCdtrAcct(cbtrAcct);
+    cdtTrfTxInf.setCdtrAgt(cbtrAgt);
+    cdtTrfTxInf.setRmtInf(rmtInf);
+
+    return cdtTrfTxInf;
   }
 
   /**
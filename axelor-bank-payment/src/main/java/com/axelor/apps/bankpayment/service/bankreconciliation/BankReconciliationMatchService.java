@@ -0,0 +1,245 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import com.axelor.apps.account.db.MoveLine;
+import com.axelor.apps.account.db.repo.MoveLineRepository;
+import com.axelor.apps.account.db.repo.MoveRepository;
+import com.axelor.apps.bankpayment.db.BankReconciliation;
+import com.axelor.apps.bankpayment.db.BankReconciliationLine;
+import com.axelor.apps.bankpayment.db.repo.BankReconciliationRepository;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMatcher.Entry;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMatcher.Match;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.TypedQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class BankReconciliationMatchService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Maximum number of days between a bank statement line and the move line it matches. */
+  protected static final int DATE_WINDOW = 5;
+
+  protected MoveLineRepository moveLineRepository;
+  protected BankReconciliationRepository bankReconciliationRepository;
+  protected BankReconciliationLineService bankReconciliationLineService;
+
+  @Inject
+  public BankReconciliationMatchService(
+      MoveLineRepository moveLineRepository,
+      BankReconciliationRepository bankReconciliationRepository,
+      BankReconciliationLineService bankReconciliationLineService) {
+
+    this.moveLineRepository = moveLineRepository;
+    this.bankReconciliationRepository = bankReconciliationRepository;
+    this.bankReconciliationLineService = bankReconciliationLineService;
+  }
+
+  /**
+   * Match the bank reconciliation lines without move line nor account to the unreconciled move
+   * lines of the cash account. A line is matched to a single move line of the same amount, or to
+   * several move lines with a common reference which add up to its amount. The matched lines are
+   * posted on validation, like lines filled in by hand.
+   *
+   * @param bankReconciliation
+   * @return the number of matched lines
+   */
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public int autoMatch(BankReconciliation bankReconciliation) {
+
+    long startTime = System.currentTimeMillis();
+
+    List<BankReconciliationLine> bankReconciliationLineList = new ArrayList<>();
+    List<Entry> bankEntryList = new ArrayList<>();
+    Set<Long> usedMoveLineIdSet = new HashSet<>();
+    LocalDate fromDate = null;
+    LocalDate toDate = null;
+
+    for (BankReconciliationLine bankReconciliationLine :
+        bankReconciliation.getBankReconciliationLineList()) {
+
+      if (bankReconciliationLine.getMoveLine() != null) {
+        usedMoveLineIdSet.add(bankReconciliationLine.getMoveLine().getId());
+        continue;
+      }
+
+      BigDecimal amount =
+          bankReconciliationLine.getCredit().subtract(bankReconciliationLine.getDebit());
+      LocalDate effectDate = bankReconciliationLine.getEffectDate();
+
+      if (bankReconciliationLine.getIsPosted()
+          || bankReconciliationLine.getAccount() != null
+          || amount.signum() == 0) {
+        continue;
+      }
+
+      bankEntryList.add(
+          new Entry(
+              (long) bankReconciliationLineList.size(),
+              effectDate,
+              amount,
+              bankReconciliationLine.getReference(),
+              bankReconciliationLine.getName()));
+      bankReconciliationLineList.add(bankReconciliationLine);
+
+      fromDate = fromDate == null || effectDate.isBefore(fromDate) ? effectDate : fromDate;
+      toDate = toDate == null || effectDate.isAfter(toDate) ? effectDate : toDate;
+    }
+
+    if (bankEntryList.isEmpty() || bankReconciliation.getCashAccount() == null) {
+      return 0;
+    }
+
+    BankReconciliationMatcher matcher = new BankReconciliationMatcher(DATE_WINDOW);
+
+    for (Object[] moveLine :
+        getMoveLineQuery(
+                bankReconciliation,
+                fromDate.minusDays(DATE_WINDOW),
+                toDate.plusDays(DATE_WINDOW))
+            .getResultList()) {
+
+      Long moveLineId = (Long) moveLine[0];
+      BigDecimal debit = (BigDecimal) moveLine[2];
+      BigDecimal credit = (BigDecimal) moveLine[3];
+      BigDecimal bankReconciledAmount = (BigDecimal) moveLine[4];
+
+      if (usedMoveLineIdSet.contains(moveLineId)) {
+        continue;
+      }
+
+      matcher.addMoveLineEntry(
+          new Entry(
+              moveLineId,
+              (LocalDate) moveLine[1],
+              debit.signum() > 0
+                  ? debit.subtract(bankReconciledAmount)
+                  : bankReconciledAmount.subtract(credit),
+              (String) moveLine[5],
+              (String) moveLine[6],
+              (String) moveLine[7]));
+    }
+
+    List<Match> matchList = matcher.match(bankEntryList);
+
+    for (Match match : matchList) {
+      applyMatch(
+          bankReconciliation,
+          bankReconciliationLineList.get(match.getBankEntry().getId().intValue()),
+          match.getMoveLineEntryList());
+    }
+
+    bankReconciliationRepository.save(bankReconciliation);
+
+    log.debug(
+        "Bank reconciliation {} : {} lines matched out of {} in {} ms",
+        bankReconciliation.getName(),
+        matchList.size(),
+        bankEntryList.size(),
+        System.currentTimeMillis() - startTime);
+
+    return matchList.size();
+  }
+
+  protected TypedQuery<Object[]> getMoveLineQuery(
+      BankReconciliation bankReconciliation, LocalDate fromDate, LocalDate toDate) {
+
+    String filter =
+        "self.move.company = :company"
+            + " AND self.account = :cashAccount"
+            + " AND self.move.statusSelect != :statusCanceled"
+            + " AND ((self.debit > 0 AND self.bankReconciledAmount < self.debit)"
+            + " OR (self.credit > 0 AND self.bankReconciledAmount < self.credit))"
+            + " AND self.date BETWEEN :fromDate AND :toDate";
+
+    if (bankReconciliation.getJournal() != null) {
+      filter += " AND self.move.journal = :journal";
+    }
+
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.date, self.debit, self.credit, self.bankReconciledAmount,"
+                    + " self.name, self.origin, self.description"
+                    + " FROM MoveLine self WHERE "
+                    + filter,
+                Object[].class);
+
+    query.setParameter("company", bankReconciliation.getCompany());
+    query.setParameter("cashAccount", bankReconciliation.getCashAccount());
+    query.setParameter("statusCanceled", MoveRepository.STATUS_CANCELED);
+    query.setParameter("fromDate", fromDate);
+    query.setParameter("toDate", toDate);
+
+    if (bankReconciliation.getJournal() != null) {
+      query.setParameter("journal", bankReconciliation.getJournal());
+    }
+
+    return query;
+  }
+
+  /**
+   * Set the matched move lines on the bank reconciliation line, splitting it into one line per move
+   * line as the multiple reconcile wizard does.
+   */
+  protected void applyMatch(
+      BankReconciliation bankReconciliation,
+      BankReconciliationLine bankReconciliationLine,
+      List<Entry> moveLineEntryList) {
+
+    boolean isDebit = bankReconciliationLine.getDebit().signum() > 0;
+    boolean firstLine = true;
+
+    for (Entry moveLineEntry : moveLineEntryList) {
+
+      MoveLine moveLine = moveLineRepository.find(moveLineEntry.getId());
+      BigDecimal amount = moveLineEntry.getAmount().abs();
+      BigDecimal debit = isDebit ? amount : BigDecimal.ZERO;
+      BigDecimal credit = isDebit ? BigDecimal.ZERO : amount;
+
+      if (firstLine) {
+        bankReconciliationLine.setDebit(debit);
+        bankReconciliationLine.setCredit(credit);
+        bankReconciliationLine.setMoveLine(moveLine);
+        firstLine = false;
+      } else {
+        bankReconciliation.addBankReconciliationLineListItem(
+            bankReconciliationLineService.createBankReconciliationLine(
+                bankReconciliationLine.getEffectDate(),
+                debit,
+                credit,
+                bankReconciliationLine.getName(),
+                bankReconciliationLine.getReference(),
+                bankReconciliationLine.getBankStatementLine(),
+                moveLine));
+      }
+    }
+  }
+}
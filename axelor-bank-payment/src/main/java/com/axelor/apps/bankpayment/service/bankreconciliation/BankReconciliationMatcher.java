@@ -0,0 +1,274 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.service.bankreconciliation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In memory matcher of bank statement amounts against unreconciled move lines.
+ *
+ * <p>Move lines are indexed by signed amount and by reference token. A bank entry is first matched
+ * to a single move line of the same amount in the date window, scored on the date gap and the
+ * shared reference tokens. The bank entries left are then matched to the move lines sharing one of
+ * their reference tokens, if the sum of these move lines is the bank amount.
+ */
+public class BankReconciliationMatcher {
+
+  protected static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{Alnum}]+");
+  protected static final Pattern DIGIT = Pattern.compile(".*\\d.*");
+
+  protected static final int MIN_TOKEN_LENGTH = 4;
+  protected static final int TOKEN_SCORE = 100;
+  protected static final int MAX_GROUP_SIZE = 10;
+
+  protected final int dateWindow;
+
+  protected final Map<BigDecimal, List<Entry>> entryByAmount = new HashMap<>();
+  protected final Map<String, List<Entry>> entryByToken = new HashMap<>();
+  protected final Set<Long> matchedIdSet = new HashSet<>();
+
+  /** @param dateWindow the maximum number of days between a bank entry and a move line */
+  public BankReconciliationMatcher(int dateWindow) {
+    this.dateWindow = dateWindow;
+  }
+
+  /**
+   * An amount to match.
+   *
+   * <p>The amount is signed: positive for a bank credit or a move line debit, negative for a bank
+   * debit or a move line credit.
+   */
+  public static class Entry {
+
+    protected final Long id;
+    protected final LocalDate date;
+    protected final BigDecimal amount;
+    protected final Set<String> tokenSet;
+
+    public Entry(Long id, LocalDate date, BigDecimal amount, String... references) {
+      this.id = id;
+      this.date = date;
+      this.amount = amount;
+      this.tokenSet = tokenize(references);
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public LocalDate getDate() {
+      return date;
+    }
+
+    public BigDecimal getAmount() {
+      return amount;
+    }
+  }
+
+  public static class Match {
+
+    protected final Entry bankEntry;
+    protected final List<Entry> moveLineEntryList;
+
+    protected Match(Entry bankEntry, List<Entry> moveLineEntryList) {
+      this.bankEntry = bankEntry;
+      this.moveLineEntryList = moveLineEntryList;
+    }
+
+    public Entry getBankEntry() {
+      return bankEntry;
+    }
+
+    public List<Entry> getMoveLineEntryList() {
+      return moveLineEntryList;
+    }
+  }
+
+  /**
+   * Keep the reference words containing a digit, such as invoice or move numbers, which identify an
+   * operation better than the labels.
+   */
+  protected static Set<String> tokenize(String... references) {
+
+    Set<String> tokenSet = new HashSet<>();
+
+    for (String reference : references) {
+      if (reference == null) {
+        continue;
+      }
+      for (String token : TOKEN_SEPARATOR.split(reference.toUpperCase())) {
+        if (token.length() >= MIN_TOKEN_LENGTH && DIGIT.matcher(token).matches()) {
+          tokenSet.add(token);
+        }
+      }
+    }
+
+    return tokenSet.isEmpty() ? Collections.emptySet() : tokenSet;
+  }
+
+  protected static BigDecimal amountKey(BigDecimal amount) {
+    return amount.signum() == 0 ? BigDecimal.ZERO : amount.stripTrailingZeros();
+  }
+
+  public void addMoveLineEntry(Entry moveLineEntry) {
+
+    entryByAmount
+        .computeIfAbsent(amountKey(moveLineEntry.amount), key -> new ArrayList<>())
+        .add(moveLineEntry);
+
+    for (String token : moveLineEntry.tokenSet) {
+      entryByToken.computeIfAbsent(token, key -> new ArrayList<>()).add(moveLineEntry);
+    }
+  }
+
+  /**
+   * Match the bank entries, in the given order for the single matches. A move line is matched at
+   * most once.
+   *
+   * @param bankEntryList
+   * @return the matches found
+   */
+  public List<Match> match(List<Entry> bankEntryList) {
+
+    List<Match> matchList = new ArrayList<>();
+    List<Entry> unmatchedBankEntryList = new ArrayList<>();
+
+    for (Entry bankEntry : bankEntryList) {
+      Entry moveLineEntry = findSingleMatch(bankEntry);
+      if (moveLineEntry != null) {
+        matchedIdSet.add(moveLineEntry.id);
+        matchList.add(new Match(bankEntry, Collections.singletonList(moveLineEntry)));
+      } else {
+        unmatchedBankEntryList.add(bankEntry);
+      }
+    }
+
+    for (Entry bankEntry : unmatchedBankEntryList) {
+      List<Entry> moveLineEntryList = findGroupMatch(bankEntry);
+      if (moveLineEntryList != null) {
+        moveLineEntryList.forEach(moveLineEntry -> matchedIdSet.add(moveLineEntry.id));
+        matchList.add(new Match(bankEntry, moveLineEntryList));
+      }
+    }
+
+    return matchList;
+  }
+
+  /**
+   * Find the move line with the same amount and the best score. There is no match if two move lines
+   * have the best score, the choice is then left to the user.
+   */
+  protected Entry findSingleMatch(Entry bankEntry) {
+
+    List<Entry> candidateList = entryByAmount.get(amountKey(bankEntry.amount));
+
+    if (candidateList == null) {
+      return null;
+    }
+
+    Entry bestEntry = null;
+    int bestScore = -1;
+    boolean isTie = false;
+
+    for (Entry candidate : candidateList) {
+      if (matchedIdSet.contains(candidate.id)) {
+        continue;
+      }
+      int score = score(bankEntry, candidate);
+      if (score < 0) {
+        continue;
+      }
+      if (score > bestScore) {
+        bestEntry = candidate;
+        bestScore = score;
+        isTie = false;
+      } else if (score == bestScore) {
+        isTie = true;
+      }
+    }
+
+    return isTie ? null : bestEntry;
+  }
+
+  /**
+   * Find the move lines sharing a reference token with the bank entry, in the date window, whose
+   * amounts add up to the bank amount.
+   */
+  protected List<Entry> findGroupMatch(Entry bankEntry) {
+
+    for (String token : bankEntry.tokenSet) {
+
+      List<Entry> candidateList = entryByToken.get(token);
+
+      if (candidateList == null || candidateList.size() > MAX_GROUP_SIZE) {
+        continue;
+      }
+
+      List<Entry> groupList = new ArrayList<>();
+      BigDecimal total = BigDecimal.ZERO;
+
+      for (Entry candidate : candidateList) {
+        if (!matchedIdSet.contains(candidate.id)
+            && candidate.amount.signum() == bankEntry.amount.signum()
+            && score(bankEntry, candidate) >= 0) {
+          groupList.add(candidate);
+          total = total.add(candidate.amount);
+        }
+      }
+
+      if (groupList.size() > 1 && total.compareTo(bankEntry.amount) == 0) {
+        return groupList;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @return the score of the pair, higher for close dates and shared reference tokens, or -1 if the
+   *     dates are out of the window.
+   */
+  protected int score(Entry bankEntry, Entry moveLineEntry) {
+
+    long dayGap = Math.abs(ChronoUnit.DAYS.between(moveLineEntry.date, bankEntry.date));
+
+    if (dayGap > dateWindow) {
+      return -1;
+    }
+
+    int score = (int) (dateWindow - dayGap);
+
+    for (String token : bankEntry.tokenSet) {
+      if (moveLineEntry.tokenSet.contains(token)) {
+        score += TOKEN_SCORE;
+      }
+    }
+
+    return score;
+  }
+}
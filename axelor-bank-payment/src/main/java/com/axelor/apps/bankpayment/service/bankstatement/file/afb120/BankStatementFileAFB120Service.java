@@ -21,6 +21,7 @@ import com.axelor.apps.account.db.InterbankCodeLine;
 import com.axelor.apps.account.db.repo.InterbankCodeLineRepository;
 import com.axelor.apps.bankpayment.db.BankStatementLineAFB120;
 import com.axelor.apps.bankpayment.db.repo.BankStatementLineAFB120Repository;
+import com.axelor.apps.bankpayment.exception.IExceptionMessage;
 import com.axelor.apps.bankpayment.service.bankstatement.BankStatementService;
 import com.axelor.apps.bankpayment.service.bankstatement.file.BankStatementFileService;
 import com.axelor.apps.bankpayment.service.cfonb.CfonbToolService;
@@ -28,23 +29,28 @@ import com.axelor.apps.base.db.BankDetails;
 import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.base.db.repo.BankDetailsRepository;
 import com.axelor.apps.base.db.repo.CurrencyRepository;
-import com.axelor.apps.tool.file.FileTool;
 import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.IException;
+import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.exception.service.TraceBackService;
+import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
-import com.beust.jcommander.internal.Lists;
 import com.beust.jcommander.internal.Maps;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.io.BufferedReader;
+import java.io.FileReader;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,8 +70,19 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
   protected static final String COMPLEMENT_MOVEMENT_OPERATION_CODE = "05";
   protected static final String NEW_BALANCE_OPERATION_CODE = "07";
 
+  protected static final int RECORD_LENGTH = 120;
+  protected static final int BATCH_SIZE = 50;
+
   private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("ddMMyy");
 
+  protected Map<String, Currency> currencyCache;
+  protected Map<String, BankDetails> bankDetailsCache;
+
+  /** Whether the records of the file are separated by line breaks, null until known. */
+  protected Boolean recordLineBreaks;
+
+  protected int recordCount;
+
   @Inject
   public BankStatementFileAFB120Service(BankStatementService bankStatementService) {
 
@@ -84,30 +101,109 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
   public void process() throws IOException, AxelorException {
     super.process();
 
-    List<Map<String, Object>> structuredContentFile = readFile();
+    currencyCache = new HashMap<>();
+    bankDetailsCache = new HashMap<>();
+    recordLineBreaks = null;
+    recordCount = 0;
+
+    List<Map<String, Object>> structuredContentLineList = new ArrayList<>(BATCH_SIZE);
+    Map<String, Object> lastStructuredContentLine = null;
 
     int sequence = 0;
     findBankStatement();
 
-    for (Map<String, Object> structuredContentLine : structuredContentFile) {
+    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
 
-      try {
-        createBankStatementLine(structuredContentLine, sequence++);
-      } catch (Exception e) {
-        TraceBackService.trace(
-            new Exception(String.format("Line %s : %s", sequence, e), e), IException.IMPORT);
-        findBankStatement();
-      } finally {
-        if (sequence % 10 == 0) {
-          JPA.clear();
-          findBankStatement();
+      char[] buffer = new char[RECORD_LENGTH];
+      String lineContent;
+
+      while ((lineContent = readRecord(reader, buffer)) != null) {
+
+        Map<String, Object> structuredContentLine =
+            readLine(lineContent, lastStructuredContentLine);
+
+        if (structuredContentLine == null) {
+          continue;
+        }
+
+        if (lastStructuredContentLine != null) {
+          structuredContentLineList.add(lastStructuredContentLine);
+        }
+        lastStructuredContentLine = structuredContentLine;
+
+        if (structuredContentLineList.size() == BATCH_SIZE) {
+          createBankStatementLines(structuredContentLineList, sequence);
+          sequence += structuredContentLineList.size();
+          structuredContentLineList.clear();
         }
       }
     }
 
+    if (lastStructuredContentLine != null) {
+      structuredContentLineList.add(lastStructuredContentLine);
+    }
+    createBankStatementLines(structuredContentLineList, sequence);
+
     JPA.clear();
   }
 
+  /**
+   * Save the bank statement lines of a batch in a single transaction. If the transaction fails,
+   * the lines are saved one by one so that only the faulty ones are lost.
+   *
+   * @param structuredContentLineList
+   * @param firstSequence the sequence of the first line of the batch
+   */
+  protected void createBankStatementLines(
+      List<Map<String, Object>> structuredContentLineList, int firstSequence) {
+
+    if (structuredContentLineList.isEmpty()) {
+      return;
+    }
+
+    try {
+      createBankStatementLineBatch(structuredContentLineList, firstSequence);
+    } catch (Exception e) {
+      log.debug("Batch of bank statement lines failed, saving lines one by one", e);
+      JPA.clear();
+      findBankStatement();
+
+      int sequence = firstSequence;
+      for (Map<String, Object> structuredContentLine : structuredContentLineList) {
+        try {
+          createBankStatementLine(structuredContentLine, sequence++);
+        } catch (Exception lineException) {
+          TraceBackService.trace(
+              new Exception(String.format("Line %s : %s", sequence, lineException), lineException),
+              IException.IMPORT);
+          findBankStatement();
+        }
+      }
+    } finally {
+      JPA.clear();
+      findBankStatement();
+    }
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void createBankStatementLineBatch(
+      List<Map<String, Object>> structuredContentLineList, int firstSequence) {
+
+    Session session = JPA.em().unwrap(Session.class);
+    Integer jdbcBatchSize = session.getJdbcBatchSize();
+    session.setJdbcBatchSize(BATCH_SIZE);
+
+    try {
+      int sequence = firstSequence;
+      for (Map<String, Object> structuredContentLine : structuredContentLineList) {
+        createBankStatementLine(structuredContentLine, sequence++);
+      }
+      JPA.flush();
+    } finally {
+      session.setJdbcBatchSize(jdbcBatchSize);
+    }
+  }
+
   @Transactional(rollbackOn = {AxelorException.class, Exception.class})
   public void createBankStatementLine(Map<String, Object> structuredContentLine, int sequence) {
 
@@ -172,54 +268,112 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
     bankStatementLineAFB120Repository.save(bankStatementLineAFB120);
   }
 
-  protected List<Map<String, Object>> readFile() throws IOException, AxelorException {
-
-    List<Map<String, Object>> structuredContent = Lists.newArrayList();
-
-    List<String> fileContent = FileTool.reader(file.getPath());
-
-    for (String lineContent : fileContent) {
-
-      log.info("Read line : {}", lineContent);
-
-      // Code enregistrement
-      String operationCode =
-          cfonbToolService.readZone(
-              "Record code",
-              lineContent,
-              cfonbToolService.STATUS_MANDATORY,
-              cfonbToolService.FORMAT_NUMERIC,
-              1,
-              2);
-
-      switch (operationCode) {
-        case PREVIOUS_BALANCE_OPERATION_CODE:
-          structuredContent.add(readPreviousBalanceRecord(lineContent));
-          break;
-        case MOVEMENT_OPERATION_CODE:
-          structuredContent.add(readMovementRecord(lineContent));
-          break;
-        case COMPLEMENT_MOVEMENT_OPERATION_CODE:
-          Map<String, Object> movementLine = structuredContent.get(structuredContent.size() - 1);
-          String additionalInformation = "";
-          if (movementLine.containsKey("additionalInformation")) {
-            additionalInformation = (String) movementLine.get("additionalInformation") + "\n";
-          }
-          additionalInformation +=
-              (String) readAdditionalMovementRecord(lineContent).get("additionalInformation");
-
-          movementLine.put("additionalInformation", additionalInformation);
-
-          break;
-        case NEW_BALANCE_OPERATION_CODE:
-          structuredContent.add(readNewBalanceRecord(lineContent));
-          break;
-        default:
-          break;
+  /**
+   * Read the next record of the file into the buffer. Records are 120 characters long, whether the
+   * file has line breaks between them or not. The first record tells which: a line longer than 120
+   * characters in a file with line breaks, or a line break inside a record of a file without them,
+   * is rejected instead of being read as two records.
+   *
+   * @param reader
+   * @param buffer the buffer to read into, reused from one record to another
+   * @return the record, or null at the end of the file
+   * @throws IOException
+   * @throws AxelorException
+   */
+  protected String readRecord(BufferedReader reader, char[] buffer)
+      throws IOException, AxelorException {
+
+    int length = 0;
+    int c;
+
+    while ((c = reader.read()) != -1) {
+      if (c == '\r' || c == '\n') {
+        if (length == 0) {
+          continue;
+        }
+        if (recordLineBreaks == null) {
+          recordLineBreaks = true;
+        } else if (!recordLineBreaks) {
+          throw recordLengthException();
+        }
+        break;
+      }
+      buffer[length++] = (char) c;
+      if (length == buffer.length) {
+        reader.mark(1);
+        c = reader.read();
+        reader.reset();
+        boolean lineBreak = c == '\r' || c == '\n';
+        if (recordLineBreaks == null) {
+          recordLineBreaks = lineBreak;
+        } else if (recordLineBreaks && !lineBreak && c != -1) {
+          throw recordLengthException();
+        }
+        break;
       }
     }
 
-    return structuredContent;
+    if (length == 0) {
+      return null;
+    }
+    recordCount++;
+    return new String(buffer, 0, length);
+  }
+
+  protected AxelorException recordLengthException() {
+
+    return new AxelorException(
+        TraceBackRepository.CATEGORY_INCONSISTENCY,
+        I18n.get(IExceptionMessage.BANK_STATEMENT_AFB120_RECORD_LENGTH),
+        recordCount + 1,
+        RECORD_LENGTH);
+  }
+
+  /**
+   * Read a record of the file.
+   *
+   * @param lineContent
+   * @param lastStructuredContentLine the last line read, completed by a movement complement record
+   * @return the line read, or null if the record completes the last line or is ignored
+   * @throws AxelorException
+   */
+  protected Map<String, Object> readLine(
+      String lineContent, Map<String, Object> lastStructuredContentLine) throws AxelorException {
+
+    log.debug("Read line : {}", lineContent);
+
+    // Code enregistrement
+    String operationCode =
+        cfonbToolService.readZone(
+            "Record code",
+            lineContent,
+            cfonbToolService.STATUS_MANDATORY,
+            cfonbToolService.FORMAT_NUMERIC,
+            1,
+            2);
+
+    switch (operationCode) {
+      case PREVIOUS_BALANCE_OPERATION_CODE:
+        return readPreviousBalanceRecord(lineContent);
+      case MOVEMENT_OPERATION_CODE:
+        return readMovementRecord(lineContent);
+      case COMPLEMENT_MOVEMENT_OPERATION_CODE:
+        String additionalInformation = "";
+        if (lastStructuredContentLine.containsKey("additionalInformation")) {
+          additionalInformation =
+              (String) lastStructuredContentLine.get("additionalInformation") + "\n";
+        }
+        additionalInformation +=
+            (String) readAdditionalMovementRecord(lineContent).get("additionalInformation");
+
+        lastStructuredContentLine.put("additionalInformation", additionalInformation);
+
+        return null;
+      case NEW_BALANCE_OPERATION_CODE:
+        return readNewBalanceRecord(lineContent);
+      default:
+        return null;
+    }
   }
 
   protected Map<String, Object> readPreviousBalanceRecord(String lineContent)
@@ -756,19 +910,29 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
 
   protected Currency getCurrency(String isoCode) {
 
-    return currencyRepository.findByCode(isoCode);
+    if (!currencyCache.containsKey(isoCode)) {
+      currencyCache.put(isoCode, currencyRepository.findByCode(isoCode));
+    }
+    return currencyCache.get(isoCode);
   }
 
   protected BankDetails getBankDetails(String accountNumber, String bankCode, String sortCode) {
 
-    return bankDetailsRepository
-        .all()
-        .filter(
-            "self.accountNbr = ?1 and self.bankCode = ?2 and self.sortCode = ?3",
-            accountNumber,
-            bankCode,
-            sortCode)
-        .fetchOne();
+    String key = String.join("|", accountNumber, bankCode, sortCode);
+
+    if (!bankDetailsCache.containsKey(key)) {
+      bankDetailsCache.put(
+          key,
+          bankDetailsRepository
+              .all()
+              .filter(
+                  "self.accountNbr = ?1 and self.bankCode = ?2 and self.sortCode = ?3",
+                  accountNumber,
+                  bankCode,
+                  sortCode)
+              .fetchOne());
+    }
+    return bankDetailsCache.get(key);
   }
 
   protected LocalDate getDate(String date) {
@@ -890,10 +1054,15 @@ public class BankStatementFileAFB120Service extends BankStatementFileService {
     return new BigDecimal(correctAmount);
   }
 
+  /**
+   * Interbank codes are not unique among the code lists, so the operation and reject codes of the
+   * file are not linked to an interbank code line.
+   *
+   * @param code
+   * @return null
+   */
   protected InterbankCodeLine getInterbankCodeLine(String code) {
 
-    //		return interbankCodeLineRepository.findByCode(code);
-    // TODO Manage reject and operation code
     return null;
   }
 }
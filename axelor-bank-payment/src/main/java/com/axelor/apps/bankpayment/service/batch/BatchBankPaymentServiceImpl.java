@@ -36,6 +36,7 @@ import com.axelor.apps.bankpayment.db.BankOrder;
 import com.axelor.apps.bankpayment.db.BankOrderLine;
 import com.axelor.apps.bankpayment.db.repo.BankOrderRepository;
 import com.axelor.apps.bankpayment.exception.IExceptionMessage;
+import com.axelor.apps.bankpayment.service.bankorder.BankOrderControlSums;
 import com.axelor.apps.bankpayment.service.bankorder.BankOrderCreateService;
 import com.axelor.apps.bankpayment.service.bankorder.BankOrderLineService;
 import com.axelor.apps.bankpayment.service.bankorder.BankOrderMergeService;
@@ -49,22 +50,34 @@ import com.axelor.apps.base.db.repo.BatchRepository;
 import com.axelor.apps.base.service.administration.AbstractBatch;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.tool.QueryBuilder;
+import com.axelor.apps.tool.RequestScopeTool;
 import com.axelor.db.JPA;
 import com.axelor.db.Query;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
 
 public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
+
+  protected static final int WORKER_COUNT = 4;
+
   protected AppBaseService appBaseService;
   protected MoveService moveService;
   protected InvoicePaymentValidateService invoicePaymentValidateService;
@@ -77,6 +90,7 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
 
   protected ReconcileRepository reconcileRepo;
   protected InvoicePaymentRepository invoicePaymentRepo;
+  protected PaymentScheduleLineRepository paymentScheduleLineRepo;
   protected BankOrderRepository bankOrderRepo;
   protected BatchRepository batchRepo;
 
@@ -92,6 +106,7 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
       BankOrderMergeService bankOrderMergeService,
       ReconcileRepository reconcileRepo,
       InvoicePaymentRepository invoicePaymentRepo,
+      PaymentScheduleLineRepository paymentScheduleLineRepo,
       BankOrderRepository bankOrderRepo,
       BatchRepository batchRepo) {
 
@@ -107,6 +122,7 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
 
     this.reconcileRepo = reconcileRepo;
     this.invoicePaymentRepo = invoicePaymentRepo;
+    this.paymentScheduleLineRepo = paymentScheduleLineRepo;
     this.bankOrderRepo = bankOrderRepo;
     this.batchRepo = batchRepo;
   }
@@ -117,7 +133,6 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
   }
 
   @Override
-  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
   public BankOrder createBankOrder(Batch batch)
       throws AxelorException, JAXBException, IOException, DatatypeConfigurationException {
 
@@ -225,11 +240,32 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
     }
   }
 
+  /**
+   * Create the bank order of the monthly payment schedule lines of the batch. The bank order lines
+   * are created in parallel by several workers, each one on its own partition of the payment
+   * schedule lines, and the control sums of the partitions are merged before the bank order is
+   * confirmed once all the lines exist.
+   */
   @Override
-  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
   public BankOrder createBankOrderFromMonthlyPaymentScheduleLines(Batch batch)
       throws AxelorException, JAXBException, IOException, DatatypeConfigurationException {
 
+    Long batchId = batch.getId();
+    Long bankOrderId = createMonthlyBankOrder(batch).getId();
+
+    try {
+      BankOrderControlSums controlSums =
+          createBankOrderLines(bankOrderId, fetchPaymentScheduleLineDoneIdList(batch));
+      return confirmMonthlyBankOrder(batchId, bankOrderId, controlSums);
+    } catch (Exception e) {
+      removeBankOrder(bankOrderId);
+      throw e;
+    }
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected BankOrder createMonthlyBankOrder(Batch batch) throws AxelorException {
+
     AccountingBatch accountingBatch = batch.getAccountingBatch();
     LocalDate bankOrderDate = accountingBatch.getDueDate();
     Company senderCompany = accountingBatch.getCompany();
@@ -260,58 +296,176 @@ public class BatchBankPaymentServiceImpl implements BatchBankPaymentService {
             currency,
             senderReference,
             senderLabel);
-    bankOrder = JPA.save(bankOrder);
 
-    List<PaymentScheduleLine> paymentScheduleLineList;
-    int offset = 0;
+    return JPA.save(bankOrder);
+  }
+
+  /**
+   * Split the payment schedule lines in partitions, one for each worker. Every worker is waited
+   * for, even when another one failed, so that no worker is still adding lines when the bank order
+   * is removed. The lines are numbered when the bank order is confirmed.
+   */
+  protected BankOrderControlSums createBankOrderLines(
+      Long bankOrderId, List<Long> paymentScheduleLineIdList) throws AxelorException {
+
+    BankOrderControlSums controlSums = new BankOrderControlSums();
+    int partitionSize = (paymentScheduleLineIdList.size() + WORKER_COUNT - 1) / WORKER_COUNT;
+
+    if (partitionSize == 0) {
+      return controlSums;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(WORKER_COUNT);
+    Throwable failure = null;
 
     try {
-      while (!(paymentScheduleLineList = fetchPaymentScheduleLineDoneList(batch, offset))
-          .isEmpty()) {
-        bankOrder = bankOrderRepo.find(bankOrder.getId());
-
-        for (PaymentScheduleLine paymentScheduleLine : paymentScheduleLineList) {
-          PaymentSchedule paymentSchedule = paymentScheduleLine.getPaymentSchedule();
-          Partner partner = paymentSchedule.getPartner();
-          BankDetails bankDetails = paymentScheduleService.getBankDetails(paymentSchedule);
-          BigDecimal amount = paymentScheduleLine.getInTaxAmount();
-          String receiverReference = paymentScheduleLine.getName();
-          String receiverLabel = paymentScheduleLine.getDebitNumber();
-          BankOrderLine bankOrderLine =
-              bankOrderLineService.createBankOrderLine(
-                  paymentMode.getBankOrderFileFormat(),
-                  null,
-                  partner,
-                  bankDetails,
-                  amount,
-                  currency,
-                  bankOrderDate,
-                  receiverReference,
-                  receiverLabel,
-                  paymentScheduleLine);
-          bankOrder.addBankOrderLineListItem(bankOrderLine);
+      List<Future<BankOrderControlSums>> futureList = new ArrayList<>();
+
+      for (List<Long> partition : Lists.partition(paymentScheduleLineIdList, partitionSize)) {
+        Callable<BankOrderControlSums> worker =
+            () -> createBankOrderLinePartition(bankOrderId, partition);
+        futureList.add(
+            executor.submit(
+                RequestScopeTool.asCurrentSubject(RequestScopeTool.inRequestScope(worker))));
+      }
+
+      for (Future<BankOrderControlSums> future : futureList) {
+        try {
+          controlSums.merge(Uninterruptibles.getUninterruptibly(future));
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
         }
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    if (failure instanceof AxelorException) {
+      throw (AxelorException) failure;
+    }
+    if (failure != null) {
+      throw new AxelorException(failure, TraceBackRepository.CATEGORY_INCONSISTENCY);
+    }
+
+    return controlSums;
+  }
+
+  /**
+   * Create the bank order lines of a partition of payment schedule lines in the current worker
+   * thread, one transaction for each page of lines.
+   *
+   * @return the control sums of the created bank order lines.
+   */
+  protected BankOrderControlSums createBankOrderLinePartition(
+      Long bankOrderId, List<Long> paymentScheduleLineIdList) throws AxelorException {
 
-        bankOrder = JPA.save(bankOrder);
-        offset += paymentScheduleLineList.size();
+    BankOrderControlSums controlSums = new BankOrderControlSums();
+
+    int size = paymentScheduleLineIdList.size();
+
+    try {
+      for (int first = 0; first < size; first += AbstractBatch.FETCH_LIMIT) {
+        List<Long> page =
+            paymentScheduleLineIdList.subList(
+                first, Math.min(first + AbstractBatch.FETCH_LIMIT, size));
+        controlSums.merge(createBankOrderLinePage(bankOrderId, page));
         JPA.clear();
       }
-    } catch (Exception e) {
-      bankOrder = bankOrderRepo.find(bankOrder.getId());
-      bankOrderRepo.remove(bankOrder);
-      throw e;
+    } finally {
+      JPA.clear();
+    }
+
+    return controlSums;
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected BankOrderControlSums createBankOrderLinePage(
+      Long bankOrderId, List<Long> paymentScheduleLineIdList) throws AxelorException {
+
+    BankOrderControlSums controlSums = new BankOrderControlSums();
+    BankOrder bankOrder = bankOrderRepo.find(bankOrderId);
+    PaymentMode paymentMode = bankOrder.getPaymentMode();
+    Currency currency = bankOrder.getSenderCompany().getCurrency();
+    LocalDate bankOrderDate = bankOrder.getBankOrderDate();
+
+    if (bankOrderDate == null) {
+      bankOrderDate = appBaseService.getTodayDate();
     }
 
-    bankOrder = bankOrderRepo.find(bankOrder.getId());
-    bankOrder = bankOrderRepo.save(bankOrder);
+    List<PaymentScheduleLine> paymentScheduleLineList =
+        paymentScheduleLineRepo
+            .all()
+            .filter("self.id IN (:paymentScheduleLineIds)")
+            .bind("paymentScheduleLineIds", paymentScheduleLineIdList)
+            .order("id")
+            .fetch();
+
+    for (PaymentScheduleLine paymentScheduleLine : paymentScheduleLineList) {
+      PaymentSchedule paymentSchedule = paymentScheduleLine.getPaymentSchedule();
+      Partner partner = paymentSchedule.getPartner();
+      BankDetails bankDetails = paymentScheduleService.getBankDetails(paymentSchedule);
+      BigDecimal amount = paymentScheduleLine.getInTaxAmount();
+      String receiverReference = paymentScheduleLine.getName();
+      String receiverLabel = paymentScheduleLine.getDebitNumber();
+      BankOrderLine bankOrderLine =
+          bankOrderLineService.createBankOrderLine(
+              paymentMode.getBankOrderFileFormat(),
+              null,
+              partner,
+              bankDetails,
+              amount,
+              currency,
+              bankOrderDate,
+              receiverReference,
+              receiverLabel,
+              paymentScheduleLine);
+      bankOrderLine.setBankOrder(bankOrder);
+      JPA.save(bankOrderLine);
+      controlSums.add(bankOrderLine);
+    }
+
+    return controlSums;
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected BankOrder confirmMonthlyBankOrder(
+      Long batchId, Long bankOrderId, BankOrderControlSums controlSums)
+      throws AxelorException, JAXBException, IOException, DatatypeConfigurationException {
+
+    BankOrder bankOrder = bankOrderRepo.find(bankOrderId);
+    bankOrderService.generateSequence(bankOrder);
+    controlSums.apply(bankOrder);
     bankOrderService.confirm(bankOrder);
 
-    batch = batchRepo.find(batch.getId());
+    Batch batch = batchRepo.find(batchId);
     batch.setBankOrder(bankOrder);
 
     return bankOrder;
   }
 
+  @Transactional
+  protected void removeBankOrder(Long bankOrderId) {
+    JPA.clear();
+    BankOrder bankOrder = bankOrderRepo.find(bankOrderId);
+    if (bankOrder != null) {
+      bankOrderRepo.remove(bankOrder);
+    }
+  }
+
+  protected List<Long> fetchPaymentScheduleLineDoneIdList(Batch batch) {
+    return JPA.em()
+        .createQuery(
+            "SELECT self.id FROM PaymentScheduleLine self "
+                + "WHERE :batch MEMBER OF self.batchSet AND self.statusSelect = :statusSelect "
+                + "ORDER BY self.id",
+            Long.class)
+        .setParameter("batch", batch)
+        .setParameter("statusSelect", PaymentScheduleLineRepository.STATUS_VALIDATED)
+        .getResultList();
+  }
+
   protected List<PaymentScheduleLine> fetchPaymentScheduleLineDoneList(Batch batch, int offset) {
     return getPaymentScheduleLineDoneListQuery(batch).fetch(AbstractBatch.FETCH_LIMIT, offset);
   }
@@ -23,10 +23,12 @@ import com.axelor.apps.bankpayment.db.BankReconciliationLine;
 import com.axelor.apps.bankpayment.db.repo.BankReconciliationLineRepository;
 import com.axelor.apps.bankpayment.db.repo.BankReconciliationRepository;
 import com.axelor.apps.bankpayment.report.IReport;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMatchService;
 import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationService;
 import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationValidateService;
 import com.axelor.apps.report.engine.ReportSettings;
 import com.axelor.exception.service.TraceBackService;
+import com.axelor.i18n.I18n;
 import com.axelor.meta.schema.actions.ActionView;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
@@ -44,6 +46,8 @@ public class BankReconciliationController {
 
   @Inject BankReconciliationValidateService bankReconciliationValidateService;
 
+  @Inject BankReconciliationMatchService bankReconciliationMatchService;
+
   @Inject BankReconciliationRepository bankReconciliationRepo;
 
   @Inject BankReconciliationLineRepository bankReconciliationLineRepo;
@@ -84,6 +88,22 @@ public class BankReconciliationController {
     }
   }
 
+  public void autoMatch(ActionRequest request, ActionResponse response) {
+
+    try {
+      BankReconciliation bankReconciliation = request.getContext().asType(BankReconciliation.class);
+      int matchCount =
+          bankReconciliationMatchService.autoMatch(
+              bankReconciliationRepo.find(bankReconciliation.getId()));
+      response.setReload(true);
+      response.setFlash(
+          String.format(
+              I18n.get("%d line matched", "%d lines matched", matchCount), matchCount));
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
+
   public void validate(ActionRequest request, ActionResponse response) {
 
     try {
@@ -0,0 +1,109 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.test;
+
+import com.axelor.apps.bankpayment.db.BankOrder;
+import com.axelor.apps.bankpayment.db.repo.BankOrderRepository;
+import com.axelor.apps.bankpayment.service.bankorder.BankOrderControlSums;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBankOrderControlSums {
+
+  @Test
+  public void addAndMerge() {
+    BankOrderControlSums controlSums =
+        new BankOrderControlSums()
+            .add(new BigDecimal("120.50"), new BigDecimal("120.50"))
+            .add(new BigDecimal("30"), null);
+
+    controlSums.merge(new BankOrderControlSums().add(null, new BigDecimal("10.25")));
+
+    Assert.assertEquals(3, controlSums.getNbOfLines());
+    Assert.assertEquals(new BigDecimal("150.50"), controlSums.getTotalAmount());
+    Assert.assertEquals(new BigDecimal("130.75"), controlSums.getCompanyCurrencyTotalAmount());
+  }
+
+  @Test
+  public void mergeEmpty() {
+    BankOrderControlSums controlSums =
+        new BankOrderControlSums().add(new BigDecimal("42.10"), new BigDecimal("40.00"));
+
+    controlSums.merge(new BankOrderControlSums());
+    BankOrderControlSums emptySums = new BankOrderControlSums().merge(controlSums);
+
+    Assert.assertEquals(1, emptySums.getNbOfLines());
+    Assert.assertEquals(new BigDecimal("42.10"), emptySums.getTotalAmount());
+    Assert.assertEquals(new BigDecimal("40.00"), emptySums.getCompanyCurrencyTotalAmount());
+  }
+
+  @Test
+  public void mergePartitions() {
+    List<BigDecimal> amountList = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      amountList.add(BigDecimal.valueOf(1000 + (i * 7919L) % 250000, 2));
+    }
+
+    BankOrderControlSums sequentialSums = new BankOrderControlSums();
+    for (BigDecimal amount : amountList) {
+      sequentialSums.add(amount, amount.negate());
+    }
+
+    // uneven partitions, merged in reverse order
+    List<BankOrderControlSums> partitionSumsList = new ArrayList<>();
+    int first = 0;
+    for (int partitionSize : new int[] {1, 299, 0, 400, 300}) {
+      BankOrderControlSums partitionSums = new BankOrderControlSums();
+      for (BigDecimal amount : amountList.subList(first, first + partitionSize)) {
+        partitionSums.add(amount, amount.negate());
+      }
+      partitionSumsList.add(0, partitionSums);
+      first += partitionSize;
+    }
+    BankOrderControlSums mergedSums = new BankOrderControlSums();
+    for (BankOrderControlSums partitionSums : partitionSumsList) {
+      mergedSums.merge(partitionSums);
+    }
+
+    Assert.assertEquals(amountList.size(), mergedSums.getNbOfLines());
+    Assert.assertEquals(sequentialSums.getTotalAmount(), mergedSums.getTotalAmount());
+    Assert.assertEquals(
+        sequentialSums.getCompanyCurrencyTotalAmount(), mergedSums.getCompanyCurrencyTotalAmount());
+  }
+
+  @Test
+  public void applyMergedSums() {
+    BankOrderControlSums controlSums =
+        new BankOrderControlSums()
+            .add(new BigDecimal("100"), new BigDecimal("90"))
+            .merge(new BankOrderControlSums().add(new BigDecimal("50"), new BigDecimal("45")));
+
+    BankOrder bankOrder = new BankOrder();
+    bankOrder.setOrderTypeSelect(BankOrderRepository.ORDER_TYPE_SEPA_CREDIT_TRANSFER);
+    bankOrder.setIsMultiCurrency(false);
+    controlSums.apply(bankOrder);
+
+    Assert.assertEquals(2, (int) bankOrder.getNbOfLines());
+    Assert.assertEquals(new BigDecimal("150"), bankOrder.getArithmeticTotal());
+    Assert.assertEquals(new BigDecimal("150"), bankOrder.getBankOrderTotalAmount());
+    Assert.assertEquals(new BigDecimal("135"), bankOrder.getCompanyCurrencyTotalAmount());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.test;
+
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMatcher;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMatcher.Entry;
+import com.axelor.apps.bankpayment.service.bankreconciliation.BankReconciliationMatcher.Match;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBankReconciliationMatcher {
+
+  private static final LocalDate DATE = LocalDate.of(2019, 1, 15);
+
+  @Test
+  public void matchSingleMoveLine() {
+    BankReconciliationMatcher matcher = new BankReconciliationMatcher(5);
+    matcher.addMoveLineEntry(new Entry(1L, DATE.minusDays(4), new BigDecimal("-120.00")));
+    matcher.addMoveLineEntry(new Entry(2L, DATE.minusDays(1), new BigDecimal("-120.00")));
+    matcher.addMoveLineEntry(new Entry(3L, DATE, new BigDecimal("120.00")));
+
+    List<Match> matchList = matcher.match(list(new Entry(10L, DATE, new BigDecimal("-120"))));
+
+    Assert.assertEquals(1, matchList.size());
+    Assert.assertEquals(2L, (long) matchList.get(0).getMoveLineEntryList().get(0).getId());
+  }
+
+  @Test
+  public void matchOnReference() {
+    BankReconciliationMatcher matcher = new BankReconciliationMatcher(5);
+    matcher.addMoveLineEntry(new Entry(1L, DATE, new BigDecimal("50"), "INV0001"));
+    matcher.addMoveLineEntry(new Entry(2L, DATE, new BigDecimal("50"), "Payment INV0002"));
+
+    List<Match> matchList =
+        matcher.match(list(new Entry(10L, DATE.plusDays(2), new BigDecimal("50"), "VIR INV0002")));
+
+    Assert.assertEquals(1, matchList.size());
+    Assert.assertEquals(2L, (long) matchList.get(0).getMoveLineEntryList().get(0).getId());
+  }
+
+  @Test
+  public void leaveAmbiguousAndOutOfWindow() {
+    BankReconciliationMatcher matcher = new BankReconciliationMatcher(5);
+    matcher.addMoveLineEntry(new Entry(1L, DATE, new BigDecimal("50")));
+    matcher.addMoveLineEntry(new Entry(2L, DATE, new BigDecimal("50")));
+    matcher.addMoveLineEntry(new Entry(3L, DATE.minusDays(6), new BigDecimal("70")));
+
+    List<Match> matchList =
+        matcher.match(
+            list(
+                new Entry(10L, DATE, new BigDecimal("50")),
+                new Entry(11L, DATE, new BigDecimal("70"))));
+
+    Assert.assertTrue(matchList.isEmpty());
+  }
+
+  @Test
+  public void matchSeveralMoveLines() {
+    BankReconciliationMatcher matcher = new BankReconciliationMatcher(5);
+    matcher.addMoveLineEntry(new Entry(1L, DATE, new BigDecimal("-30"), "SEPA-2019-0042"));
+    matcher.addMoveLineEntry(new Entry(2L, DATE, new BigDecimal("-45.50"), "SEPA-2019-0042"));
+    matcher.addMoveLineEntry(new Entry(3L, DATE, new BigDecimal("-45.50"), "SEPA-2019-0043"));
+
+    List<Match> matchList =
+        matcher.match(list(new Entry(10L, DATE, new BigDecimal("-75.50"), "2019-0042")));
+
+    Assert.assertEquals(1, matchList.size());
+    Assert.assertEquals(2, matchList.get(0).getMoveLineEntryList().size());
+  }
+
+  @Test
+  public void matchManyLinesOnReference() {
+    int lineCount = 600;
+    BankReconciliationMatcher matcher = new BankReconciliationMatcher(5);
+    List<Entry> bankEntryList = new ArrayList<>();
+
+    for (int i = 0; i < lineCount; i++) {
+      BigDecimal amount = BigDecimal.valueOf(i % 500 + 1, 0).add(BigDecimal.valueOf(i % 97, 2));
+      String reference = String.format("INV%06d", i);
+      matcher.addMoveLineEntry(
+          new Entry((long) i, DATE.plusDays(i % 30), amount, "Invoice " + reference));
+      bankEntryList.add(
+          new Entry((long) i, DATE.plusDays(i % 30 + i % 3), amount, "VIR SEPA " + reference));
+    }
+
+    List<Match> matchList = matcher.match(bankEntryList);
+
+    Assert.assertEquals(lineCount, matchList.size());
+    for (Match match : matchList) {
+      Assert.assertEquals(
+          match.getBankEntry().getId(), match.getMoveLineEntryList().get(0).getId());
+    }
+  }
+
+  private static List<Entry> list(Entry... entries) {
+    List<Entry> entryList = new ArrayList<>();
+    for (Entry entry : entries) {
+      entryList.add(entry);
+    }
+    return entryList;
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.bankpayment.test;
+
+import com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.CreditTransferTransactionInformation10;
+import com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.CustomerCreditTransferInitiationV03;
+import com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.PaymentInstructionInformation3;
+import com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.CustomerDirectDebitInitiationV02;
+import com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.DirectDebitTransactionInformation9;
+import com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.PaymentInstructionInformation4;
+import com.axelor.apps.tool.xml.Marschaller;
+import com.axelor.apps.tool.xml.RepeatedElementWriter;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check that the SEPA files written transaction by transaction are the same, byte for byte, as the
+ * files marshalled with all the transactions in the document.
+ */
+public class TestSepaStreamedFile {
+
+  private static final String CONTEXT_00100103 =
+      "com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03";
+  private static final String CONTEXT_00800102 =
+      "com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02";
+  private static final int NB_OF_LINES = 50;
+
+  @Test
+  public void creditTransferFile() throws Exception {
+    com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.ObjectFactory factory =
+        new com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.ObjectFactory();
+
+    CustomerCreditTransferInitiationV03 initiation =
+        factory.createCustomerCreditTransferInitiationV03();
+    com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.GroupHeader32 grpHdr =
+        factory.createGroupHeader32();
+    grpHdr.setMsgId("BO-0001");
+    grpHdr.setNbOfTxs(Integer.toString(NB_OF_LINES));
+    initiation.setGrpHdr(grpHdr);
+    PaymentInstructionInformation3 pmtInf = factory.createPaymentInstructionInformation3();
+    pmtInf.setPmtInfId("BO-0001");
+    initiation.getPmtInf().add(pmtInf);
+    com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.Document document =
+        factory.createDocument();
+    document.setCstmrCdtTrfInitn(initiation);
+
+    IntFunction<CreditTransferTransactionInformation10> transactionBuilder =
+        i -> {
+          CreditTransferTransactionInformation10 cdtTrfTxInf =
+              factory.createCreditTransferTransactionInformation10();
+          com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.PaymentIdentification1 pmtId =
+              factory.createPaymentIdentification1();
+          pmtId.setEndToEndId("LINE-" + i);
+          cdtTrfTxInf.setPmtId(pmtId);
+          com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.ActiveOrHistoricCurrencyAndAmount
+              instdAmt = factory.createActiveOrHistoricCurrencyAndAmount();
+          instdAmt.setCcy("EUR");
+          instdAmt.setValue(BigDecimal.valueOf(1000 + i, 2));
+          com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.AmountType3Choice amt =
+              factory.createAmountType3Choice();
+          amt.setInstdAmt(instdAmt);
+          cdtTrfTxInf.setAmt(amt);
+          com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.PartyIdentification32 cdtr =
+              factory.createPartyIdentification32();
+          cdtr.setNm("Créancier & fils <" + i + ">");
+          cdtTrfTxInf.setCdtr(cdtr);
+          com.axelor.apps.bankpayment.xsd.sepa.pain_001_001_03.RemittanceInformation5 rmtInf =
+              factory.createRemittanceInformation5();
+          rmtInf.getUstrd().add("Facture " + i);
+          cdtTrfTxInf.setRmtInf(rmtInf);
+          return cdtTrfTxInf;
+        };
+
+    assertStreamedFileIdentical(
+        factory.createDocument(document),
+        CONTEXT_00100103,
+        pmtInf.getCdtTrfTxInf(),
+        "CdtTrfTxInf",
+        CreditTransferTransactionInformation10.class,
+        transactionBuilder);
+  }
+
+  @Test
+  public void directDebitFile() throws Exception {
+    com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.ObjectFactory factory =
+        new com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.ObjectFactory();
+
+    CustomerDirectDebitInitiationV02 initiation = factory.createCustomerDirectDebitInitiationV02();
+    com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.GroupHeader39 groupHeader =
+        factory.createGroupHeader39();
+    groupHeader.setMsgId("BO-0002");
+    groupHeader.setNbOfTxs(Integer.toString(NB_OF_LINES));
+    initiation.setGrpHdr(groupHeader);
+    PaymentInstructionInformation4 pmtInf = factory.createPaymentInstructionInformation4();
+    pmtInf.setPmtInfId("BO-0002");
+    pmtInf.setNbOfTxs(Integer.toString(NB_OF_LINES));
+    initiation.getPmtInf().add(pmtInf);
+    com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.Document document =
+        factory.createDocument();
+    document.setCstmrDrctDbtInitn(initiation);
+
+    IntFunction<DirectDebitTransactionInformation9> transactionBuilder =
+        i -> {
+          DirectDebitTransactionInformation9 drctDbtTxInf =
+              factory.createDirectDebitTransactionInformation9();
+          com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.PaymentIdentification1 pmtId =
+              factory.createPaymentIdentification1();
+          pmtId.setEndToEndId("LINE-" + i);
+          drctDbtTxInf.setPmtId(pmtId);
+          com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.ActiveOrHistoricCurrencyAndAmount
+              instdAmt = factory.createActiveOrHistoricCurrencyAndAmount();
+          instdAmt.setCcy("EUR");
+          instdAmt.setValue(BigDecimal.valueOf(2000 + i, 2));
+          drctDbtTxInf.setInstdAmt(instdAmt);
+          com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.PartyIdentification32 dbtr =
+              factory.createPartyIdentification32();
+          dbtr.setNm("Débiteur & fils <" + i + ">");
+          drctDbtTxInf.setDbtr(dbtr);
+          com.axelor.apps.bankpayment.xsd.sepa.pain_008_001_02.RemittanceInformation5 rmtInf =
+              factory.createRemittanceInformation5();
+          rmtInf.getUstrd().add("Prélèvement " + i);
+          drctDbtTxInf.setRmtInf(rmtInf);
+          return drctDbtTxInf;
+        };
+
+    assertStreamedFileIdentical(
+        factory.createDocument(document),
+        CONTEXT_00800102,
+        pmtInf.getDrctDbtTxInf(),
+        "DrctDbtTxInf",
+        DirectDebitTransactionInformation9.class,
+        transactionBuilder);
+  }
+
+  /**
+   * Marshal the document with all its transactions, then write it again through a {@link
+   * RepeatedElementWriter} the way the bank order file services do, and compare both files.
+   */
+  protected <T> void assertStreamedFileIdentical(
+      JAXBElement<?> root,
+      String context,
+      List<T> transactionList,
+      String transactionTag,
+      Class<T> transactionClass,
+      IntFunction<T> transactionBuilder)
+      throws Exception {
+
+    Path folder = Files.createTempDirectory("sepa");
+    try {
+      List<T> transactions = new ArrayList<>();
+      for (int i = 0; i < NB_OF_LINES; i++) {
+        transactions.add(transactionBuilder.apply(i));
+      }
+
+      transactionList.clear();
+      transactionList.addAll(transactions);
+      File fullFile = Marschaller.marschalFile(root, context, folder.toString(), "full.xml");
+
+      transactionList.clear();
+      File streamedFile = folder.resolve("streamed.xml").toFile();
+      RepeatedElementWriter<T> transactionWriter =
+          RepeatedElementWriter.open(
+              root,
+              Marschaller.getContext(context),
+              transactionList,
+              transactions.get(0),
+              new QName(root.getName().getNamespaceURI(), transactionTag),
+              transactionClass,
+              streamedFile);
+      Assert.assertNotNull(transactionWriter);
+      try {
+        for (T transaction : transactions.subList(1, transactions.size())) {
+          transactionWriter.write(transaction);
+        }
+      } finally {
+        transactionWriter.close();
+      }
+
+      Assert.assertArrayEquals(
+          Files.readAllBytes(fullFile.toPath()), Files.readAllBytes(streamedFile.toPath()));
+    } finally {
+      for (File file : folder.toFile().listFiles()) {
+        Files.delete(file.toPath());
+      }
+      Files.delete(folder);
+    }
+  }
+}
@@ -0,0 +1,364 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import com.axelor.apps.base.db.DayPlanning;
+import com.axelor.apps.base.db.WeeklyPlanning;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Working calendar of a weekly planning and a public holiday events planning.
+ *
+ * <p>Public holidays are loaded and compiled year by year into bit sets and cumulated working
+ * hours, so working days and hours between two dates are computed without iterating over each day
+ * and with one query per range of missing years. A calendar does not follow later changes of its
+ * plannings: create one for each computation.
+ */
+public class WorkingCalendar {
+
+  /** Loads the public holiday dates between two dates, both included. */
+  @FunctionalInterface
+  public interface HolidayLoader {
+
+    Collection<LocalDate> load(LocalDate fromDate, LocalDate toDate);
+  }
+
+  protected static final String[] DAY_NAMES =
+      new String[] {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+  /** Working hours are summed in units of 10^-HOURS_SCALE hour. */
+  protected static final int HOURS_SCALE = 1;
+
+  protected static final int DAYS_PER_WEEK = 7;
+
+  protected final HolidayLoader holidayLoader;
+
+  // Indexed by day of week value, from 1 (monday) to 7 (sunday)
+  protected final boolean[] mornings = new boolean[DAYS_PER_WEEK + 1];
+  protected final boolean[] afternoons = new boolean[DAYS_PER_WEEK + 1];
+  // Days with at least one morning or afternoon time, even without its bound
+  protected final boolean[] plannedDays = new boolean[DAYS_PER_WEEK + 1];
+  protected final long[] hourUnits = new long[DAYS_PER_WEEK + 1];
+
+  protected final Map<Integer, YearCalendar> yearCalendarMap = new HashMap<>();
+
+  public WorkingCalendar(WeeklyPlanning weeklyPlanning, HolidayLoader holidayLoader) {
+
+    this.holidayLoader = holidayLoader;
+
+    for (int dayOfWeek = 1; dayOfWeek <= DAYS_PER_WEEK; dayOfWeek++) {
+      DayPlanning dayPlanning = findDayPlanning(weeklyPlanning, DAY_NAMES[dayOfWeek - 1]);
+      if (dayPlanning == null) {
+        continue;
+      }
+
+      plannedDays[dayOfWeek] =
+          dayPlanning.getMorningFrom() != null
+              || dayPlanning.getMorningTo() != null
+              || dayPlanning.getAfternoonFrom() != null
+              || dayPlanning.getAfternoonTo() != null;
+
+      long minutes = 0;
+      if (dayPlanning.getMorningFrom() != null && dayPlanning.getMorningTo() != null) {
+        mornings[dayOfWeek] = true;
+        minutes += getMinutes(dayPlanning.getMorningFrom(), dayPlanning.getMorningTo());
+      }
+      if (dayPlanning.getAfternoonFrom() != null && dayPlanning.getAfternoonTo() != null) {
+        afternoons[dayOfWeek] = true;
+        minutes += getMinutes(dayPlanning.getAfternoonFrom(), dayPlanning.getAfternoonTo());
+      }
+
+      // Same rounding as the weekly planning service, day by day
+      hourUnits[dayOfWeek] =
+          BigDecimal.valueOf((double) minutes)
+              .divide(BigDecimal.valueOf(60), BigDecimal.ROUND_HALF_UP)
+              .setScale(HOURS_SCALE, BigDecimal.ROUND_HALF_UP)
+              .unscaledValue()
+              .longValue();
+    }
+  }
+
+  protected DayPlanning findDayPlanning(WeeklyPlanning weeklyPlanning, String name) {
+    if (weeklyPlanning.getWeekDays() == null) {
+      return null;
+    }
+    for (DayPlanning dayPlanning : weeklyPlanning.getWeekDays()) {
+      if (name.equals(dayPlanning.getName())) {
+        return dayPlanning;
+      }
+    }
+    return null;
+  }
+
+  protected long getMinutes(LocalTime from, LocalTime to) {
+    return ChronoUnit.MINUTES.between(from, to);
+  }
+
+  protected int getHalfDays(int dayOfWeek) {
+    return (mornings[dayOfWeek] ? 1 : 0) + (afternoons[dayOfWeek] ? 1 : 0);
+  }
+
+  /**
+   * Returns true if the given date is a public holiday.
+   *
+   * @param date
+   * @return
+   */
+  public boolean isHoliday(LocalDate date) {
+    return getYearCalendar(date.getYear()).holidays.get(date.getDayOfYear() - 1);
+  }
+
+  /**
+   * Returns true if the given date has a working morning or afternoon in the weekly planning and
+   * is not a public holiday.
+   *
+   * @param date
+   * @return
+   */
+  public boolean isWorkingDay(LocalDate date) {
+    return getYearCalendar(date.getYear()).workingDays.get(date.getDayOfYear() - 1);
+  }
+
+  /**
+   * Returns true if the given date has at least one morning or afternoon time in the weekly
+   * planning, even if a bound is missing, and is not a public holiday.
+   *
+   * @param date
+   * @return
+   */
+  public boolean isPlannedDay(LocalDate date) {
+    return plannedDays[date.getDayOfWeek().getValue()] && !isHoliday(date);
+  }
+
+  /**
+   * Computes the number of working days of the given date according to the weekly planning only,
+   * whether morning and/or afternoon should be taken into account.
+   *
+   * @param date
+   * @param morning
+   * @param afternoon
+   * @return 0, 0.5 or 1
+   */
+  public double getWorkingDayValue(LocalDate date, boolean morning, boolean afternoon) {
+    int dayOfWeek = date.getDayOfWeek().getValue();
+    double value = 0;
+    if (morning && mornings[dayOfWeek]) {
+      value += 0.5;
+    }
+    if (afternoon && afternoons[dayOfWeek]) {
+      value += 0.5;
+    }
+    return value;
+  }
+
+  /**
+   * Computes the number of working days between two dates, both included, according to the weekly
+   * planning only: public holidays are not removed.
+   *
+   * @param fromDate
+   * @param toDate
+   * @return
+   */
+  public double getWorkingDays(LocalDate fromDate, LocalDate toDate) {
+    if (fromDate.isAfter(toDate)) {
+      return 0;
+    }
+
+    long dayCount = ChronoUnit.DAYS.between(fromDate, toDate) + 1;
+    int firstDayOfWeek = fromDate.getDayOfWeek().getValue();
+    long halfDayCount = 0;
+    for (int dayOfWeek = 1; dayOfWeek <= DAYS_PER_WEEK; dayOfWeek++) {
+      int offset = (dayOfWeek - firstDayOfWeek + DAYS_PER_WEEK) % DAYS_PER_WEEK;
+      long count = dayCount / DAYS_PER_WEEK + (offset < dayCount % DAYS_PER_WEEK ? 1 : 0);
+      halfDayCount += count * getHalfDays(dayOfWeek);
+    }
+    return halfDayCount / 2.0;
+  }
+
+  /**
+   * Computes the number of working days of the weekly planning falling on public holidays between
+   * two dates, both included.
+   *
+   * @param fromDate
+   * @param toDate
+   * @return
+   */
+  public double getHolidayWorkingDays(LocalDate fromDate, LocalDate toDate) {
+    long halfDayCount =
+        sum(
+            fromDate,
+            toDate,
+            (yearCalendar, fromIndex, toIndex) ->
+                yearCalendar.holidayHalfDays.get(2 * fromIndex, 2 * toIndex).cardinality());
+    return halfDayCount / 2.0;
+  }
+
+  /**
+   * Computes the number of working hours between two dates, both included, according to the
+   * weekly planning and excluding public holidays.
+   *
+   * @param fromDate
+   * @param toDate
+   * @return
+   */
+  public BigDecimal getWorkingHours(LocalDate fromDate, LocalDate toDate) {
+    long units =
+        sum(
+            fromDate,
+            toDate,
+            (yearCalendar, fromIndex, toIndex) ->
+                yearCalendar.cumulatedHourUnits[toIndex]
+                    - yearCalendar.cumulatedHourUnits[fromIndex]);
+    return BigDecimal.valueOf(units, HOURS_SCALE);
+  }
+
+  /**
+   * Finds the working day of the given rank starting from the given date: the date itself is the
+   * first working day if it is not a public holiday and works in the weekly planning.
+   *
+   * @param date
+   * @param rank the rank of the working day, starting at 1
+   * @return the working day, or null if the weekly planning does not have any working day
+   */
+  public LocalDate getWorkingDay(LocalDate date, int rank) {
+    if (rank < 1 || getWorkingDays(date, date.plusDays(DAYS_PER_WEEK - 1)) == 0) {
+      return null;
+    }
+
+    int year = date.getYear();
+    int fromIndex = date.getDayOfYear() - 1;
+    while (true) {
+      YearCalendar yearCalendar = getYearCalendar(year);
+      BitSet workingDays = yearCalendar.workingDays;
+      int count = workingDays.get(fromIndex, yearCalendar.length).cardinality();
+      if (count < rank) {
+        rank -= count;
+        year++;
+        fromIndex = 0;
+        continue;
+      }
+
+      int index = workingDays.nextSetBit(fromIndex);
+      while (--rank > 0) {
+        index = workingDays.nextSetBit(index + 1);
+      }
+      return yearCalendar.firstDay.plusDays(index);
+    }
+  }
+
+  @FunctionalInterface
+  protected interface YearRangeFunction {
+
+    /**
+     * @param yearCalendar
+     * @param fromIndex the index of the first day, included
+     * @param toIndex the index of the last day, excluded
+     */
+    long apply(YearCalendar yearCalendar, int fromIndex, int toIndex);
+  }
+
+  protected long sum(LocalDate fromDate, LocalDate toDate, YearRangeFunction function) {
+    if (fromDate.isAfter(toDate)) {
+      return 0;
+    }
+
+    compile(fromDate.getYear(), toDate.getYear());
+
+    long sum = 0;
+    for (int year = fromDate.getYear(); year <= toDate.getYear(); year++) {
+      YearCalendar yearCalendar = yearCalendarMap.get(year);
+      int fromIndex = year == fromDate.getYear() ? fromDate.getDayOfYear() - 1 : 0;
+      int toIndex = year == toDate.getYear() ? toDate.getDayOfYear() : yearCalendar.length;
+      sum += function.apply(yearCalendar, fromIndex, toIndex);
+    }
+    return sum;
+  }
+
+  protected YearCalendar getYearCalendar(int year) {
+    compile(year, year);
+    return yearCalendarMap.get(year);
+  }
+
+  /** Compiles the missing years of the given range, loading their public holidays at once. */
+  protected void compile(int fromYear, int toYear) {
+    while (fromYear <= toYear && yearCalendarMap.containsKey(fromYear)) {
+      fromYear++;
+    }
+    while (fromYear <= toYear && yearCalendarMap.containsKey(toYear)) {
+      toYear--;
+    }
+    if (fromYear > toYear) {
+      return;
+    }
+
+    Map<Integer, BitSet> holidayMap = new HashMap<>();
+    for (LocalDate date :
+        holidayLoader.load(LocalDate.ofYearDay(fromYear, 1), LocalDate.of(toYear, 12, 31))) {
+      holidayMap.computeIfAbsent(date.getYear(), year -> new BitSet()).set(date.getDayOfYear() - 1);
+    }
+
+    for (int year = fromYear; year <= toYear; year++) {
+      if (!yearCalendarMap.containsKey(year)) {
+        yearCalendarMap.put(
+            year, new YearCalendar(year, holidayMap.getOrDefault(year, new BitSet())));
+      }
+    }
+  }
+
+  /** Public holidays, working days and cumulated working hours of a year, indexed by day. */
+  protected class YearCalendar {
+
+    protected final LocalDate firstDay;
+    protected final int length;
+    protected final BitSet holidays;
+    // Two bits a day, for morning and afternoon
+    protected final BitSet holidayHalfDays;
+    protected final BitSet workingDays;
+    // Working hours before each day, public holidays excluded
+    protected final long[] cumulatedHourUnits;
+
+    protected YearCalendar(int year, BitSet holidays) {
+      this.firstDay = LocalDate.ofYearDay(year, 1);
+      this.length = firstDay.lengthOfYear();
+      this.holidays = holidays;
+      this.holidayHalfDays = new BitSet(2 * length);
+      this.workingDays = new BitSet(length);
+      this.cumulatedHourUnits = new long[length + 1];
+
+      int firstDayOfWeek = firstDay.getDayOfWeek().getValue();
+      for (int index = 0; index < length; index++) {
+        int dayOfWeek = (firstDayOfWeek - 1 + index) % DAYS_PER_WEEK + 1;
+        if (holidays.get(index)) {
+          holidayHalfDays.set(2 * index, mornings[dayOfWeek]);
+          holidayHalfDays.set(2 * index + 1, afternoons[dayOfWeek]);
+          cumulatedHourUnits[index + 1] = cumulatedHourUnits[index];
+        } else {
+          workingDays.set(index, getHalfDays(dayOfWeek) > 0);
+          cumulatedHourUnits[index + 1] = cumulatedHourUnits[index] + hourUnits[dayOfWeek];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.WeeklyPlanning;
+
+public interface WorkingCalendarService {
+
+  /**
+   * Creates the working calendar of a weekly planning and a public holiday events planning. Public
+   * holidays are loaded when a computation first needs them.
+   *
+   * @param weeklyPlanning
+   * @param publicHolidayPlanning can be null
+   * @return
+   */
+  public WorkingCalendar getWorkingCalendar(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning);
+}
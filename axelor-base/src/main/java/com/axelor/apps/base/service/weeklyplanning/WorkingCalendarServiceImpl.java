@@ -0,0 +1,56 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.service.weeklyplanning;
+
+import com.axelor.apps.base.db.EventsPlanning;
+import com.axelor.apps.base.db.WeeklyPlanning;
+import com.axelor.db.JPA;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+public class WorkingCalendarServiceImpl implements WorkingCalendarService {
+
+  @Override
+  public WorkingCalendar getWorkingCalendar(
+      WeeklyPlanning weeklyPlanning, EventsPlanning publicHolidayPlanning) {
+
+    return new WorkingCalendar(
+        weeklyPlanning,
+        (fromDate, toDate) -> getPublicHolidayDates(publicHolidayPlanning, fromDate, toDate));
+  }
+
+  protected List<LocalDate> getPublicHolidayDates(
+      EventsPlanning publicHolidayPlanning, LocalDate fromDate, LocalDate toDate) {
+
+    if (publicHolidayPlanning == null) {
+      return Collections.emptyList();
+    }
+
+    return JPA.em()
+        .createQuery(
+            "SELECT self.date FROM EventsPlanningLine self"
+                + " WHERE self.eventsPlanning = :eventsPlanning"
+                + " AND self.date BETWEEN :fromDate AND :toDate",
+            LocalDate.class)
+        .setParameter("eventsPlanning", publicHolidayPlanning)
+        .setParameter("fromDate", fromDate)
+        .setParameter("toDate", toDate)
+        .getResultList();
+  }
+}
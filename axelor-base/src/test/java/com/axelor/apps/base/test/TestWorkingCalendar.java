@@ -0,0 +1,250 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.base.test;
+
+import com.axelor.apps.base.db.DayPlanning;
+import com.axelor.apps.base.db.WeeklyPlanning;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendar;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestWorkingCalendar {
+
+  // Wednesday, Saturday, Sunday and Wednesday
+  protected static final List<LocalDate> HOLIDAYS =
+      Arrays.asList(
+          LocalDate.of(2019, 12, 25),
+          LocalDate.of(2020, 2, 29),
+          LocalDate.of(2019, 12, 29),
+          LocalDate.of(2020, 1, 1));
+
+  protected int loadCount;
+
+  /**
+   * Monday to friday from 8:00 to 12:00 and from 13:30 to 17:30, saturday morning from 9:00 to
+   * 12:00, no sunday.
+   */
+  protected WeeklyPlanning createPlanning() {
+    WeeklyPlanning planning = new WeeklyPlanning();
+    planning.setName("Test");
+    for (String name : Arrays.asList("monday", "tuesday", "wednesday", "thursday", "friday")) {
+      planning.addWeekDay(
+          createDayPlanning(
+              name,
+              LocalTime.of(8, 0),
+              LocalTime.of(12, 0),
+              LocalTime.of(13, 30),
+              LocalTime.of(17, 30)));
+    }
+    planning.addWeekDay(
+        createDayPlanning("saturday", LocalTime.of(9, 0), LocalTime.of(12, 0), null, null));
+    planning.addWeekDay(createDayPlanning("sunday", null, null, null, null));
+    return planning;
+  }
+
+  protected DayPlanning createDayPlanning(
+      String name,
+      LocalTime morningFrom,
+      LocalTime morningTo,
+      LocalTime afternoonFrom,
+      LocalTime afternoonTo) {
+    DayPlanning dayPlanning = new DayPlanning();
+    dayPlanning.setName(name);
+    dayPlanning.setMorningFrom(morningFrom);
+    dayPlanning.setMorningTo(morningTo);
+    dayPlanning.setAfternoonFrom(afternoonFrom);
+    dayPlanning.setAfternoonTo(afternoonTo);
+    return dayPlanning;
+  }
+
+  protected WorkingCalendar createCalendar(WeeklyPlanning planning) {
+    return new WorkingCalendar(
+        planning,
+        (fromDate, toDate) -> {
+          loadCount++;
+          return HOLIDAYS
+              .stream()
+              .filter(date -> !date.isBefore(fromDate) && !date.isAfter(toDate))
+              .collect(Collectors.toList());
+        });
+  }
+
+  /** Working days of a date, computed from the test planning, public holidays included. */
+  protected double getExpectedDays(LocalDate date) {
+    if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+      return 0;
+    }
+    return date.getDayOfWeek() == DayOfWeek.SATURDAY ? 0.5 : 1;
+  }
+
+  /** Working hours of a date, computed from the test planning, public holidays excluded. */
+  protected double getExpectedHours(LocalDate date) {
+    if (HOLIDAYS.contains(date) || date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+      return 0;
+    }
+    return date.getDayOfWeek() == DayOfWeek.SATURDAY ? 3 : 8;
+  }
+
+  @Test
+  public void testOneWeek() {
+    WorkingCalendar calendar = createCalendar(createPlanning());
+    LocalDate monday = LocalDate.of(2019, 1, 7);
+    LocalDate sunday = LocalDate.of(2019, 1, 13);
+
+    Assert.assertEquals(5.5, calendar.getWorkingDays(monday, sunday), 0);
+    Assert.assertEquals(new BigDecimal("43.0"), calendar.getWorkingHours(monday, sunday));
+    Assert.assertEquals(1, calendar.getWorkingDays(monday, monday), 0);
+    Assert.assertEquals(0, calendar.getWorkingDays(sunday, monday), 0);
+    Assert.assertEquals(new BigDecimal("0.0"), calendar.getWorkingHours(sunday, sunday));
+  }
+
+  @Test
+  public void testHalfDays() {
+    WorkingCalendar calendar = createCalendar(createPlanning());
+    LocalDate monday = LocalDate.of(2019, 1, 7);
+    LocalDate saturday = LocalDate.of(2019, 1, 12);
+
+    Assert.assertEquals(1, calendar.getWorkingDayValue(monday, true, true), 0);
+    Assert.assertEquals(0.5, calendar.getWorkingDayValue(monday, true, false), 0);
+    Assert.assertEquals(0.5, calendar.getWorkingDayValue(monday, false, true), 0);
+    Assert.assertEquals(0.5, calendar.getWorkingDayValue(saturday, true, true), 0);
+    Assert.assertEquals(0, calendar.getWorkingDayValue(saturday, false, true), 0);
+    Assert.assertEquals(new BigDecimal("3.0"), calendar.getWorkingHours(saturday, saturday));
+    Assert.assertTrue(calendar.isWorkingDay(saturday));
+    Assert.assertFalse(calendar.isWorkingDay(saturday.plusDays(1)));
+  }
+
+  @Test
+  public void testLeapYear() {
+    WorkingCalendar calendar = createCalendar(createPlanning());
+
+    // 2020 starts on a wednesday and has 52 weeks and 2 days
+    Assert.assertEquals(
+        288, calendar.getWorkingDays(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)), 0);
+    // 2019 starts on a tuesday and has 52 weeks and 1 day
+    Assert.assertEquals(
+        287, calendar.getWorkingDays(LocalDate.of(2019, 1, 1), LocalDate.of(2019, 12, 31)), 0);
+
+    // The 29th of february 2020 is a saturday and a public holiday
+    LocalDate friday = LocalDate.of(2020, 2, 28);
+    LocalDate monday = LocalDate.of(2020, 3, 2);
+    Assert.assertEquals(2.5, calendar.getWorkingDays(friday, monday), 0);
+    Assert.assertEquals(new BigDecimal("16.0"), calendar.getWorkingHours(friday, monday));
+    Assert.assertEquals(
+        0.5,
+        calendar.getHolidayWorkingDays(LocalDate.of(2020, 2, 1), LocalDate.of(2020, 3, 31)),
+        0);
+    Assert.assertTrue(calendar.isHoliday(LocalDate.of(2020, 2, 29)));
+    Assert.assertEquals(LocalDate.of(2020, 3, 2), calendar.getWorkingDay(friday, 2));
+  }
+
+  @Test
+  public void testHolidays() {
+    WorkingCalendar calendar = createCalendar(createPlanning());
+    LocalDate christmas = LocalDate.of(2019, 12, 25);
+
+    Assert.assertTrue(calendar.isHoliday(christmas));
+    Assert.assertFalse(calendar.isWorkingDay(christmas));
+    Assert.assertFalse(calendar.isHoliday(christmas.plusDays(1)));
+    Assert.assertTrue(calendar.isWorkingDay(christmas.plusDays(1)));
+
+    // Public holidays are not removed from the working days of the weekly planning
+    LocalDate fromDate = LocalDate.of(2019, 12, 23);
+    LocalDate toDate = LocalDate.of(2020, 1, 5);
+    Assert.assertEquals(11, calendar.getWorkingDays(fromDate, toDate), 0);
+    // A public holiday on a sunday does not count
+    Assert.assertEquals(2, calendar.getHolidayWorkingDays(fromDate, toDate), 0);
+    Assert.assertEquals(new BigDecimal("70.0"), calendar.getWorkingHours(fromDate, toDate));
+  }
+
+  @Test
+  public void testMultiYearRange() {
+    WorkingCalendar calendar = createCalendar(createPlanning());
+    LocalDate fromDate = LocalDate.of(2017, 3, 15);
+    LocalDate toDate = LocalDate.of(2021, 11, 2);
+
+    double expectedDays = 0;
+    double expectedHours = 0;
+    for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+      expectedDays += getExpectedDays(date);
+      expectedHours += getExpectedHours(date);
+    }
+
+    Assert.assertEquals(expectedDays, calendar.getWorkingDays(fromDate, toDate), 0);
+    Assert.assertEquals(expectedHours, calendar.getWorkingHours(fromDate, toDate).doubleValue(), 0);
+    Assert.assertEquals(2.5, calendar.getHolidayWorkingDays(fromDate, toDate), 0);
+    // All the missing years are loaded at once
+    Assert.assertEquals(1, loadCount);
+
+    // The years missing on both sides are loaded at once too
+    calendar.getWorkingHours(LocalDate.of(2016, 6, 1), LocalDate.of(2022, 6, 1));
+    Assert.assertEquals(2, loadCount);
+  }
+
+  @Test
+  public void testWorkingDayRank() {
+    WorkingCalendar calendar = createCalendar(createPlanning());
+    LocalDate monday = LocalDate.of(2019, 12, 23);
+
+    Assert.assertEquals(monday, calendar.getWorkingDay(monday, 1));
+    Assert.assertEquals(LocalDate.of(2019, 12, 26), calendar.getWorkingDay(monday, 3));
+    Assert.assertEquals(LocalDate.of(2019, 12, 30), calendar.getWorkingDay(monday, 6));
+    // Over the new year and its public holiday
+    Assert.assertEquals(LocalDate.of(2020, 1, 2), calendar.getWorkingDay(monday, 8));
+    // From a sunday
+    Assert.assertEquals(monday, calendar.getWorkingDay(LocalDate.of(2019, 12, 22), 1));
+    Assert.assertNull(calendar.getWorkingDay(monday, 0));
+  }
+
+  @Test
+  public void testEmptyPlanning() {
+    WeeklyPlanning planning = new WeeklyPlanning();
+    planning.setName("Empty");
+    WorkingCalendar calendar = createCalendar(planning);
+    LocalDate fromDate = LocalDate.of(2019, 1, 1);
+    LocalDate toDate = LocalDate.of(2021, 12, 31);
+
+    Assert.assertEquals(0, calendar.getWorkingDays(fromDate, toDate), 0);
+    Assert.assertEquals(0, calendar.getHolidayWorkingDays(fromDate, toDate), 0);
+    Assert.assertEquals(0, calendar.getWorkingHours(fromDate, toDate).signum());
+    Assert.assertFalse(calendar.isWorkingDay(fromDate));
+    Assert.assertNull(calendar.getWorkingDay(fromDate, 1));
+  }
+
+  @Test
+  public void testPlannedDay() {
+    WeeklyPlanning planning = createPlanning();
+    // Sunday morning without its end time
+    planning.getWeekDays().get(6).setMorningFrom(LocalTime.of(9, 0));
+    WorkingCalendar calendar = createCalendar(planning);
+    LocalDate sunday = LocalDate.of(2019, 12, 22);
+
+    Assert.assertTrue(calendar.isPlannedDay(sunday));
+    Assert.assertFalse(calendar.isWorkingDay(sunday));
+    Assert.assertEquals(0, calendar.getWorkingDayValue(sunday, true, true), 0);
+    Assert.assertFalse(calendar.isPlannedDay(LocalDate.of(2019, 12, 29)));
+    Assert.assertTrue(calendar.isPlannedDay(LocalDate.of(2019, 12, 28)));
+  }
+}
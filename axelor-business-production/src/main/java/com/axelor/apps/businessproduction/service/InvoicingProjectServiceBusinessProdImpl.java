@@ -22,61 +22,40 @@ import com.axelor.apps.businessproject.service.InvoicingProjectService;
 import com.axelor.apps.production.db.ManufOrder;
 import com.axelor.apps.production.db.repo.ManufOrderRepository;
 import com.axelor.apps.project.db.Project;
-import com.axelor.apps.project.db.repo.ProjectRepository;
-import com.axelor.apps.project.service.ProjectServiceImpl;
 import com.axelor.inject.Beans;
-import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 
 public class InvoicingProjectServiceBusinessProdImpl extends InvoicingProjectService {
 
   @Override
-  public void setLines(InvoicingProject invoicingProject, Project project, int counter) {
-
-    if (counter > ProjectServiceImpl.MAX_LEVEL_OF_PROJECT) {
-      return;
-    }
-    counter++;
-
-    this.fillLines(invoicingProject, project);
-    List<Project> projectChildrenList =
-        Beans.get(ProjectRepository.class).all().filter("self.parentProject = ?1", project).fetch();
-
-    for (Project projectChild : projectChildrenList) {
-      this.setLines(invoicingProject, projectChild, counter);
-    }
-    return;
-  }
-
-  @Override
-  public void fillLines(InvoicingProject invoicingProject, Project project) {
-    super.fillLines(invoicingProject, project);
+  protected void fillLines(
+      InvoicingProject invoicingProject,
+      String projectCondition,
+      Map<String, Object> projectParams) {
+    super.fillLines(invoicingProject, projectCondition, projectParams);
     if (invoicingProject.getManufOrderSet() == null) {
       invoicingProject.setManufOrderSet(new HashSet<ManufOrder>());
     }
 
+    String manufOrderQuery = "self.productionOrder.project " + projectCondition;
+    Map<String, Object> manufOrderQueryMap = new HashMap<>(projectParams);
+
     if (invoicingProject.getDeadlineDate() != null) {
-      LocalDateTime deadlineDateToDateTime = invoicingProject.getDeadlineDate().atStartOfDay();
-      invoicingProject
-          .getManufOrderSet()
-          .addAll(
-              Beans.get(ManufOrderRepository.class)
-                  .all()
-                  .filter(
-                      "self.productionOrder.project = ?1 AND (self.realStartDateT < ?2)",
-                      project,
-                      deadlineDateToDateTime)
-                  .fetch());
-    } else {
-      invoicingProject
-          .getManufOrderSet()
-          .addAll(
-              Beans.get(ManufOrderRepository.class)
-                  .all()
-                  .filter("self.productionOrder.project = ?1", project)
-                  .fetch());
+      manufOrderQuery += " AND (self.realStartDateT < :deadlineDateT)";
+      manufOrderQueryMap.put(
+          "deadlineDateT", invoicingProject.getDeadlineDate().atStartOfDay());
     }
+
+    invoicingProject
+        .getManufOrderSet()
+        .addAll(
+            Beans.get(ManufOrderRepository.class)
+                .all()
+                .filter(manufOrderQuery)
+                .bind(manufOrderQueryMap)
+                .fetch());
   }
 
   @Override
@@ -43,7 +43,7 @@ import com.axelor.apps.hr.db.repo.TimesheetRepository;
 import com.axelor.apps.hr.service.expense.ExpenseService;
 import com.axelor.apps.hr.service.timesheet.TimesheetService;
 import com.axelor.apps.project.db.Project;
-import com.axelor.apps.project.db.repo.ProjectRepository;
+import com.axelor.apps.project.service.ProjectHierarchyService;
 import com.axelor.apps.project.service.ProjectServiceImpl;
 import com.axelor.apps.purchase.db.PurchaseOrderLine;
 import com.axelor.apps.purchase.db.repo.PurchaseOrderLineRepository;
@@ -57,6 +57,7 @@ import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.team.db.TeamTask;
 import com.axelor.team.db.repo.TeamTaskRepository;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.util.ArrayList;
@@ -78,6 +79,8 @@ public class InvoicingProjectService {
 
   @Inject protected InvoicingProjectRepository invoicingProjectRepo;
 
+  @Inject protected ProjectHierarchyService projectHierarchyService;
+
   protected int MAX_LEVEL_OF_PROJECT = 10;
 
   protected int sequence = 0;
@@ -282,30 +285,45 @@ public class InvoicingProjectService {
     if (counter > ProjectServiceImpl.MAX_LEVEL_OF_PROJECT) {
       return;
     }
-    counter++;
-
-    this.fillLines(invoicingProject, project);
 
-    List<Project> projectChildrenList =
-        Beans.get(ProjectRepository.class).all().filter("self.parentProject = ?1", project).fetch();
+    this.fillLines(invoicingProject, project, ProjectServiceImpl.MAX_LEVEL_OF_PROJECT - counter);
+  }
 
-    for (Project projectChild : projectChildrenList) {
-      this.setLines(invoicingProject, projectChild, counter);
-    }
+  public void fillLines(InvoicingProject invoicingProject, Project project) {
+    this.fillLines(invoicingProject, "= :project", ImmutableMap.of("project", project));
+  }
 
-    return;
+  /**
+   * Fill the lines to invoice of the project and of its sub-projects, down to the given depth,
+   * with one query for each kind of line.
+   */
+  public void fillLines(InvoicingProject invoicingProject, Project project, int maxDepth) {
+    projectHierarchyService.checkHierarchy();
+    this.fillLines(
+        invoicingProject,
+        "IN (SELECT hierarchy.descendant FROM ProjectHierarchy hierarchy"
+            + " WHERE hierarchy.ancestor = :project AND hierarchy.depth <= :maxDepth)",
+        ImmutableMap.of("project", project, "maxDepth", maxDepth));
   }
 
-  public void fillLines(InvoicingProject invoicingProject, Project project) {
+  /**
+   * Fill the lines to invoice of the projects matching the condition.
+   *
+   * @param projectCondition the condition on the project of a line
+   * @param projectParams the parameters of the condition
+   */
+  protected void fillLines(
+      InvoicingProject invoicingProject,
+      String projectCondition,
+      Map<String, Object> projectParams) {
     String commonQuery =
-        "self.project = :project AND self.toInvoice = true AND self.invoiced = false";
+        "self.project " + projectCondition + " AND self.toInvoice = true AND self.invoiced = false";
 
     StringBuilder solQueryBuilder = new StringBuilder(commonQuery);
     solQueryBuilder.append(
         " AND (self.saleOrder.statusSelect = :statusConfirmed OR self.saleOrder.statusSelect = :statusCompleted)");
 
-    Map<String, Object> solQueryMap = new HashMap<>();
-    solQueryMap.put("project", project);
+    Map<String, Object> solQueryMap = new HashMap<>(projectParams);
     solQueryMap.put("statusConfirmed", SaleOrderRepository.STATUS_ORDER_CONFIRMED);
     solQueryMap.put("statusCompleted", SaleOrderRepository.STATUS_ORDER_COMPLETED);
 
@@ -313,30 +331,26 @@ public class InvoicingProjectService {
     polQueryBuilder.append(
         " AND (self.purchaseOrder.statusSelect = 3 OR self.purchaseOrder.statusSelect = 4)");
 
-    Map<String, Object> polQueryMap = new HashMap<>();
-    polQueryMap.put("project", project);
+    Map<String, Object> polQueryMap = new HashMap<>(projectParams);
 
     StringBuilder logTimesQueryBuilder = new StringBuilder(commonQuery);
     logTimesQueryBuilder.append(" AND self.timesheet.statusSelect = :timesheetStatus");
 
-    Map<String, Object> logTimesQueryMap = new HashMap<>();
-    logTimesQueryMap.put("project", project);
+    Map<String, Object> logTimesQueryMap = new HashMap<>(projectParams);
     logTimesQueryMap.put("timesheetStatus", TimesheetRepository.STATUS_VALIDATED);
 
     StringBuilder expenseLineQueryBuilder = new StringBuilder(commonQuery);
     expenseLineQueryBuilder.append(
         " AND (self.expense.statusSelect = :statusValidated OR self.expense.statusSelect = :statusReimbursed)");
 
-    Map<String, Object> expenseLineQueryMap = new HashMap<>();
-    expenseLineQueryMap.put("project", project);
+    Map<String, Object> expenseLineQueryMap = new HashMap<>(projectParams);
     expenseLineQueryMap.put("statusValidated", ExpenseRepository.STATUS_VALIDATED);
     expenseLineQueryMap.put("statusReimbursed", ExpenseRepository.STATUS_REIMBURSED);
 
     StringBuilder taskQueryBuilder = new StringBuilder(commonQuery);
     taskQueryBuilder.append(" AND self.status = 'closed'");
 
-    Map<String, Object> taskQueryMap = new HashMap<>();
-    taskQueryMap.put("project", project);
+    Map<String, Object> taskQueryMap = new HashMap<>(projectParams);
 
     if (invoicingProject.getDeadlineDate() != null) {
       solQueryBuilder.append(" AND self.saleOrder.creationDate < :deadlineDate");
@@ -0,0 +1,142 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.cash.management.service;
+
+import com.axelor.apps.cash.management.db.repo.ForecastRecapLineRepository;
+import com.axelor.exception.AxelorException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Sum of the amounts of a forecast recap by date, type and reason, sorted by date. The lines of the
+ * recap are created from it in one pass, each line carrying the running balance.
+ */
+public class ForecastRecapLineAccumulator {
+
+  private static final Comparator<LineKey> LINE_KEY_COMPARATOR =
+      Comparator.comparing((LineKey key) -> key.date)
+          .thenComparingInt(key -> key.typeSelect)
+          .thenComparing(key -> key.reasonId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  private final SortedMap<LineKey, BigDecimal> amountMap = new TreeMap<>(LINE_KEY_COMPARATOR);
+
+  @FunctionalInterface
+  public interface LineConsumer {
+
+    void accept(
+        LocalDate date, int typeSelect, Long reasonId, BigDecimal amount, BigDecimal balance)
+        throws AxelorException;
+  }
+
+  public void add(LocalDate date, int typeSelect, Long reasonId, BigDecimal amount) {
+    if (date != null && amount != null) {
+      amountMap.merge(new LineKey(date, typeSelect, reasonId), amount, BigDecimal::add);
+    }
+  }
+
+  public boolean isEmpty() {
+    return amountMap.isEmpty();
+  }
+
+  /**
+   * Give the lines to the consumer by date, with the balance after each line.
+   *
+   * @param startingBalance the balance before the first line
+   * @param consumer creates a line of the recap
+   * @return the balance after the last line
+   * @throws AxelorException
+   */
+  public BigDecimal createLines(BigDecimal startingBalance, LineConsumer consumer)
+      throws AxelorException {
+
+    BigDecimal balance = startingBalance;
+
+    for (Map.Entry<LineKey, BigDecimal> entry : amountMap.entrySet()) {
+      LineKey key = entry.getKey();
+      BigDecimal amount = entry.getValue();
+      balance =
+          key.typeSelect == ForecastRecapLineRepository.TYPE_OUT
+              ? balance.subtract(amount)
+              : balance.add(amount);
+      consumer.accept(key.date, key.typeSelect, key.reasonId, amount, balance);
+    }
+
+    return balance;
+  }
+
+  /**
+   * Sum the amounts by date.
+   *
+   * @param typeSelect the type of the amounts to sum, or null to subtract the outgoing amounts from
+   *     the incoming ones
+   * @return the sums, sorted by date
+   */
+  public SortedMap<LocalDate, BigDecimal> getAmountsByDate(Integer typeSelect) {
+
+    SortedMap<LocalDate, BigDecimal> amountByDateMap = new TreeMap<>();
+
+    for (Map.Entry<LineKey, BigDecimal> entry : amountMap.entrySet()) {
+      LineKey key = entry.getKey();
+      BigDecimal amount = entry.getValue();
+      if (typeSelect == null) {
+        if (key.typeSelect == ForecastRecapLineRepository.TYPE_OUT) {
+          amount = amount.negate();
+        }
+      } else if (typeSelect != key.typeSelect) {
+        continue;
+      }
+      amountByDateMap.merge(key.date, amount, BigDecimal::add);
+    }
+
+    return amountByDateMap;
+  }
+
+  private static final class LineKey {
+
+    private final LocalDate date;
+    private final int typeSelect;
+    private final Long reasonId;
+
+    LineKey(LocalDate date, int typeSelect, Long reasonId) {
+      this.date = date;
+      this.typeSelect = typeSelect;
+      this.reasonId = reasonId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof LineKey)) {
+        return false;
+      }
+      LineKey other = (LineKey) obj;
+      return date.equals(other.date)
+          && typeSelect == other.typeSelect
+          && Objects.equals(reasonId, other.reasonId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(date, typeSelect, reasonId);
+    }
+  }
+}
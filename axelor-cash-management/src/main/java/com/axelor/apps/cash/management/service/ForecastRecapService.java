@@ -20,6 +20,7 @@ package com.axelor.apps.cash.management.service;
 import com.axelor.apps.ReportFactory;
 import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.db.repo.InvoiceRepository;
+import com.axelor.apps.base.db.Currency;
 import com.axelor.apps.base.service.CurrencyService;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.cash.management.db.Forecast;
@@ -32,17 +33,14 @@ import com.axelor.apps.cash.management.db.repo.ForecastRepository;
 import com.axelor.apps.cash.management.report.IReport;
 import com.axelor.apps.crm.db.Opportunity;
 import com.axelor.apps.crm.db.repo.OpportunityRepository;
-import com.axelor.apps.hr.db.Employee;
-import com.axelor.apps.hr.db.Expense;
-import com.axelor.apps.hr.db.repo.EmployeeRepository;
 import com.axelor.apps.hr.db.repo.ExpenseRepository;
-import com.axelor.apps.purchase.db.PurchaseOrder;
-import com.axelor.apps.purchase.db.repo.PurchaseOrderRepository;
+import com.axelor.apps.purchase.db.IPurchaseOrder;
 import com.axelor.apps.report.engine.ReportSettings;
 import com.axelor.apps.sale.db.SaleOrder;
 import com.axelor.apps.sale.db.repo.SaleOrderRepository;
 import com.axelor.apps.supplychain.db.Timetable;
 import com.axelor.apps.supplychain.db.repo.TimetableRepository;
+import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
@@ -53,10 +51,14 @@ import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.Parameter;
+import javax.persistence.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,128 +67,416 @@ public class ForecastRecapService {
 
   private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  protected static final int FLUSH_SIZE = 100;
+
   @Inject protected AppBaseService appBaseService;
 
-  @Inject protected ForecastRepository forecastRepo;
+  @Inject protected ForecastRecapRepository forecastRecapRepo;
 
   @Inject protected ForecastRecapLineRepository forecastRecapLineRepo;
 
   @Inject protected CurrencyService currencyService;
 
+  /**
+   * Compute the lines of the recap. The amounts of each source are summed by date and type, and
+   * one line is created for each date, type and reason, with the running balance. The lines of a
+   * saved recap are replaced in the database by batches, the ones of a new recap are added to it.
+   *
+   * @param forecastRecap
+   * @throws AxelorException
+   */
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
   public void populate(ForecastRecap forecastRecap) throws AxelorException {
-    List<ForecastRecapLine> forecastRecapLineList = forecastRecap.getForecastRecapLineList();
-    if (forecastRecapLineList != null && !forecastRecapLineList.isEmpty()) {
-      for (ForecastRecapLine forecastRecapLine : forecastRecapLineList) {
-        if (forecastRecapLine.getId() != null && forecastRecapLine.getId() > 0) {
-          forecastRecapLineRepo.remove(forecastRecapLine);
-        }
+
+    ForecastRecapLineAccumulator accumulator = new ForecastRecapLineAccumulator();
+
+    if (forecastRecap.getOpportunitiesTypeSelect() != null
+        && forecastRecap.getOpportunitiesTypeSelect()
+            > ForecastRecapRepository.OPPORTUNITY_TYPE_NO) {
+      this.addOpportunities(forecastRecap, accumulator);
+    }
+    this.addInvoices(forecastRecap, accumulator);
+    this.addSalaries(forecastRecap, accumulator);
+    this.addTimetables(forecastRecap, accumulator);
+    this.addForecasts(forecastRecap, accumulator);
+    this.addExpenses(forecastRecap, accumulator);
+    this.realizeForecasts(forecastRecap);
+
+    if (forecastRecap.getId() == null) {
+      if (forecastRecap.getForecastRecapLineList() != null) {
+        forecastRecap.getForecastRecapLineList().clear();
       }
-      forecastRecapLineList.clear();
+      BigDecimal endingBalance =
+          accumulator.createLines(
+              forecastRecap.getStartingBalance(),
+              (date, typeSelect, reasonId, amount, balance) ->
+                  forecastRecap.addForecastRecapLineListItem(
+                      this.createForecastRecapLine(
+                          date, typeSelect, this.getReason(reasonId), amount, balance)));
+      forecastRecap.setCurrentBalance(endingBalance);
+      forecastRecap.setEndingBalance(endingBalance);
+      return;
     }
-    forecastRecap.setCurrentBalance(forecastRecap.getStartingBalance());
+
+    BigDecimal endingBalance = this.saveLines(forecastRecap, accumulator);
+
+    ForecastRecap savedForecastRecap = forecastRecapRepo.find(forecastRecap.getId());
+    savedForecastRecap.setCurrentBalance(endingBalance);
+    savedForecastRecap.setEndingBalance(endingBalance);
+    forecastRecapRepo.save(savedForecastRecap);
+  }
+
+  /**
+   * Replace the lines of a saved recap, flushing them by batches.
+   *
+   * @return the ending balance
+   */
+  protected BigDecimal saveLines(
+      ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator)
+      throws AxelorException {
+
+    Long forecastRecapId = forecastRecap.getId();
+
+    JPA.em()
+        .createQuery("DELETE FROM ForecastRecapLine self WHERE self.forecastRecap.id = :id")
+        .setParameter("id", forecastRecapId)
+        .executeUpdate();
+    JPA.clear();
+
+    AtomicInteger lineCount = new AtomicInteger();
+
+    BigDecimal endingBalance =
+        accumulator.createLines(
+            forecastRecap.getStartingBalance(),
+            (date, typeSelect, reasonId, amount, balance) -> {
+              ForecastRecapLine forecastRecapLine =
+                  this.createForecastRecapLine(
+                      date, typeSelect, this.getReason(reasonId), amount, balance);
+              forecastRecapLine.setForecastRecap(
+                  JPA.em().getReference(ForecastRecap.class, forecastRecapId));
+              forecastRecapLineRepo.save(forecastRecapLine);
+              if (lineCount.incrementAndGet() % FLUSH_SIZE == 0) {
+                JPA.flush();
+                JPA.clear();
+              }
+            });
+
+    JPA.flush();
+    JPA.clear();
+    logger.debug("{} line(s) created for the forecast recap {}", lineCount, forecastRecapId);
+
+    return endingBalance;
+  }
+
+  protected ForecastReason getReason(Long reasonId) {
+    return reasonId != null ? JPA.em().find(ForecastReason.class, reasonId) : null;
+  }
+
+  /** Sum of the outgoing amounts by date, for the spending chart of the recap. */
+  public SortedMap<LocalDate, BigDecimal> getSpendingByDate(ForecastRecap forecastRecap)
+      throws AxelorException {
+
+    ForecastRecapLineAccumulator accumulator = new ForecastRecapLineAccumulator();
+
+    this.addTimetables(forecastRecap, accumulator);
+    this.addExpenses(forecastRecap, accumulator);
+    this.addSalaries(forecastRecap, accumulator);
+    this.addForecasts(forecastRecap, accumulator);
+
+    return accumulator.getAmountsByDate(ForecastRecapLineRepository.TYPE_OUT);
+  }
+
+  /** Incoming minus outgoing amounts by date, for the margin chart of the recap. */
+  public SortedMap<LocalDate, BigDecimal> getMarginByDate(ForecastRecap forecastRecap)
+      throws AxelorException {
+
+    ForecastRecapLineAccumulator accumulator = new ForecastRecapLineAccumulator();
+
+    this.addTimetables(forecastRecap, accumulator);
+    this.addExpenses(forecastRecap, accumulator);
+    this.addSalaries(forecastRecap, accumulator);
+    this.addForecasts(forecastRecap, accumulator);
+    this.addInvoices(forecastRecap, accumulator);
     if (forecastRecap.getOpportunitiesTypeSelect() != null
         && forecastRecap.getOpportunitiesTypeSelect()
             > ForecastRecapRepository.OPPORTUNITY_TYPE_NO) {
-      this.populateWithOpportunities(forecastRecap);
+      this.addOpportunities(forecastRecap, accumulator);
     }
-    this.populateWithInvoices(forecastRecap);
-    this.populateWithSalaries(forecastRecap);
-    this.populateWithTimetables(forecastRecap);
-    this.populateWithForecasts(forecastRecap);
-    this.populateWithExpenses(forecastRecap);
-    forecastRecap.setEndingBalance(forecastRecap.getCurrentBalance());
+
+    return accumulator.getAmountsByDate(null);
   }
 
-  public void populateWithOpportunities(ForecastRecap forecastRecap) throws AxelorException {
-    List<Opportunity> opportunityList = new ArrayList<Opportunity>();
-    if (forecastRecap.getBankDetails() != null) {
-      opportunityList =
-          Beans.get(OpportunityRepository.class)
-              .all()
-              .filter(
-                  "self.company = ?1 AND self.bankDetails = ?2 AND self.expectedCloseDate BETWEEN ?3 AND ?4 AND self.saleOrderList IS EMPTY",
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails(),
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate())
-              .fetch();
+  /**
+   * Build the query of a source of the recap, with the company, the bank details and the dates of
+   * the recap as parameters.
+   *
+   * @param queryString the query, where {@code bankDetailsPath} is replaced by the condition on the
+   *     bank details if the recap has some
+   */
+  protected Query createQuery(
+      ForecastRecap forecastRecap, String queryString, String bankDetailsPath) {
+
+    String bankDetailsCondition =
+        forecastRecap.getBankDetails() != null ? " AND " + bankDetailsPath + " = :bankDetails" : "";
+    Query query = JPA.em().createQuery(queryString.replace("%bankDetails%", bankDetailsCondition));
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("company", forecastRecap.getCompany());
+    params.put("bankDetails", forecastRecap.getBankDetails());
+    params.put("fromDate", forecastRecap.getFromDate());
+    params.put("toDate", forecastRecap.getToDate());
+
+    for (Parameter<?> parameter : query.getParameters()) {
+      if (params.containsKey(parameter.getName())) {
+        query.setParameter(parameter.getName(), params.get(parameter.getName()));
+      }
+    }
+
+    return query;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected List<Object[]> getResultList(Query query) {
+    return query.getResultList();
+  }
+
+  protected BigDecimal convertToCompanyCurrency(
+      ForecastRecap forecastRecap, Long currencyId, BigDecimal amount) throws AxelorException {
+
+    return currencyService
+        .getAmountCurrencyConvertedAtDate(
+            currencyId != null ? JPA.em().find(Currency.class, currencyId) : null,
+            forecastRecap.getCompany().getCurrency(),
+            amount,
+            appBaseService.getTodayDate())
+        .setScale(2, RoundingMode.HALF_UP);
+  }
+
+  public void addOpportunities(
+      ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator)
+      throws AxelorException {
+
+    String amountField;
+    if (forecastRecap.getOpportunitiesTypeSelect()
+        == ForecastRecapRepository.OPPORTUNITY_TYPE_BASE) {
+      amountField = "self.amount";
+    } else if (forecastRecap.getOpportunitiesTypeSelect()
+        == ForecastRecapRepository.OPPORTUNITY_TYPE_BEST) {
+      amountField = "self.bestCase";
     } else {
-      opportunityList =
-          Beans.get(OpportunityRepository.class)
-              .all()
-              .filter(
-                  "self.company = ?1 AND self.expectedCloseDate BETWEEN ?2 AND ?3 AND self.saleOrderList IS EMPTY",
-                  forecastRecap.getCompany(),
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate())
-              .fetch();
+      amountField = "self.worstCase";
     }
-    for (Opportunity opportunity : opportunityList) {
-      BigDecimal amountCompanyCurr = BigDecimal.ZERO;
-      if (forecastRecap.getOpportunitiesTypeSelect()
-          == ForecastRecapRepository.OPPORTUNITY_TYPE_BASE) {
-        amountCompanyCurr =
-            currencyService
-                .getAmountCurrencyConvertedAtDate(
-                    opportunity.getCurrency(),
-                    opportunity.getCompany().getCurrency(),
-                    opportunity
-                        .getAmount()
-                        .multiply(opportunity.getProbability())
-                        .divide(new BigDecimal(100), 2, RoundingMode.HALF_UP),
-                    appBaseService.getTodayDate())
-                .setScale(2, RoundingMode.HALF_UP);
-        forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amountCompanyCurr));
-        forecastRecap.addForecastRecapLineListItem(
-            this.createForecastRecapLine(
-                opportunity.getExpectedCloseDate(),
-                1,
-                null,
-                amountCompanyCurr,
-                forecastRecap.getCurrentBalance()));
-      } else if (forecastRecap.getOpportunitiesTypeSelect()
-          == ForecastRecapRepository.OPPORTUNITY_TYPE_BEST) {
-        amountCompanyCurr =
-            currencyService
-                .getAmountCurrencyConvertedAtDate(
-                    opportunity.getCurrency(),
-                    opportunity.getCompany().getCurrency(),
-                    new BigDecimal(opportunity.getBestCase())
-                        .multiply(opportunity.getProbability())
-                        .divide(new BigDecimal(100), 2, RoundingMode.HALF_UP),
-                    appBaseService.getTodayDate())
-                .setScale(2, RoundingMode.HALF_UP);
-        forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amountCompanyCurr));
-        forecastRecap.addForecastRecapLineListItem(
-            this.createForecastRecapLine(
-                opportunity.getExpectedCloseDate(),
-                1,
-                null,
-                amountCompanyCurr,
-                forecastRecap.getCurrentBalance()));
+
+    Query query =
+        createQuery(
+            forecastRecap,
+            "SELECT self.expectedCloseDate, currency.id, "
+                + amountField
+                + ", self.probability FROM Opportunity self LEFT JOIN self.currency currency"
+                + " WHERE self.company = :company%bankDetails%"
+                + " AND self.expectedCloseDate BETWEEN :fromDate AND :toDate"
+                + " AND self.saleOrderList IS EMPTY",
+            "self.bankDetails");
+
+    Map<LocalDate, Map<Long, BigDecimal>> amountMap = new HashMap<>();
+
+    for (Object[] row : getResultList(query)) {
+      BigDecimal amount =
+          row[2] instanceof BigDecimal ? (BigDecimal) row[2] : new BigDecimal((String) row[2]);
+      amount =
+          amount.multiply((BigDecimal) row[3]).divide(new BigDecimal(100), 2, RoundingMode.HALF_UP);
+      amountMap
+          .computeIfAbsent((LocalDate) row[0], date -> new HashMap<>())
+          .merge((Long) row[1], amount, BigDecimal::add);
+    }
+
+    for (Map.Entry<LocalDate, Map<Long, BigDecimal>> dateEntry : amountMap.entrySet()) {
+      for (Map.Entry<Long, BigDecimal> currencyEntry : dateEntry.getValue().entrySet()) {
+        accumulator.add(
+            dateEntry.getKey(),
+            ForecastRecapLineRepository.TYPE_IN,
+            null,
+            convertToCompanyCurrency(
+                forecastRecap, currencyEntry.getKey(), currencyEntry.getValue()));
+      }
+    }
+  }
+
+  public void addInvoices(ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator) {
+
+    Query query =
+        createQuery(
+                forecastRecap,
+                "SELECT self.estimatedPaymentDate, self.operationTypeSelect,"
+                    + " SUM(self.companyExTaxTotal"
+                    + " - self.amountPaid * self.companyExTaxTotal / self.companyInTaxTotal)"
+                    + " FROM Invoice self"
+                    + " WHERE self.company = :company%bankDetails%"
+                    + " AND self.statusSelect = :statusSelect"
+                    + " AND self.estimatedPaymentDate BETWEEN :fromDate AND :toDate"
+                    + " AND self.companyInTaxTotalRemaining != 0 AND self.companyInTaxTotal != 0"
+                    + " GROUP BY self.estimatedPaymentDate, self.operationTypeSelect",
+                "self.companyBankDetails")
+            .setParameter("statusSelect", InvoiceRepository.STATUS_VENTILATED);
+
+    for (Object[] row : getResultList(query)) {
+      int operationTypeSelect = (Integer) row[1];
+      BigDecimal amount = ((BigDecimal) row[2]).setScale(2, RoundingMode.HALF_UP);
+      if (operationTypeSelect == InvoiceRepository.OPERATION_TYPE_SUPPLIER_REFUND
+          || operationTypeSelect == InvoiceRepository.OPERATION_TYPE_CLIENT_SALE) {
+        accumulator.add((LocalDate) row[0], ForecastRecapLineRepository.TYPE_IN, null, amount);
       } else {
-        amountCompanyCurr =
-            currencyService
-                .getAmountCurrencyConvertedAtDate(
-                    opportunity.getCurrency(),
-                    opportunity.getCompany().getCurrency(),
-                    new BigDecimal(opportunity.getWorstCase())
-                        .multiply(opportunity.getProbability())
-                        .divide(new BigDecimal(100), 2, RoundingMode.HALF_UP),
-                    appBaseService.getTodayDate())
-                .setScale(2, RoundingMode.HALF_UP);
-        forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amountCompanyCurr));
-        forecastRecap.addForecastRecapLineListItem(
-            this.createForecastRecapLine(
-                opportunity.getExpectedCloseDate(),
-                1,
-                null,
-                amountCompanyCurr,
-                forecastRecap.getCurrentBalance()));
+        accumulator.add((LocalDate) row[0], ForecastRecapLineRepository.TYPE_OUT, null, amount);
       }
     }
   }
 
+  /** Add the monthly salaries of the employees paid by the company, on each end of month. */
+  public void addSalaries(ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator) {
+
+    Query query =
+        createQuery(
+            forecastRecap,
+            "SELECT SUM(self.hourlyRate * self.weeklyWorkHours) FROM Employee self"
+                + " WHERE self.mainEmploymentContract.payCompany = :company%bankDetails%",
+            "self.bankDetails");
+
+    BigDecimal weeklySalary = (BigDecimal) query.getSingleResult();
+
+    if (weeklySalary == null) {
+      return;
+    }
+
+    BigDecimal monthlySalary = weeklySalary.multiply(new BigDecimal(4));
+    LocalDate monthEnd =
+        forecastRecap.getFromDate().withDayOfMonth(forecastRecap.getFromDate().lengthOfMonth());
+
+    while (!monthEnd.isAfter(forecastRecap.getToDate())) {
+      accumulator.add(monthEnd, ForecastRecapLineRepository.TYPE_OUT, null, monthlySalary);
+      LocalDate nextMonth = monthEnd.plusDays(1);
+      monthEnd = nextMonth.withDayOfMonth(nextMonth.lengthOfMonth());
+    }
+  }
+
+  /** Add the timetables of the confirmed sale orders and of the validated purchase orders. */
+  public void addTimetables(ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator)
+      throws AxelorException {
+
+    this.addTimetables(
+        forecastRecap,
+        accumulator,
+        "saleOrder",
+        SaleOrderRepository.STATUS_ORDER_CONFIRMED,
+        ForecastRecapLineRepository.TYPE_IN);
+    this.addTimetables(
+        forecastRecap,
+        accumulator,
+        "purchaseOrder",
+        IPurchaseOrder.STATUS_VALIDATED,
+        ForecastRecapLineRepository.TYPE_OUT);
+  }
+
+  protected void addTimetables(
+      ForecastRecap forecastRecap,
+      ForecastRecapLineAccumulator accumulator,
+      String orderField,
+      int statusSelect,
+      int typeSelect)
+      throws AxelorException {
+
+    Query query =
+        createQuery(
+                forecastRecap,
+                "SELECT self.estimatedDate, currency.id, SUM(self.amount) FROM Timetable self"
+                    + " JOIN self."
+                    + orderField
+                    + " orderSelf LEFT JOIN orderSelf.currency currency"
+                    + " WHERE self.estimatedDate BETWEEN :fromDate AND :toDate"
+                    + " AND orderSelf.company = :company%bankDetails%"
+                    + " AND orderSelf.statusSelect = :statusSelect AND self.amount != 0"
+                    + " GROUP BY self.estimatedDate, currency.id",
+                "orderSelf.companyBankDetails")
+            .setParameter("statusSelect", statusSelect);
+
+    for (Object[] row : getResultList(query)) {
+      accumulator.add(
+          (LocalDate) row[0],
+          typeSelect,
+          null,
+          convertToCompanyCurrency(forecastRecap, (Long) row[1], (BigDecimal) row[2]));
+    }
+  }
+
+  /**
+   * Build the query of the forecasts to add to the recap: the ones not realized yet, and the ones
+   * realized automatically up to today.
+   */
+  protected Query createForecastQuery(
+      ForecastRecap forecastRecap, String queryStart, String queryEnd) {
+
+    return createQuery(
+            forecastRecap,
+            queryStart
+                + " WHERE self.estimatedDate BETWEEN :fromDate AND :toDate"
+                + " AND self.company = :company%bankDetails%"
+                + " AND (self.realizedSelect = :realizedNo"
+                + " OR (self.realizedSelect = :realizedAuto AND self.estimatedDate <= :todayDate))"
+                + queryEnd,
+            "self.bankDetails")
+        .setParameter("realizedNo", ForecastRepository.REALISED_SELECT_NO)
+        .setParameter("realizedAuto", ForecastRepository.REALISED_SELECT_AUTO)
+        .setParameter("todayDate", appBaseService.getTodayDate());
+  }
+
+  public void addForecasts(ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator) {
+
+    Query query =
+        createForecastQuery(
+            forecastRecap,
+            "SELECT self.estimatedDate, self.typeSelect, reason.id, SUM(self.amount)"
+                + " FROM Forecast self LEFT JOIN self.forecastReason reason",
+            " GROUP BY self.estimatedDate, self.typeSelect, reason.id");
+
+    for (Object[] row : getResultList(query)) {
+      accumulator.add((LocalDate) row[0], (Integer) row[1], (Long) row[2], (BigDecimal) row[3]);
+    }
+  }
+
+  /** Set the forecasts added to the recap as realized. */
+  @Transactional
+  public void realizeForecasts(ForecastRecap forecastRecap) {
+
+    int count =
+        createForecastQuery(
+                forecastRecap,
+                "UPDATE Forecast self"
+                    + " SET self.realizedSelect = :realizedYes, self.version = self.version + 1",
+                "")
+            .setParameter("realizedYes", ForecastRepository.REALISED_SELECT_YES)
+            .executeUpdate();
+
+    logger.debug("{} forecast(s) realized", count);
+  }
+
+  public void addExpenses(ForecastRecap forecastRecap, ForecastRecapLineAccumulator accumulator) {
+
+    Query query =
+        createQuery(
+                forecastRecap,
+                "SELECT self.validationDate, SUM(self.exTaxTotal) FROM Expense self"
+                    + " WHERE self.validationDate BETWEEN :fromDate AND :toDate"
+                    + " AND self.company = :company%bankDetails%"
+                    + " AND self.statusSelect = :statusSelect"
+                    + " GROUP BY self.validationDate",
+                "self.bankDetails")
+            .setParameter("statusSelect", ExpenseRepository.STATUS_VALIDATED);
+
+    for (Object[] row : getResultList(query)) {
+      accumulator.add(
+          (LocalDate) row[0], ForecastRecapLineRepository.TYPE_OUT, null, (BigDecimal) row[1]);
+    }
+  }
+
   public void getOpportunities(
       ForecastRecap forecastRecap,
       Map<LocalDate, BigDecimal> mapExpected,
@@ -274,60 +564,6 @@ public class ForecastRecapService {
     }
   }
 
-  public void populateWithInvoices(ForecastRecap forecastRecap) {
-    List<Invoice> invoiceList = new ArrayList<Invoice>();
-    if (forecastRecap.getBankDetails() != null) {
-      invoiceList =
-          Beans.get(InvoiceRepository.class)
-              .all()
-              .filter(
-                  "self.company = ?1 AND self.companyBankDetails = ?2 AND self.statusSelect = 3 AND self.estimatedPaymentDate BETWEEN ?3 AND ?4 AND self.companyInTaxTotalRemaining != 0",
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails(),
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate())
-              .fetch();
-    } else {
-      invoiceList =
-          Beans.get(InvoiceRepository.class)
-              .all()
-              .filter(
-                  "self.company = ?1 AND self.statusSelect = 3 AND self.estimatedPaymentDate BETWEEN ?2 AND ?3 AND self.companyInTaxTotalRemaining != 0",
-                  forecastRecap.getCompany(),
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate())
-              .fetch();
-    }
-    for (Invoice invoice : invoiceList) {
-      BigDecimal amountPaidExTax =
-          invoice
-              .getAmountPaid()
-              .multiply(invoice.getCompanyExTaxTotal())
-              .divide(invoice.getCompanyInTaxTotal(), 2, RoundingMode.HALF_UP);
-      BigDecimal amount = invoice.getCompanyExTaxTotal().subtract(amountPaidExTax);
-      if (invoice.getOperationTypeSelect() == 2 || invoice.getOperationTypeSelect() == 3) {
-        forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amount));
-        forecastRecap.addForecastRecapLineListItem(
-            this.createForecastRecapLine(
-                invoice.getEstimatedPaymentDate(),
-                1,
-                null,
-                amount,
-                forecastRecap.getCurrentBalance()));
-      }
-      if (invoice.getOperationTypeSelect() == 1 || invoice.getOperationTypeSelect() == 4) {
-        forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().subtract(amount));
-        forecastRecap.addForecastRecapLineListItem(
-            this.createForecastRecapLine(
-                invoice.getEstimatedPaymentDate(),
-                2,
-                null,
-                amount,
-                forecastRecap.getCurrentBalance()));
-      }
-    }
-  }
-
   public void getInvoices(
       ForecastRecap forecastRecap,
       Map<LocalDate, BigDecimal> mapExpected,
@@ -374,312 +610,6 @@ public class ForecastRecapService {
     }
   }
 
-  public void populateWithSalaries(ForecastRecap forecastRecap) {
-    List<Employee> employeeList = new ArrayList<Employee>();
-    if (forecastRecap.getBankDetails() != null) {
-      employeeList =
-          Beans.get(EmployeeRepository.class)
-              .all()
-              .filter(
-                  "self.mainEmploymentContract.payCompany = ?1 AND self.bankDetails = ?2",
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-    } else {
-      employeeList =
-          Beans.get(EmployeeRepository.class)
-              .all()
-              .filter("self.mainEmploymentContract.payCompany = ?1", forecastRecap.getCompany())
-              .fetch();
-    }
-    LocalDate itDate =
-        LocalDate.parse(forecastRecap.getFromDate().toString(), DateTimeFormatter.ISO_DATE);
-    while (!itDate.isAfter(forecastRecap.getToDate())) {
-      LocalDate monthEnd = itDate.withDayOfMonth(itDate.lengthOfMonth());
-      if (itDate.isEqual(monthEnd)) {
-        for (Employee employee : employeeList) {
-          forecastRecap.setCurrentBalance(
-              forecastRecap
-                  .getCurrentBalance()
-                  .subtract(
-                      employee
-                          .getHourlyRate()
-                          .multiply(employee.getWeeklyWorkHours().multiply(new BigDecimal(4)))));
-          forecastRecap.addForecastRecapLineListItem(
-              this.createForecastRecapLine(
-                  itDate,
-                  2,
-                  null,
-                  employee
-                      .getHourlyRate()
-                      .multiply(employee.getWeeklyWorkHours().multiply(new BigDecimal(4))),
-                  forecastRecap.getCurrentBalance()));
-        }
-        itDate = itDate.plusMonths(1);
-      } else {
-        itDate = monthEnd;
-      }
-    }
-  }
-
-  public void populateWithTimetables(ForecastRecap forecastRecap) throws AxelorException {
-    List<Timetable> timetableSaleOrderList = new ArrayList<Timetable>();
-    List<Timetable> timetablePurchaseOrderList = new ArrayList<Timetable>();
-    if (forecastRecap.getBankDetails() != null) {
-      timetableSaleOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.saleOrder.company = ?3 AND"
-                      + " self.saleOrder.companyBankDetails = ?4 AND self.saleOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-      timetablePurchaseOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.purchaseOrder.company = ?3 AND"
-                      + " self.purchaseOrder.companyBankDetails = ?4 AND self.purchaseOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-    } else {
-      timetableSaleOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.saleOrder.company = ?3 AND"
-                      + " self.saleOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-      timetablePurchaseOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.purchaseOrder.company = ?3 AND"
-                      + " self.purchaseOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-    }
-    for (Timetable timetable : timetableSaleOrderList) {
-      BigDecimal amountCompanyCurr =
-          currencyService
-              .getAmountCurrencyConvertedAtDate(
-                  timetable.getSaleOrder().getCurrency(),
-                  timetable.getSaleOrder().getCompany().getCurrency(),
-                  timetable.getAmount(),
-                  appBaseService.getTodayDate())
-              .setScale(2, RoundingMode.HALF_UP);
-      forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amountCompanyCurr));
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              timetable.getEstimatedDate(),
-              1,
-              null,
-              amountCompanyCurr,
-              forecastRecap.getCurrentBalance()));
-    }
-    for (Timetable timetable : timetablePurchaseOrderList) {
-      BigDecimal amountCompanyCurr =
-          currencyService
-              .getAmountCurrencyConvertedAtDate(
-                  timetable.getPurchaseOrder().getCurrency(),
-                  timetable.getPurchaseOrder().getCompany().getCurrency(),
-                  timetable.getAmount(),
-                  appBaseService.getTodayDate())
-              .setScale(2, RoundingMode.HALF_UP);
-      forecastRecap.setCurrentBalance(
-          forecastRecap.getCurrentBalance().subtract(amountCompanyCurr));
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              timetable.getEstimatedDate(),
-              2,
-              null,
-              amountCompanyCurr,
-              forecastRecap.getCurrentBalance()));
-    }
-  }
-
-  public void populateWithTimetablesOrOrders(ForecastRecap forecastRecap) throws AxelorException {
-    List<Timetable> timetableSaleOrderList = new ArrayList<Timetable>();
-    List<SaleOrder> saleOrderList = new ArrayList<SaleOrder>();
-    List<Timetable> timetablePurchaseOrderList = new ArrayList<Timetable>();
-    List<PurchaseOrder> purchaseOrderList = new ArrayList<PurchaseOrder>();
-    if (forecastRecap.getBankDetails() != null) {
-      timetableSaleOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.saleOrder.company = ?3 AND"
-                      + " self.saleOrder.companyBankDetails = ?4 AND self.saleOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-      timetablePurchaseOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.purchaseOrder.company = ?3 AND"
-                      + " self.purchaseOrder.companyBankDetails = ?4 AND self.purchaseOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-    } else {
-      timetableSaleOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.saleOrder.company = ?3 AND"
-                      + " self.saleOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-      timetablePurchaseOrderList =
-          Beans.get(TimetableRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.purchaseOrder.company = ?3 AND"
-                      + " self.purchaseOrder.statusSelect = 3 AND self.amount != 0",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-    }
-    for (Timetable timetable : timetableSaleOrderList) {
-      saleOrderList.add(timetable.getSaleOrder());
-      BigDecimal amountCompanyCurr =
-          currencyService
-              .getAmountCurrencyConvertedAtDate(
-                  timetable.getSaleOrder().getCurrency(),
-                  timetable.getSaleOrder().getCompany().getCurrency(),
-                  timetable.getAmount(),
-                  appBaseService.getTodayDate())
-              .setScale(2, RoundingMode.HALF_UP);
-      forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amountCompanyCurr));
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              timetable.getEstimatedDate(),
-              1,
-              null,
-              amountCompanyCurr,
-              forecastRecap.getCurrentBalance()));
-    }
-    for (Timetable timetable : timetablePurchaseOrderList) {
-      purchaseOrderList.add(timetable.getPurchaseOrder());
-      BigDecimal amountCompanyCurr =
-          currencyService
-              .getAmountCurrencyConvertedAtDate(
-                  timetable.getPurchaseOrder().getCurrency(),
-                  timetable.getPurchaseOrder().getCompany().getCurrency(),
-                  timetable.getAmount(),
-                  appBaseService.getTodayDate())
-              .setScale(2, RoundingMode.HALF_UP);
-      forecastRecap.setCurrentBalance(
-          forecastRecap.getCurrentBalance().subtract(amountCompanyCurr));
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              timetable.getEstimatedDate(),
-              2,
-              null,
-              amountCompanyCurr,
-              forecastRecap.getCurrentBalance()));
-    }
-    List<SaleOrder> saleOrderNoTimeTableList = new ArrayList<SaleOrder>();
-    List<PurchaseOrder> purchaseOrderNoTimetableList = new ArrayList<PurchaseOrder>();
-    if (forecastRecap.getBankDetails() != null) {
-      saleOrderNoTimeTableList =
-          Beans.get(SaleOrderRepository.class)
-              .all()
-              .filter(
-                  "self.expectedRealisationDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.companyBankDetails = ?4 AND (self.statusSelect = 2 OR self.statusSelect = 3)",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-      purchaseOrderNoTimetableList =
-          Beans.get(PurchaseOrderRepository.class)
-              .all()
-              .filter(
-                  "self.expectedRealisationDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.companyBankDetails = ?4 AND self.statusSelect = 3",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-    } else {
-      saleOrderNoTimeTableList =
-          Beans.get(SaleOrderRepository.class)
-              .all()
-              .filter(
-                  "self.expectedRealisationDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " (self.statusSelect = 2 OR self.statusSelect = 3)",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-      purchaseOrderNoTimetableList =
-          Beans.get(PurchaseOrderRepository.class)
-              .all()
-              .filter(
-                  "self.expectedRealisationDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.statusSelect = 3",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-    }
-    for (SaleOrder saleOrder : saleOrderNoTimeTableList) {
-      if (!saleOrderList.contains(saleOrder)) {
-        BigDecimal amountCompanyCurr =
-            saleOrder.getCompanyExTaxTotal().subtract(saleOrder.getAmountInvoiced());
-        if (amountCompanyCurr.compareTo(BigDecimal.ZERO) == 0) {
-          forecastRecap.setCurrentBalance(forecastRecap.getCurrentBalance().add(amountCompanyCurr));
-          forecastRecap.addForecastRecapLineListItem(
-              this.createForecastRecapLine(
-                  saleOrder.getExpectedRealisationDate(),
-                  1,
-                  null,
-                  amountCompanyCurr,
-                  forecastRecap.getCurrentBalance()));
-        }
-      }
-    }
-    for (PurchaseOrder purchaseOrder : purchaseOrderNoTimetableList) {
-      if (!purchaseOrderList.contains(purchaseOrder)) {
-        BigDecimal amountCompanyCurr =
-            purchaseOrder.getCompanyExTaxTotal().subtract(purchaseOrder.getAmountInvoiced());
-        if (amountCompanyCurr.compareTo(BigDecimal.ZERO) == 0) {
-          forecastRecap.setCurrentBalance(
-              forecastRecap.getCurrentBalance().subtract(amountCompanyCurr));
-          forecastRecap.addForecastRecapLineListItem(
-              this.createForecastRecapLine(
-                  purchaseOrder.getExpectedRealisationDate(),
-                  2,
-                  null,
-                  amountCompanyCurr,
-                  forecastRecap.getCurrentBalance()));
-        }
-      }
-    }
-  }
-
   public void getTimetablesOrOrders(
       ForecastRecap forecastRecap,
       Map<LocalDate, BigDecimal> mapExpected,
@@ -791,101 +721,6 @@ public class ForecastRecapService {
     }
   }
 
-  @Transactional
-  public void populateWithForecasts(ForecastRecap forecastRecap) {
-    List<Forecast> forecastList = new ArrayList<Forecast>();
-    if (forecastRecap.getBankDetails() != null) {
-      forecastList =
-          Beans.get(ForecastRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.bankDetails = ?4 AND (self.realizedSelect = 2 OR (self.realizedSelect = 3 AND self.estimatedDate <= ?5))",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails(),
-                  appBaseService.getTodayDate())
-              .fetch();
-    } else {
-      forecastList =
-          Beans.get(ForecastRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " (self.realizedSelect = 2 OR (self.realizedSelect = 3 AND self.estimatedDate <= ?4))",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  appBaseService.getTodayDate())
-              .fetch();
-    }
-    for (Forecast forecast : forecastList) {
-      if (forecast.getTypeSelect() == 1) {
-        forecastRecap.setCurrentBalance(
-            forecastRecap.getCurrentBalance().add(forecast.getAmount()));
-      } else {
-        forecastRecap.setCurrentBalance(
-            forecastRecap.getCurrentBalance().subtract(forecast.getAmount()));
-      }
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              forecast.getEstimatedDate(),
-              forecast.getTypeSelect(),
-              forecast.getForecastReason(),
-              forecast.getAmount(),
-              forecastRecap.getCurrentBalance()));
-      forecast.setRealizedSelect(ForecastRepository.REALISED_SELECT_YES);
-      forecastRepo.save(forecast);
-    }
-  }
-
-  public void populateWithForecastsNoSave(ForecastRecap forecastRecap) {
-    List<Forecast> forecastList = new ArrayList<Forecast>();
-    if (forecastRecap.getBankDetails() != null) {
-      forecastList =
-          Beans.get(ForecastRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.bankDetails = ?4 AND (self.realizedSelect = 2 OR (self.realizedSelect = 3 AND self.estimatedDate <= ?5))",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails(),
-                  appBaseService.getTodayDate())
-              .fetch();
-    } else {
-      forecastList =
-          Beans.get(ForecastRepository.class)
-              .all()
-              .filter(
-                  "self.estimatedDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " (self.realizedSelect = 2 OR (self.realizedSelect = 3 AND self.estimatedDate <= ?4))",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  appBaseService.getTodayDate())
-              .fetch();
-    }
-    for (Forecast forecast : forecastList) {
-      if (forecast.getTypeSelect() == 1) {
-        forecastRecap.setCurrentBalance(
-            forecastRecap.getCurrentBalance().add(forecast.getAmount()));
-      } else {
-        forecastRecap.setCurrentBalance(
-            forecastRecap.getCurrentBalance().subtract(forecast.getAmount()));
-      }
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              forecast.getEstimatedDate(),
-              forecast.getTypeSelect(),
-              forecast.getForecastReason(),
-              forecast.getAmount(),
-              forecastRecap.getCurrentBalance()));
-    }
-  }
-
   public void getForecasts(
       ForecastRecap forecastRecap,
       Map<LocalDate, BigDecimal> mapExpected,
@@ -938,45 +773,6 @@ public class ForecastRecapService {
     }
   }
 
-  public void populateWithExpenses(ForecastRecap forecastRecap) {
-    List<Expense> expenseList = new ArrayList<Expense>();
-    if (forecastRecap.getBankDetails() != null) {
-      expenseList =
-          Beans.get(ExpenseRepository.class)
-              .all()
-              .filter(
-                  "self.validationDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.bankDetails = ?4 AND self.statusSelect = 3",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany(),
-                  forecastRecap.getBankDetails())
-              .fetch();
-    } else {
-      expenseList =
-          Beans.get(ExpenseRepository.class)
-              .all()
-              .filter(
-                  "self.validationDate BETWEEN ?1 AND ?2 AND self.company = ?3 AND"
-                      + " self.statusSelect = 3",
-                  forecastRecap.getFromDate(),
-                  forecastRecap.getToDate(),
-                  forecastRecap.getCompany())
-              .fetch();
-    }
-    for (Expense expense : expenseList) {
-      forecastRecap.setCurrentBalance(
-          forecastRecap.getCurrentBalance().subtract(expense.getExTaxTotal()));
-      forecastRecap.addForecastRecapLineListItem(
-          this.createForecastRecapLine(
-              expense.getValidationDate(),
-              2,
-              null,
-              expense.getExTaxTotal(),
-              forecastRecap.getCurrentBalance()));
-    }
-  }
-
   public ForecastRecapLine createForecastRecapLine(
       LocalDate date, int type, ForecastReason reason, BigDecimal amount, BigDecimal balance) {
     ForecastRecapLine forecastRecapLine = new ForecastRecapLine();
@@ -54,8 +54,14 @@ public class ForecastRecapController {
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
           I18n.get(IExceptionMessage.FORECAST_COMPANY));
     }
-    forecastRecapService.populate(forecastRecap);
-    response.setValues(forecastRecap);
+    if (forecastRecap.getId() != null) {
+      forecastRecap = Beans.get(ForecastRecapRepository.class).find(forecastRecap.getId());
+      forecastRecapService.populate(forecastRecap);
+      response.setReload(true);
+    } else {
+      forecastRecapService.populate(forecastRecap);
+      response.setValues(forecastRecap);
+    }
   }
 
   public void showReport(ActionRequest request, ActionResponse response) throws AxelorException {
@@ -109,81 +115,23 @@ public class ForecastRecapController {
   public void spending(ActionRequest request, ActionResponse response) throws AxelorException {
     Long id = new Long(request.getContext().get("_id").toString());
     ForecastRecap forecastRecap = Beans.get(ForecastRecapRepository.class).find(id);
-    forecastRecap.setForecastRecapLineList(new ArrayList<ForecastRecapLine>());
-
-    forecastRecapService.populateWithTimetablesOrOrders(forecastRecap);
-    forecastRecapService.populateWithExpenses(forecastRecap);
-    forecastRecapService.populateWithSalaries(forecastRecap);
-    forecastRecapService.populateWithForecastsNoSave(forecastRecap);
-    List<Map<String, Object>> dataList = new ArrayList<Map<String, Object>>();
-    Map<LocalDate, BigDecimal> map = new HashMap<LocalDate, BigDecimal>();
-    for (ForecastRecapLine forecastRecapLine : forecastRecap.getForecastRecapLineList()) {
-      if (forecastRecapLine.getTypeSelect() == 2) {
-        if (map.containsKey(forecastRecapLine.getEstimatedDate())) {
-          map.put(
-              forecastRecapLine.getEstimatedDate(),
-              map.get(forecastRecapLine.getEstimatedDate()).add(forecastRecapLine.getAmount()));
-        } else {
-          map.put(forecastRecapLine.getEstimatedDate(), forecastRecapLine.getAmount());
-        }
-      }
-    }
-    Set<LocalDate> keyList = map.keySet();
-    for (LocalDate date : keyList) {
-      Map<String, Object> dataMap = new HashMap<String, Object>();
-      dataMap.put("date", (Object) date);
-      dataMap.put("amount", (Object) map.get(date));
-      dataList.add(dataMap);
-    }
-    response.setData(dataList);
+    response.setData(this.getChartData(forecastRecapService.getSpendingByDate(forecastRecap)));
   }
 
   public void marges(ActionRequest request, ActionResponse response) throws AxelorException {
     Long id = new Long(request.getContext().get("_id").toString());
     ForecastRecap forecastRecap = Beans.get(ForecastRecapRepository.class).find(id);
-    forecastRecap.setForecastRecapLineList(new ArrayList<ForecastRecapLine>());
+    response.setData(this.getChartData(forecastRecapService.getMarginByDate(forecastRecap)));
+  }
 
-    forecastRecapService.populateWithTimetablesOrOrders(forecastRecap);
-    forecastRecapService.populateWithExpenses(forecastRecap);
-    forecastRecapService.populateWithSalaries(forecastRecap);
-    forecastRecapService.populateWithForecastsNoSave(forecastRecap);
-    forecastRecapService.populateWithInvoices(forecastRecap);
-    if (forecastRecap.getOpportunitiesTypeSelect() != null
-        && forecastRecap.getOpportunitiesTypeSelect()
-            > ForecastRecapRepository.OPPORTUNITY_TYPE_NO) {
-      forecastRecapService.populateWithOpportunities(forecastRecap);
-    }
+  private List<Map<String, Object>> getChartData(Map<LocalDate, BigDecimal> map) {
     List<Map<String, Object>> dataList = new ArrayList<Map<String, Object>>();
-    Map<LocalDate, BigDecimal> map = new HashMap<LocalDate, BigDecimal>();
-    for (ForecastRecapLine forecastRecapLine : forecastRecap.getForecastRecapLineList()) {
-      if (forecastRecapLine.getTypeSelect() == 2) {
-        if (map.containsKey(forecastRecapLine.getEstimatedDate())) {
-          map.put(
-              forecastRecapLine.getEstimatedDate(),
-              map.get(forecastRecapLine.getEstimatedDate())
-                  .subtract(forecastRecapLine.getAmount()));
-        } else {
-          map.put(
-              forecastRecapLine.getEstimatedDate(),
-              BigDecimal.ZERO.subtract(forecastRecapLine.getAmount()));
-        }
-      } else {
-        if (map.containsKey(forecastRecapLine.getEstimatedDate())) {
-          map.put(
-              forecastRecapLine.getEstimatedDate(),
-              map.get(forecastRecapLine.getEstimatedDate()).add(forecastRecapLine.getAmount()));
-        } else {
-          map.put(forecastRecapLine.getEstimatedDate(), forecastRecapLine.getAmount());
-        }
-      }
-    }
-    Set<LocalDate> keyList = map.keySet();
-    for (LocalDate date : keyList) {
+    for (Map.Entry<LocalDate, BigDecimal> entry : map.entrySet()) {
       Map<String, Object> dataMap = new HashMap<String, Object>();
-      dataMap.put("date", (Object) date);
-      dataMap.put("amount", (Object) map.get(date));
+      dataMap.put("date", (Object) entry.getKey());
+      dataMap.put("amount", (Object) entry.getValue());
       dataList.add(dataMap);
     }
-    response.setData(dataList);
+    return dataList;
   }
 }
@@ -20,4 +20,5 @@ package com.axelor.apps.helpdesk.exceptions;
 public interface IExceptionMessage {
 
   public static final String SELECT_TICKETS = /*$$(*/ "Please select tickets" /*)*/;
+  public static final String SLA_RECOMPUTED = /*$$(*/ "SLA recomputed on %d tickets" /*)*/;
 }
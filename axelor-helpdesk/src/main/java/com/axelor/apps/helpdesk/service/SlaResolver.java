@@ -0,0 +1,178 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.helpdesk.service;
+
+import com.axelor.apps.helpdesk.db.Sla;
+import com.axelor.apps.helpdesk.db.Ticket;
+import com.axelor.db.JPA;
+import com.axelor.team.db.Team;
+import com.google.inject.Singleton;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Index of the SLA policies by team, priority and ticket type. The index is loaded with one query
+ * when first needed. Before each use, it is checked against a stamp of the policies (count, max id
+ * and sum of versions) read with one aggregate query, and loaded again when a policy was created,
+ * updated or removed since, by any transaction or server.
+ *
+ * <p>A policy applies to a ticket when each of its criteria is empty or equal to the one of the
+ * ticket. The policy matching the most criteria wins, the oldest one in case of a tie.
+ */
+@Singleton
+public class SlaResolver {
+
+  private static final int TEAM = 1;
+  private static final int PRIORITY = 2;
+  private static final int TICKET_TYPE = 4;
+
+  /** Criteria combinations, from the most to the least specific one. */
+  private static final int[][] CRITERIA_LEVELS = {
+    {TEAM | PRIORITY | TICKET_TYPE},
+    {TEAM | PRIORITY, PRIORITY | TICKET_TYPE, TEAM | TICKET_TYPE},
+    {TEAM, PRIORITY, TICKET_TYPE},
+    {0}
+  };
+
+  private volatile SlaIndex slaIndex;
+
+  /**
+   * Find the SLA policy to apply on the ticket.
+   *
+   * @param ticket
+   * @return the SLA policy, null if none applies
+   */
+  public Sla resolve(Ticket ticket) {
+
+    Map<SlaKey, Long> index = getIndex();
+
+    Team team =
+        ticket.getAssignedToUser() == null ? null : ticket.getAssignedToUser().getActiveTeam();
+    Long teamId = team == null ? null : team.getId();
+    Integer prioritySelect = ticket.getPrioritySelect();
+    Long ticketTypeId = ticket.getTicketType() == null ? null : ticket.getTicketType().getId();
+
+    for (int[] criteriaLevel : CRITERIA_LEVELS) {
+      Long slaId = null;
+      for (int criteria : criteriaLevel) {
+        if (!isApplicable(criteria, TEAM, teamId)
+            || !isApplicable(criteria, PRIORITY, prioritySelect)
+            || !isApplicable(criteria, TICKET_TYPE, ticketTypeId)) {
+          continue;
+        }
+        Long candidateId =
+            index.get(
+                new SlaKey(
+                    (criteria & TEAM) != 0 ? teamId : null,
+                    (criteria & PRIORITY) != 0 ? prioritySelect : null,
+                    (criteria & TICKET_TYPE) != 0 ? ticketTypeId : null));
+        if (candidateId != null && (slaId == null || candidateId < slaId)) {
+          slaId = candidateId;
+        }
+      }
+      if (slaId != null) {
+        return JPA.em().find(Sla.class, slaId);
+      }
+    }
+
+    return null;
+  }
+
+  private boolean isApplicable(int criteria, int criterion, Object value) {
+    return (criteria & criterion) == 0 || value != null;
+  }
+
+  private Map<SlaKey, Long> getIndex() {
+
+    List<Object> stamp = getStamp();
+    SlaIndex index = slaIndex;
+
+    if (index == null || !index.stamp.equals(stamp)) {
+      Map<SlaKey, Long> slaMap = new HashMap<>();
+      List<Object[]> slaList =
+          JPA.em()
+              .createQuery(
+                  "SELECT self.id, team.id, self.prioritySelect, ticketType.id FROM Sla self"
+                      + " LEFT JOIN self.team team LEFT JOIN self.ticketType ticketType"
+                      + " ORDER BY self.id",
+                  Object[].class)
+              .getResultList();
+      for (Object[] sla : slaList) {
+        slaMap.putIfAbsent(
+            new SlaKey((Long) sla[1], (Integer) sla[2], (Long) sla[3]), (Long) sla[0]);
+      }
+      index = new SlaIndex(stamp, slaMap);
+      slaIndex = index;
+    }
+
+    return index.slaMap;
+  }
+
+  /** Read before the index, so that a policy changed meanwhile only causes one more reload. */
+  private List<Object> getStamp() {
+
+    return Arrays.asList(
+        JPA.em()
+            .createQuery(
+                "SELECT COUNT(self), MAX(self.id), SUM(self.version) FROM Sla self", Object[].class)
+            .getSingleResult());
+  }
+
+  private static final class SlaIndex {
+
+    private final List<Object> stamp;
+    private final Map<SlaKey, Long> slaMap;
+
+    SlaIndex(List<Object> stamp, Map<SlaKey, Long> slaMap) {
+      this.stamp = stamp;
+      this.slaMap = slaMap;
+    }
+  }
+
+  private static final class SlaKey {
+
+    private final Long teamId;
+    private final Integer prioritySelect;
+    private final Long ticketTypeId;
+
+    SlaKey(Long teamId, Integer prioritySelect, Long ticketTypeId) {
+      this.teamId = teamId;
+      this.prioritySelect = prioritySelect;
+      this.ticketTypeId = ticketTypeId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SlaKey)) {
+        return false;
+      }
+      SlaKey other = (SlaKey) obj;
+      return Objects.equals(teamId, other.teamId)
+          && Objects.equals(prioritySelect, other.prioritySelect)
+          && Objects.equals(ticketTypeId, other.ticketTypeId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(teamId, prioritySelect, ticketTypeId);
+    }
+  }
+}
@@ -28,5 +28,7 @@ public interface TicketService {
 
   public void checkSLAcompleted(Ticket ticket);
 
+  public int recomputeSLA();
+
   public void assignToMeTicket(Long id, List<?> ids);
 }
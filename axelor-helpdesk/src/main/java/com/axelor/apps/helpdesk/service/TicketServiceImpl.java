@@ -22,35 +22,36 @@ import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.repo.AppHelpdeskRepository;
 import com.axelor.apps.base.db.repo.SequenceRepository;
 import com.axelor.apps.base.service.administration.SequenceService;
-import com.axelor.apps.base.service.publicHoliday.PublicHolidayService;
-import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendar;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendarService;
 import com.axelor.apps.helpdesk.db.Sla;
 import com.axelor.apps.helpdesk.db.Ticket;
-import com.axelor.apps.helpdesk.db.repo.SlaRepository;
 import com.axelor.apps.helpdesk.db.repo.TicketRepository;
 import com.axelor.auth.AuthUtils;
+import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.google.common.base.Strings;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TicketServiceImpl implements TicketService {
 
+  protected static final int PAGE_SIZE = 100;
+
   @Inject private SequenceService sequenceService;
 
   @Inject private AppHelpdeskRepository appHelpdeskRepo;
 
   @Inject private TicketRepository ticketRepo;
 
-  @Inject private SlaRepository slaRepo;
-
-  @Inject private PublicHolidayService publicHolidayService;
-
-  @Inject private WeeklyPlanningService weeklyPlanningService;
+  @Inject private SlaResolver slaResolver;
 
-  private LocalDateTime toDate;
+  @Inject private WorkingCalendarService workingCalendarService;
 
   /** Generate sequence of the ticket. */
   @Override
@@ -72,68 +73,80 @@ public class TicketServiceImpl implements TicketService {
     AppHelpdesk helpdesk = appHelpdeskRepo.all().fetchOne();
 
     if (helpdesk.getIsSla()) {
+      this.computeSLA(ticket, new HashMap<>());
+    }
+  }
 
-      Sla sla =
-          slaRepo
-              .all()
-              .filter(
-                  "self.team = ?1 AND self.prioritySelect = ?2 AND self.ticketType = ?3",
-                  ticket.getAssignedToUser() == null
-                      ? null
-                      : ticket.getAssignedToUser().getActiveTeam(),
-                  ticket.getPrioritySelect(),
-                  ticket.getTicketType())
-              .fetchOne();
-
-      if (sla == null) {
-        sla =
-            slaRepo
-                .all()
-                .filter(
-                    "self.team = ?1 AND self.prioritySelect = ?2 AND self.ticketType = null OR "
-                        + "(self.team = null AND self.prioritySelect = ?2 AND self.ticketType = ?3) OR "
-                        + "(self.team = ?1 AND self.prioritySelect = null AND self.ticketType = ?3)",
-                    ticket.getAssignedToUser() == null
-                        ? null
-                        : ticket.getAssignedToUser().getActiveTeam(),
-                    ticket.getPrioritySelect(),
-                    ticket.getTicketType())
-                .fetchOne();
-      }
-      if (sla == null) {
-        sla =
-            slaRepo
-                .all()
-                .filter(
-                    "self.team = ?1 AND self.prioritySelect = null AND self.ticketType = null OR "
-                        + "(self.team = null AND self.prioritySelect = ?2 AND self.ticketType = null) OR "
-                        + "(self.team = null AND self.prioritySelect = null AND self.ticketType = ?3)",
-                    ticket.getAssignedToUser() == null
-                        ? null
-                        : ticket.getAssignedToUser().getActiveTeam(),
-                    ticket.getPrioritySelect(),
-                    ticket.getTicketType())
-                .fetchOne();
-      }
-      if (sla == null) {
-        sla =
-            slaRepo
-                .all()
-                .filter(
-                    "self.team = null AND self.prioritySelect = null AND self.ticketType = null")
-                .fetchOne();
-      }
-      if (sla != null) {
-        ticket.setSlaPolicy(sla);
-        try {
-          this.computeDuration(ticket, sla);
-        } catch (AxelorException e) {
-          e.printStackTrace();
-        }
-      } else {
+  protected void computeSLA(Ticket ticket, Map<Long, WorkingCalendar> workingCalendarMap) {
+
+    Sla sla = slaResolver.resolve(ticket);
 
-        ticket.setSlaPolicy(null);
+    if (sla != null) {
+      ticket.setSlaPolicy(sla);
+      try {
+        this.computeDuration(ticket, sla, workingCalendarMap);
+      } catch (AxelorException e) {
+        e.printStackTrace();
       }
+    } else {
+
+      ticket.setSlaPolicy(null);
+    }
+  }
+
+  /**
+   * Apply the SLA policies again on the tickets which are not resolved yet, by pages of tickets.
+   *
+   * @return the number of tickets processed
+   */
+  @Override
+  public int recomputeSLA() {
+
+    AppHelpdesk helpdesk = appHelpdeskRepo.all().fetchOne();
+
+    if (!helpdesk.getIsSla()) {
+      return 0;
+    }
+
+    Map<Long, WorkingCalendar> workingCalendarMap = new HashMap<>();
+    int count = 0;
+    Long lastId = 0L;
+    List<Long> ticketIdList;
+
+    while (!(ticketIdList = this.fetchOpenTicketIdPage(lastId)).isEmpty()) {
+      this.recomputeSLA(ticketIdList, workingCalendarMap);
+      count += ticketIdList.size();
+      lastId = ticketIdList.get(ticketIdList.size() - 1);
+      JPA.clear();
+    }
+
+    return count;
+  }
+
+  protected List<Long> fetchOpenTicketIdPage(Long lastId) {
+
+    return JPA.em()
+        .createQuery(
+            "SELECT self.id FROM Ticket self"
+                + " WHERE self.id > :lastId AND self.statusSelect < :statusResolved"
+                + " ORDER BY self.id",
+            Long.class)
+        .setParameter("lastId", lastId)
+        .setParameter("statusResolved", TicketRepository.STATUS_RESOLVED)
+        .setMaxResults(PAGE_SIZE)
+        .getResultList();
+  }
+
+  @Transactional
+  protected void recomputeSLA(
+      List<Long> ticketIdList, Map<Long, WorkingCalendar> workingCalendarMap) {
+
+    List<Ticket> ticketList =
+        ticketRepo.all().filter("self.id IN (:ids)").bind("ids", ticketIdList).fetch();
+
+    for (Ticket ticket : ticketList) {
+      this.computeSLA(ticket, workingCalendarMap);
+      this.checkSLAcompleted(ticket);
     }
   }
 
@@ -144,7 +157,9 @@ public class TicketServiceImpl implements TicketService {
    * @param sla
    * @throws AxelorException
    */
-  private void computeDuration(Ticket ticket, Sla sla) throws AxelorException {
+  private void computeDuration(
+      Ticket ticket, Sla sla, Map<Long, WorkingCalendar> workingCalendarMap)
+      throws AxelorException {
 
     if (sla.getIsWorkingDays()
         && ticket.getAssignedToUser() != null
@@ -154,8 +169,16 @@ public class TicketServiceImpl implements TicketService {
 
       if (sla.getDays() > 0) {
         LocalDateTime fromDate = ticket.getStartDateT().plusDays(1);
-        this.calculateWorkingDays(
-            fromDate, ticket.getAssignedToUser().getActiveCompany(), sla.getDays());
+        LocalDateTime toDate =
+            this.calculateWorkingDays(
+                fromDate,
+                ticket.getAssignedToUser().getActiveCompany(),
+                sla.getDays(),
+                workingCalendarMap);
+        if (toDate == null) {
+          this.calculateAllDays(ticket, sla);
+          return;
+        }
         ticket.setDeadlineDateT(toDate.plusHours(sla.getHours()));
 
       } else {
@@ -183,30 +206,26 @@ public class TicketServiceImpl implements TicketService {
    * checked.
    *
    * @param fromDate
-   * @param employee
+   * @param company
    * @param days
-   * @throws AxelorException
+   * @param workingCalendarMap the working calendars already loaded, by company id
+   * @return the date & time of the last working day, null if the company has no working day
    */
-  private void calculateWorkingDays(LocalDateTime fromDate, Company company, int days)
-      throws AxelorException {
-
-    if (weeklyPlanningService.getWorkingDayValueInDays(
-                company.getWeeklyPlanning(), fromDate.toLocalDate())
-            == 0
-        || publicHolidayService.checkPublicHolidayDay(
-            fromDate.toLocalDate(), company.getPublicHolidayEventsPlanning())) {
-
-      fromDate = fromDate.plusDays(1);
-      this.calculateWorkingDays(fromDate, company, days);
-
-    } else {
-      toDate = fromDate;
-      days--;
-      if (days != 0) {
-        fromDate = fromDate.plusDays(1);
-        this.calculateWorkingDays(fromDate, company, days);
-      }
-    }
+  private LocalDateTime calculateWorkingDays(
+      LocalDateTime fromDate,
+      Company company,
+      int days,
+      Map<Long, WorkingCalendar> workingCalendarMap) {
+
+    WorkingCalendar workingCalendar =
+        workingCalendarMap.computeIfAbsent(
+            company.getId(),
+            companyId ->
+                workingCalendarService.getWorkingCalendar(
+                    company.getWeeklyPlanning(), company.getPublicHolidayEventsPlanning()));
+    LocalDate toDate = workingCalendar.getWorkingDay(fromDate.toLocalDate(), days);
+
+    return toDate != null ? LocalDateTime.of(toDate, fromDate.toLocalTime()) : null;
   }
 
   /** Check if SLA is completed or not. */
@@ -66,6 +66,21 @@ public class TicketController {
     }
   }
 
+  /**
+   * Apply the SLA policies again on the tickets which are not resolved yet.
+   *
+   * @param request
+   * @param response
+   */
+  public void recomputeSLA(ActionRequest request, ActionResponse response) {
+    try {
+      int count = Beans.get(TicketService.class).recomputeSLA();
+      response.setFlash(String.format(I18n.get(IExceptionMessage.SLA_RECOMPUTED), count));
+    } catch (Exception e) {
+      TraceBackService.trace(response, e);
+    }
+  }
+
   /**
    * Compute duration or endDateTime from startDateTime
    *
@@ -17,7 +17,6 @@
  */
 package com.axelor.apps.hr.service.batch;
 
-import com.axelor.apps.base.db.WeeklyPlanning;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.HrBatch;
 import com.axelor.apps.hr.db.LeaveLine;
@@ -29,23 +28,17 @@ import com.axelor.apps.hr.exception.IExceptionMessage;
 import com.axelor.apps.hr.service.leave.LeaveService;
 import com.axelor.apps.hr.service.leave.management.LeaveManagementService;
 import com.axelor.auth.AuthUtils;
-import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.IException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.exception.service.TraceBackService;
 import com.axelor.i18n.I18n;
-import com.beust.jcommander.internal.Lists;
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
-import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
 import javax.validation.constraints.Digits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -98,143 +91,79 @@ public class BatchLeaveManagement extends BatchStrategy {
   @Override
   protected void process() {
 
-    List<Employee> employeeList = this.getEmployees(batch.getHrBatch());
-    generateLeaveManagementLines(employeeList);
+    total +=
+        processEmployees(
+            batch.getHrBatch(), this::createLeaveManagement, IException.LEAVE_MANAGEMENT);
   }
 
-  public List<Employee> getEmployees(HrBatch hrBatch) {
-
-    List<String> query = Lists.newArrayList();
+  @Override
+  protected void countAnomaly(Exception e) {
 
-    if (hrBatch.getEmployeeSet() != null && !hrBatch.getEmployeeSet().isEmpty()) {
-      String employeeIds =
-          Joiner.on(',')
-              .join(
-                  Iterables.transform(
-                      hrBatch.getEmployeeSet(),
-                      new Function<Employee, String>() {
-                        @Override
-                        public String apply(Employee obj) {
-                          return obj.getId().toString();
-                        }
-                      }));
-      query.add("self.id IN (" + employeeIds + ")");
+    if (!(e instanceof AxelorException)) {
+      return;
     }
-    if (hrBatch.getEmployeeSet() != null && !hrBatch.getPlanningSet().isEmpty()) {
-      String planningIds =
-          Joiner.on(',')
-              .join(
-                  Iterables.transform(
-                      hrBatch.getPlanningSet(),
-                      new Function<WeeklyPlanning, String>() {
-                        @Override
-                        public String apply(WeeklyPlanning obj) {
-                          return obj.getId().toString();
-                        }
-                      }));
-
-      query.add("self.weeklyPlanning.id IN (" + planningIds + ")");
+    int category = ((AxelorException) e).getCategory();
+    if (category == TraceBackRepository.CATEGORY_NO_VALUE) {
+      noValueAnomaly++;
     }
-
-    List<Employee> employeeList;
-    String liaison = query.isEmpty() ? "" : " AND";
-    if (hrBatch.getCompany() != null) {
-      employeeList =
-          JPA.all(Employee.class)
-              .filter(
-                  Joiner.on(" AND ").join(query)
-                      + liaison
-                      + " self.mainEmploymentContract.payCompany = :company")
-              .bind("company", hrBatch.getCompany())
-              .fetch();
-    } else {
-      employeeList = JPA.all(Employee.class).filter(Joiner.on(" AND ").join(query)).fetch();
+    if (category == TraceBackRepository.CATEGORY_CONFIGURATION_ERROR) {
+      confAnomaly++;
     }
-
-    return employeeList;
   }
 
-  public void generateLeaveManagementLines(List<Employee> employeeList) {
-
-    for (Employee employee : employeeList) {
-
-      try {
-        createLeaveManagement(employeeRepository.find(employee.getId()));
-      } catch (AxelorException e) {
-        TraceBackService.trace(e, IException.LEAVE_MANAGEMENT, batch.getId());
-        incrementAnomaly();
-        if (e.getCategory() == TraceBackRepository.CATEGORY_NO_VALUE) {
-          noValueAnomaly++;
-        }
-        if (e.getCategory() == TraceBackRepository.CATEGORY_CONFIGURATION_ERROR) {
-          confAnomaly++;
-        }
-      } finally {
-        total++;
-        JPA.clear();
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected void createLeaveManagement(Long employeeId, Long batchId) throws AxelorException {
+
+    Employee employee = employeeRepository.find(employeeId);
+    HrBatch hrBatch = batchRepo.find(batchId).getHrBatch();
+    LeaveReason leaveReason = hrBatch.getLeaveReason();
+
+    LeaveLine leaveLine =
+        leaveServiceProvider.get().addLeaveReasonOrCreateIt(employee, leaveReason);
+
+    BigDecimal dayNumber =
+        hrBatch.getUseWeeklyPlanningCoef()
+            ? hrBatch.getDayNumber().multiply(employee.getWeeklyPlanning().getLeaveCoef())
+            : hrBatch.getDayNumber();
+    dayNumber =
+        dayNumber.subtract(
+            new BigDecimal(
+                publicHolidayService.getImposedDayNumber(
+                    employee, hrBatch.getStartDate(), hrBatch.getEndDate())));
+    LeaveManagement leaveManagement =
+        leaveManagementService.createLeaveManagement(
+            leaveLine,
+            AuthUtils.getUser(),
+            hrBatch.getComments(),
+            null,
+            hrBatch.getStartDate(),
+            hrBatch.getEndDate(),
+            dayNumber);
+    BigDecimal qty = leaveLine.getQuantity().add(dayNumber);
+    BigDecimal totalQty = leaveLine.getTotalQuantity().add(dayNumber);
+
+    try {
+      int integer =
+          LeaveLine.class.getDeclaredField("quantity").getAnnotation(Digits.class).integer();
+      BigDecimal limit = new BigDecimal((long) Math.pow(10, integer));
+      if (qty.compareTo(limit) >= 0 || totalQty.compareTo(limit) >= 0) {
+        throw new AxelorException(
+            employee,
+            TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+            I18n.get(IExceptionMessage.BATCH_LEAVE_MANAGEMENT_QTY_OUT_OF_BOUNDS),
+            limit.longValue());
       }
-    }
-  }
 
-  @Transactional
-  public void createLeaveManagement(Employee employee) throws AxelorException {
-
-    batch = batchRepo.find(batch.getId());
-    LeaveLine leaveLine = null;
-    LeaveReason leaveReason = batch.getHrBatch().getLeaveReason();
-
-    if (employee != null) {
-      leaveLine = leaveServiceProvider.get().addLeaveReasonOrCreateIt(employee, leaveReason);
-
-      BigDecimal dayNumber =
-          batch.getHrBatch().getUseWeeklyPlanningCoef()
-              ? batch
-                  .getHrBatch()
-                  .getDayNumber()
-                  .multiply(employee.getWeeklyPlanning().getLeaveCoef())
-              : batch.getHrBatch().getDayNumber();
-      dayNumber =
-          dayNumber.subtract(
-              new BigDecimal(
-                  publicHolidayService.getImposedDayNumber(
-                      employee,
-                      batch.getHrBatch().getStartDate(),
-                      batch.getHrBatch().getEndDate())));
-      LeaveManagement leaveManagement =
-          leaveManagementService.createLeaveManagement(
-              leaveLine,
-              AuthUtils.getUser(),
-              batch.getHrBatch().getComments(),
-              null,
-              batch.getHrBatch().getStartDate(),
-              batch.getHrBatch().getEndDate(),
-              dayNumber);
-      BigDecimal qty = leaveLine.getQuantity().add(dayNumber);
-      BigDecimal totalQty = leaveLine.getTotalQuantity().add(dayNumber);
-
-      try {
-        int integer =
-            LeaveLine.class.getDeclaredField("quantity").getAnnotation(Digits.class).integer();
-        BigDecimal limit = new BigDecimal((long) Math.pow(10, integer));
-        if (qty.compareTo(limit) >= 0 || totalQty.compareTo(limit) >= 0) {
-          throw new AxelorException(
-              employee,
-              TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
-              I18n.get(IExceptionMessage.BATCH_LEAVE_MANAGEMENT_QTY_OUT_OF_BOUNDS),
-              limit.longValue());
-        }
-
-      } catch (NoSuchFieldException | SecurityException e) {
-        throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
-      }
+    } catch (NoSuchFieldException | SecurityException e) {
+      throw new AxelorException(e, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR);
+    }
 
-      leaveLine.setQuantity(qty.setScale(4, RoundingMode.HALF_EVEN));
-      leaveLine.setTotalQuantity(totalQty.setScale(4, RoundingMode.HALF_EVEN));
+    leaveLine.setQuantity(qty.setScale(4, RoundingMode.HALF_EVEN));
+    leaveLine.setTotalQuantity(totalQty.setScale(4, RoundingMode.HALF_EVEN));
 
-      leaveManagementRepository.save(leaveManagement);
-      leaveLineRepository.save(leaveLine);
-      updateEmployee(employee);
-    }
+    leaveManagementRepository.save(leaveManagement);
+    leaveLineRepository.save(leaveLine);
+    employee.addBatchSetItem(batchRepo.find(batchId));
   }
 
   @Override
@@ -19,7 +19,6 @@ package com.axelor.apps.hr.service.batch;
 
 import com.axelor.apps.base.db.Company;
 import com.axelor.apps.base.db.Period;
-import com.axelor.apps.base.db.WeeklyPlanning;
 import com.axelor.apps.base.db.repo.CompanyRepository;
 import com.axelor.apps.base.db.repo.PeriodRepository;
 import com.axelor.apps.hr.db.Employee;
@@ -29,21 +28,14 @@ import com.axelor.apps.hr.db.repo.HrBatchRepository;
 import com.axelor.apps.hr.db.repo.PayrollPreparationRepository;
 import com.axelor.apps.hr.exception.IExceptionMessage;
 import com.axelor.apps.hr.service.PayrollPreparationService;
-import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.IException;
 import com.axelor.exception.db.repo.TraceBackRepository;
-import com.axelor.exception.service.TraceBackService;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
-import com.beust.jcommander.internal.Lists;
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
-import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
-import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -88,104 +80,50 @@ public class BatchPayrollPreparationGeneration extends BatchStrategy {
   @Override
   protected void process() {
 
-    List<Employee> employeeList = this.getEmployees(hrBatch);
-    generatePayrollPreparations(employeeList);
+    total +=
+        processEmployees(hrBatch, this::createPayrollPreparation, IException.LEAVE_MANAGEMENT);
   }
 
-  public List<Employee> getEmployees(HrBatch hrBatch) {
-
-    List<String> query = Lists.newArrayList();
-
-    if (!hrBatch.getEmployeeSet().isEmpty()) {
-      String employeeIds =
-          Joiner.on(',')
-              .join(
-                  Iterables.transform(
-                      hrBatch.getEmployeeSet(),
-                      new Function<Employee, String>() {
-                        public String apply(Employee obj) {
-                          return obj.getId().toString();
-                        }
-                      }));
-      query.add("self.id IN (" + employeeIds + ")");
-    }
-    if (!hrBatch.getPlanningSet().isEmpty()) {
-      String planningIds =
-          Joiner.on(',')
-              .join(
-                  Iterables.transform(
-                      hrBatch.getPlanningSet(),
-                      new Function<WeeklyPlanning, String>() {
-                        public String apply(WeeklyPlanning obj) {
-                          return obj.getId().toString();
-                        }
-                      }));
-
-      query.add("self.weeklyPlanning.id IN (" + planningIds + ")");
-    }
+  @Override
+  protected void countAnomaly(Exception e) {
 
-    List<Employee> employeeList = Lists.newArrayList();
-    String liaison = query.isEmpty() ? "" : " AND";
-    if (hrBatch.getCompany() != null) {
-      employeeList =
-          JPA.all(Employee.class)
-              .filter(
-                  Joiner.on(" AND ").join(query)
-                      + liaison
-                      + " self.mainEmploymentContract.payCompany = :company")
-              .bind("company", hrBatch.getCompany())
-              .fetch();
-    } else {
-      employeeList = JPA.all(Employee.class).filter(Joiner.on(" AND ").join(query)).fetch();
+    if (!(e instanceof AxelorException)) {
+      return;
     }
-
-    return employeeList;
-  }
-
-  public void generatePayrollPreparations(List<Employee> employeeList) {
-
-    for (Employee employee : employeeList) {
-      try {
-        createPayrollPreparation(employeeRepository.find(employee.getId()));
-      } catch (AxelorException e) {
-        TraceBackService.trace(e, IException.LEAVE_MANAGEMENT, batch.getId());
-        incrementAnomaly();
-        if (e.getCategory() == TraceBackRepository.CATEGORY_NO_UNIQUE_KEY) {
-          duplicateAnomaly++;
-        } else if (e.getCategory() == TraceBackRepository.CATEGORY_CONFIGURATION_ERROR) {
-          configurationAnomaly++;
-        }
-      } finally {
-        total++;
-        JPA.clear();
-      }
+    int category = ((AxelorException) e).getCategory();
+    if (category == TraceBackRepository.CATEGORY_NO_UNIQUE_KEY) {
+      duplicateAnomaly++;
+    } else if (category == TraceBackRepository.CATEGORY_CONFIGURATION_ERROR) {
+      configurationAnomaly++;
     }
   }
 
-  @Transactional
-  public void createPayrollPreparation(Employee employee) throws AxelorException {
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected void createPayrollPreparation(Long employeeId, Long batchId) throws AxelorException {
 
-    List<PayrollPreparation> payrollPreparationList =
+    Employee employee = employeeRepository.find(employeeId);
+    HrBatch hrBatch = batchRepo.find(batchId).getHrBatch();
+    Company currentCompany = companyRepository.find(company.getId());
+    Period period = periodRepository.find(hrBatch.getPeriod().getId());
+
+    long payrollPreparationCount =
         payrollPreparationRepository
             .all()
             .filter(
                 "self.period = ?1 AND self.employee = ?2 AND self.company = ?3",
-                hrBatch.getPeriod(),
+                period,
                 employee,
-                company)
-            .fetch();
-    log.debug("list : " + payrollPreparationList);
-    if (!payrollPreparationList.isEmpty()) {
+                currentCompany)
+            .count();
+    if (payrollPreparationCount > 0) {
       throw new AxelorException(
           employee,
           TraceBackRepository.CATEGORY_NO_UNIQUE_KEY,
           I18n.get(IExceptionMessage.PAYROLL_PREPARATION_DUPLICATE),
           employee.getName(),
-          hrBatch.getCompany().getName(),
-          hrBatch.getPeriod().getName());
+          currentCompany.getName(),
+          period.getName());
     }
-    Company currentCompany = companyRepository.find(company.getId());
-    Period period = periodRepository.find(hrBatch.getPeriod().getId());
 
     PayrollPreparation payrollPreparation = new PayrollPreparation();
 
@@ -196,7 +134,7 @@ public class BatchPayrollPreparationGeneration extends BatchStrategy {
 
     payrollPreparationService.fillInPayrollPreparation(payrollPreparation);
     payrollPreparationRepository.save(payrollPreparation);
-    updateEmployee(employee);
+    employee.addBatchSetItem(batchRepo.find(batchId));
   }
 
   @Override
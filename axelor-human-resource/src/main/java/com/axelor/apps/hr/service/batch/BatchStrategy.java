@@ -17,15 +17,38 @@
  */
 package com.axelor.apps.hr.service.batch;
 
+import com.axelor.apps.base.db.WeeklyPlanning;
 import com.axelor.apps.base.service.administration.AbstractBatch;
 import com.axelor.apps.hr.db.Employee;
+import com.axelor.apps.hr.db.HrBatch;
 import com.axelor.apps.hr.db.repo.EmployeeRepository;
 import com.axelor.apps.hr.service.leave.management.LeaveManagementService;
 import com.axelor.apps.hr.service.publicHoliday.PublicHolidayHrService;
+import com.axelor.apps.tool.RequestScopeTool;
+import com.axelor.common.ObjectUtils;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.axelor.exception.service.TraceBackService;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.persistence.TypedQuery;
 
 public abstract class BatchStrategy extends AbstractBatch {
 
+  protected static final int PAGE_SIZE = 1000;
+
+  protected static final int WORKER_COUNT = 4;
+
   protected LeaveManagementService leaveManagementService;
 
   @Inject protected EmployeeRepository employeeRepository;
@@ -47,4 +70,151 @@ public abstract class BatchStrategy extends AbstractBatch {
 
     incrementDone();
   }
+
+  @FunctionalInterface
+  protected interface EmployeeProcessor {
+
+    /** Process an employee in the current worker thread, in its own transaction. */
+    void process(Long employeeId, Long batchId) throws AxelorException;
+  }
+
+  /**
+   * Build the employee filter of the hr batch: selected employees, weekly plannings and pay
+   * company. The parameters are bound by ids, in the given map.
+   */
+  protected String getEmployeeFilter(HrBatch hrBatch, Map<String, Object> params) {
+
+    List<String> filterList = new ArrayList<>();
+
+    if (ObjectUtils.notEmpty(hrBatch.getEmployeeSet())) {
+      filterList.add("self.id IN (:employeeIds)");
+      params.put(
+          "employeeIds",
+          hrBatch.getEmployeeSet().stream().map(Employee::getId).collect(Collectors.toList()));
+    }
+    if (ObjectUtils.notEmpty(hrBatch.getPlanningSet())) {
+      filterList.add("self.weeklyPlanning.id IN (:planningIds)");
+      params.put(
+          "planningIds",
+          hrBatch
+              .getPlanningSet()
+              .stream()
+              .map(WeeklyPlanning::getId)
+              .collect(Collectors.toList()));
+    }
+    if (hrBatch.getCompany() != null) {
+      filterList.add("self.mainEmploymentContract.payCompany = :company");
+      params.put("company", hrBatch.getCompany());
+    }
+
+    return String.join(" AND ", filterList);
+  }
+
+  public List<Employee> getEmployees(HrBatch hrBatch) {
+
+    Map<String, Object> params = new HashMap<>();
+    String filter = getEmployeeFilter(hrBatch, params);
+
+    return JPA.all(Employee.class).filter(filter).bind(params).fetch();
+  }
+
+  protected List<Long> fetchEmployeeIdPage(String filter, Map<String, Object> params, long lastId) {
+
+    TypedQuery<Long> query =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id FROM Employee self WHERE self.id > :lastId"
+                    + (filter.isEmpty() ? "" : " AND " + filter)
+                    + " ORDER BY self.id",
+                Long.class);
+    query.setParameter("lastId", lastId);
+    params.forEach(query::setParameter);
+
+    return query.setMaxResults(PAGE_SIZE).getResultList();
+  }
+
+  /**
+   * Process the employees of the hr batch page by page, following their ids. Each page is split
+   * between parallel workers and an error on an employee only rolls back this employee.
+   *
+   * @return the number of processed employees
+   */
+  protected int processEmployees(HrBatch hrBatch, EmployeeProcessor processor, String origin) {
+
+    Map<String, Object> params = new HashMap<>();
+    String filter = getEmployeeFilter(hrBatch, params);
+    Long batchId = batch.getId();
+    ExecutorService executor = Executors.newFixedThreadPool(WORKER_COUNT);
+    int total = 0;
+
+    try {
+      long lastId = 0L;
+      List<Long> employeeIdList;
+
+      while (!(employeeIdList = fetchEmployeeIdPage(filter, params, lastId)).isEmpty()) {
+
+        lastId = employeeIdList.get(employeeIdList.size() - 1);
+        int partitionSize = (employeeIdList.size() + WORKER_COUNT - 1) / WORKER_COUNT;
+
+        List<Future<List<Exception>>> futureList = new ArrayList<>();
+        for (List<Long> partition : Lists.partition(employeeIdList, partitionSize)) {
+          Callable<List<Exception>> worker =
+              () -> processEmployeePartition(partition, processor, batchId, origin);
+          futureList.add(
+              executor.submit(
+                  RequestScopeTool.asCurrentSubject(RequestScopeTool.inRequestScope(worker))));
+        }
+
+        int anomaly = 0;
+        for (Future<List<Exception>> future : futureList) {
+          for (Exception e : future.get()) {
+            incrementAnomaly();
+            countAnomaly(e);
+            anomaly++;
+          }
+        }
+        for (int i = anomaly; i < employeeIdList.size(); i++) {
+          incrementDone();
+        }
+        total += employeeIdList.size();
+        JPA.clear();
+      }
+    } catch (InterruptedException e) {
+      TraceBackService.trace(e, origin, batchId);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      TraceBackService.trace(e, origin, batchId);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return total;
+  }
+
+  /**
+   * Process a partition of employees in the current worker thread.
+   *
+   * @return the errors of the employees that could not be processed.
+   */
+  protected List<Exception> processEmployeePartition(
+      List<Long> employeeIdList, EmployeeProcessor processor, Long batchId, String origin) {
+
+    List<Exception> exceptionList = new ArrayList<>();
+
+    for (Long employeeId : employeeIdList) {
+      try {
+        processor.process(employeeId, batchId);
+      } catch (Exception e) {
+        TraceBackService.trace(e, origin, batchId);
+        exceptionList.add(e);
+      } finally {
+        JPA.clear();
+      }
+    }
+
+    return exceptionList;
+  }
+
+  /** Count an employee error in the specific anomalies of the batch. */
+  protected void countAnomaly(Exception e) {}
 }
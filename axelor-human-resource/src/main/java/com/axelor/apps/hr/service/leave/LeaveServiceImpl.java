@@ -26,6 +26,8 @@ import com.axelor.apps.base.db.repo.ICalendarEventRepository;
 import com.axelor.apps.base.ical.ICalendarService;
 import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.base.service.weeklyplanning.WeeklyPlanningService;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendar;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendarService;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.HRConfig;
 import com.axelor.apps.hr.db.LeaveLine;
@@ -63,6 +65,7 @@ public class LeaveServiceImpl implements LeaveService {
   protected TemplateMessageService templateMessageService;
   protected ICalendarEventRepository icalEventRepo;
   protected ICalendarService icalendarService;
+  protected WorkingCalendarService workingCalendarService;
 
   @Inject
   public LeaveServiceImpl(
@@ -74,7 +77,8 @@ public class LeaveServiceImpl implements LeaveService {
       HRConfigService hrConfigService,
       TemplateMessageService templateMessageService,
       ICalendarEventRepository icalEventRepo,
-      ICalendarService icalendarService) {
+      ICalendarService icalendarService,
+      WorkingCalendarService workingCalendarService) {
 
     this.leaveLineRepo = leaveLineRepo;
     this.weeklyPlanningService = weeklyPlanningService;
@@ -85,6 +89,7 @@ public class LeaveServiceImpl implements LeaveService {
     this.templateMessageService = templateMessageService;
     this.icalEventRepo = icalEventRepo;
     this.icalendarService = icalendarService;
+    this.workingCalendarService = workingCalendarService;
   }
 
   /**
@@ -208,6 +213,8 @@ public class LeaveServiceImpl implements LeaveService {
     BigDecimal duration = BigDecimal.ZERO;
     WeeklyPlanning weeklyPlanning = getWeeklyPlanning(leave, employee);
     EventsPlanning holidayPlanning = getPublicHolidayEventsPlanning(leave, employee);
+    WorkingCalendar workingCalendar =
+        workingCalendarService.getWorkingCalendar(weeklyPlanning, holidayPlanning);
 
     // If the leave request is only for 1 day
     if (fromDate.isEqual(toDate)) {
@@ -215,22 +222,16 @@ public class LeaveServiceImpl implements LeaveService {
         if (startOn == LeaveRequestRepository.SELECT_MORNING) {
           duration =
               duration.add(
-                  BigDecimal.valueOf(
-                      weeklyPlanningService.getWorkingDayValueInDaysWithSelect(
-                          weeklyPlanning, fromDate, true, false)));
+                  BigDecimal.valueOf(workingCalendar.getWorkingDayValue(fromDate, true, false)));
         } else {
           duration =
               duration.add(
-                  BigDecimal.valueOf(
-                      weeklyPlanningService.getWorkingDayValueInDaysWithSelect(
-                          weeklyPlanning, fromDate, false, true)));
+                  BigDecimal.valueOf(workingCalendar.getWorkingDayValue(fromDate, false, true)));
         }
       } else {
         duration =
             duration.add(
-                BigDecimal.valueOf(
-                    weeklyPlanningService.getWorkingDayValueInDaysWithSelect(
-                        weeklyPlanning, fromDate, true, true)));
+                BigDecimal.valueOf(workingCalendar.getWorkingDayValue(fromDate, true, true)));
       }
 
       // Else if it's on several days
@@ -240,14 +241,10 @@ public class LeaveServiceImpl implements LeaveService {
               BigDecimal.valueOf(
                   this.computeStartDateWithSelect(fromDate, startOn, weeklyPlanning)));
 
-      LocalDate itDate = fromDate.plusDays(1);
-      while (!itDate.isEqual(toDate) && !itDate.isAfter(toDate)) {
-        duration =
-            duration.add(
-                BigDecimal.valueOf(
-                    weeklyPlanningService.getWorkingDayValueInDays(weeklyPlanning, itDate)));
-        itDate = itDate.plusDays(1);
-      }
+      duration =
+          duration.add(
+              BigDecimal.valueOf(
+                  workingCalendar.getWorkingDays(fromDate.plusDays(1), toDate.minusDays(1))));
 
       duration =
           duration.add(
@@ -257,8 +254,7 @@ public class LeaveServiceImpl implements LeaveService {
     if (holidayPlanning != null) {
       duration =
           duration.subtract(
-              publicHolidayHrService.computePublicHolidayDays(
-                  fromDate, toDate, weeklyPlanning, holidayPlanning));
+              BigDecimal.valueOf(workingCalendar.getHolidayWorkingDays(fromDate, toDate)));
     }
 
     return duration;
@@ -281,11 +277,12 @@ public class LeaveServiceImpl implements LeaveService {
     BigDecimal duration = BigDecimal.ZERO;
     WeeklyPlanning weeklyPlanning = getWeeklyPlanning(leave, employee);
     EventsPlanning holidayPlanning = getPublicHolidayEventsPlanning(leave, employee);
+    WorkingCalendar workingCalendar =
+        workingCalendarService.getWorkingCalendar(weeklyPlanning, holidayPlanning);
     LocalDate fromDate = fromDateT.toLocalDate();
     LocalDate toDate = toDateT.toLocalDate();
 
-    if (toDate.equals(fromDate)
-        && !publicHolidayHrService.checkPublicHolidayDay(fromDate, holidayPlanning)) {
+    if (toDate.equals(fromDate) && !workingCalendar.isHoliday(fromDate)) {
       duration =
           duration.add(
               weeklyPlanningService.getWorkingDayValueInHours(
@@ -293,16 +290,15 @@ public class LeaveServiceImpl implements LeaveService {
 
     } else {
       // First day of leave
-      if (!publicHolidayHrService.checkPublicHolidayDay(fromDate, holidayPlanning)) {
+      if (!workingCalendar.isHoliday(fromDate)) {
         duration =
             duration.add(
                 weeklyPlanningService.getWorkingDayValueInHours(
                     weeklyPlanning, fromDate, fromDateT.toLocalTime(), null));
       }
-      fromDate = fromDate.plusDays(1);
 
       // Last day of leave
-      if (!publicHolidayHrService.checkPublicHolidayDay(toDate, holidayPlanning)) {
+      if (!workingCalendar.isHoliday(toDate)) {
         duration =
             duration.add(
                 weeklyPlanningService.getWorkingDayValueInHours(
@@ -310,14 +306,9 @@ public class LeaveServiceImpl implements LeaveService {
       }
 
       // Daily leave duration of the other days between from and to date
-      for (LocalDate date = fromDate; date.isBefore(toDate); date = date.plusDays(1)) {
-        if (!publicHolidayHrService.checkPublicHolidayDay(date, holidayPlanning)) {
-          duration =
-              duration.add(
-                  weeklyPlanningService.getWorkingDayValueInHours(
-                      weeklyPlanning, date, null, null));
-        }
-      }
+      duration =
+          duration.add(
+              workingCalendar.getWorkingHours(fromDate.plusDays(1), toDate.minusDays(1)));
     }
 
     return duration;
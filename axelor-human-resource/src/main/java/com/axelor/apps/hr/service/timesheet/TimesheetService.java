@@ -122,8 +122,20 @@ public interface TimesheetService {
   @Transactional
   public void computeTimeSpent(Timesheet timesheet);
 
+  /**
+   * Computes the hours of the validated timesheet lines of the project and of its sub-projects.
+   *
+   * @param project
+   * @return
+   */
   public BigDecimal computeSubTimeSpent(Project project);
 
+  /**
+   * Updates the time spent of the parent projects of the project, from the validated timesheet
+   * lines of their sub-projects.
+   *
+   * @param project
+   */
   public void computeParentTimeSpent(Project project);
 
   public BigDecimal computeTimeSpent(Project project);
@@ -21,9 +21,7 @@ import com.axelor.apps.account.db.Invoice;
 import com.axelor.apps.account.db.InvoiceLine;
 import com.axelor.apps.account.service.invoice.generator.InvoiceLineGenerator;
 import com.axelor.apps.base.db.Company;
-import com.axelor.apps.base.db.DayPlanning;
 import com.axelor.apps.base.db.EventsPlanning;
-import com.axelor.apps.base.db.EventsPlanningLine;
 import com.axelor.apps.base.db.PriceList;
 import com.axelor.apps.base.db.PriceListLine;
 import com.axelor.apps.base.db.Product;
@@ -35,6 +33,8 @@ import com.axelor.apps.base.service.PartnerPriceListService;
 import com.axelor.apps.base.service.PriceListService;
 import com.axelor.apps.base.service.UnitConversionService;
 import com.axelor.apps.base.service.app.AppBaseService;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendar;
+import com.axelor.apps.base.service.weeklyplanning.WorkingCalendarService;
 import com.axelor.apps.hr.db.Employee;
 import com.axelor.apps.hr.db.HRConfig;
 import com.axelor.apps.hr.db.LeaveRequest;
@@ -54,10 +54,12 @@ import com.axelor.apps.project.db.Project;
 import com.axelor.apps.project.db.ProjectPlanningTime;
 import com.axelor.apps.project.db.repo.ProjectPlanningTimeRepository;
 import com.axelor.apps.project.db.repo.ProjectRepository;
+import com.axelor.apps.project.service.ProjectHierarchyService;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.auth.db.repo.UserRepository;
 import com.axelor.common.ObjectUtils;
+import com.axelor.db.JPA;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
@@ -65,6 +67,7 @@ import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.meta.schema.actions.ActionView;
 import com.axelor.meta.schema.actions.ActionView.ActionViewBuilder;
+import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.io.IOException;
@@ -77,8 +80,11 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.mail.MessagingException;
+import javax.persistence.TypedQuery;
 
 /** @author axelor */
 public class TimesheetServiceImpl implements TimesheetService {
@@ -312,18 +318,9 @@ public class TimesheetServiceImpl implements TimesheetService {
           I18n.get(IExceptionMessage.TIMESHEET_EMPLOYEE_DAY_PLANNING),
           user.getName());
     }
-    List<DayPlanning> dayPlanningList = planning.getWeekDays();
 
     LocalDate fromDate = fromGenerationDate;
     LocalDate toDate = toGenerationDate;
-    Map<Integer, String> correspMap = new HashMap<>();
-    correspMap.put(1, "monday");
-    correspMap.put(2, "tuesday");
-    correspMap.put(3, "wednesday");
-    correspMap.put(4, "thursday");
-    correspMap.put(5, "friday");
-    correspMap.put(6, "saturday");
-    correspMap.put(7, "sunday");
 
     // Leaving list
     List<LeaveRequest> leaveList =
@@ -334,29 +331,20 @@ public class TimesheetServiceImpl implements TimesheetService {
 
     // Public holidays list
     EventsPlanning publicHolidayEventsPlanning = employee.getPublicHolidayEventsPlanning();
-    List<EventsPlanningLine> publicHolidayList;
     if (publicHolidayEventsPlanning == null) {
       throw new AxelorException(
           timesheet,
           TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
           I18n.get(IExceptionMessage.TIMESHEET_EMPLOYEE_PUBLIC_HOLIDAY_EVENTS_PLANNING),
           user.getName());
-    } else {
-      publicHolidayList = employee.getPublicHolidayEventsPlanning().getEventsPlanningLineList();
     }
+    WorkingCalendar workingCalendar =
+        Beans.get(WorkingCalendarService.class)
+            .getWorkingCalendar(planning, publicHolidayEventsPlanning);
 
     while (!fromDate.isAfter(toDate)) {
-      DayPlanning dayPlanningCurr = new DayPlanning();
-      for (DayPlanning dayPlanning : dayPlanningList) {
-        if (dayPlanning.getName().equals(correspMap.get(fromDate.getDayOfWeek().getValue()))) {
-          dayPlanningCurr = dayPlanning;
-          break;
-        }
-      }
-      if (dayPlanningCurr.getMorningFrom() != null
-          || dayPlanningCurr.getMorningTo() != null
-          || dayPlanningCurr.getAfternoonFrom() != null
-          || dayPlanningCurr.getAfternoonTo() != null) {
+      /*Check if the day is a working day and not a public holiday */
+      if (workingCalendar.isPlannedDay(fromDate)) {
         /*Check if the day is not a leaving day */
         boolean noLeave = true;
         if (leaveList != null) {
@@ -371,18 +359,7 @@ public class TimesheetServiceImpl implements TimesheetService {
           }
         }
 
-        /*Check if the day is not a public holiday */
-        boolean noPublicHoliday = true;
-        if (publicHolidayList != null) {
-          for (EventsPlanningLine publicHoliday : publicHolidayList) {
-            if (publicHoliday.getDate().isEqual(fromDate)) {
-              noPublicHoliday = false;
-              break;
-            }
-          }
-        }
-
-        if (noLeave && noPublicHoliday) {
+        if (noLeave) {
           TimesheetLine timesheetLine =
               timesheetLineService.createTimesheetLine(
                   project,
@@ -634,39 +611,85 @@ public class TimesheetServiceImpl implements TimesheetService {
   @Override
   @Transactional
   public void computeTimeSpent(Timesheet timesheet) {
-    List<TimesheetLine> timesheetLineList = timesheet.getTimesheetLineList();
-    for (TimesheetLine timesheetLine : timesheetLineList) {
-      Project project = timesheetLine.getProject();
-      if (project != null) {
-        project.setTimeSpent(
-            timesheetLine.getHoursDuration().add(this.computeSubTimeSpent(project)));
-        this.computeParentTimeSpent(project);
-      }
+    Set<Project> projectSet =
+        timesheet
+            .getTimesheetLineList()
+            .stream()
+            .map(TimesheetLine::getProject)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+    if (projectSet.isEmpty()) {
+      return;
     }
+    this.updateSubTimeSpent(
+        "SELECT anc.ancestor.id FROM ProjectHierarchy anc WHERE anc.descendant IN (:projects)",
+        ImmutableMap.of("projects", projectSet),
+        timesheet);
   }
 
-  @Override
-  public BigDecimal computeSubTimeSpent(Project project) {
-    BigDecimal sum = BigDecimal.ZERO;
-    List<Project> subProjectList =
-        Beans.get(ProjectRepository.class).all().filter("self.parentProject = ?1", project).fetch();
-    if (subProjectList == null || subProjectList.isEmpty()) {
-      return project.getTimeSpent();
+  /**
+   * Set the time spent of the selected projects to the hours of the validated timesheet lines of
+   * their sub-projects, themselves included, and of the lines of the given timesheet.
+   *
+   * @param projectIdQuery the query selecting the project ids
+   * @param params the parameters of the query
+   * @param timesheet a timesheet being validated, can be null
+   */
+  protected void updateSubTimeSpent(
+      String projectIdQuery, Map<String, Object> params, Timesheet timesheet) {
+
+    Beans.get(ProjectHierarchyService.class).checkHierarchy();
+
+    TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT hierarchy.ancestor.id, SUM(self.hoursDuration)"
+                    + " FROM TimesheetLine self, ProjectHierarchy hierarchy"
+                    + " WHERE self.project = hierarchy.descendant"
+                    + " AND hierarchy.ancestor.id IN ("
+                    + projectIdQuery
+                    + ") AND (self.timesheet.statusSelect = :statusValidated"
+                    + (timesheet != null ? " OR self.timesheet = :timesheet)" : ")")
+                    + " GROUP BY hierarchy.ancestor.id",
+                Object[].class);
+    query.setParameter("statusValidated", TimesheetRepository.STATUS_VALIDATED);
+    if (timesheet != null) {
+      query.setParameter("timesheet", timesheet);
     }
-    for (Project projectIt : subProjectList) {
-      sum = sum.add(this.computeSubTimeSpent(projectIt));
+    params.forEach(query::setParameter);
+
+    ProjectRepository projectRepo = Beans.get(ProjectRepository.class);
+    for (Object[] row : query.getResultList()) {
+      projectRepo.find((Long) row[0]).setTimeSpent((BigDecimal) row[1]);
     }
-    return sum;
   }
 
   @Override
+  public BigDecimal computeSubTimeSpent(Project project) {
+    Beans.get(ProjectHierarchyService.class).checkHierarchy();
+    BigDecimal sum =
+        JPA.em()
+            .createQuery(
+                "SELECT SUM(self.hoursDuration)"
+                    + " FROM TimesheetLine self, ProjectHierarchy hierarchy"
+                    + " WHERE self.project = hierarchy.descendant"
+                    + " AND hierarchy.ancestor = :project"
+                    + " AND self.timesheet.statusSelect = :statusValidated",
+                BigDecimal.class)
+            .setParameter("project", project)
+            .setParameter("statusValidated", TimesheetRepository.STATUS_VALIDATED)
+            .getSingleResult();
+    return sum != null ? sum : BigDecimal.ZERO;
+  }
+
+  @Override
+  @Transactional
   public void computeParentTimeSpent(Project project) {
-    Project parentProject = project.getParentProject();
-    if (parentProject == null) {
-      return;
-    }
-    parentProject.setTimeSpent(project.getTimeSpent().add(this.computeTimeSpent(parentProject)));
-    this.computeParentTimeSpent(parentProject);
+    this.updateSubTimeSpent(
+        "SELECT anc.ancestor.id FROM ProjectHierarchy anc"
+            + " WHERE anc.descendant = :project AND anc.depth > 0",
+        ImmutableMap.of("project", project),
+        null);
   }
 
   @Override
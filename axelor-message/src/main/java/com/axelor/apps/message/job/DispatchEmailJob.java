@@ -0,0 +1,49 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.message.job;
+
+import com.axelor.apps.message.service.MailDispatchService;
+import com.google.inject.Inject;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Job} that queues again the emails still in progress, like the ones that were in the
+ * queue when the application stopped.
+ */
+public class DispatchEmailJob implements Job {
+
+  private final Logger log = LoggerFactory.getLogger(DispatchEmailJob.class);
+
+  @Inject private MailDispatchService mailDispatchService;
+
+  @Override
+  public void execute(JobExecutionContext context) {
+
+    int total = mailDispatchService.requeuePendingMessages();
+    log.debug(
+        "Emails queued again: {}, queue depth: {}, sent: {}, failed: {}, average latency: {} ms",
+        total,
+        mailDispatchService.getQueueDepth(),
+        mailDispatchService.getSentCount(),
+        mailDispatchService.getFailureCount(),
+        mailDispatchService.getAverageLatency());
+  }
+}
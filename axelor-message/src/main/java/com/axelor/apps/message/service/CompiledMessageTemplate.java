@@ -0,0 +1,116 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.message.service;
+
+import com.axelor.apps.message.db.Template;
+import com.axelor.tool.template.CompiledTemplate;
+import com.axelor.tool.template.TemplateMaker;
+import com.google.common.base.Strings;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The subject, content, addresses and address block of a {@link Template}, compiled once to be
+ * rendered for many records. It is immutable and can be shared between threads.
+ */
+public class CompiledMessageTemplate {
+
+  private final String[] sources;
+
+  private final CompiledTemplate content;
+  private final CompiledTemplate addressBlock;
+  private final CompiledTemplate subject;
+  private final CompiledTemplate from;
+  private final CompiledTemplate replyToRecipients;
+  private final CompiledTemplate toRecipients;
+  private final CompiledTemplate ccRecipients;
+  private final CompiledTemplate bccRecipients;
+
+  public CompiledMessageTemplate(Template template, TemplateMaker maker) {
+    this.sources = getSources(template);
+    this.content = compile(maker, template.getContent());
+    this.addressBlock = compile(maker, template.getAddressBlock());
+    this.subject = compile(maker, template.getSubject());
+    this.from = compile(maker, template.getFromAdress());
+    this.replyToRecipients = compile(maker, template.getReplyToRecipients());
+    this.toRecipients = compile(maker, template.getToRecipients());
+    this.ccRecipients = compile(maker, template.getCcRecipients());
+    this.bccRecipients = compile(maker, template.getBccRecipients());
+  }
+
+  private static String[] getSources(Template template) {
+    return new String[] {
+      template.getContent(),
+      template.getAddressBlock(),
+      template.getSubject(),
+      template.getFromAdress(),
+      template.getReplyToRecipients(),
+      template.getToRecipients(),
+      template.getCcRecipients(),
+      template.getBccRecipients()
+    };
+  }
+
+  private static CompiledTemplate compile(TemplateMaker maker, String text) {
+    return Strings.isNullOrEmpty(text) ? null : maker.compile(text);
+  }
+
+  private static String make(CompiledTemplate compiledTemplate, Map<String, Object> context) {
+    return compiledTemplate == null ? "" : compiledTemplate.make(context);
+  }
+
+  /**
+   * @param template
+   * @return true if this was compiled from the current values of the template.
+   */
+  public boolean matches(Template template) {
+    return Arrays.equals(sources, getSources(template));
+  }
+
+  public String makeContent(Map<String, Object> context) {
+    return make(content, context);
+  }
+
+  public String makeAddressBlock(Map<String, Object> context) {
+    return make(addressBlock, context);
+  }
+
+  public String makeSubject(Map<String, Object> context) {
+    return make(subject, context);
+  }
+
+  public String makeFrom(Map<String, Object> context) {
+    return make(from, context);
+  }
+
+  public String makeReplyToRecipients(Map<String, Object> context) {
+    return make(replyToRecipients, context);
+  }
+
+  public String makeToRecipients(Map<String, Object> context) {
+    return make(toRecipients, context);
+  }
+
+  public String makeCcRecipients(Map<String, Object> context) {
+    return make(ccRecipients, context);
+  }
+
+  public String makeBccRecipients(Map<String, Object> context) {
+    return make(bccRecipients, context);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.message.service;
+
+import com.axelor.apps.message.db.Message;
+
+/**
+ * Queue of the emails to send. The messages to send are persisted with the in progress status
+ * before being queued, so that the ones left in the queue when the application stops can be queued
+ * again with {@link #requeuePendingMessages()}.
+ */
+public interface MailDispatchService {
+
+  /**
+   * Queue an email message, already saved with the in progress status.
+   *
+   * @param message The message to send.
+   */
+  public void enqueue(Message message);
+
+  /**
+   * Queue again the email messages with the in progress status that are not in the queue.
+   *
+   * @return The number of queued messages.
+   */
+  public int requeuePendingMessages();
+
+  /** @return The number of messages in the queue, being sent or waiting for a retry. */
+  public int getQueueDepth();
+
+  public long getSentCount();
+
+  public long getRetryCount();
+
+  public long getFailureCount();
+
+  /** @return The average time in milliseconds between the queuing and the sending of a message. */
+  public long getAverageLatency();
+}
@@ -0,0 +1,404 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.message.service;
+
+import com.axelor.app.AppSettings;
+import com.axelor.apps.message.db.EmailAccount;
+import com.axelor.apps.message.db.Message;
+import com.axelor.apps.message.db.repo.MessageRepository;
+import com.axelor.apps.tool.RequestScopeTool;
+import com.axelor.db.JPA;
+import com.axelor.exception.service.TraceBackService;
+import com.axelor.inject.Beans;
+import com.axelor.mail.MailSender;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Send the queued emails with a fixed number of workers. The queue is bounded: when it is full,
+ * the thread queuing a message waits for a free place. The SMTP connection of each email account is
+ * kept open between two messages, and the messages of an account are spaced according to the rate
+ * limit. A message that can't be sent is retried with an exponential backoff, then set back to
+ * draft.
+ */
+@Singleton
+public class MailDispatchServiceImpl implements MailDispatchService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected static final String WORKERS_SETTING = "mail.dispatch.workers";
+  protected static final String CAPACITY_SETTING = "mail.dispatch.capacity";
+  protected static final String RATE_SETTING = "mail.dispatch.rate";
+  protected static final String ATTEMPTS_SETTING = "mail.dispatch.attempts";
+  protected static final String BACKOFF_SETTING = "mail.dispatch.backoff";
+
+  /** Delay in milliseconds after which an unused SMTP connection is closed. */
+  protected static final long IDLE_TIMEOUT = 60000;
+
+  protected MessageRepository messageRepo;
+  protected MailAccountService mailAccountService;
+
+  protected final int maxAttempts;
+  protected final long backoff;
+  protected final long minInterval;
+
+  protected final ThreadPoolExecutor executor;
+  protected final ScheduledExecutorService scheduler;
+
+  protected final Set<Long> pendingMessageIds = ConcurrentHashMap.newKeySet();
+  protected final Map<Long, Channel> channelMap = new ConcurrentHashMap<>();
+
+  protected final AtomicLong sentCount = new AtomicLong();
+  protected final AtomicLong retryCount = new AtomicLong();
+  protected final AtomicLong failureCount = new AtomicLong();
+  protected final AtomicLong totalLatency = new AtomicLong();
+
+  @Inject
+  public MailDispatchServiceImpl(
+      MessageRepository messageRepo, MailAccountService mailAccountService) {
+
+    this.messageRepo = messageRepo;
+    this.mailAccountService = mailAccountService;
+
+    AppSettings settings = AppSettings.get();
+    int workers = Math.max(1, settings.getInt(WORKERS_SETTING, 4));
+    int capacity = Math.max(1, settings.getInt(CAPACITY_SETTING, 1000));
+    int rate = settings.getInt(RATE_SETTING, 0);
+
+    this.maxAttempts = Math.max(1, settings.getInt(ATTEMPTS_SETTING, 3));
+    this.backoff = settings.getInt(BACKOFF_SETTING, 5000);
+    this.minInterval = rate > 0 ? 1000L / rate : 0L;
+
+    this.executor =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(capacity),
+            new ThreadFactoryBuilder().setNameFormat("mail-dispatch-%d").setDaemon(true).build(),
+            (task, pool) -> {
+              try {
+                pool.getQueue().put(task);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+              }
+            });
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("mail-dispatch-retry")
+                .setDaemon(true)
+                .build());
+    this.scheduler.scheduleWithFixedDelay(
+        this::closeIdleChannels, IDLE_TIMEOUT, IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void enqueue(Message message) {
+    enqueue(message.getId());
+  }
+
+  protected void enqueue(Long messageId) {
+    if (pendingMessageIds.add(messageId)) {
+      submit(new DispatchTask(messageId));
+    }
+  }
+
+  protected void submit(DispatchTask task) {
+    try {
+      executor.execute(RequestScopeTool.inRequestScope(() -> dispatch(task)));
+    } catch (RejectedExecutionException e) {
+      pendingMessageIds.remove(task.messageId);
+      log.debug("Email {} not queued: {}", task.messageId, e.getMessage());
+    }
+  }
+
+  @Override
+  public int requeuePendingMessages() {
+
+    List<Long> messageIdList =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id FROM Message self "
+                    + "WHERE self.statusSelect = :statusSelect "
+                    + "AND self.mediaTypeSelect = :mediaTypeSelect "
+                    + "ORDER BY self.id",
+                Long.class)
+            .setParameter("statusSelect", MessageRepository.STATUS_IN_PROGRESS)
+            .setParameter("mediaTypeSelect", MessageRepository.MEDIA_TYPE_EMAIL)
+            .getResultList();
+
+    int count = 0;
+    for (Long messageId : messageIdList) {
+      if (!pendingMessageIds.contains(messageId)) {
+        enqueue(messageId);
+        count++;
+      }
+    }
+
+    log.debug("{} pending email(s) queued again", count);
+    return count;
+  }
+
+  /**
+   * Send a queued message in the current worker thread. The message is read again from the
+   * database, so it is only sent once the transaction that queued it is committed. Once the email
+   * is sent, a new attempt only saves the sent status of the message and never sends it again.
+   */
+  protected void dispatch(DispatchTask task) {
+
+    try {
+      if (!task.sent) {
+        Message message = messageRepo.find(task.messageId);
+
+        if (message == null || message.getStatusSelect() != MessageRepository.STATUS_IN_PROGRESS) {
+          retry(task, null);
+          return;
+        }
+
+        Channel channel = getChannel(message.getMailAccount());
+        MimeMessage email =
+            Beans.get(MessageService.class).buildEmail(message, channel.getSender());
+        channel.send(email);
+        task.sent = true;
+      }
+
+      setSent(task.messageId);
+
+      sentCount.incrementAndGet();
+      totalLatency.addAndGet(System.currentTimeMillis() - task.queuedAt);
+      pendingMessageIds.remove(task.messageId);
+      log.debug("Sent email {}", task.messageId);
+
+    } catch (InterruptedException e) {
+      pendingMessageIds.remove(task.messageId);
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      retry(task, e);
+    } finally {
+      JPA.clear();
+    }
+  }
+
+  /**
+   * Schedule a new attempt for the message. After the last attempt, the message is set back to
+   * draft if it couldn't be sent, or left as it is if it wasn't found in the in progress status: it
+   * will be queued again by {@link #requeuePendingMessages()} if its transaction is committed
+   * later. A message whose email was sent but whose status couldn't be saved stays pending, so that
+   * it is not queued and sent again.
+   */
+  protected void retry(DispatchTask task, Exception cause) {
+
+    if (++task.attempts < maxAttempts) {
+      retryCount.incrementAndGet();
+      long delay = backoff << (task.attempts - 1);
+      log.debug("Email {} will be retried in {} ms", task.messageId, delay);
+      scheduler.schedule(() -> submit(task), delay, TimeUnit.MILLISECONDS);
+      return;
+    }
+
+    if (task.sent) {
+      TraceBackService.trace(cause);
+      return;
+    }
+
+    pendingMessageIds.remove(task.messageId);
+
+    if (cause != null) {
+      failureCount.incrementAndGet();
+      TraceBackService.trace(cause);
+      try {
+        setFailed(task.messageId);
+      } catch (Exception e) {
+        TraceBackService.trace(e);
+      }
+    }
+  }
+
+  @Transactional
+  protected void setSent(Long messageId) {
+    Message message = messageRepo.find(messageId);
+    message.setSentByEmail(true);
+    message.setStatusSelect(MessageRepository.STATUS_SENT);
+    message.setSentDateT(LocalDateTime.now());
+    messageRepo.save(message);
+  }
+
+  @Transactional
+  protected void setFailed(Long messageId) {
+    Message message = messageRepo.find(messageId);
+    if (message != null && message.getStatusSelect() == MessageRepository.STATUS_IN_PROGRESS) {
+      message.setStatusSelect(MessageRepository.STATUS_DRAFT);
+      messageRepo.save(message);
+    }
+  }
+
+  protected Channel getChannel(EmailAccount emailAccount) {
+    return channelMap.compute(
+        emailAccount.getId(),
+        (id, channel) -> {
+          if (channel != null && channel.version.equals(emailAccount.getVersion())) {
+            return channel;
+          }
+          if (channel != null) {
+            channel.close();
+          }
+          return new Channel(
+              emailAccount.getVersion(),
+              mailAccountService.getMailAccount(emailAccount),
+              mailAccountService.getProtocol(emailAccount),
+              minInterval);
+        });
+  }
+
+  protected void closeIdleChannels() {
+    long now = System.currentTimeMillis();
+    for (Channel channel : channelMap.values()) {
+      channel.closeIfIdle(now - IDLE_TIMEOUT);
+    }
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return pendingMessageIds.size();
+  }
+
+  @Override
+  public long getSentCount() {
+    return sentCount.get();
+  }
+
+  @Override
+  public long getRetryCount() {
+    return retryCount.get();
+  }
+
+  @Override
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  @Override
+  public long getAverageLatency() {
+    long sent = sentCount.get();
+    return sent == 0 ? 0 : totalLatency.get() / sent;
+  }
+
+  protected static class DispatchTask {
+
+    protected final Long messageId;
+    protected final long queuedAt = System.currentTimeMillis();
+    protected int attempts;
+    protected boolean sent;
+
+    protected DispatchTask(Long messageId) {
+      this.messageId = messageId;
+    }
+  }
+
+  /** SMTP connection of an email account, shared by the workers one message at a time. */
+  protected static class Channel {
+
+    protected final Integer version;
+    protected final MailSender sender;
+    protected final Session session;
+    protected final String protocol;
+    protected final long minInterval;
+
+    protected Transport transport;
+    protected long lastSendTime;
+
+    protected Channel(
+        Integer version, com.axelor.mail.MailAccount account, String protocol, long minInterval) {
+      this.version = version;
+      this.sender = new MailSender(account);
+      this.session = account.getSession();
+      this.protocol = protocol;
+      this.minInterval = minInterval;
+    }
+
+    public MailSender getSender() {
+      return sender;
+    }
+
+    public synchronized void send(MimeMessage email)
+        throws MessagingException, InterruptedException {
+
+      long delay = lastSendTime + minInterval - System.currentTimeMillis();
+      if (delay > 0) {
+        Thread.sleep(delay);
+      }
+
+      try {
+        if (transport == null || !transport.isConnected()) {
+          close();
+          transport = session.getTransport(protocol);
+          transport.connect();
+        }
+        email.saveChanges();
+        transport.sendMessage(email, email.getAllRecipients());
+      } catch (MessagingException e) {
+        close();
+        throw e;
+      } finally {
+        lastSendTime = System.currentTimeMillis();
+      }
+    }
+
+    public synchronized void closeIfIdle(long idleSince) {
+      if (lastSendTime < idleSince) {
+        close();
+      }
+    }
+
+    public synchronized void close() {
+      if (transport == null) {
+        return;
+      }
+      try {
+        transport.close();
+      } catch (MessagingException e) {
+        // the connection is dropped anyway
+      }
+      transport = null;
+    }
+  }
+}
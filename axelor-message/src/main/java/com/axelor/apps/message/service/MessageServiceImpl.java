@@ -34,7 +34,6 @@ import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.mail.MailBuilder;
 import com.axelor.mail.MailSender;
-import com.axelor.mail.SmtpAccount;
 import com.axelor.meta.MetaFiles;
 import com.axelor.meta.db.MetaAttachment;
 import com.axelor.meta.db.MetaFile;
@@ -52,10 +51,8 @@ import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,8 +62,6 @@ public class MessageServiceImpl implements MessageService {
   private MetaAttachmentRepository metaAttachmentRepository;
   protected MessageRepository messageRepository;
 
-  private ExecutorService executor = Executors.newCachedThreadPool();
-
   @Inject
   public MessageServiceImpl(
       MetaAttachmentRepository metaAttachmentRepository, MessageRepository messageRepository) {
@@ -249,25 +244,46 @@ public class MessageServiceImpl implements MessageService {
     return messageRepository.save(message);
   }
 
+  /**
+   * Queue the message to be sent by email. The message is saved with the in progress status and
+   * sent by the {@link MailDispatchService} once the transaction is committed.
+   */
   @Transactional(rollbackOn = {MessagingException.class, IOException.class, Exception.class})
   public Message sendByEmail(Message message)
       throws MessagingException, IOException, AxelorException {
 
-    EmailAccount mailAccount = message.getMailAccount();
-
-    if (mailAccount == null) {
+    if (message.getMailAccount() == null) {
       return message;
     }
 
-    log.debug("Sent email");
-    MailAccountService mailAccountService = Beans.get(MailAccountService.class);
-    com.axelor.mail.MailAccount account =
-        new SmtpAccount(
-            mailAccount.getHost(),
-            mailAccount.getPort().toString(),
-            mailAccount.getLogin(),
-            mailAccountService.getDecryptPassword(mailAccount.getPassword()),
-            mailAccountService.getSecurity(mailAccount));
+    if (getEmailAddresses(message.getToEmailAddressSet()).isEmpty()
+        && getEmailAddresses(message.getCcEmailAddressSet()).isEmpty()
+        && getEmailAddresses(message.getBccEmailAddressSet()).isEmpty()) {
+      throw new AxelorException(
+          message,
+          TraceBackRepository.CATEGORY_CONFIGURATION_ERROR,
+          I18n.get(IExceptionMessage.MESSAGE_6));
+    }
+
+    if (message.getFromEmailAddress() != null
+        && Strings.isNullOrEmpty(message.getFromEmailAddress().getAddress())) {
+      throw new AxelorException(
+          message, TraceBackRepository.CATEGORY_CONFIGURATION_ERROR, IExceptionMessage.MESSAGE_5);
+    }
+
+    log.debug("Queue email");
+    message.setStatusSelect(MessageRepository.STATUS_IN_PROGRESS);
+    message.setSenderUser(AuthUtils.getUser());
+    message = messageRepository.save(message);
+
+    Beans.get(MailDispatchService.class).enqueue(message);
+
+    return message;
+  }
+
+  @Override
+  public MimeMessage buildEmail(Message message, MailSender sender)
+      throws MessagingException, IOException, AxelorException {
 
     List<String> replytoRecipients = this.getEmailAddresses(message.getReplyToEmailAddressSet()),
         toRecipients = this.getEmailAddresses(message.getToEmailAddressSet()),
@@ -281,7 +297,6 @@ public class MessageServiceImpl implements MessageService {
           I18n.get(IExceptionMessage.MESSAGE_6));
     }
 
-    MailSender sender = new MailSender(account);
     MailBuilder mailBuilder = sender.compose();
 
     mailBuilder.subject(message.getSubject());
@@ -316,29 +331,7 @@ public class MessageServiceImpl implements MessageService {
       mailBuilder.attach(metaFile.getFileName(), MetaFiles.getPath(metaFile).toString());
     }
 
-    // send email using a separate process to avoid thread blocking
-    executor.submit(
-        new Callable<Boolean>() {
-          @Override
-          public Boolean call() {
-            try {
-              mailBuilder.send();
-              Message updateMessage = messageRepository.find(message.getId());
-              JPA.em().getTransaction().begin();
-              updateMessage.setSentByEmail(true);
-              updateMessage.setStatusSelect(MessageRepository.STATUS_SENT);
-              updateMessage.setSentDateT(LocalDateTime.now());
-              updateMessage.setSenderUser(AuthUtils.getUser());
-              messageRepository.save(updateMessage);
-              JPA.em().getTransaction().commit();
-            } catch (Exception e) {
-              TraceBackService.trace(e);
-            }
-            return true;
-          }
-        });
-
-    return message;
+    return mailBuilder.build();
   }
 
   public Set<MetaAttachment> getMetaAttachments(Message message) {
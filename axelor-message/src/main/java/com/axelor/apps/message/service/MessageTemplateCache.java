@@ -0,0 +1,62 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.message.service;
+
+import com.axelor.apps.message.db.Template;
+import com.axelor.tool.template.TemplateMaker;
+import com.google.inject.Singleton;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the compiled message templates by template id. An entry is compiled again when the
+ * template has changed, and removed when the template is saved or removed.
+ */
+@Singleton
+public class MessageTemplateCache {
+
+  private static final char TEMPLATE_DELIMITER = '$';
+
+  private final TemplateMaker maker =
+      new TemplateMaker(Locale.FRENCH, TEMPLATE_DELIMITER, TEMPLATE_DELIMITER);
+
+  private final Map<Long, CompiledMessageTemplate> cache = new ConcurrentHashMap<>();
+
+  public CompiledMessageTemplate get(Template template) {
+
+    if (template.getId() == null) {
+      return new CompiledMessageTemplate(template, maker);
+    }
+
+    CompiledMessageTemplate compiledTemplate = cache.get(template.getId());
+
+    if (compiledTemplate == null || !compiledTemplate.matches(template)) {
+      compiledTemplate = new CompiledMessageTemplate(template, maker);
+      cache.put(template.getId(), compiledTemplate);
+    }
+
+    return compiledTemplate;
+  }
+
+  public void invalidate(Long templateId) {
+    if (templateId != null) {
+      cache.remove(templateId);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import com.axelor.exception.AxelorException;
 import com.axelor.meta.db.MetaFile;
 import com.axelor.tool.template.TemplateMaker;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 import javax.mail.MessagingException;
 
@@ -37,6 +38,15 @@ public interface TemplateMessageService {
       throws ClassNotFoundException, InstantiationException, IllegalAccessException,
           AxelorException, IOException;
 
+  /**
+   * Generate the messages of many records of the same model from a template, compiled only once.
+   * Each message is generated in its own transaction.
+   */
+  public List<Message> generateMessages(
+      List<Long> objectIdList, String model, String tag, Template template)
+      throws ClassNotFoundException, InstantiationException, IllegalAccessException,
+          AxelorException, IOException;
+
   public Message generateAndSendMessage(Model model, Template template)
       throws MessagingException, IOException, AxelorException, ClassNotFoundException,
           InstantiationException, IllegalAccessException;
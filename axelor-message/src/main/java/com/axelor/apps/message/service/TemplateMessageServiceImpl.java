@@ -61,6 +61,7 @@ public class TemplateMessageServiceImpl implements TemplateMessageService {
 
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  // Only used for the templates rendered outside of the message, like the report parameters.
   protected TemplateMaker maker =
       new TemplateMaker(Locale.FRENCH, TEMPLATE_DELIMITER, TEMPLATE_DELIMITER);
 
@@ -86,6 +87,38 @@ public class TemplateMessageServiceImpl implements TemplateMessageService {
       throws ClassNotFoundException, InstantiationException, IllegalAccessException,
           AxelorException, IOException {
 
+    return generateMessage(
+        objectId, model, tag, template, Beans.get(MessageTemplateCache.class).get(template));
+  }
+
+  @Override
+  public List<Message> generateMessages(
+      List<Long> objectIdList, String model, String tag, Template template)
+      throws ClassNotFoundException, InstantiationException, IllegalAccessException,
+          AxelorException, IOException {
+
+    CompiledMessageTemplate compiledTemplate = Beans.get(MessageTemplateCache.class).get(template);
+    List<Message> messageList = Lists.newArrayList();
+
+    for (Long objectId : objectIdList) {
+      messageList.add(generateMessage(objectId, model, tag, template, compiledTemplate));
+    }
+
+    return messageList;
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected Message generateMessage(
+      Long objectId,
+      String model,
+      String tag,
+      Template template,
+      CompiledMessageTemplate compiledTemplate)
+      throws ClassNotFoundException, InstantiationException, IllegalAccessException,
+          AxelorException, IOException {
+
+    Map<String, Object> context = new HashMap<>();
+
     MetaModel metaModel = template.getMetaModel();
     if (metaModel != null) {
       if (!model.equals(metaModel.getFullName())) {
@@ -94,6 +127,7 @@ public class TemplateMessageServiceImpl implements TemplateMessageService {
             I18n.get(IExceptionMessage.TEMPLATE_SERVICE_3),
             I18n.get(IExceptionMessage.SET_EMAIL_TEMPLATE_MESSAGE));
       }
+      context = makeContext(objectId, model, tag);
       initMaker(objectId, model, tag);
     }
 
@@ -102,65 +136,28 @@ public class TemplateMessageServiceImpl implements TemplateMessageService {
     log.debug("object id : {}", objectId);
     log.debug("template : {}", template);
 
-    String content = "",
-        subject = "",
-        from = "",
-        replyToRecipients = "",
-        toRecipients = "",
-        ccRecipients = "",
-        bccRecipients = "",
-        addressBlock = "";
-    int mediaTypeSelect;
-
-    if (!Strings.isNullOrEmpty(template.getContent())) {
-      // Set template
-      maker.setTemplate(template.getContent());
-      content = maker.make();
-    }
+    String content = compiledTemplate.makeContent(context);
+    String addressBlock = compiledTemplate.makeAddressBlock(context);
 
-    if (!Strings.isNullOrEmpty(template.getAddressBlock())) {
-      maker.setTemplate(template.getAddressBlock());
-      // Make it
-      addressBlock = maker.make();
-    }
+    String subject = compiledTemplate.makeSubject(context);
+    log.debug("Subject ::: {}", subject);
 
-    if (!Strings.isNullOrEmpty(template.getSubject())) {
-      maker.setTemplate(template.getSubject());
-      subject = maker.make();
-      log.debug("Subject ::: {}", subject);
-    }
+    String from = compiledTemplate.makeFrom(context);
+    log.debug("From ::: {}", from);
 
-    if (!Strings.isNullOrEmpty(template.getFromAdress())) {
-      maker.setTemplate(template.getFromAdress());
-      from = maker.make();
-      log.debug("From ::: {}", from);
-    }
+    String replyToRecipients = compiledTemplate.makeReplyToRecipients(context);
+    log.debug("Reply to ::: {}", replyToRecipients);
 
-    if (!Strings.isNullOrEmpty(template.getReplyToRecipients())) {
-      maker.setTemplate(template.getReplyToRecipients());
-      replyToRecipients = maker.make();
-      log.debug("Reply to ::: {}", replyToRecipients);
-    }
+    String toRecipients = compiledTemplate.makeToRecipients(context);
+    log.debug("To ::: {}", toRecipients);
 
-    if (template.getToRecipients() != null) {
-      maker.setTemplate(template.getToRecipients());
-      toRecipients = maker.make();
-      log.debug("To ::: {}", toRecipients);
-    }
+    String ccRecipients = compiledTemplate.makeCcRecipients(context);
+    log.debug("CC ::: {}", ccRecipients);
 
-    if (template.getCcRecipients() != null) {
-      maker.setTemplate(template.getCcRecipients());
-      ccRecipients = maker.make();
-      log.debug("CC ::: {}", ccRecipients);
-    }
+    String bccRecipients = compiledTemplate.makeBccRecipients(context);
+    log.debug("BCC ::: {}", bccRecipients);
 
-    if (template.getBccRecipients() != null) {
-      maker.setTemplate(template.getBccRecipients());
-      bccRecipients = maker.make();
-      log.debug("BCC ::: {}", bccRecipients);
-    }
-
-    mediaTypeSelect = this.getMediaTypeSelect(template);
+    int mediaTypeSelect = this.getMediaTypeSelect(template);
     log.debug("Media ::: {}", mediaTypeSelect);
     log.debug("Content ::: {}", content);
 
@@ -219,6 +216,15 @@ public class TemplateMessageServiceImpl implements TemplateMessageService {
     return metaFiles;
   }
 
+  /** Make the context of a record, to render the compiled templates. */
+  @SuppressWarnings("unchecked")
+  protected Map<String, Object> makeContext(long objectId, String model, String tag)
+      throws ClassNotFoundException {
+
+    Class<? extends Model> myClass = (Class<? extends Model>) Class.forName(model);
+    return TemplateMaker.makeContext(tag, JPA.find(myClass, objectId), null);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public TemplateMaker initMaker(long objectId, String model, String tag)
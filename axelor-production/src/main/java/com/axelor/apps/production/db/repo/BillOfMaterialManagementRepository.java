@@ -18,10 +18,16 @@
 package com.axelor.apps.production.db.repo;
 
 import com.axelor.apps.production.db.BillOfMaterial;
+import com.axelor.apps.production.service.ProductLowLevelCodeService;
+import com.axelor.exception.AxelorException;
+import com.google.inject.Inject;
 import java.math.BigDecimal;
+import javax.persistence.PersistenceException;
 
 public class BillOfMaterialManagementRepository extends BillOfMaterialRepository {
 
+  @Inject ProductLowLevelCodeService productLowLevelCodeService;
+
   @Override
   public BillOfMaterial save(BillOfMaterial billOfMaterial) {
 
@@ -32,7 +38,17 @@ public class BillOfMaterialManagementRepository extends BillOfMaterialRepository
       billOfMaterial.setFullName(billOfMaterial.getName());
     }
 
-    return super.save(billOfMaterial);
+    try {
+      productLowLevelCodeService.checkNoCycle(billOfMaterial);
+    } catch (AxelorException e) {
+      throw new PersistenceException(e.getLocalizedMessage());
+    }
+
+    billOfMaterial = super.save(billOfMaterial);
+
+    productLowLevelCodeService.updateLowLevelCodes(billOfMaterial);
+
+    return billOfMaterial;
   }
 
   @Override
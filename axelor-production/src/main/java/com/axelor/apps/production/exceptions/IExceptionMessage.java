@@ -42,6 +42,12 @@ public interface IExceptionMessage {
   /** Batch Compute work in progress valuation */
   static final String BATCH_COMPUTE_VALUATION = /*$$(*/ "Computed work in progress valuation" /*)*/;
 
+  /** Batch Compute cost price */
+  static final String BATCH_COMPUTE_COST_PRICE = /*$$(*/ "Computed product cost price(s)" /*)*/;
+
+  static final String BATCH_COMPUTE_COST_PRICE_LEVEL = /*$$(*/
+      "Level %s: %s product(s) in %s ms" /*)*/;
+
   static final String IN_OR_OUT_INVALID_ARG = /*$$(*/ "inOrOut is invalid" /*)*/;
 
   /** Bill of Material Service */
@@ -100,6 +106,11 @@ public interface IExceptionMessage {
 
   static final String MAX_DEPTH_REACHED = /*$$(*/ "Max depth reached when copying BOM." /*)*/;
 
+  static final String BOM_CYCLE = /*$$(*/
+      "The bill of material %s can't contain the product %s: this product is already made from it." /*)*/;
+
+  static final String LOW_LEVEL_CODES_COMPUTED = /*$$(*/ "Low level codes computed." /*)*/;
+
   /** Configurator Controller */
   String BILL_OF_MATERIAL_GENERATED = /*$$(*/ "The bill of material %s has been generated" /*)*/;
 
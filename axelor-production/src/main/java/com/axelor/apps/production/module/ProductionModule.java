@@ -39,6 +39,8 @@ import com.axelor.apps.production.service.MrpLineServiceProductionImpl;
 import com.axelor.apps.production.service.MrpServiceProductionImpl;
 import com.axelor.apps.production.service.ProdProcessLineService;
 import com.axelor.apps.production.service.ProdProcessLineServiceImpl;
+import com.axelor.apps.production.service.ProductLowLevelCodeService;
+import com.axelor.apps.production.service.ProductLowLevelCodeServiceImpl;
 import com.axelor.apps.production.service.ProdProductProductionRepository;
 import com.axelor.apps.production.service.RawMaterialRequirementService;
 import com.axelor.apps.production.service.RawMaterialRequirementServiceImpl;
@@ -102,6 +104,7 @@ public class ProductionModule extends AxelorModule {
         .to(SaleOrderWorkflowServiceProductionImpl.class);
     bind(StockRulesServiceSupplychainImpl.class).to(StockRulesServiceProductionImpl.class);
     bind(BillOfMaterialRepository.class).to(BillOfMaterialManagementRepository.class);
+    bind(ProductLowLevelCodeService.class).to(ProductLowLevelCodeServiceImpl.class);
     bind(StockConfigService.class).to(StockConfigProductionService.class);
     bind(ConfiguratorBomService.class).to(ConfiguratorBomServiceImpl.class);
     bind(ConfiguratorProdProcessService.class).to(ConfiguratorProdProcessServiceImpl.class);
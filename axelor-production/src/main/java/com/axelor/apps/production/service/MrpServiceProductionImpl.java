@@ -47,12 +47,18 @@ import com.axelor.apps.supplychain.service.MrpServiceImpl;
 import com.axelor.apps.tool.StringTool;
 import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +66,9 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
 
   private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /** Maximum number of bill of material ids bound to one query. */
+  protected static final int ID_CHUNK_SIZE = 1000;
+
   protected ManufOrderRepository manufOrderRepository;
 
   @Inject
@@ -344,61 +353,145 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
     return false;
   }
 
+  /**
+   * Add the products and the components of their default bill of material. The components are read
+   * one bill of material level at a time and are put below all the products using them, so that a
+   * shared sub-assembly is planned after them. A bill of material is read again when the level of
+   * its product goes up, to push its components down too. The low level codes of the products, when
+   * computed, only save these readings.
+   */
   @Override
-  protected void assignProductAndLevel(Product product) {
+  protected void assignProductAndLevel(Set<Product> productList) {
 
-    log.debug("Add of the product : {}", product.getFullName());
-    this.productMap.put(product.getId(), this.getMaxLevel(product, 0));
+    this.productMap = Maps.newHashMap();
 
-    if (product.getDefaultBillOfMaterial() != null) {
-      this.assignProductLevel(product.getDefaultBillOfMaterial(), 0);
-    }
-  }
+    Map<Long, Integer> billOfMaterialLevelMap = new HashMap<>();
+    List<Long> billOfMaterialIdList = new ArrayList<>();
 
-  public int getMaxLevel(Product product, int level) {
+    for (Product product : productList) {
 
-    if (this.productMap.containsKey(product.getId())) {
-      return Math.max(level, this.productMap.get(product.getId()));
+      log.debug("Add of the product : {}", product.getFullName());
+      int level = this.assignProductLevel(product, 0);
+      this.addBillOfMaterial(
+          product.getDefaultBillOfMaterial(), level, billOfMaterialLevelMap, billOfMaterialIdList);
     }
 
-    return level;
+    int depth = 0;
+
+    while (!billOfMaterialIdList.isEmpty()) {
+
+      // without a cycle, there are no more levels than bills of material
+      if (++depth > billOfMaterialLevelMap.size()) {
+        log.warn("Bills of material are components of themselves, levels stopped at {}", depth);
+        break;
+      }
+
+      List<Long> subBillOfMaterialIdList = new ArrayList<>();
+
+      for (Object[] row : this.getBillOfMaterialLines(billOfMaterialIdList)) {
+
+        BillOfMaterial subBillOfMaterial = (BillOfMaterial) row[1];
+        Product subProduct = subBillOfMaterial.getProduct();
+
+        if (this.isMrpProduct(subProduct)) {
+          int level = this.productMap.getOrDefault((Long) row[0], 0) + 1;
+
+          log.debug(
+              "Add of the sub product : {} for the level : {} ", subProduct.getFullName(), level);
+          level = this.assignProductLevel(subProduct, level);
+
+          this.addBillOfMaterial(
+              subBillOfMaterial, level, billOfMaterialLevelMap, subBillOfMaterialIdList);
+          this.addBillOfMaterial(
+              subProduct.getDefaultBillOfMaterial(),
+              level,
+              billOfMaterialLevelMap,
+              subBillOfMaterialIdList);
+        }
+      }
+
+      billOfMaterialIdList = subBillOfMaterialIdList;
+    }
   }
 
   /**
-   * Update the level of Bill of material. The highest for each product (0: product with parent, 1:
-   * product with a parent, 2: product with a parent that have a parent, ...)
+   * Add the bill of material to the next ones to read, unless it was already read with its product
+   * at the same level or deeper.
    *
    * @param billOfMaterial
-   * @param level
+   * @param level the level of the product of the bill of material
+   * @param billOfMaterialLevelMap the level of the product of each bill of material when it was
+   *     added
+   * @param billOfMaterialIdList the bills of material to read next
    */
-  protected void assignProductLevel(BillOfMaterial billOfMaterial, int level) {
+  protected void addBillOfMaterial(
+      BillOfMaterial billOfMaterial,
+      int level,
+      Map<Long, Integer> billOfMaterialLevelMap,
+      List<Long> billOfMaterialIdList) {
+
+    if (billOfMaterial == null) {
+      return;
+    }
+
+    Integer previousLevel = billOfMaterialLevelMap.get(billOfMaterial.getId());
 
-    if (billOfMaterial.getBillOfMaterialSet() == null
-        || billOfMaterial.getBillOfMaterialSet().isEmpty()
-        || level > 100) {
+    if (previousLevel != null && previousLevel >= level) {
+      return;
+    }
 
-      Product subProduct = billOfMaterial.getProduct();
+    billOfMaterialLevelMap.put(billOfMaterial.getId(), level);
+    billOfMaterialIdList.add(billOfMaterial.getId());
+  }
 
-      log.debug("Add of the sub product : {} for the level : {} ", subProduct.getFullName(), level);
-      this.productMap.put(subProduct.getId(), this.getMaxLevel(subProduct, level));
+  /**
+   * Get the lines of the given bills of material, with the id of the product of their bill of
+   * material.
+   */
+  protected List<Object[]> getBillOfMaterialLines(List<Long> billOfMaterialIdList) {
+
+    List<Object[]> lineList = new ArrayList<>();
+
+    for (List<Long> billOfMaterialIds : Lists.partition(billOfMaterialIdList, ID_CHUNK_SIZE)) {
+      lineList.addAll(
+          JPA.em()
+              .createQuery(
+                  "SELECT self.product.id, line FROM BillOfMaterial self "
+                      + "JOIN self.billOfMaterialSet line LEFT JOIN FETCH line.product "
+                      + "WHERE self.id IN (:ids)",
+                  Object[].class)
+              .setParameter("ids", billOfMaterialIds)
+              .getResultList());
+    }
 
-    } else {
+    return lineList;
+  }
 
-      level = level + 1;
+  /**
+   * Put the product at the highest of the given level, of its current level and of its low level
+   * code.
+   *
+   * @return the level of the product
+   */
+  protected int assignProductLevel(Product product, int level) {
 
-      for (BillOfMaterial subBillOfMaterial : billOfMaterial.getBillOfMaterialSet()) {
+    if (product.getLowLevelCode() != null) {
+      level = Math.max(level, product.getLowLevelCode());
+    }
 
-        Product subProduct = subBillOfMaterial.getProduct();
+    level = this.getMaxLevel(product, level);
+    this.productMap.put(product.getId(), level);
 
-        if (this.isMrpProduct(subProduct)) {
-          this.assignProductLevel(subBillOfMaterial, level);
+    return level;
+  }
 
-          if (subProduct.getDefaultBillOfMaterial() != null) {
-            this.assignProductLevel(subProduct.getDefaultBillOfMaterial(), level);
-          }
-        }
-      }
+  public int getMaxLevel(Product product, int level) {
+
+    if (this.productMap.containsKey(product.getId())) {
+      return Math.max(level, this.productMap.get(product.getId()));
     }
+
+    return level;
   }
 
   /**
@@ -412,8 +505,8 @@ public class MrpServiceProductionImpl extends MrpServiceImpl {
       Product manufOrderComponentProduct, Product manufOrderProducedProduct) {
 
     log.debug("Add of the product : {}", manufOrderComponentProduct.getFullName());
-    this.productMap.put(
-        manufOrderComponentProduct.getId(), this.getMaxLevel(manufOrderProducedProduct, 0) + 1);
+    this.assignProductLevel(
+        manufOrderComponentProduct, this.getMaxLevel(manufOrderProducedProduct, 0) + 1);
   }
 
   protected void createAvailableStockMrpLine(Product product, StockLocation stockLocation)
@@ -0,0 +1,52 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service;
+
+import com.axelor.apps.production.db.BillOfMaterial;
+import com.axelor.exception.AxelorException;
+
+/**
+ * Maintains the low level code of the products: the lowest level at which a product appears in the
+ * bills of material, 0 being a product which is not a component of any bill of material.
+ */
+public interface ProductLowLevelCodeService {
+
+  /**
+   * Check that saving the bill of material does not make one of its products a component of
+   * itself.
+   *
+   * @param billOfMaterial the bill of material being saved
+   * @throws AxelorException if the bill of material would create a cycle
+   */
+  void checkNoCycle(BillOfMaterial billOfMaterial) throws AxelorException;
+
+  /**
+   * Raise the low level code of the product of the bill of material and of its components when the
+   * bill of material has put them at a lower level.
+   *
+   * @param billOfMaterial the saved bill of material
+   */
+  void updateLowLevelCodes(BillOfMaterial billOfMaterial);
+
+  /**
+   * Compute again the low level code of every product from the bills of material. Codes are only
+   * raised when a bill of material is saved, so this also lowers the codes of the products removed
+   * from bills of material.
+   */
+  void computeLowLevelCodes();
+}
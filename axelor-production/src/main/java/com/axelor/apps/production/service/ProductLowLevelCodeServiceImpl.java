@@ -0,0 +1,382 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service;
+
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.production.db.BillOfMaterial;
+import com.axelor.apps.production.db.repo.BillOfMaterialRepository;
+import com.axelor.apps.production.exceptions.IExceptionMessage;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.axelor.exception.db.repo.TraceBackRepository;
+import com.axelor.i18n.I18n;
+import com.google.common.collect.Lists;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProductLowLevelCodeServiceImpl implements ProductLowLevelCodeService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /** Maximum number of product ids bound to one query. */
+  protected static final int ID_CHUNK_SIZE = 1000;
+
+  /** Same depth limit as the former recursive walk of the MRP. */
+  protected static final int MAX_LEVEL = 100;
+
+  @Override
+  public void checkNoCycle(BillOfMaterial billOfMaterial) throws AxelorException {
+
+    Product product = billOfMaterial.getProduct();
+
+    if (product == null) {
+      return;
+    }
+
+    Set<Long> ancestorIdSet = new HashSet<>();
+    Set<Long> componentIdSet = new HashSet<>();
+
+    if (product.getId() != null) {
+      ancestorIdSet.add(product.getId());
+      if (billOfMaterial.getId() != null) {
+        ancestorIdSet.addAll(getParentProductIds(billOfMaterial.getId()));
+      }
+      componentIdSet.addAll(getComponentProductIds(product.getId(), billOfMaterial.getId()));
+    }
+
+    if (isActive(billOfMaterial) && billOfMaterial.getBillOfMaterialSet() != null) {
+      for (BillOfMaterial line : billOfMaterial.getBillOfMaterialSet()) {
+        Product component = line.getProduct();
+        if (component == null) {
+          continue;
+        }
+        if (component == product || ancestorIdSet.contains(component.getId())) {
+          throw cycleException(billOfMaterial, component);
+        }
+        componentIdSet.add(component.getId());
+      }
+    }
+    componentIdSet.remove(null);
+
+    for (Long componentId : componentIdSet) {
+      if (ancestorIdSet.contains(componentId)) {
+        throw cycleException(billOfMaterial, JPA.em().find(Product.class, componentId));
+      }
+    }
+
+    // Walk down the components one level at a time, looking for the product or one of its parents.
+    Set<Long> visitedIdSet = new HashSet<>(componentIdSet);
+    Collection<Long> levelIdList = componentIdSet;
+
+    while (!levelIdList.isEmpty()) {
+      List<Long> nextLevelIdList = new ArrayList<>();
+      for (Object[] edge : getComponentEdges(levelIdList)) {
+        Long componentId = (Long) edge[1];
+        if (ancestorIdSet.contains(componentId)) {
+          throw cycleException(billOfMaterial, JPA.em().find(Product.class, componentId));
+        }
+        if (visitedIdSet.add(componentId)) {
+          nextLevelIdList.add(componentId);
+        }
+      }
+      levelIdList = nextLevelIdList;
+    }
+  }
+
+  protected AxelorException cycleException(BillOfMaterial billOfMaterial, Product component) {
+
+    return new AxelorException(
+        billOfMaterial,
+        TraceBackRepository.CATEGORY_INCONSISTENCY,
+        I18n.get(IExceptionMessage.BOM_CYCLE),
+        billOfMaterial.getName(),
+        component.getFullName());
+  }
+
+  @Override
+  public void updateLowLevelCodes(BillOfMaterial billOfMaterial) {
+
+    Product product = billOfMaterial.getProduct();
+
+    if (product == null || product.getId() == null) {
+      return;
+    }
+
+    int level = getLowLevelCode(product);
+
+    if (billOfMaterial.getId() != null) {
+      for (Product parentProduct : getParentProducts(billOfMaterial.getId())) {
+        level = Math.max(level, getLowLevelCode(parentProduct) + 1);
+      }
+    }
+
+    if (level > getLowLevelCode(product)) {
+      product.setLowLevelCode(level);
+    }
+
+    Map<Long, Integer> levelMap = new HashMap<>();
+    levelMap.put(product.getId(), level);
+
+    if (isActive(billOfMaterial) && billOfMaterial.getBillOfMaterialSet() != null) {
+      for (BillOfMaterial line : billOfMaterial.getBillOfMaterialSet()) {
+        raiseLowLevelCode(line.getProduct(), level + 1, levelMap);
+      }
+    }
+
+    // Push the new levels down to the components, one level at a time.
+    Map<Long, Integer> levelProductMap = new HashMap<>(levelMap);
+    int depth = 0;
+
+    while (!levelProductMap.isEmpty()) {
+      if (++depth > MAX_LEVEL) {
+        log.warn("Low level codes not updated beyond level {}", MAX_LEVEL);
+        break;
+      }
+
+      Map<Long, Integer> nextLevelProductMap = new HashMap<>();
+      for (Object[] edge : getComponentProductEdges(levelProductMap.keySet())) {
+        Product component = (Product) edge[1];
+        if (raiseLowLevelCode(component, levelProductMap.get(edge[0]) + 1, nextLevelProductMap)) {
+          levelMap.put(component.getId(), component.getLowLevelCode());
+        }
+      }
+      levelProductMap = nextLevelProductMap;
+    }
+
+    log.debug("Low level codes updated for {} product(s)", levelMap.size());
+  }
+
+  protected boolean raiseLowLevelCode(Product product, int level, Map<Long, Integer> levelMap) {
+
+    if (product == null || product.getId() == null || getLowLevelCode(product) >= level) {
+      return false;
+    }
+
+    product.setLowLevelCode(level);
+    levelMap.put(product.getId(), level);
+
+    return true;
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void computeLowLevelCodes() {
+
+    Map<Long, List<Long>> componentMap = new HashMap<>();
+    Map<Long, Integer> parentCountMap = new HashMap<>();
+
+    for (Object[] edge : getComponentEdges(null)) {
+      Long productId = (Long) edge[0];
+      Long componentId = (Long) edge[1];
+      componentMap.computeIfAbsent(productId, id -> new ArrayList<>()).add(componentId);
+      parentCountMap.putIfAbsent(productId, 0);
+      parentCountMap.merge(componentId, 1, Integer::sum);
+    }
+
+    // Products are levelled once all their parents are.
+    Map<Long, Integer> levelMap = new HashMap<>();
+    Deque<Long> productIdDeque = new ArrayDeque<>();
+
+    for (Map.Entry<Long, Integer> entry : parentCountMap.entrySet()) {
+      if (entry.getValue() == 0) {
+        levelMap.put(entry.getKey(), 0);
+        productIdDeque.add(entry.getKey());
+      }
+    }
+
+    while (!productIdDeque.isEmpty()) {
+      Long productId = productIdDeque.poll();
+      int componentLevel = levelMap.get(productId) + 1;
+      for (Long componentId : componentMap.getOrDefault(productId, Collections.emptyList())) {
+        levelMap.merge(componentId, componentLevel, Math::max);
+        if (parentCountMap.merge(componentId, -1, Integer::sum) == 0) {
+          productIdDeque.add(componentId);
+        }
+      }
+    }
+
+    if (levelMap.size() < parentCountMap.size()) {
+      log.warn(
+          "{} product(s) are components of themselves, their low level code is left to 0",
+          parentCountMap.size() - levelMap.size());
+    }
+
+    // Only the products whose code changes are written, grouped by new code.
+    Map<Integer, List<Long>> productIdMap = new HashMap<>();
+
+    for (Object[] row : getNonZeroLowLevelCodes()) {
+      Long productId = (Long) row[0];
+      int level = levelMap.getOrDefault(productId, 0);
+      if (!Integer.valueOf(level).equals(row[1])) {
+        productIdMap.computeIfAbsent(level, key -> new ArrayList<>()).add(productId);
+      }
+      levelMap.remove(productId);
+    }
+    for (Map.Entry<Long, Integer> entry : levelMap.entrySet()) {
+      if (entry.getValue() > 0) {
+        productIdMap
+            .computeIfAbsent(entry.getValue(), level -> new ArrayList<>())
+            .add(entry.getKey());
+      }
+    }
+
+    int updateCount = 0;
+
+    for (Map.Entry<Integer, List<Long>> entry : productIdMap.entrySet()) {
+      for (List<Long> productIdList : Lists.partition(entry.getValue(), ID_CHUNK_SIZE)) {
+        updateCount +=
+            JPA.em()
+                .createQuery(
+                    "UPDATE Product self "
+                        + "SET self.lowLevelCode = :level, self.version = self.version + 1 "
+                        + "WHERE self.id IN (:ids)")
+                .setParameter("level", entry.getKey())
+                .setParameter("ids", productIdList)
+                .executeUpdate();
+      }
+    }
+
+    JPA.clear();
+
+    log.debug("Low level codes changed for {} product(s)", updateCount);
+  }
+
+  /** Get the ids and low level codes of the products whose low level code is not 0. */
+  protected List<Object[]> getNonZeroLowLevelCodes() {
+
+    return JPA.em()
+        .createQuery(
+            "SELECT self.id, self.lowLevelCode FROM Product self "
+                + "WHERE self.lowLevelCode IS NULL OR self.lowLevelCode != 0",
+            Object[].class)
+        .getResultList();
+  }
+
+  protected int getLowLevelCode(Product product) {
+
+    return product.getLowLevelCode() != null ? product.getLowLevelCode() : 0;
+  }
+
+  protected boolean isActive(BillOfMaterial billOfMaterial) {
+
+    return billOfMaterial.getStatusSelect() == null
+        || billOfMaterial.getStatusSelect() != BillOfMaterialRepository.STATUS_OBSOLETE;
+  }
+
+  /**
+   * Get the product and component product ids of the bills of material of the given products, or of
+   * every product when the given list is null.
+   */
+  protected List<Object[]> getComponentEdges(Collection<Long> productIdList) {
+
+    String query =
+        "SELECT DISTINCT self.product.id, line.product.id FROM BillOfMaterial self "
+            + "JOIN self.billOfMaterialSet line WHERE self.statusSelect != :obsolete";
+
+    if (productIdList == null) {
+      return JPA.em()
+          .createQuery(query, Object[].class)
+          .setParameter("obsolete", BillOfMaterialRepository.STATUS_OBSOLETE)
+          .getResultList();
+    }
+
+    List<Object[]> edgeList = new ArrayList<>();
+    for (List<Long> productIds : Lists.partition(new ArrayList<>(productIdList), ID_CHUNK_SIZE)) {
+      edgeList.addAll(
+          JPA.em()
+              .createQuery(query + " AND self.product.id IN (:ids)", Object[].class)
+              .setParameter("obsolete", BillOfMaterialRepository.STATUS_OBSOLETE)
+              .setParameter("ids", productIds)
+              .getResultList());
+    }
+    return edgeList;
+  }
+
+  /** Same as {@link #getComponentEdges(Collection)} with the component products loaded. */
+  protected List<Object[]> getComponentProductEdges(Collection<Long> productIdList) {
+
+    List<Object[]> edgeList = new ArrayList<>();
+    for (List<Long> productIds : Lists.partition(new ArrayList<>(productIdList), ID_CHUNK_SIZE)) {
+      edgeList.addAll(
+          JPA.em()
+              .createQuery(
+                  "SELECT DISTINCT self.product.id, component FROM BillOfMaterial self "
+                      + "JOIN self.billOfMaterialSet line JOIN line.product component "
+                      + "WHERE self.statusSelect != :obsolete AND self.product.id IN (:ids)",
+                  Object[].class)
+              .setParameter("obsolete", BillOfMaterialRepository.STATUS_OBSOLETE)
+              .setParameter("ids", productIds)
+              .getResultList());
+    }
+    return edgeList;
+  }
+
+  protected List<Long> getComponentProductIds(Long productId, Long excludedBillOfMaterialId) {
+
+    return JPA.em()
+        .createQuery(
+            "SELECT DISTINCT line.product.id FROM BillOfMaterial self "
+                + "JOIN self.billOfMaterialSet line "
+                + "WHERE self.statusSelect != :obsolete AND self.product.id = :productId "
+                + "AND self.id != :billOfMaterialId",
+            Long.class)
+        .setParameter("obsolete", BillOfMaterialRepository.STATUS_OBSOLETE)
+        .setParameter("productId", productId)
+        .setParameter(
+            "billOfMaterialId", excludedBillOfMaterialId != null ? excludedBillOfMaterialId : 0L)
+        .getResultList();
+  }
+
+  protected List<Long> getParentProductIds(Long billOfMaterialId) {
+
+    return JPA.em()
+        .createQuery(
+            "SELECT DISTINCT self.product.id FROM BillOfMaterial self "
+                + "JOIN self.billOfMaterialSet line "
+                + "WHERE self.statusSelect != :obsolete AND line.id = :billOfMaterialId",
+            Long.class)
+        .setParameter("obsolete", BillOfMaterialRepository.STATUS_OBSOLETE)
+        .setParameter("billOfMaterialId", billOfMaterialId)
+        .getResultList();
+  }
+
+  protected List<Product> getParentProducts(Long billOfMaterialId) {
+
+    return JPA.em()
+        .createQuery(
+            "SELECT DISTINCT parent FROM BillOfMaterial self "
+                + "JOIN self.billOfMaterialSet line JOIN self.product parent "
+                + "WHERE self.statusSelect != :obsolete AND line.id = :billOfMaterialId",
+            Product.class)
+        .setParameter("obsolete", BillOfMaterialRepository.STATUS_OBSOLETE)
+        .setParameter("billOfMaterialId", billOfMaterialId)
+        .getResultList();
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.batch;
+
+import com.axelor.apps.base.db.Company;
+import com.axelor.apps.base.db.Product;
+import com.axelor.apps.base.db.repo.ProductRepository;
+import com.axelor.apps.base.service.administration.AbstractBatch;
+import com.axelor.apps.production.db.BillOfMaterial;
+import com.axelor.apps.production.db.ProductionBatch;
+import com.axelor.apps.production.exceptions.IExceptionMessage;
+import com.axelor.apps.production.service.BillOfMaterialService;
+import com.axelor.apps.production.service.ProductLowLevelCodeService;
+import com.axelor.apps.production.service.costsheet.CostSheetService;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.axelor.exception.service.TraceBackService;
+import com.axelor.i18n.I18n;
+import com.google.common.collect.Lists;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.persistence.TypedQuery;
+
+/**
+ * Compute the cost price of the products from their default bill of material, the deepest products
+ * first so that each product is costed once and its cost price is then used by all the products
+ * made from it.
+ */
+public class BatchComputeCostPrice extends AbstractBatch {
+
+  protected ProductLowLevelCodeService productLowLevelCodeService;
+  protected CostSheetService costSheetService;
+  protected BillOfMaterialService billOfMaterialService;
+  protected ProductRepository productRepository;
+
+  protected StringBuilder levelComment = new StringBuilder();
+
+  @Inject
+  public BatchComputeCostPrice(
+      ProductLowLevelCodeService productLowLevelCodeService,
+      CostSheetService costSheetService,
+      BillOfMaterialService billOfMaterialService,
+      ProductRepository productRepository) {
+    this.productLowLevelCodeService = productLowLevelCodeService;
+    this.costSheetService = costSheetService;
+    this.billOfMaterialService = billOfMaterialService;
+    this.productRepository = productRepository;
+  }
+
+  @Override
+  protected void process() {
+
+    productLowLevelCodeService.computeLowLevelCodes();
+
+    for (Map.Entry<Integer, List<Long>> entry : getProductIdsByLevel().entrySet()) {
+
+      long startTime = System.currentTimeMillis();
+
+      for (List<Long> productIdList : Lists.partition(entry.getValue(), FETCH_LIMIT)) {
+        computeCostPrices(productIdList);
+        JPA.clear();
+      }
+
+      long duration = System.currentTimeMillis() - startTime;
+
+      LOG.debug(
+          "Cost prices of level {} computed for {} product(s) in {} ms",
+          entry.getKey(),
+          entry.getValue().size(),
+          duration);
+      levelComment.append(
+          String.format(
+              "\t* " + I18n.get(IExceptionMessage.BATCH_COMPUTE_COST_PRICE_LEVEL) + "\n",
+              entry.getKey(),
+              entry.getValue().size(),
+              duration));
+    }
+  }
+
+  /**
+   * Get the ids of the products to cost, grouped by low level code from the deepest level to the
+   * finished products.
+   */
+  protected Map<Integer, List<Long>> getProductIdsByLevel() {
+
+    Company company = findBatch().getProductionBatch().getCompany();
+
+    String query =
+        "SELECT self.id, self.lowLevelCode FROM Product self "
+            + "WHERE self.defaultBillOfMaterial IS NOT NULL AND self.costTypeSelect = :costType";
+
+    if (company != null) {
+      query += " AND self.defaultBillOfMaterial.company = :company";
+    }
+
+    TypedQuery<Object[]> productQuery =
+        JPA.em()
+            .createQuery(query, Object[].class)
+            .setParameter("costType", ProductRepository.COST_TYPE_STANDARD);
+
+    if (company != null) {
+      productQuery.setParameter("company", company);
+    }
+
+    Map<Integer, List<Long>> productIdMap = new TreeMap<>(Collections.reverseOrder());
+
+    for (Object[] row : productQuery.getResultList()) {
+      int level = row[1] != null ? (Integer) row[1] : 0;
+      productIdMap.computeIfAbsent(level, key -> new ArrayList<>()).add((Long) row[0]);
+    }
+
+    return productIdMap;
+  }
+
+  /**
+   * Compute the cost prices of a chunk of products in one transaction. If it fails, the products of
+   * the chunk are computed again one by one so that only the failing ones are skipped.
+   */
+  protected void computeCostPrices(List<Long> productIdList) {
+
+    try {
+      computeCostPricesInTransaction(productIdList);
+      for (int i = 0; i < productIdList.size(); i++) {
+        incrementDone();
+      }
+      return;
+    } catch (Exception e) {
+      if (productIdList.size() == 1) {
+        incrementAnomaly();
+        TraceBackService.trace(e, null, batch.getId());
+        return;
+      }
+      JPA.clear();
+    }
+
+    for (Long productId : productIdList) {
+      computeCostPrices(Collections.singletonList(productId));
+      JPA.clear();
+    }
+  }
+
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  protected void computeCostPricesInTransaction(List<Long> productIdList) throws AxelorException {
+
+    for (Long productId : productIdList) {
+      Product product = productRepository.find(productId);
+      BillOfMaterial billOfMaterial = product.getDefaultBillOfMaterial();
+
+      costSheetService.computeCostPrice(billOfMaterial);
+      billOfMaterialService.updateProductCostPrice(billOfMaterial);
+    }
+  }
+
+  @Override
+  protected void stop() {
+
+    String comment =
+        String.format(
+            "\t* %s " + I18n.get(IExceptionMessage.BATCH_COMPUTE_COST_PRICE) + "\n",
+            batch.getDone());
+
+    comment += levelComment;
+
+    comment +=
+        String.format(
+            "\t" + I18n.get(com.axelor.apps.base.exceptions.IExceptionMessage.ALARM_ENGINE_BATCH_4),
+            batch.getAnomaly());
+
+    addComment(comment);
+    super.stop();
+  }
+}
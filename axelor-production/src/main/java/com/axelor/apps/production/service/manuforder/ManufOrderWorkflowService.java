@@ -26,6 +26,7 @@ import com.axelor.apps.base.service.app.AppBaseService;
 import com.axelor.apps.message.db.Template;
 import com.axelor.apps.message.db.repo.EmailAccountRepository;
 import com.axelor.apps.message.service.TemplateMessageService;
+import com.axelor.apps.production.db.Machine;
 import com.axelor.apps.production.db.ManufOrder;
 import com.axelor.apps.production.db.OperationOrder;
 import com.axelor.apps.production.db.ProductionConfig;
@@ -38,6 +39,7 @@ import com.axelor.apps.production.db.repo.ProductionConfigRepository;
 import com.axelor.apps.production.exceptions.IExceptionMessage;
 import com.axelor.apps.production.service.app.AppProductionService;
 import com.axelor.apps.production.service.costsheet.CostSheetService;
+import com.axelor.apps.production.service.operationorder.MachineScheduler;
 import com.axelor.apps.production.service.operationorder.OperationOrderWorkflowService;
 import com.axelor.apps.stock.db.StockMove;
 import com.axelor.exception.AxelorException;
@@ -46,14 +48,20 @@ import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 
@@ -79,60 +87,188 @@ public class ManufOrderWorkflowService {
 
   @Transactional(rollbackOn = {AxelorException.class, RuntimeException.class})
   public ManufOrder plan(ManufOrder manufOrder) throws AxelorException {
+
+    return plan(Collections.singletonList(manufOrder)).get(0);
+  }
+
+  /**
+   * Plan manufacturing orders in one run. The operations are placed in the order of the list on
+   * machines with finite capacity, around the operations already planned: forward from the planned
+   * start date, or backward from the planned end date when only this one is filled.
+   *
+   * @param manufOrderList
+   * @return the planned manufacturing orders
+   * @throws AxelorException
+   */
+  @Transactional(rollbackOn = {AxelorException.class, RuntimeException.class})
+  public List<ManufOrder> plan(List<ManufOrder> manufOrderList) throws AxelorException {
     ManufOrderService manufOrderService = Beans.get(ManufOrderService.class);
+    Set<ManufOrder> backwardManufOrderSet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    for (ManufOrder manufOrder : manufOrderList) {
+      if (manufOrder.getBillOfMaterial().getStatusSelect()
+              != BillOfMaterialRepository.STATUS_APPLICABLE
+          && manufOrder.getProdProcess().getStatusSelect()
+              != ProdProcessRepository.STATUS_APPLICABLE) {
+        throw new AxelorException(
+            manufOrder,
+            TraceBackRepository.CATEGORY_INCONSISTENCY,
+            I18n.get("Bill of material and production process must be applicable"));
+      }
 
-    if (manufOrder.getBillOfMaterial().getStatusSelect()
-            != BillOfMaterialRepository.STATUS_APPLICABLE
-        && manufOrder.getProdProcess().getStatusSelect()
-            != ProdProcessRepository.STATUS_APPLICABLE) {
-      throw new AxelorException(
-          manufOrder,
-          TraceBackRepository.CATEGORY_INCONSISTENCY,
-          I18n.get("Bill of material and production process must be applicable"));
-    }
+      if (Beans.get(SequenceService.class)
+          .isEmptyOrDraftSequenceNumber(manufOrder.getManufOrderSeq())) {
+        manufOrder.setManufOrderSeq(manufOrderService.getManufOrderSeq(manufOrder));
+      }
 
-    if (Beans.get(SequenceService.class)
-        .isEmptyOrDraftSequenceNumber(manufOrder.getManufOrderSeq())) {
-      manufOrder.setManufOrderSeq(manufOrderService.getManufOrderSeq(manufOrder));
-    }
+      if (manufOrder.getPlannedStartDateT() == null && manufOrder.getPlannedEndDateT() != null) {
+        backwardManufOrderSet.add(manufOrder);
+      }
 
-    if (CollectionUtils.isEmpty(manufOrder.getOperationOrderList())) {
-      manufOrderService.preFillOperations(manufOrder);
-    }
-    if (!manufOrder.getIsConsProOnOperation()
-        && CollectionUtils.isEmpty(manufOrder.getToConsumeProdProductList())) {
-      manufOrderService.createToConsumeProdProductList(manufOrder);
-    }
+      if (CollectionUtils.isEmpty(manufOrder.getOperationOrderList())) {
+        manufOrderService.preFillOperations(manufOrder);
+      }
+      if (!manufOrder.getIsConsProOnOperation()
+          && CollectionUtils.isEmpty(manufOrder.getToConsumeProdProductList())) {
+        manufOrderService.createToConsumeProdProductList(manufOrder);
+      }
+
+      if (CollectionUtils.isEmpty(manufOrder.getToProduceProdProductList())) {
+        manufOrderService.createToProduceProdProductList(manufOrder);
+      }
 
-    if (CollectionUtils.isEmpty(manufOrder.getToProduceProdProductList())) {
-      manufOrderService.createToProduceProdProductList(manufOrder);
+      if (manufOrder.getPlannedStartDateT() == null) {
+        manufOrder.setPlannedStartDateT(
+            Beans.get(AppProductionService.class).getTodayDateTime().toLocalDateTime());
+      }
     }
 
-    if (manufOrder.getPlannedStartDateT() == null) {
-      manufOrder.setPlannedStartDateT(
-          Beans.get(AppProductionService.class).getTodayDateTime().toLocalDateTime());
+    MachineScheduler machineScheduler =
+        operationOrderWorkflowService.createMachineScheduler(manufOrderList);
+    List<ManufOrder> plannedManufOrderList = new ArrayList<>();
+
+    for (ManufOrder manufOrder : manufOrderList) {
+      this.schedule(manufOrder, backwardManufOrderSet.contains(manufOrder), machineScheduler);
+
+      for (OperationOrder operationOrder : getSortedOperationOrderList(manufOrder)) {
+        operationOrderWorkflowService.plan(
+            operationOrder,
+            operationOrder.getPlannedStartDateT(),
+            operationOrder.getPlannedEndDateT());
+      }
+
+      if (manufOrder.getBillOfMaterial() != null) {
+        manufOrder.setUnit(manufOrder.getBillOfMaterial().getUnit());
+      }
+
+      if (!manufOrder.getIsConsProOnOperation()) {
+        manufOrderStockMoveService.createToConsumeStockMove(manufOrder);
+      }
+
+      manufOrderStockMoveService.createToProduceStockMove(manufOrder);
+      manufOrder.setStatusSelect(ManufOrderRepository.STATUS_PLANNED);
+      manufOrder.setCancelReason(null);
+      manufOrder.setCancelReasonStr(null);
+
+      plannedManufOrderList.add(manufOrderRepo.save(manufOrder));
     }
 
-    for (OperationOrder operationOrder : getSortedOperationOrderList(manufOrder)) {
-      operationOrderWorkflowService.plan(operationOrder);
+    return plannedManufOrderList;
+  }
+
+  /**
+   * Set the planned dates of the operations of a manufacturing order, placed by the machine
+   * scheduler by order of priority. Operations of the same priority may run at the same time, on
+   * different machines. When planning backward leads to a start date in the past, the operations
+   * are planned forward from today.
+   *
+   * @param manufOrder
+   * @param backward
+   * @param machineScheduler
+   * @throws AxelorException
+   */
+  protected void schedule(
+      ManufOrder manufOrder, boolean backward, MachineScheduler machineScheduler)
+      throws AxelorException {
+
+    List<List<OperationOrder>> priorityGroupList = getPriorityGroupList(manufOrder);
+    Map<OperationOrder, Long> machineIdMap = new IdentityHashMap<>();
+    Map<OperationOrder, Long> durationMap = new IdentityHashMap<>();
+    Map<OperationOrder, LocalDateTime> startDateTMap = new IdentityHashMap<>();
+
+    for (List<OperationOrder> priorityGroup : priorityGroupList) {
+      for (OperationOrder operationOrder : priorityGroup) {
+        Machine machine = operationOrderWorkflowService.getMachine(operationOrder);
+        machineIdMap.put(operationOrder, machine != null ? machine.getId() : null);
+        durationMap.put(
+            operationOrder, operationOrderWorkflowService.computePlannedDuration(operationOrder));
+      }
     }
 
-    manufOrder.setPlannedEndDateT(this.computePlannedEndDateT(manufOrder));
+    if (backward) {
+      LocalDateTime endDateT = manufOrder.getPlannedEndDateT();
+      LocalDateTime startDateT = endDateT;
+
+      for (List<OperationOrder> priorityGroup : Lists.reverse(priorityGroupList)) {
+        for (OperationOrder operationOrder : priorityGroup) {
+          LocalDateTime operationStartDateT =
+              machineScheduler.scheduleBackward(
+                  machineIdMap.get(operationOrder), endDateT, durationMap.get(operationOrder));
+          startDateTMap.put(operationOrder, operationStartDateT);
+          if (operationStartDateT.isBefore(startDateT)) {
+            startDateT = operationStartDateT;
+          }
+        }
+        endDateT = startDateT;
+      }
 
-    if (manufOrder.getBillOfMaterial() != null) {
-      manufOrder.setUnit(manufOrder.getBillOfMaterial().getUnit());
+      if (startDateT.isBefore(
+          Beans.get(AppProductionService.class).getTodayDateTime().toLocalDateTime())) {
+        for (Map.Entry<OperationOrder, LocalDateTime> entry : startDateTMap.entrySet()) {
+          machineScheduler.release(
+              machineIdMap.get(entry.getKey()), entry.getValue(), durationMap.get(entry.getKey()));
+        }
+        startDateTMap.clear();
+      } else {
+        manufOrder.setPlannedStartDateT(startDateT);
+      }
     }
 
-    if (!manufOrder.getIsConsProOnOperation()) {
-      manufOrderStockMoveService.createToConsumeStockMove(manufOrder);
+    if (startDateTMap.isEmpty()) {
+      LocalDateTime startDateT = manufOrder.getPlannedStartDateT();
+
+      for (List<OperationOrder> priorityGroup : priorityGroupList) {
+        LocalDateTime endDateT = startDateT;
+        for (OperationOrder operationOrder : priorityGroup) {
+          LocalDateTime operationStartDateT =
+              machineScheduler.scheduleForward(
+                  machineIdMap.get(operationOrder), startDateT, durationMap.get(operationOrder));
+          startDateTMap.put(operationOrder, operationStartDateT);
+          LocalDateTime operationEndDateT =
+              operationStartDateT.plusSeconds(durationMap.get(operationOrder));
+          if (operationEndDateT.isAfter(endDateT)) {
+            endDateT = operationEndDateT;
+          }
+        }
+        startDateT = endDateT;
+      }
     }
 
-    manufOrderStockMoveService.createToProduceStockMove(manufOrder);
-    manufOrder.setStatusSelect(ManufOrderRepository.STATUS_PLANNED);
-    manufOrder.setCancelReason(null);
-    manufOrder.setCancelReasonStr(null);
+    LocalDateTime plannedEndDateT = manufOrder.getPlannedStartDateT();
+
+    for (Map.Entry<OperationOrder, LocalDateTime> entry : startDateTMap.entrySet()) {
+      OperationOrder operationOrder = entry.getKey();
+      LocalDateTime operationEndDateT =
+          entry.getValue().plusSeconds(durationMap.get(operationOrder));
+      operationOrder.setPlannedStartDateT(entry.getValue());
+      operationOrder.setPlannedEndDateT(operationEndDateT);
+      operationOrder.setPlannedDuration(durationMap.get(operationOrder));
+      if (operationEndDateT.isAfter(plannedEndDateT)) {
+        plannedEndDateT = operationEndDateT;
+      }
+    }
 
-    return manufOrderRepo.save(manufOrder);
+    manufOrder.setPlannedEndDateT(plannedEndDateT);
   }
 
   @Transactional(rollbackOn = {AxelorException.class, RuntimeException.class})
@@ -385,15 +521,14 @@ public class ManufOrderWorkflowService {
     manufOrder.setPlannedStartDateT(plannedStartDateT);
 
     if (manufOrder.getOperationOrderList() != null) {
-      List<OperationOrder> operationOrderList = getSortedOperationOrderList(manufOrder);
-      operationOrderWorkflowService.resetPlannedDates(operationOrderList);
-
-      for (OperationOrder operationOrder : operationOrderList) {
-        operationOrderWorkflowService.replan(operationOrder);
-      }
+      this.schedule(
+          manufOrder,
+          false,
+          operationOrderWorkflowService.createMachineScheduler(
+              Collections.singletonList(manufOrder)));
+    } else {
+      manufOrder.setPlannedEndDateT(computePlannedEndDateT(manufOrder));
     }
-
-    manufOrder.setPlannedEndDateT(computePlannedEndDateT(manufOrder));
   }
 
   /**
@@ -403,7 +538,7 @@ public class ManufOrderWorkflowService {
    * @param manufOrder
    * @return
    */
-  private List<OperationOrder> getSortedOperationOrderList(ManufOrder manufOrder) {
+  protected List<OperationOrder> getSortedOperationOrderList(ManufOrder manufOrder) {
     List<OperationOrder> operationOrderList =
         MoreObjects.firstNonNull(manufOrder.getOperationOrderList(), Collections.emptyList());
     Comparator<OperationOrder> byPriority =
@@ -419,6 +554,30 @@ public class ManufOrderWorkflowService {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Get the operation orders of the specified manufacturing order grouped by priority, by order of
+   * priority.
+   *
+   * @param manufOrder
+   * @return
+   */
+  protected List<List<OperationOrder>> getPriorityGroupList(ManufOrder manufOrder) {
+    List<List<OperationOrder>> priorityGroupList = new ArrayList<>();
+    List<OperationOrder> priorityGroup = null;
+    Integer priority = null;
+
+    for (OperationOrder operationOrder : getSortedOperationOrderList(manufOrder)) {
+      if (priorityGroup == null || !Objects.equals(priority, operationOrder.getPriority())) {
+        priorityGroup = new ArrayList<>();
+        priorityGroupList.add(priorityGroup);
+        priority = operationOrder.getPriority();
+      }
+      priorityGroup.add(operationOrder);
+    }
+
+    return priorityGroupList;
+  }
+
   protected boolean sendMail(ManufOrder manufOrder, Template template) throws AxelorException {
     if (template == null) {
       throw new AxelorException(
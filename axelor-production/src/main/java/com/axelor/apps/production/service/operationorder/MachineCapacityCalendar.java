@@ -0,0 +1,140 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.operationorder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Busy periods of a machine, which can run one operation at a time. Periods are kept disjoint,
+ * merged when they touch, and sorted by start date, so that a run of back to back operations is
+ * skipped in one step.
+ */
+public class MachineCapacityCalendar {
+
+  protected final TreeMap<LocalDateTime, LocalDateTime> busyPeriodMap = new TreeMap<>();
+
+  /**
+   * Add a busy period, merging it with the periods it overlaps or touches.
+   *
+   * @param startDateT
+   * @param endDateT
+   */
+  public void book(LocalDateTime startDateT, LocalDateTime endDateT) {
+
+    if (!endDateT.isAfter(startDateT)) {
+      return;
+    }
+
+    Map.Entry<LocalDateTime, LocalDateTime> previous = busyPeriodMap.floorEntry(startDateT);
+    if (previous != null && !previous.getValue().isBefore(startDateT)) {
+      startDateT = previous.getKey();
+      endDateT = max(endDateT, previous.getValue());
+      busyPeriodMap.remove(previous.getKey());
+    }
+
+    Map.Entry<LocalDateTime, LocalDateTime> next = busyPeriodMap.ceilingEntry(startDateT);
+    while (next != null && !next.getKey().isAfter(endDateT)) {
+      endDateT = max(endDateT, next.getValue());
+      busyPeriodMap.remove(next.getKey());
+      next = busyPeriodMap.ceilingEntry(startDateT);
+    }
+
+    busyPeriodMap.put(startDateT, endDateT);
+  }
+
+  /**
+   * Get the earliest start date, not before the given date, of a free period of the given
+   * duration.
+   *
+   * @param earliestStartDateT
+   * @param duration duration in seconds
+   * @return
+   */
+  public LocalDateTime findForward(LocalDateTime earliestStartDateT, long duration) {
+
+    LocalDateTime startDateT = earliestStartDateT;
+
+    Map.Entry<LocalDateTime, LocalDateTime> previous = busyPeriodMap.floorEntry(startDateT);
+    if (previous != null && previous.getValue().isAfter(startDateT)) {
+      startDateT = previous.getValue();
+    }
+
+    Map.Entry<LocalDateTime, LocalDateTime> next = busyPeriodMap.ceilingEntry(startDateT);
+    while (next != null && next.getKey().isBefore(startDateT.plusSeconds(duration))) {
+      startDateT = next.getValue();
+      next = busyPeriodMap.ceilingEntry(startDateT);
+    }
+
+    return startDateT;
+  }
+
+  /**
+   * Get the latest start date of a free period of the given duration ending before the given date.
+   *
+   * @param latestEndDateT
+   * @param duration duration in seconds
+   * @return
+   */
+  public LocalDateTime findBackward(LocalDateTime latestEndDateT, long duration) {
+
+    LocalDateTime endDateT = latestEndDateT;
+
+    Map.Entry<LocalDateTime, LocalDateTime> previous = busyPeriodMap.lowerEntry(endDateT);
+    while (previous != null && previous.getValue().isAfter(endDateT.minusSeconds(duration))) {
+      endDateT = previous.getKey();
+      previous = busyPeriodMap.lowerEntry(endDateT);
+    }
+
+    return endDateT.minusSeconds(duration);
+  }
+
+  /**
+   * Release a period booked with {@link #book}, splitting the busy period containing it.
+   *
+   * @param startDateT
+   * @param endDateT
+   */
+  public void release(LocalDateTime startDateT, LocalDateTime endDateT) {
+
+    Map.Entry<LocalDateTime, LocalDateTime> busyPeriod = busyPeriodMap.floorEntry(startDateT);
+
+    if (!endDateT.isAfter(startDateT)
+        || busyPeriod == null
+        || busyPeriod.getValue().isBefore(endDateT)) {
+      return;
+    }
+
+    busyPeriodMap.remove(busyPeriod.getKey());
+    if (busyPeriod.getKey().isBefore(startDateT)) {
+      busyPeriodMap.put(busyPeriod.getKey(), startDateT);
+    }
+    if (busyPeriod.getValue().isAfter(endDateT)) {
+      busyPeriodMap.put(endDateT, busyPeriod.getValue());
+    }
+  }
+
+  public int getBusyPeriodCount() {
+    return busyPeriodMap.size();
+  }
+
+  protected static LocalDateTime max(LocalDateTime dateT1, LocalDateTime dateT2) {
+    return dateT1.isAfter(dateT2) ? dateT1 : dateT2;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.service.operationorder;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Places operations on machines with finite capacity for one planning run. The busy periods of the
+ * machines are loaded once, then each placed operation books its machine so that the next ones are
+ * placed around it. Operations without machine are placed without capacity constraint.
+ */
+public class MachineScheduler {
+
+  protected final Map<Long, MachineCapacityCalendar> calendarMap = new HashMap<>();
+
+  /** Add an existing busy period of a machine. */
+  public void load(Long machineId, LocalDateTime startDateT, LocalDateTime endDateT) {
+
+    if (machineId != null) {
+      getCalendar(machineId).book(startDateT, endDateT);
+    }
+  }
+
+  /**
+   * Place an operation at the earliest date its machine is free, not before the given date.
+   *
+   * @param machineId the machine of the operation, may be null
+   * @param earliestStartDateT
+   * @param duration duration in seconds
+   * @return the planned start date of the operation
+   */
+  public LocalDateTime scheduleForward(
+      Long machineId, LocalDateTime earliestStartDateT, long duration) {
+
+    if (machineId == null) {
+      return earliestStartDateT;
+    }
+
+    MachineCapacityCalendar calendar = getCalendar(machineId);
+    LocalDateTime startDateT = calendar.findForward(earliestStartDateT, duration);
+    calendar.book(startDateT, startDateT.plusSeconds(duration));
+
+    return startDateT;
+  }
+
+  /**
+   * Place an operation at the latest date its machine is free, ending before the given date.
+   *
+   * @param machineId the machine of the operation, may be null
+   * @param latestEndDateT
+   * @param duration duration in seconds
+   * @return the planned start date of the operation
+   */
+  public LocalDateTime scheduleBackward(
+      Long machineId, LocalDateTime latestEndDateT, long duration) {
+
+    if (machineId == null) {
+      return latestEndDateT.minusSeconds(duration);
+    }
+
+    MachineCapacityCalendar calendar = getCalendar(machineId);
+    LocalDateTime startDateT = calendar.findBackward(latestEndDateT, duration);
+    calendar.book(startDateT, startDateT.plusSeconds(duration));
+
+    return startDateT;
+  }
+
+  /** Release an operation placed with {@link #scheduleForward} or {@link #scheduleBackward}. */
+  public void release(Long machineId, LocalDateTime startDateT, long duration) {
+
+    if (machineId != null && calendarMap.containsKey(machineId)) {
+      calendarMap.get(machineId).release(startDateT, startDateT.plusSeconds(duration));
+    }
+  }
+
+  protected MachineCapacityCalendar getCalendar(Long machineId) {
+    return calendarMap.computeIfAbsent(machineId, id -> new MachineCapacityCalendar());
+  }
+}
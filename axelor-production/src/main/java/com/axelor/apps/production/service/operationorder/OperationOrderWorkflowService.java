@@ -36,6 +36,7 @@ import com.axelor.apps.stock.db.StockMove;
 import com.axelor.apps.stock.service.StockMoveService;
 import com.axelor.apps.tool.date.DurationTool;
 import com.axelor.auth.AuthUtils;
+import com.axelor.db.JPA;
 import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
@@ -47,7 +48,9 @@ import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.commons.collections.CollectionUtils;
 
 public class OperationOrderWorkflowService {
@@ -79,18 +82,39 @@ public class OperationOrderWorkflowService {
   @Transactional(rollbackOn = {AxelorException.class, Exception.class})
   public OperationOrder plan(OperationOrder operationOrder) throws AxelorException {
 
+    operationOrder.setPlannedStartDateT(this.getLastOperationOrder(operationOrder));
+
+    return plan(
+        operationOrder,
+        operationOrder.getPlannedStartDateT(),
+        this.computePlannedEndDateT(operationOrder));
+  }
+
+  /**
+   * Plan an operation order at the given dates, computed by a {@link MachineScheduler}.
+   *
+   * @param operationOrder
+   * @param plannedStartDateT
+   * @param plannedEndDateT
+   * @return
+   * @throws AxelorException
+   */
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public OperationOrder plan(
+      OperationOrder operationOrder,
+      LocalDateTime plannedStartDateT,
+      LocalDateTime plannedEndDateT)
+      throws AxelorException {
+
     if (CollectionUtils.isEmpty(operationOrder.getToConsumeProdProductList())) {
       Beans.get(OperationOrderService.class).createToConsumeProdProductList(operationOrder);
     }
 
-    operationOrder.setPlannedStartDateT(this.getLastOperationOrder(operationOrder));
-
-    operationOrder.setPlannedEndDateT(this.computePlannedEndDateT(operationOrder));
+    operationOrder.setPlannedStartDateT(plannedStartDateT);
+    operationOrder.setPlannedEndDateT(plannedEndDateT);
 
     operationOrder.setPlannedDuration(
-        DurationTool.getSecondsDuration(
-            Duration.between(
-                operationOrder.getPlannedStartDateT(), operationOrder.getPlannedEndDateT())));
+        DurationTool.getSecondsDuration(Duration.between(plannedStartDateT, plannedEndDateT)));
 
     ManufOrder manufOrder = operationOrder.getManufOrder();
     if (manufOrder == null || manufOrder.getIsConsProOnOperation()) {
@@ -142,6 +166,105 @@ public class OperationOrderWorkflowService {
     return operationOrderList;
   }
 
+  /**
+   * Create a machine scheduler with the operation orders already planned on the machines of the
+   * given manufacturing orders, read in one query.
+   *
+   * @param manufOrderList the manufacturing orders to plan
+   * @return
+   */
+  public MachineScheduler createMachineScheduler(List<ManufOrder> manufOrderList) {
+
+    MachineScheduler machineScheduler = new MachineScheduler();
+    Set<Long> machineIdSet = new HashSet<>();
+    Set<Long> manufOrderIdSet = new HashSet<>();
+
+    for (ManufOrder manufOrder : manufOrderList) {
+      if (manufOrder.getId() != null) {
+        manufOrderIdSet.add(manufOrder.getId());
+      }
+      if (manufOrder.getOperationOrderList() != null) {
+        for (OperationOrder operationOrder : manufOrder.getOperationOrderList()) {
+          Machine machine = getMachine(operationOrder);
+          if (machine != null && machine.getId() != null) {
+            machineIdSet.add(machine.getId());
+          }
+        }
+      }
+    }
+
+    if (machineIdSet.isEmpty()) {
+      return machineScheduler;
+    }
+
+    manufOrderIdSet.add(0L);
+
+    List<Object[]> busyPeriodList =
+        JPA.em()
+            .createQuery(
+                "SELECT COALESCE(machine.id, workCenterMachine.id), "
+                    + "self.plannedStartDateT, self.plannedEndDateT FROM OperationOrder self "
+                    + "LEFT JOIN self.manufOrder manufOrder "
+                    + "LEFT JOIN self.machineWorkCenter machineWorkCenter "
+                    + "LEFT JOIN machineWorkCenter.machine machine "
+                    + "LEFT JOIN self.workCenter workCenter "
+                    + "LEFT JOIN workCenter.machine workCenterMachine "
+                    + "WHERE self.statusSelect >= :planned AND self.statusSelect < :finished "
+                    + "AND self.plannedStartDateT IS NOT NULL AND self.plannedEndDateT IS NOT NULL "
+                    + "AND COALESCE(machine.id, workCenterMachine.id) IN (:machineIds) "
+                    + "AND (manufOrder.id IS NULL OR manufOrder.id NOT IN (:manufOrderIds))",
+                Object[].class)
+            .setParameter("planned", OperationOrderRepository.STATUS_PLANNED)
+            .setParameter("finished", OperationOrderRepository.STATUS_FINISHED)
+            .setParameter("machineIds", machineIdSet)
+            .setParameter("manufOrderIds", manufOrderIdSet)
+            .getResultList();
+
+    for (Object[] busyPeriod : busyPeriodList) {
+      machineScheduler.load(
+          (Long) busyPeriod[0], (LocalDateTime) busyPeriod[1], (LocalDateTime) busyPeriod[2]);
+    }
+
+    return machineScheduler;
+  }
+
+  /**
+   * Get the machine of an operation order: the one of its machine work center, else the one of its
+   * work center.
+   *
+   * @param operationOrder
+   * @return
+   */
+  public Machine getMachine(OperationOrder operationOrder) {
+
+    WorkCenter machineWorkCenter = operationOrder.getMachineWorkCenter();
+
+    if (machineWorkCenter != null) {
+      return machineWorkCenter.getMachine();
+    } else if (operationOrder.getWorkCenter() != null) {
+      return operationOrder.getWorkCenter().getMachine();
+    }
+
+    return null;
+  }
+
+  /**
+   * Get the duration in seconds of an operation order to plan.
+   *
+   * @param operationOrder
+   * @return
+   * @throws AxelorException
+   */
+  public long computePlannedDuration(OperationOrder operationOrder) throws AxelorException {
+
+    if (operationOrder.getWorkCenter() != null) {
+      return (int)
+          this.computeEntireCycleDuration(operationOrder, operationOrder.getManufOrder().getQty());
+    }
+
+    return 0;
+  }
+
   public LocalDateTime getLastOperationOrder(OperationOrder operationOrder) {
 
     OperationOrder lastOperationOrder =
@@ -331,13 +454,7 @@ public class OperationOrderWorkflowService {
     if (operationOrder.getStatusSelect() == OperationOrderRepository.STATUS_FINISHED) {
       long durationLong = DurationTool.getSecondsDuration(computeRealDuration(operationOrder));
       operationOrder.setRealDuration(durationLong);
-      WorkCenter machineWorkCenter = operationOrder.getMachineWorkCenter();
-      Machine machine = null;
-      if (machineWorkCenter != null) {
-        machine = machineWorkCenter.getMachine();
-      } else if (operationOrder.getWorkCenter() != null) {
-        machine = operationOrder.getWorkCenter().getMachine();
-      }
+      Machine machine = getMachine(operationOrder);
       if (machine != null) {
         machine.setOperatingDuration(machine.getOperatingDuration() + durationLong);
       }
@@ -441,16 +558,9 @@ public class OperationOrderWorkflowService {
   public LocalDateTime computePlannedEndDateT(OperationOrder operationOrder)
       throws AxelorException {
 
-    if (operationOrder.getWorkCenter() != null) {
-      return operationOrder
-          .getPlannedStartDateT()
-          .plusSeconds(
-              (int)
-                  this.computeEntireCycleDuration(
-                      operationOrder, operationOrder.getManufOrder().getQty()));
-    }
-
-    return operationOrder.getPlannedStartDateT();
+    return operationOrder
+        .getPlannedStartDateT()
+        .plusSeconds(this.computePlannedDuration(operationOrder));
   }
 
   public long computeEntireCycleDuration(OperationOrder operationOrder, BigDecimal qty)
@@ -17,7 +17,10 @@
  */
 package com.axelor.apps.production.web;
 
+import com.axelor.apps.production.exceptions.IExceptionMessage;
+import com.axelor.apps.production.service.ProductLowLevelCodeService;
 import com.axelor.apps.production.service.app.AppProductionService;
+import com.axelor.i18n.I18n;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
 import com.google.inject.Inject;
@@ -28,10 +31,19 @@ public class AppProductionController {
 
   @Inject private AppProductionService appProductionService;
 
+  @Inject private ProductLowLevelCodeService productLowLevelCodeService;
+
   public void generateProductionConfigurations(ActionRequest request, ActionResponse response) {
 
     appProductionService.generateProductionConfigurations();
 
     response.setReload(true);
   }
+
+  public void computeLowLevelCodes(ActionRequest request, ActionResponse response) {
+
+    productLowLevelCodeService.computeLowLevelCodes();
+
+    response.setFlash(I18n.get(IExceptionMessage.LOW_LEVEL_CODES_COMPUTED));
+  }
 }
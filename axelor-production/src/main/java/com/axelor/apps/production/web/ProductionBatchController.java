@@ -57,6 +57,17 @@ public class ProductionBatchController {
     response.setReload(true);
   }
 
+  public void computeCostPrice(ActionRequest request, ActionResponse response) {
+
+    ProductionBatch productionBatch = request.getContext().asType(ProductionBatch.class);
+    productionBatch = productionBatchRepo.find(productionBatch.getId());
+    Batch batch = productionBatchService.computeCostPrice(productionBatch);
+    if (batch != null) {
+      response.setFlash(batch.getComments());
+    }
+    response.setReload(true);
+  }
+
   public void showValuation(ActionRequest request, ActionResponse response) throws AxelorException {
     ProductionBatch productionBatch = request.getContext().asType(ProductionBatch.class);
     productionBatch = productionBatchRepo.find(productionBatch.getId());
@@ -0,0 +1,111 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.production.test;
+
+import com.axelor.apps.production.service.operationorder.MachineCapacityCalendar;
+import com.axelor.apps.production.service.operationorder.MachineScheduler;
+import java.time.LocalDateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestMachineScheduler {
+
+  private static final Long MACHINE = 1L;
+  private static final Long OTHER_MACHINE = 2L;
+  private static final long HOUR = 3600;
+
+  private static LocalDateTime at(int day, int hour) {
+    return LocalDateTime.of(2019, 3, day, hour, 0);
+  }
+
+  @Test
+  public void overflowToTheEndOfTheBusyPeriod() {
+    MachineScheduler scheduler = new MachineScheduler();
+    scheduler.load(MACHINE, at(4, 8), at(4, 12));
+
+    Assert.assertEquals(at(4, 12), scheduler.scheduleForward(MACHINE, at(4, 9), 2 * HOUR));
+    Assert.assertEquals(at(4, 14), scheduler.scheduleForward(MACHINE, at(4, 9), 3 * HOUR));
+  }
+
+  @Test
+  public void skipGapsTooShort() {
+    MachineScheduler scheduler = new MachineScheduler();
+    scheduler.load(MACHINE, at(4, 8), at(4, 10));
+    scheduler.load(MACHINE, at(4, 11), at(4, 13));
+
+    Assert.assertEquals(at(4, 10), scheduler.scheduleForward(MACHINE, at(4, 8), HOUR));
+    Assert.assertEquals(at(4, 13), scheduler.scheduleForward(MACHINE, at(4, 8), HOUR));
+  }
+
+  @Test
+  public void placeOperationsInOrder() {
+    MachineScheduler scheduler = new MachineScheduler();
+
+    Assert.assertEquals(at(4, 8), scheduler.scheduleForward(MACHINE, at(4, 8), 2 * HOUR));
+    Assert.assertEquals(at(4, 10), scheduler.scheduleForward(MACHINE, at(4, 8), HOUR));
+    Assert.assertEquals(at(4, 11), scheduler.scheduleForward(MACHINE, at(4, 9), HOUR));
+
+    // other machines and operations without machine are not constrained
+    Assert.assertEquals(at(4, 8), scheduler.scheduleForward(OTHER_MACHINE, at(4, 8), HOUR));
+    Assert.assertEquals(at(4, 8), scheduler.scheduleForward(null, at(4, 8), HOUR));
+
+    // latest placement first when planning backward
+    Assert.assertEquals(at(4, 16), scheduler.scheduleBackward(MACHINE, at(4, 18), 2 * HOUR));
+    Assert.assertEquals(at(4, 15), scheduler.scheduleBackward(MACHINE, at(4, 18), HOUR));
+    Assert.assertEquals(at(4, 17), scheduler.scheduleBackward(null, at(4, 18), HOUR));
+  }
+
+  @Test
+  public void crossDayBoundaries() {
+    MachineScheduler scheduler = new MachineScheduler();
+    scheduler.load(MACHINE, at(4, 22), at(5, 6));
+
+    // an operation running over midnight does not fit before the night shift
+    Assert.assertEquals(at(5, 6), scheduler.scheduleForward(MACHINE, at(4, 20), 4 * HOUR));
+    Assert.assertEquals(at(4, 20), scheduler.scheduleBackward(MACHINE, at(5, 7), 2 * HOUR));
+    Assert.assertEquals(at(5, 10), scheduler.scheduleForward(MACHINE, at(4, 23), HOUR));
+  }
+
+  @Test
+  public void releaseOperation() {
+    MachineScheduler scheduler = new MachineScheduler();
+
+    LocalDateTime first = scheduler.scheduleForward(MACHINE, at(4, 8), HOUR);
+    LocalDateTime second = scheduler.scheduleForward(MACHINE, at(4, 8), HOUR);
+    Assert.assertEquals(at(4, 9), second);
+
+    scheduler.release(MACHINE, first, HOUR);
+    Assert.assertEquals(at(4, 8), scheduler.scheduleForward(MACHINE, at(4, 8), HOUR));
+  }
+
+  @Test
+  public void mergeTouchingPeriods() {
+    MachineCapacityCalendar calendar = new MachineCapacityCalendar();
+    calendar.book(at(4, 8), at(4, 10));
+    calendar.book(at(4, 12), at(4, 14));
+    Assert.assertEquals(2, calendar.getBusyPeriodCount());
+
+    calendar.book(at(4, 10), at(4, 12));
+    Assert.assertEquals(1, calendar.getBusyPeriodCount());
+    Assert.assertEquals(at(4, 14), calendar.findForward(at(4, 9), HOUR));
+
+    calendar.release(at(4, 10), at(4, 12));
+    Assert.assertEquals(2, calendar.getBusyPeriodCount());
+    Assert.assertEquals(at(4, 10), calendar.findForward(at(4, 9), HOUR));
+  }
+}
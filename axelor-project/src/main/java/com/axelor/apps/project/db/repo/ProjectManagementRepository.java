@@ -18,10 +18,14 @@
 package com.axelor.apps.project.db.repo;
 
 import com.axelor.apps.project.db.Project;
+import com.axelor.apps.project.service.ProjectHierarchyService;
+import com.axelor.exception.AxelorException;
 import com.axelor.team.db.Team;
 import com.google.common.base.Strings;
+import com.google.inject.Inject;
 import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
+import javax.persistence.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +33,8 @@ public class ProjectManagementRepository extends ProjectRepository {
 
   private final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  @Inject private ProjectHierarchyService projectHierarchyService;
+
   private void setAllProjectFullName(Project project) {
     String projectCode =
         (Strings.isNullOrEmpty(project.getCode())) ? "" : project.getCode() + " - ";
@@ -68,7 +74,22 @@ public class ProjectManagementRepository extends ProjectRepository {
         project.getMembersUserSet().forEach(team::addMember);
       }
     }
-    return super.save(project);
+
+    project = super.save(project);
+
+    try {
+      projectHierarchyService.updateHierarchy(project);
+    } catch (AxelorException e) {
+      throw new PersistenceException(e.getLocalizedMessage());
+    }
+
+    return project;
+  }
+
+  @Override
+  public void remove(Project project) {
+    projectHierarchyService.removeHierarchy(project);
+    super.remove(project);
   }
 
   @Override
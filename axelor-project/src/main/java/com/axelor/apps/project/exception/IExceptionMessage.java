@@ -35,4 +35,7 @@ public interface IExceptionMessage {
   static final String PROJECT_NO_ACTIVE_TEAM = /*$$(*/
       "You have no active team, the planning can't be generated" /*)*/;
   static final String PROJECT_NO_TEAM = /*$$(*/ "You have selected no team for this project" /*)*/;
+  static final String PROJECT_PARENT_CYCLE = /*$$(*/
+      "The project %s can't be a sub-project of one of its own sub-projects" /*)*/;
+  static final String PROJECT_HIERARCHY_COMPUTED = /*$$(*/ "Project hierarchy computed" /*)*/;
 }
@@ -24,6 +24,8 @@ import com.axelor.apps.project.db.repo.ProjectRepository;
 import com.axelor.apps.project.db.repo.ResourceBookingRepository;
 import com.axelor.apps.project.db.repo.TeamProjectRepository;
 import com.axelor.apps.project.db.repo.TeamTaskProjectRepository;
+import com.axelor.apps.project.service.ProjectHierarchyService;
+import com.axelor.apps.project.service.ProjectHierarchyServiceImpl;
 import com.axelor.apps.project.service.ProjectService;
 import com.axelor.apps.project.service.ProjectServiceImpl;
 import com.axelor.apps.project.service.TeamTaskService;
@@ -47,5 +49,6 @@ public class ProjectModule extends AxelorModule {
     bind(TeamRepository.class).to(TeamProjectRepository.class);
     bind(TimerTeamTaskService.class).to(TimerTeamTaskServiceImpl.class);
     bind(AbstractResourceBookingRepository.class).to(ResourceBookingRepository.class);
+    bind(ProjectHierarchyService.class).to(ProjectHierarchyServiceImpl.class);
   }
 }
@@ -0,0 +1,50 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.project.service;
+
+import com.axelor.apps.project.db.Project;
+import com.axelor.exception.AxelorException;
+
+public interface ProjectHierarchyService {
+
+  /**
+   * Update the hierarchy of a saved project and of its sub-projects, when the project is new or
+   * was moved under another parent project.
+   *
+   * @param project
+   * @throws AxelorException if the parent project is one of the sub-projects of the project
+   */
+  void updateHierarchy(Project project) throws AxelorException;
+
+  /**
+   * Remove the hierarchy rows of a project, before the project is removed.
+   *
+   * @param project
+   */
+  void removeHierarchy(Project project);
+
+  /** Rebuild the hierarchy of every project from the parent projects. */
+  void computeHierarchy();
+
+  /**
+   * Rebuild the hierarchy of every project if a project has no hierarchy row yet, as in a database
+   * filled before the hierarchy was maintained. To call before reading sub-projects through the
+   * hierarchy.
+   */
+  void checkHierarchy();
+}
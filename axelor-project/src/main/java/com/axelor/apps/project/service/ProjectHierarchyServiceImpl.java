@@ -0,0 +1,225 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.project.service;
+
+import com.axelor.apps.project.db.Project;
+import com.axelor.apps.project.db.ProjectHierarchy;
+import com.axelor.apps.project.db.repo.ProjectHierarchyRepository;
+import com.axelor.apps.project.exception.IExceptionMessage;
+import com.axelor.db.JPA;
+import com.axelor.exception.AxelorException;
+import com.axelor.exception.db.repo.TraceBackRepository;
+import com.axelor.i18n.I18n;
+import com.google.inject.Inject;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProjectHierarchyServiceImpl implements ProjectHierarchyService {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected static final int FLUSH_SIZE = 100;
+
+  protected ProjectHierarchyRepository projectHierarchyRepo;
+
+  @Inject
+  public ProjectHierarchyServiceImpl(ProjectHierarchyRepository projectHierarchyRepo) {
+    this.projectHierarchyRepo = projectHierarchyRepo;
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void updateHierarchy(Project project) throws AxelorException {
+
+    Project parentProject = project.getParentProject();
+    List<ProjectHierarchy> ancestorList = getAncestors(project, 1);
+
+    if (ancestorList.isEmpty()) {
+      createHierarchy(project, project, 0);
+    } else {
+      Long currentParentId =
+          ancestorList
+              .stream()
+              .filter(hierarchy -> hierarchy.getDepth() == 1)
+              .map(hierarchy -> hierarchy.getAncestor().getId())
+              .findFirst()
+              .orElse(null);
+      if (Objects.equals(currentParentId, parentProject != null ? parentProject.getId() : null)) {
+        return;
+      }
+    }
+
+    List<ProjectHierarchy> subProjectList =
+        projectHierarchyRepo.all().filter("self.ancestor = ?1", project).fetch();
+
+    if (parentProject != null
+        && subProjectList
+            .stream()
+            .anyMatch(hierarchy -> hierarchy.getDescendant().equals(parentProject))) {
+      throw new AxelorException(
+          project,
+          TraceBackRepository.CATEGORY_INCONSISTENCY,
+          I18n.get(IExceptionMessage.PROJECT_PARENT_CYCLE),
+          project.getFullName());
+    }
+
+    // Detach the sub-projects from the former ancestors of the project
+    JPA.em()
+        .createQuery(
+            "DELETE FROM ProjectHierarchy self"
+                + " WHERE self.descendant IN"
+                + " (SELECT sub.descendant FROM ProjectHierarchy sub WHERE sub.ancestor = :project)"
+                + " AND self.ancestor IN"
+                + " (SELECT anc.ancestor FROM ProjectHierarchy anc"
+                + " WHERE anc.descendant = :project AND anc.depth > 0)")
+        .setParameter("project", project)
+        .executeUpdate();
+
+    if (parentProject == null) {
+      return;
+    }
+
+    List<ProjectHierarchy> parentAncestorList = getAncestors(parentProject, null);
+    if (parentAncestorList.isEmpty()) {
+      updateHierarchy(parentProject);
+      parentAncestorList = getAncestors(parentProject, null);
+    }
+
+    // Attach the sub-projects to the parent project and its ancestors
+    int count = 0;
+    for (ProjectHierarchy ancestor : parentAncestorList) {
+      for (ProjectHierarchy subProject : subProjectList) {
+        createHierarchy(
+            ancestor.getAncestor(),
+            subProject.getDescendant(),
+            ancestor.getDepth() + subProject.getDepth() + 1);
+        if (++count % FLUSH_SIZE == 0) {
+          JPA.flush();
+        }
+      }
+    }
+  }
+
+  /** Hierarchy rows of the project ancestors, the project itself included, up to a depth. */
+  protected List<ProjectHierarchy> getAncestors(Project project, Integer maxDepth) {
+
+    if (maxDepth == null) {
+      return projectHierarchyRepo.all().filter("self.descendant = ?1", project).fetch();
+    }
+    return projectHierarchyRepo
+        .all()
+        .filter("self.descendant = ?1 AND self.depth <= ?2", project, maxDepth)
+        .fetch();
+  }
+
+  protected ProjectHierarchy createHierarchy(Project ancestor, Project descendant, int depth) {
+
+    ProjectHierarchy hierarchy = new ProjectHierarchy();
+    hierarchy.setAncestor(ancestor);
+    hierarchy.setDescendant(descendant);
+    hierarchy.setDepth(depth);
+    return projectHierarchyRepo.save(hierarchy);
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void removeHierarchy(Project project) {
+
+    JPA.em()
+        .createQuery(
+            "DELETE FROM ProjectHierarchy self"
+                + " WHERE self.ancestor = :project OR self.descendant = :project")
+        .setParameter("project", project)
+        .executeUpdate();
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void computeHierarchy() {
+    buildHierarchy(true);
+  }
+
+  @Override
+  @Transactional(rollbackOn = {AxelorException.class, Exception.class})
+  public void checkHierarchy() {
+
+    long missingCount =
+        JPA.em()
+            .createQuery(
+                "SELECT COUNT(self) FROM Project self WHERE NOT EXISTS"
+                    + " (SELECT hierarchy FROM ProjectHierarchy hierarchy"
+                    + " WHERE hierarchy.descendant = self AND hierarchy.depth = 0)",
+                Long.class)
+            .getSingleResult();
+
+    if (missingCount > 0) {
+      log.debug("{} project(s) without hierarchy, rebuilding the hierarchy", missingCount);
+      buildHierarchy(false);
+    }
+  }
+
+  /**
+   * Rebuild the hierarchy of every project from the parent projects.
+   *
+   * @param clear whether to clear the persistence context while creating the rows, which can't be
+   *     done inside the transaction of another process
+   */
+  protected void buildHierarchy(boolean clear) {
+
+    JPA.em().createQuery("DELETE FROM ProjectHierarchy self").executeUpdate();
+
+    Map<Long, Long> parentIdMap = new HashMap<>();
+    for (Object[] row :
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, parent.id FROM Project self LEFT JOIN self.parentProject parent",
+                Object[].class)
+            .getResultList()) {
+      parentIdMap.put((Long) row[0], (Long) row[1]);
+    }
+
+    int count = 0;
+    for (Long projectId : parentIdMap.keySet()) {
+      Project project = JPA.em().getReference(Project.class, projectId);
+      List<Long> ancestorIdList = new ArrayList<>();
+      Long ancestorId = projectId;
+      // Stop on a cycle in the parent projects
+      while (ancestorId != null && !ancestorIdList.contains(ancestorId)) {
+        ancestorIdList.add(ancestorId);
+        ancestorId = parentIdMap.get(ancestorId);
+      }
+      for (int depth = 0; depth < ancestorIdList.size(); depth++) {
+        createHierarchy(
+            JPA.em().getReference(Project.class, ancestorIdList.get(depth)), project, depth);
+        if (++count % FLUSH_SIZE == 0) {
+          JPA.flush();
+          if (clear) {
+            JPA.clear();
+          }
+        }
+      }
+    }
+  }
+}
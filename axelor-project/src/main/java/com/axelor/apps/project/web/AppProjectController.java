@@ -0,0 +1,39 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.project.web;
+
+import com.axelor.apps.project.exception.IExceptionMessage;
+import com.axelor.apps.project.service.ProjectHierarchyService;
+import com.axelor.i18n.I18n;
+import com.axelor.rpc.ActionRequest;
+import com.axelor.rpc.ActionResponse;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+@Singleton
+public class AppProjectController {
+
+  @Inject private ProjectHierarchyService projectHierarchyService;
+
+  public void computeHierarchy(ActionRequest request, ActionResponse response) {
+
+    projectHierarchyService.computeHierarchy();
+
+    response.setFlash(I18n.get(IExceptionMessage.PROJECT_HIERARCHY_COMPUTED));
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.sale.db.repo;
+
+import com.axelor.apps.sale.db.ConfiguratorCreator;
+import com.axelor.apps.sale.db.ConfiguratorFormula;
+import com.axelor.apps.sale.service.configurator.ConfiguratorFormulaCache;
+import com.axelor.inject.Beans;
+import java.util.List;
+
+public class ConfiguratorCreatorSaleRepository extends ConfiguratorCreatorRepository {
+
+  @Override
+  public ConfiguratorCreator save(ConfiguratorCreator creator) {
+    invalidateFormulas(creator);
+    return super.save(creator);
+  }
+
+  @Override
+  public void remove(ConfiguratorCreator creator) {
+    invalidateFormulas(creator);
+    super.remove(creator);
+  }
+
+  protected void invalidateFormulas(ConfiguratorCreator creator) {
+    ConfiguratorFormulaCache formulaCache = Beans.get(ConfiguratorFormulaCache.class);
+    invalidateFormulas(formulaCache, creator.getConfiguratorProductFormulaList());
+    invalidateFormulas(formulaCache, creator.getConfiguratorSOLineFormulaList());
+  }
+
+  protected void invalidateFormulas(
+      ConfiguratorFormulaCache formulaCache, List<? extends ConfiguratorFormula> formulas) {
+    if (formulas == null) {
+      return;
+    }
+    for (ConfiguratorFormula formula : formulas) {
+      formulaCache.invalidate(formula.getId());
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.sale.service.configurator;
+
+import com.axelor.apps.sale.db.ConfiguratorFormula;
+import com.axelor.script.ScriptBindings;
+import com.google.inject.Singleton;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ImportCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of the compiled configurator formulas by formula id. An entry is compiled again when the
+ * formula has changed, and removed when its configurator creator is saved or removed.
+ *
+ * <p>The formulas are also checked through this cache, so that a formula is validated with the
+ * same imports as the ones it is evaluated with.
+ */
+@Singleton
+public class ConfiguratorFormulaCache {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final CompilerConfiguration config = new CompilerConfiguration();
+
+  private final Map<Long, CompiledFormula> cache = new ConcurrentHashMap<>();
+
+  public ConfiguratorFormulaCache() {
+    ImportCustomizer customizer = new ImportCustomizer();
+    customizer.addImports(
+        "java.time.LocalDate",
+        "java.time.LocalDateTime",
+        "java.time.LocalTime",
+        "java.time.ZonedDateTime");
+    customizer.addStaticStars("java.lang.Math");
+    config.addCompilationCustomizers(customizer);
+  }
+
+  /**
+   * Create the binding the formulas are evaluated against. The binding reads the given values, so
+   * it can be reused for all the formulas of a configurator.
+   *
+   * @param values the attributes of the configurator
+   * @return the binding
+   */
+  public Binding createBinding(Map<String, Object> values) {
+    return new Binding(new ScriptBindings(values));
+  }
+
+  /**
+   * Evaluate a formula, compiling it first if it is not in the cache or has changed since it was
+   * compiled.
+   *
+   * @param formula the formula to evaluate
+   * @param binding a binding created by {@link #createBinding(Map)}
+   * @return the value of the formula
+   */
+  public Object evaluate(ConfiguratorFormula formula, Binding binding) {
+    return InvokerHelper.createScript(get(formula).scriptClass, binding).run();
+  }
+
+  public void invalidate(Long formulaId) {
+    if (formulaId != null) {
+      cache.remove(formulaId);
+    }
+  }
+
+  protected CompiledFormula get(ConfiguratorFormula formula) {
+
+    if (formula.getId() == null) {
+      return compile(formula);
+    }
+
+    CompiledFormula compiledFormula = cache.get(formula.getId());
+
+    if (compiledFormula == null || !compiledFormula.matches(formula)) {
+      compiledFormula = compile(formula);
+      cache.put(formula.getId(), compiledFormula);
+    }
+
+    return compiledFormula;
+  }
+
+  protected CompiledFormula compile(ConfiguratorFormula formula) {
+    long start = System.nanoTime();
+
+    // a loader per formula, so the class of a replaced formula can be unloaded
+    GroovyClassLoader loader = new GroovyClassLoader(getClass().getClassLoader(), config);
+    Class<? extends Script> scriptClass =
+        loader.parseClass(formula.getFormula(), "ConfiguratorFormula" + formula.getId());
+
+    log.debug(
+        "Configurator formula {} compiled in {} ms",
+        formula.getId(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+    return new CompiledFormula(formula, scriptClass);
+  }
+
+  protected static class CompiledFormula {
+
+    private final Integer version;
+    private final String formula;
+    private final Class<? extends Script> scriptClass;
+
+    CompiledFormula(ConfiguratorFormula formula, Class<? extends Script> scriptClass) {
+      this.version = formula.getVersion();
+      this.formula = formula.getFormula();
+      this.scriptClass = scriptClass;
+    }
+
+    boolean matches(ConfiguratorFormula formula) {
+      return Objects.equals(version, formula.getVersion())
+          && Objects.equals(this.formula, formula.getFormula());
+    }
+  }
+}
@@ -26,7 +26,6 @@ import com.axelor.exception.AxelorException;
 import com.axelor.exception.db.repo.TraceBackRepository;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
-import com.axelor.script.GroovyScriptHelper;
 import com.axelor.script.ScriptBindings;
 
 public class ConfiguratorFormulaServiceImpl implements ConfiguratorFormulaService {
@@ -36,7 +35,10 @@ public class ConfiguratorFormulaServiceImpl implements ConfiguratorFormulaServic
       throws AxelorException {
     ScriptBindings defaultValueBindings =
         Beans.get(ConfiguratorCreatorService.class).getTestingValues(creator);
-    Object result = new GroovyScriptHelper(defaultValueBindings).eval(formula.getFormula());
+    // checked with the compiler used by the configurators, so both resolve names the same way
+    ConfiguratorFormulaCache formulaCache = Beans.get(ConfiguratorFormulaCache.class);
+    Object result =
+        formulaCache.evaluate(formula, formulaCache.createBinding(defaultValueBindings));
     String wantedTypeName = formula.getMetaField().getTypeName();
     if (result == null) {
       throw new AxelorException(
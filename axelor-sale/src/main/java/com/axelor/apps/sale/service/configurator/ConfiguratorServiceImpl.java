@@ -47,25 +47,35 @@ import com.axelor.rpc.JsonContext;
 import com.axelor.script.GroovyScriptHelper;
 import com.axelor.script.ScriptHelper;
 import com.google.inject.persist.Transactional;
+import groovy.lang.Binding;
 import groovy.lang.MissingPropertyException;
+import java.lang.invoke.MethodHandles;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ConfiguratorServiceImpl implements ConfiguratorService {
 
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
   @Override
   public void updateIndicators(
       Configurator configurator, JsonContext jsonAttributes, JsonContext jsonIndicators)
       throws AxelorException {
-    if (configurator.getConfiguratorCreator() == null) {
+    ConfiguratorCreator creator = configurator.getConfiguratorCreator();
+    if (creator == null) {
       return;
     }
-    List<MetaJsonField> indicators = configurator.getConfiguratorCreator().getIndicators();
+    long start = System.nanoTime();
+    Map<String, ConfiguratorFormula> formulas = getFormulasByFieldName(creator);
+    Binding binding = createBinding(jsonAttributes);
+    List<MetaJsonField> indicators = creator.getIndicators();
     for (MetaJsonField indicator : indicators) {
       try {
-        Object calculatedValue =
-            computeIndicatorValue(configurator, indicator.getName(), jsonAttributes);
+        Object calculatedValue = computeIndicatorValue(formulas, indicator.getName(), binding);
         checkType(calculatedValue, indicator);
         jsonIndicators.put(indicator.getName(), calculatedValue);
       } catch (MissingPropertyException e) {
@@ -73,6 +83,11 @@ public class ConfiguratorServiceImpl implements ConfiguratorService {
         continue;
       }
     }
+    log.debug(
+        "{} indicators of configurator {} computed in {} ms",
+        indicators.size(),
+        configurator.getId(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
   }
 
   @Override
@@ -230,13 +245,11 @@ public class ConfiguratorServiceImpl implements ConfiguratorService {
         configurator.getConfiguratorCreator().getConfiguratorSOLineFormulaList();
     if (formulas != null) {
       Mapper mapper = Mapper.of(SaleOrderLine.class);
+      Binding binding = createBinding(attributes);
       for (ConfiguratorSOLineFormula formula : formulas) {
         // exclude the product field
         if (formula.getUpdateFromSelect() == ConfiguratorRepository.UPDATE_FROM_CONFIGURATOR) {
-          // we add "_1" because computeIndicatorValue expect an indicator name.
-          Object valueToUpdate =
-              computeIndicatorValue(
-                  configurator, formula.getMetaField().getName() + "_1", attributes);
+          Object valueToUpdate = computeFormula(formula, binding);
           // if many to one, go search value in database.
           if ("ManyToOne".equals(formula.getMetaField().getRelationship())) {
             fixRelationalField(saleOrderLine, (Model) valueToUpdate, formula.getMetaField());
@@ -259,27 +272,80 @@ public class ConfiguratorServiceImpl implements ConfiguratorService {
    */
   protected Object computeIndicatorValue(
       Configurator configurator, String indicatorName, JsonContext jsonAttributes) {
-    ConfiguratorCreator creator = configurator.getConfiguratorCreator();
+    return computeIndicatorValue(
+        getFormulasByFieldName(configurator.getConfiguratorCreator()),
+        indicatorName,
+        createBinding(jsonAttributes));
+  }
+
+  /**
+   * Compute the value of one indicator from the formulas of the configurator creator, indexed by
+   * {@link #getFormulasByFieldName(ConfiguratorCreator)}.
+   *
+   * @param formulas
+   * @param indicatorName
+   * @param binding
+   * @return
+   */
+  protected Object computeIndicatorValue(
+      Map<String, ConfiguratorFormula> formulas, String indicatorName, Binding binding) {
+    String fieldName = indicatorName.substring(0, indicatorName.indexOf('_'));
+    ConfiguratorFormula formula = formulas.get(fieldName);
+    if (formula == null) {
+      return null;
+    }
+    return computeFormula(formula, binding);
+  }
+
+  /**
+   * Index the formulas used to compute the indicators of a configurator by the name of their
+   * field.
+   *
+   * @param creator
+   * @return
+   */
+  protected Map<String, ConfiguratorFormula> getFormulasByFieldName(ConfiguratorCreator creator) {
     List<? extends ConfiguratorFormula> formulas;
     if (creator.getGenerateProduct()) {
       formulas = creator.getConfiguratorProductFormulaList();
     } else {
       formulas = creator.getConfiguratorSOLineFormulaList();
     }
-    String groovyFormula = null;
-    for (ConfiguratorFormula formula : formulas) {
-      String fieldName = indicatorName;
-      fieldName = fieldName.substring(0, fieldName.indexOf('_'));
-      MetaField metaField = formula.getMetaField();
-      if (metaField.getName().equals(fieldName)) {
-        groovyFormula = formula.getFormula();
-        break;
+    Map<String, ConfiguratorFormula> formulasByFieldName = new HashMap<>();
+    if (formulas != null) {
+      for (ConfiguratorFormula formula : formulas) {
+        formulasByFieldName.putIfAbsent(formula.getMetaField().getName(), formula);
       }
     }
-    if (groovyFormula == null || jsonAttributes == null) {
+    return formulasByFieldName;
+  }
+
+  /**
+   * Create the binding to evaluate the formulas of a configurator with, once for all its formulas.
+   *
+   * @param jsonAttributes
+   * @return the binding, or null if there is no attributes
+   */
+  protected Binding createBinding(JsonContext jsonAttributes) {
+    if (jsonAttributes == null) {
+      return null;
+    }
+    return Beans.get(ConfiguratorFormulaCache.class).createBinding(jsonAttributes);
+  }
+
+  /**
+   * Evaluate a formula of the configurator creator with its compiled script from {@link
+   * ConfiguratorFormulaCache}.
+   *
+   * @param formula
+   * @param binding
+   * @return
+   */
+  protected Object computeFormula(ConfiguratorFormula formula, Binding binding) {
+    if (formula.getFormula() == null || binding == null) {
       return null;
     }
-    return computeFormula(groovyFormula, jsonAttributes);
+    return Beans.get(ConfiguratorFormulaCache.class).evaluate(formula, binding);
   }
 
   @Override
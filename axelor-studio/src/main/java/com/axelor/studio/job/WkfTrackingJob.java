@@ -0,0 +1,37 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.studio.job;
+
+import com.axelor.studio.service.wkf.WkfTrackingEventProcessor;
+import com.google.inject.Inject;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+
+/**
+ * A {@link Job} that processes the pending workflow tracking events, like the ones recorded just
+ * before the application stopped.
+ */
+public class WkfTrackingJob implements Job {
+
+  @Inject private WkfTrackingEventProcessor trackingEventProcessor;
+
+  @Override
+  public void execute(JobExecutionContext context) {
+    trackingEventProcessor.process();
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.studio.service.wkf;
+
+import com.axelor.app.AppSettings;
+import com.axelor.apps.tool.RequestScopeTool;
+import com.axelor.db.JPA;
+import com.axelor.exception.service.TraceBackService;
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaSchedule;
+import com.axelor.meta.db.repo.MetaScheduleRepository;
+import com.axelor.studio.db.WkfTrackingEvent;
+import com.axelor.studio.job.WkfTrackingJob;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Singleton;
+import com.google.inject.persist.Transactional;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Add the pending workflow tracking events to the tracking records from a background thread. A
+ * run is scheduled shortly after a status change, so that the events of several changes are
+ * processed together once their transactions are committed. The events left when the application
+ * stopped are processed by {@link WkfTrackingJob}.
+ *
+ * <p>Event ids and status dates are set before the transaction of the event is committed, so an
+ * event can become visible after a later one. Only the events older than a settle delay are
+ * processed, in the order of their status date, and the other ones on a later run.
+ *
+ * <p>The scheduler is shut down when the JVM stops; the events not processed yet are kept.
+ */
+@Singleton
+public class WkfTrackingEventProcessor {
+
+  private final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  protected static final String DELAY_SETTING = "studio.wkf.tracking.delay";
+  protected static final String BATCH_SIZE_SETTING = "studio.wkf.tracking.batch";
+  protected static final String SETTLE_DELAY_SETTING = "studio.wkf.tracking.settle";
+
+  protected static final String JOB_SCHEDULE_NAME =
+      "Process the pending workflow tracking events on every 5 minutes";
+  protected static final String JOB_SCHEDULE_CRON = "0 0/5 * * * ?";
+
+  protected final long delay;
+  protected final int batchSize;
+  protected final long settleDelay;
+
+  protected final ScheduledExecutorService scheduler;
+  protected final AtomicBoolean scheduled = new AtomicBoolean();
+  protected final AtomicBoolean jobScheduleChecked = new AtomicBoolean();
+
+  public WkfTrackingEventProcessor() {
+
+    AppSettings settings = AppSettings.get();
+
+    this.delay = Math.max(0, settings.getInt(DELAY_SETTING, 2000));
+    this.batchSize = Math.max(1, settings.getInt(BATCH_SIZE_SETTING, 500));
+    this.settleDelay = Math.max(0, settings.getInt(SETTLE_DELAY_SETTING, 5000));
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("wkf-tracking").setDaemon(true).build());
+
+    Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "wkf-tracking-shutdown"));
+  }
+
+  /** Schedule a run, unless one is already waiting or the scheduler is shut down. */
+  public void schedule() {
+    if (!scheduler.isShutdown() && scheduled.compareAndSet(false, true)) {
+      scheduler.schedule(RequestScopeTool.inRequestScope(this::run), delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stop the scheduler: the waiting run is cancelled and the running one is given some time to
+   * end. The pending events are processed on the next start.
+   */
+  public void shutdown() {
+    scheduler.shutdownNow();
+    try {
+      if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+        log.warn("Workflow tracking events still being processed at shutdown");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  protected void run() {
+    scheduled.set(false);
+    try {
+      if (jobScheduleChecked.compareAndSet(false, true)) {
+        createJobSchedule();
+      }
+      process();
+      if (hasTrackingEvents()) {
+        schedule();
+      }
+    } catch (Exception e) {
+      TraceBackService.trace(e);
+    }
+  }
+
+  /**
+   * Create the schedule of {@link WkfTrackingJob} if it is missing, like on a database created
+   * before the job was added. The job is started with the other schedules on the next start.
+   */
+  @Transactional
+  protected void createJobSchedule() {
+
+    MetaScheduleRepository metaScheduleRepo = Beans.get(MetaScheduleRepository.class);
+    String job = WkfTrackingJob.class.getName();
+
+    if (metaScheduleRepo.all().filter("self.job = ?1", job).count() > 0) {
+      return;
+    }
+
+    MetaSchedule metaSchedule = new MetaSchedule();
+    metaSchedule.setName(JOB_SCHEDULE_NAME);
+    metaSchedule.setJob(job);
+    metaSchedule.setCron(JOB_SCHEDULE_CRON);
+    metaSchedule.setActive(true);
+    metaScheduleRepo.save(metaSchedule);
+
+    log.info("Schedule of {} created", job);
+  }
+
+  /**
+   * Process the settled tracking events by batches, in the order of their status date.
+   *
+   * @return the number of events processed
+   */
+  public synchronized int process() {
+
+    WkfTrackingService wkfTrackingService = Beans.get(WkfTrackingService.class);
+    LocalDateTime settledDateT = LocalDateTime.now().minus(settleDelay, ChronoUnit.MILLIS);
+    int count = 0;
+
+    try {
+      List<WkfTrackingEvent> trackingEventList;
+
+      while (!(trackingEventList = fetchTrackingEvents(settledDateT)).isEmpty()) {
+        if (!wkfTrackingService.processTrackingEvents(trackingEventList)) {
+          log.debug("Workflow tracking events already processed by another transaction");
+          break;
+        }
+        count += trackingEventList.size();
+        JPA.clear();
+      }
+    } finally {
+      JPA.clear();
+    }
+
+    log.debug("{} workflow tracking event(s) processed", count);
+    return count;
+  }
+
+  protected List<WkfTrackingEvent> fetchTrackingEvents(LocalDateTime settledDateT) {
+    return JPA.em()
+        .createQuery(
+            "SELECT self FROM WkfTrackingEvent self "
+                + "WHERE self.statusDateT < :settledDateT "
+                + "ORDER BY self.statusDateT, self.id",
+            WkfTrackingEvent.class)
+        .setParameter("settledDateT", settledDateT)
+        .setMaxResults(batchSize)
+        .getResultList();
+  }
+
+  protected boolean hasTrackingEvents() {
+    return !JPA.em()
+        .createQuery("SELECT self.id FROM WkfTrackingEvent self", Long.class)
+        .setMaxResults(1)
+        .getResultList()
+        .isEmpty();
+  }
+}
@@ -18,6 +18,7 @@
 package com.axelor.studio.service.wkf;
 
 import com.axelor.db.EntityHelper;
+import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.meta.MetaStore;
 import com.axelor.meta.db.MetaJsonField;
@@ -27,10 +28,12 @@ import com.axelor.rpc.Context;
 import com.axelor.rpc.JsonContext;
 import com.axelor.studio.db.Wkf;
 import com.axelor.studio.db.WkfTracking;
+import com.axelor.studio.db.WkfTrackingEvent;
 import com.axelor.studio.db.WkfTrackingLine;
 import com.axelor.studio.db.WkfTrackingTime;
 import com.axelor.studio.db.WkfTrackingTotal;
 import com.axelor.studio.db.repo.WkfRepository;
+import com.axelor.studio.db.repo.WkfTrackingEventRepository;
 import com.axelor.studio.db.repo.WkfTrackingLineRepository;
 import com.axelor.studio.db.repo.WkfTrackingRepository;
 import com.axelor.studio.db.repo.WkfTrackingTimeRepository;
@@ -42,7 +45,10 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import javax.script.SimpleBindings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,6 +57,9 @@ import org.slf4j.LoggerFactory;
  * Service handle tracking of workflow instance for particular record. Creates WkfTracking,
  * WkfTrackingLine, WkfTrackingTime and WkfTrackingTotal records.
  *
+ * <p>Status changes are first recorded as WkfTrackingEvent records, then added to the tracking
+ * records in batches by {@link WkfTrackingEventProcessor}.
+ *
  * @author axelor
  */
 public class WkfTrackingService {
@@ -65,24 +74,21 @@ public class WkfTrackingService {
 
   @Inject private WkfTrackingRepository wkfTrackingRepo;
 
-  @Inject private WkfTrackingLineRepository trackingLineRepo;
+  @Inject protected WkfTrackingLineRepository trackingLineRepo;
 
-  @Inject private WkfTrackingTotalRepository trackingTotalRepo;
+  @Inject protected WkfTrackingTotalRepository trackingTotalRepo;
 
-  @Inject private WkfTrackingTimeRepository trackingTimeRepo;
+  @Inject protected WkfTrackingTimeRepository trackingTimeRepo;
 
-  private BigDecimal durationHrs;
+  @Inject private WkfTrackingEventRepository trackingEventRepo;
 
-  private String oldStatus;
+  @Inject private WkfTrackingEventProcessor trackingEventProcessor;
 
   /**
-   * Root method to access the service. It creates WkfTracking record. WkfTracking is linked with
-   * record of model and workflow of model.
+   * Root method to access the service. It records the current status of the record, which is
+   * added later to the WkfTracking linked with the record and the workflow of its model.
    *
-   * @param model Model having workflow.
-   * @param modelId Record id of model to track.
-   * @param status Current wkfStatus of record.
-   * @throws ClassNotFoundException
+   * @param object Record of a model having workflow.
    */
   public void track(Object object) {
 
@@ -105,13 +111,14 @@ public class WkfTrackingService {
         ctx = new Context(model.getId(), object.getClass());
       }
 
-      WkfTracking wkfTracking = getWorkflowTracking(ctx, object.getClass().getName());
+      String recordModel = getRecordModel(ctx, object.getClass().getName());
+      Wkf wkf = getWorkflow(ctx, recordModel);
 
-      if (wkfTracking == null) {
+      if (wkf == null) {
         return;
       }
 
-      MetaJsonField wkfField = wkfTracking.getWkf().getStatusField();
+      MetaJsonField wkfField = wkf.getStatusField();
 
       Object status = null;
       status = ctx.get(wkfField.getName());
@@ -128,32 +135,28 @@ public class WkfTrackingService {
         return;
       }
 
-      durationHrs = BigDecimal.ZERO;
-      WkfTrackingLine trackingLine = updateTrackingLine(wkfTracking, item.getTitle());
-      if (trackingLine != null) {
-        updateTrackingTotal(wkfTracking, item.getTitle());
-        updateTrackingTime(wkfTracking, item.getTitle());
-      }
+      addTrackingEvent(wkf, recordModel, (Long) ctx.get("id"), item.getTitle());
+      trackingEventProcessor.schedule();
     }
   }
 
-  /**
-   * Method find or create WkfTracking for model record.
-   *
-   * @param model Model of record.
-   * @param modelId Id of record.
-   * @return WkfTracking instance created/found.s
-   */
-  @Transactional
-  public WkfTracking getWorkflowTracking(SimpleBindings ctx, String model) {
+  protected String getRecordModel(SimpleBindings ctx, String model) {
 
     String jsonModel = (String) ctx.get("jsonModel");
 
     log.debug("Context json model: {}", jsonModel);
 
-    if (jsonModel != null) {
-      model = jsonModel;
-    }
+    return jsonModel != null ? jsonModel : model;
+  }
+
+  /**
+   * Method find the workflow of the model record.
+   *
+   * @param ctx Context of the record.
+   * @param model Model of record.
+   * @return Wkf of the record, null if the model has no workflow.
+   */
+  public Wkf getWorkflow(SimpleBindings ctx, String model) {
 
     List<Wkf> wkfs = wkfRepo.all().filter("self.model = ?1", model).fetch();
 
@@ -162,22 +165,49 @@ public class WkfTrackingService {
       return null;
     }
 
-    Wkf wkf = null;
-
     if (wkfs.size() > 1) {
       for (Wkf w : wkfs) {
         if (ctx.get(w.getJsonField()) != null) {
-          wkf = w;
-          break;
+          return w;
         }
       }
-      if (wkf == null) {
-        return null;
-      }
-    } else {
-      wkf = wkfs.get(0);
+      return null;
+    }
+
+    return wkfs.get(0);
+  }
+
+  /**
+   * Method find or create WkfTracking for model record.
+   *
+   * @param ctx Context of the record.
+   * @param model Model of record.
+   * @return WkfTracking instance created/found.
+   */
+  @Transactional
+  public WkfTracking getWorkflowTracking(SimpleBindings ctx, String model) {
+
+    model = getRecordModel(ctx, model);
+    Wkf wkf = getWorkflow(ctx, model);
+
+    if (wkf == null) {
+      return null;
     }
 
+    return getWorkflowTracking(wkf, model, (Long) ctx.get("id"));
+  }
+
+  /**
+   * Method find or create WkfTracking for a record of the workflow.
+   *
+   * @param wkf Workflow of the record.
+   * @param model Model of record.
+   * @param recordId Id of record.
+   * @return WkfTracking instance created/found.
+   */
+  @Transactional
+  public WkfTracking getWorkflowTracking(Wkf wkf, String model, Long recordId) {
+
     WkfTracking wkfTracking =
         wkfTrackingRepo
             .all()
@@ -185,104 +215,201 @@ public class WkfTrackingService {
                 "self.wkf = ?1 and self.recordModel = ?2 and self.recordId = ?3",
                 wkf,
                 model,
-                ctx.get("id"))
+                recordId)
             .fetchOne();
 
     if (wkfTracking == null) {
       wkfTracking = new WkfTracking();
       wkfTracking.setWkf(wkf);
       wkfTracking.setRecordModel(model);
-      wkfTracking.setRecordId((Long) ctx.get("id"));
+      wkfTracking.setRecordId(recordId);
       wkfTracking = wkfTrackingRepo.save(wkfTracking);
     }
 
     return wkfTracking;
   }
 
+  @Transactional
+  public void addTrackingEvent(Wkf wkf, String model, Long recordId, String status) {
+
+    WkfTrackingEvent trackingEvent = new WkfTrackingEvent();
+    trackingEvent.setWkf(wkf);
+    trackingEvent.setRecordModel(model);
+    trackingEvent.setRecordId(recordId);
+    trackingEvent.setStatus(status);
+    trackingEvent.setStatusDateT(LocalDateTime.now());
+    trackingEventRepo.save(trackingEvent);
+  }
+
   /**
-   * Method add new WkfTrackingLine in WkfTracking for given status if that status is not last
-   * status added.
+   * Add the tracking events to the tracking records, in the order of the events, then remove them.
+   * The events are removed first: if some of them were already removed by another transaction,
+   * nothing is done so that no event is counted twice.
    *
-   * @param wkfTracking WkfTracking to update with new line.
-   * @param status Status to check for update.
-   * @return WkfTrackingLine created or return null if status not changed.
+   * @param trackingEventList Tracking events, ordered by status date.
+   * @return true if the events were processed, false if some of them were already processed.
    */
   @Transactional
-  public WkfTrackingLine updateTrackingLine(WkfTracking wkfTracking, String status) {
+  public boolean processTrackingEvents(List<WkfTrackingEvent> trackingEventList) {
 
-    WkfTrackingLine trackingLine =
-        trackingLineRepo.all().filter("self.wkfTracking = ?1", wkfTracking).fetchOne();
+    List<Long> idList =
+        trackingEventList.stream().map(WkfTrackingEvent::getId).collect(Collectors.toList());
 
-    if (trackingLine == null || !trackingLine.getStatus().equals(status)) {
+    int removed =
+        JPA.em()
+            .createQuery("DELETE FROM WkfTrackingEvent self WHERE self.id IN (:ids)")
+            .setParameter("ids", idList)
+            .executeUpdate();
 
-      LocalDateTime now = LocalDateTime.now();
+    if (removed != idList.size()) {
+      JPA.em().getTransaction().setRollbackOnly();
+      return false;
+    }
 
-      if (trackingLine != null) {
-        oldStatus = trackingLine.getStatus();
-        LocalDateTime lastUpdated = trackingLine.getCreatedOn();
-        long minutes = Duration.between(lastUpdated, now).toMinutes();
-        log.debug("Minutes between {} and {} : {}", lastUpdated, now, minutes);
-        durationHrs = new BigDecimal(minutes).divide(new BigDecimal(60), 2, RoundingMode.HALF_UP);
-        log.debug("Hours between {} and {} : {}", lastUpdated, now, durationHrs);
-        trackingLine.setTimeSpent(durationHrs);
-        trackingLineRepo.save(trackingLine);
-      }
+    Map<String, TrackingState> trackingStateMap = new HashMap<>();
+
+    for (WkfTrackingEvent trackingEvent : trackingEventList) {
+      TrackingState trackingState =
+          trackingStateMap.computeIfAbsent(
+              trackingEvent.getWkf().getId()
+                  + ":"
+                  + trackingEvent.getRecordModel()
+                  + ":"
+                  + trackingEvent.getRecordId(),
+              key -> getTrackingState(trackingEvent));
+      updateTracking(trackingState, trackingEvent.getStatus(), trackingEvent.getStatusDateT());
+    }
+
+    return true;
+  }
+
+  protected TrackingState getTrackingState(WkfTrackingEvent trackingEvent) {
+
+    TrackingState trackingState = new TrackingState();
+
+    trackingState.wkfTracking =
+        getWorkflowTracking(
+            trackingEvent.getWkf(), trackingEvent.getRecordModel(), trackingEvent.getRecordId());
+    trackingState.lastLine =
+        trackingLineRepo
+            .all()
+            .filter("self.wkfTracking = ?1", trackingState.wkfTracking)
+            .order("-id")
+            .fetchOne();
+
+    for (WkfTrackingTotal trackingTotal :
+        trackingTotalRepo
+            .all()
+            .filter("self.wkfTracking = ?1", trackingState.wkfTracking)
+            .order("id")
+            .fetch()) {
+      trackingState.totalMap.putIfAbsent(trackingTotal.getStatus(), trackingTotal);
+    }
+
+    for (WkfTrackingTime trackingTime :
+        trackingTimeRepo
+            .all()
+            .filter("self.wkfTracking = ?1", trackingState.wkfTracking)
+            .order("id")
+            .fetch()) {
+      trackingState.timeMap.putIfAbsent(trackingTime.getStatus(), trackingTime);
+    }
+
+    return trackingState;
+  }
+
+  /**
+   * Add a new WkfTrackingLine for the status if it is not the last status added, and update the
+   * WkfTrackingTotal of the status and the WkfTrackingTime of the previous status. A status older
+   * than the last status added is ignored: it was committed after a later status was processed.
+   *
+   * @param trackingState Tracking records of the record.
+   * @param status Status of the record.
+   * @param statusDateT Date and time of the status change.
+   */
+  protected void updateTracking(
+      TrackingState trackingState, String status, LocalDateTime statusDateT) {
+
+    WkfTrackingLine lastLine = trackingState.lastLine;
+
+    if (lastLine != null
+        && lastLine.getStatusDateT() != null
+        && statusDateT.isBefore(lastLine.getStatusDateT())) {
+      log.warn(
+          "Workflow tracking status {} at {} older than the last status {} at {}, ignored",
+          status,
+          statusDateT,
+          lastLine.getStatus(),
+          lastLine.getStatusDateT());
+      return;
+    }
+
+    if (lastLine != null && lastLine.getStatus().equals(status)) {
+      return;
+    }
 
-      trackingLine = new WkfTrackingLine();
-      trackingLine.setWkfTracking(wkfTracking);
-      trackingLine.setStatus(status);
-      trackingLine.setWkfTracking(wkfTracking);
-      return trackingLineRepo.save(trackingLine);
+    if (lastLine != null) {
+      LocalDateTime lastUpdated =
+          lastLine.getStatusDateT() != null ? lastLine.getStatusDateT() : lastLine.getCreatedOn();
+      long minutes = Duration.between(lastUpdated, statusDateT).toMinutes();
+      log.debug("Minutes between {} and {} : {}", lastUpdated, statusDateT, minutes);
+      BigDecimal durationHrs =
+          new BigDecimal(minutes).divide(new BigDecimal(60), 2, RoundingMode.HALF_UP);
+      log.debug("Hours between {} and {} : {}", lastUpdated, statusDateT, durationHrs);
+      lastLine.setTimeSpent(durationHrs);
+      trackingLineRepo.save(lastLine);
+      updateTrackingTime(trackingState, lastLine.getStatus(), durationHrs);
     }
 
-    return null;
+    WkfTrackingLine trackingLine = new WkfTrackingLine();
+    trackingLine.setWkfTracking(trackingState.wkfTracking);
+    trackingLine.setStatus(status);
+    trackingLine.setStatusDateT(statusDateT);
+    trackingState.lastLine = trackingLineRepo.save(trackingLine);
+
+    updateTrackingTotal(trackingState, status);
+
+    if (!trackingState.timeMap.containsKey(status)) {
+      WkfTrackingTime trackingTime = new WkfTrackingTime();
+      trackingTime.setWkfTracking(trackingState.wkfTracking);
+      trackingTime.setStatus(status);
+      trackingState.timeMap.put(status, trackingTimeRepo.save(trackingTime));
+    }
   }
 
   /**
-   * Update o2m to WkfTrackingTotal in WkfTracking. Create or Update WkfTrackingTotal for given
-   * status with updated count of status.
+   * Create or Update WkfTrackingTotal for given status with updated count of status.
    *
-   * @param wkfTracking WkfTracking to update for WkfTrackingTotal.
+   * @param trackingState Tracking records of the record.
    * @param status Status to check for total update.
    */
-  @Transactional
-  public void updateTrackingTotal(WkfTracking wkfTracking, String status) {
+  protected void updateTrackingTotal(TrackingState trackingState, String status) {
 
-    WkfTrackingTotal trackingTotal =
-        trackingTotalRepo
-            .all()
-            .filter("self.wkfTracking = :wkfTracking and self.status = :status")
-            .bind("wkfTracking", wkfTracking)
-            .bind("status", status)
-            .fetchOne();
+    WkfTrackingTotal trackingTotal = trackingState.totalMap.get(status);
 
     if (trackingTotal == null) {
       trackingTotal = new WkfTrackingTotal();
-      trackingTotal.setWkfTracking(wkfTracking);
+      trackingTotal.setWkfTracking(trackingState.wkfTracking);
       trackingTotal.setTotalCount(0);
       trackingTotal.setStatus(status);
     }
 
     trackingTotal.setTotalCount(trackingTotal.getTotalCount() + 1);
 
-    trackingTotalRepo.save(trackingTotal);
+    trackingState.totalMap.put(status, trackingTotalRepo.save(trackingTotal));
   }
 
   /**
-   * This method create or update WkfTrackingTime record for given WkfTracking and status. For
-   * existing WkfTrackingTime it update total time in days and hours.
+   * Add the time spent on the given status to its WkfTrackingTime, in days and hours.
    *
-   * @param wkfTracking WkfTracking to update for WkfTrackingTime.
-   * @param status Status to check for WkfTrackingTime.
+   * @param trackingState Tracking records of the record.
+   * @param status Status left.
+   * @param durationHrs Time spent on the status, in hours.
    */
-  @Transactional
-  public void updateTrackingTime(WkfTracking wkfTracking, String status) {
+  protected void updateTrackingTime(
+      TrackingState trackingState, String status, BigDecimal durationHrs) {
 
-    WkfTrackingTime trackingTime =
-        trackingTimeRepo
-            .all()
-            .filter("self.wkfTracking = ?1 and self.status = ?2", wkfTracking, oldStatus)
-            .fetchOne();
+    WkfTrackingTime trackingTime = trackingState.timeMap.get(status);
 
     if (trackingTime != null) {
       BigDecimal days = durationHrs.divide(new BigDecimal(24), 2, RoundingMode.HALF_UP);
@@ -292,18 +419,14 @@ public class WkfTrackingService {
       trackingTime.setTotalTimeHours(totalTimeHrs);
       trackingTimeRepo.save(trackingTime);
     }
+  }
 
-    trackingTime =
-        trackingTimeRepo
-            .all()
-            .filter("self.wkfTracking = ?1 and self.status = ?2", wkfTracking, status)
-            .fetchOne();
+  /** Tracking records of a workflow record, updated while processing a batch of events. */
+  protected static class TrackingState {
 
-    if (trackingTime == null) {
-      trackingTime = new WkfTrackingTime();
-      trackingTime.setWkfTracking(wkfTracking);
-      trackingTime.setStatus(status);
-      trackingTimeRepo.save(trackingTime);
-    }
+    protected WkfTracking wkfTracking;
+    protected WkfTrackingLine lastLine;
+    protected final Map<String, WkfTrackingTotal> totalMap = new HashMap<>();
+    protected final Map<String, WkfTrackingTime> timeMap = new HashMap<>();
   }
 }
@@ -0,0 +1,208 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.studio.service.wkf;
+
+import static org.junit.Assert.assertEquals;
+
+import com.axelor.studio.db.WkfTracking;
+import com.axelor.studio.db.WkfTrackingEvent;
+import com.axelor.studio.db.WkfTrackingLine;
+import com.axelor.studio.db.WkfTrackingTime;
+import com.axelor.studio.db.WkfTrackingTotal;
+import com.axelor.studio.db.repo.WkfTrackingLineRepository;
+import com.axelor.studio.db.repo.WkfTrackingTimeRepository;
+import com.axelor.studio.db.repo.WkfTrackingTotalRepository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Check the tracking records built from a batch of status changes of a record. The expected values
+ * are the ones of the synchronous tracking: one line for each new status, the time spent on a
+ * status rounded to 2 decimals for each change, and its days computed from the rounded hours.
+ */
+public class TestWkfTrackingFolding {
+
+  private static final LocalDateTime START = LocalDateTime.of(2018, 6, 4, 9, 0);
+
+  private static final List<Object[]> STATUS_CHANGES =
+      Arrays.asList(
+          new Object[] {"Draft", 0},
+          new Object[] {"Validated", 90},
+          new Object[] {"Validated", 120},
+          new Object[] {"Draft", 240},
+          new Object[] {"Done", 285},
+          new Object[] {"Draft", 2085},
+          new Object[] {"Done", 2100});
+
+  @Test
+  public void testFolding() {
+
+    InMemoryTrackingService service = new InMemoryTrackingService();
+    WkfTrackingService.TrackingState trackingState = service.getTrackingState(null);
+    for (Object[] statusChange : STATUS_CHANGES) {
+      service.updateTracking(trackingState, status(statusChange), statusDateT(statusChange));
+    }
+
+    assertEquals(
+        Arrays.asList(
+            "Draft 2018-06-04T09:00 1.50",
+            "Validated 2018-06-04T10:30 2.50",
+            "Draft 2018-06-04T13:00 0.75",
+            "Done 2018-06-04T13:45 30.00",
+            "Draft 2018-06-05T19:45 0.25",
+            "Done 2018-06-05T20:00 0"),
+        describeLines(service));
+    assertEquals(Arrays.asList("Draft 3", "Validated 1", "Done 2"), describeTotals(service));
+    assertEquals(
+        Arrays.asList("Draft 2.50 0.10", "Validated 2.50 0.10", "Done 30.00 1.25"),
+        describeTimes(service));
+  }
+
+  @Test
+  public void testSameStatusIgnored() {
+
+    InMemoryTrackingService service = new InMemoryTrackingService();
+    WkfTrackingService.TrackingState trackingState = service.getTrackingState(null);
+    service.updateTracking(trackingState, "Draft", START);
+    service.updateTracking(trackingState, "Draft", START.plusHours(1));
+
+    assertEquals(Arrays.asList("Draft 2018-06-04T09:00 0"), describeLines(service));
+    assertEquals(Arrays.asList("Draft 1"), describeTotals(service));
+    assertEquals(Arrays.asList("Draft 0 0"), describeTimes(service));
+  }
+
+  @Test
+  public void testOlderStatusIgnored() {
+
+    InMemoryTrackingService service = new InMemoryTrackingService();
+    service.updateTracking(service.getTrackingState(null), "Draft", START);
+    service.updateTracking(service.getTrackingState(null), "Done", START.plusHours(2));
+    // Committed after the later status was processed
+    service.updateTracking(service.getTrackingState(null), "Validated", START.plusHours(1));
+
+    assertEquals(
+        Arrays.asList("Draft 2018-06-04T09:00 2.00", "Done 2018-06-04T11:00 0"),
+        describeLines(service));
+    assertEquals(Arrays.asList("Draft 1", "Done 1"), describeTotals(service));
+    assertEquals(Arrays.asList("Draft 2.00 0.08", "Done 0 0"), describeTimes(service));
+  }
+
+  private static String status(Object[] statusChange) {
+    return (String) statusChange[0];
+  }
+
+  private static LocalDateTime statusDateT(Object[] statusChange) {
+    return START.plusMinutes((Integer) statusChange[1]);
+  }
+
+  private static List<String> describeLines(InMemoryTrackingService service) {
+    List<String> lines = new ArrayList<>();
+    for (WkfTrackingLine trackingLine : service.lineList) {
+      lines.add(
+          trackingLine.getStatus()
+              + " "
+              + trackingLine.getStatusDateT()
+              + " "
+              + trackingLine.getTimeSpent());
+    }
+    return lines;
+  }
+
+  private static List<String> describeTotals(InMemoryTrackingService service) {
+    List<String> totals = new ArrayList<>();
+    for (WkfTrackingTotal trackingTotal : service.totalList) {
+      totals.add(trackingTotal.getStatus() + " " + trackingTotal.getTotalCount());
+    }
+    return totals;
+  }
+
+  private static List<String> describeTimes(InMemoryTrackingService service) {
+    List<String> times = new ArrayList<>();
+    for (WkfTrackingTime trackingTime : service.timeList) {
+      times.add(
+          trackingTime.getStatus()
+              + " "
+              + trackingTime.getTotalTimeHours()
+              + " "
+              + trackingTime.getTotalTimeDays());
+    }
+    return times;
+  }
+
+  /** Tracking service storing the tracking records of a single record in memory. */
+  private static class InMemoryTrackingService extends WkfTrackingService {
+
+    private final WkfTracking wkfTracking = new WkfTracking();
+    private final List<WkfTrackingLine> lineList = new ArrayList<>();
+    private final List<WkfTrackingTotal> totalList = new ArrayList<>();
+    private final List<WkfTrackingTime> timeList = new ArrayList<>();
+
+    InMemoryTrackingService() {
+      trackingLineRepo =
+          new WkfTrackingLineRepository() {
+            @Override
+            public WkfTrackingLine save(WkfTrackingLine trackingLine) {
+              return store(lineList, trackingLine);
+            }
+          };
+      trackingTotalRepo =
+          new WkfTrackingTotalRepository() {
+            @Override
+            public WkfTrackingTotal save(WkfTrackingTotal trackingTotal) {
+              return store(totalList, trackingTotal);
+            }
+          };
+      trackingTimeRepo =
+          new WkfTrackingTimeRepository() {
+            @Override
+            public WkfTrackingTime save(WkfTrackingTime trackingTime) {
+              return store(timeList, trackingTime);
+            }
+          };
+    }
+
+    private static <T> T store(List<T> list, T entity) {
+      if (!list.contains(entity)) {
+        list.add(entity);
+      }
+      return entity;
+    }
+
+    @Override
+    protected TrackingState getTrackingState(WkfTrackingEvent trackingEvent) {
+
+      TrackingState trackingState = new TrackingState();
+      trackingState.wkfTracking = wkfTracking;
+      trackingState.lastLine = lineList.isEmpty() ? null : lineList.get(lineList.size() - 1);
+
+      for (WkfTrackingTotal trackingTotal : totalList) {
+        trackingState.totalMap.putIfAbsent(trackingTotal.getStatus(), trackingTotal);
+      }
+
+      for (WkfTrackingTime trackingTime : timeList) {
+        trackingState.timeMap.putIfAbsent(trackingTime.getStatus(), trackingTime);
+      }
+
+      return trackingState;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.tool;
+
+import com.axelor.inject.Beans;
+import com.google.inject.persist.UnitOfWork;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+
+/**
+ * Wraps tasks run by worker threads, which have neither a request scope nor an entity manager of
+ * their own.
+ */
+public final class RequestScopeTool {
+
+  private RequestScopeTool() {}
+
+  /**
+   * Wraps a task so that it runs in its own request scope. The entity manager opened by the task
+   * is closed at the end, so that the worker thread does not keep it for its next task.
+   *
+   * @param task the task to run in a worker thread
+   * @return the wrapped task
+   */
+  public static <T> Callable<T> inRequestScope(Callable<T> task) {
+    return () -> {
+      RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+      try (RequestScoper.CloseableScope ignored = scope.open()) {
+        return task.call();
+      } finally {
+        Beans.get(UnitOfWork.class).end();
+      }
+    };
+  }
+
+  /**
+   * Wraps a task so that it runs in its own request scope. The entity manager opened by the task
+   * is closed at the end, so that the worker thread does not keep it for its next task.
+   *
+   * @param task the task to run in a worker thread
+   * @return the wrapped task
+   */
+  public static Runnable inRequestScope(Runnable task) {
+    return () -> {
+      RequestScoper scope = ServletScopes.scopeRequest(Collections.emptyMap());
+      try (RequestScoper.CloseableScope ignored = scope.open()) {
+        task.run();
+      } finally {
+        Beans.get(UnitOfWork.class).end();
+      }
+    };
+  }
+
+  /**
+   * Wraps a task so that it runs as the user of the current thread, if any.
+   *
+   * @param task the task to run in a worker thread
+   * @return the wrapped task, or the task itself when the current thread has no user
+   */
+  public static <T> Callable<T> asCurrentSubject(Callable<T> task) {
+    Subject subject = ThreadContext.getSubject();
+    return subject != null ? subject.associateWith(task) : task;
+  }
+}
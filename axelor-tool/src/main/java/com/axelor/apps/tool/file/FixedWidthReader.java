@@ -0,0 +1,86 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.tool.file;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads fixed-width records one per line from a buffered stream, with one record of look-ahead.
+ * Blank lines are skipped.
+ */
+public class FixedWidthReader implements Closeable {
+
+  private final BufferedReader in;
+  private String nextRecord;
+  private int lineNumber;
+  private int recordLineNumber;
+
+  public FixedWidthReader(Reader in) {
+    this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+  }
+
+  public boolean hasNext() throws IOException {
+    return peek() != null;
+  }
+
+  /**
+   * Return the next record without consuming it.
+   *
+   * @return the next record, or null at the end of the stream
+   * @throws IOException
+   */
+  public String peek() throws IOException {
+    while (nextRecord == null) {
+      String line = in.readLine();
+      if (line == null) {
+        return null;
+      }
+      lineNumber++;
+      if (!line.trim().isEmpty()) {
+        nextRecord = line;
+      }
+    }
+    return nextRecord;
+  }
+
+  /**
+   * Consume the next record.
+   *
+   * @return the next record, or null at the end of the stream
+   * @throws IOException
+   */
+  public String next() throws IOException {
+    String record = peek();
+    nextRecord = null;
+    recordLineNumber = lineNumber;
+    return record;
+  }
+
+  /** @return the line number of the last consumed record */
+  public int getLineNumber() {
+    return recordLineNumber;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
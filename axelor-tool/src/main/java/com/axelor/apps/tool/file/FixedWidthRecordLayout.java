@@ -0,0 +1,225 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.tool.file;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout of a fixed-width record, declared once as an ordered list of fields.
+ *
+ * <p>Alphanumeric fields are left aligned, filled with blanks and truncated on the right. Numeric
+ * fields are right aligned, filled with zeros and truncated on the left. Fillers are blank zones
+ * which are not given any value.
+ */
+public final class FixedWidthRecordLayout {
+
+  public enum Format {
+    ALPHA_NUMERIC,
+    NUMERIC,
+    FILLER
+  }
+
+  public static final class Field {
+
+    private final String name;
+    private final Format format;
+    private final int offset;
+    private final int length;
+
+    private Field(String name, Format format, int offset, int length) {
+      this.name = name;
+      this.format = format;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Format getFormat() {
+      return format;
+    }
+
+    public int getOffset() {
+      return offset;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    /**
+     * Read the raw content of the field in a record.
+     *
+     * @param record a record of the layout
+     * @return the content of the field, padding included
+     */
+    public String read(CharSequence record) {
+      return record.subSequence(offset, offset + length).toString();
+    }
+
+    private void write(Writer out, String value) throws IOException {
+      int valueLength = value.length();
+
+      switch (format) {
+        case NUMERIC:
+          if (valueLength < length) {
+            fill(out, '0', length - valueLength);
+            out.write(value);
+          } else {
+            out.write(value, valueLength - length, length);
+          }
+          break;
+
+        case ALPHA_NUMERIC:
+          if (valueLength < length) {
+            out.write(value);
+            fill(out, ' ', length - valueLength);
+          } else {
+            out.write(value, 0, length);
+          }
+          break;
+
+        default:
+          fill(out, ' ', length);
+          break;
+      }
+    }
+
+    private static void fill(Writer out, char fillChar, int count) throws IOException {
+      for (int i = 0; i < count; i++) {
+        out.write(fillChar);
+      }
+    }
+  }
+
+  private final List<Field> fields;
+  private final Map<String, Field> fieldsByName;
+  private final int valueCount;
+  private final int recordLength;
+
+  private FixedWidthRecordLayout(List<Field> fields) {
+    this.fields = Collections.unmodifiableList(fields);
+    this.fieldsByName = new HashMap<>();
+
+    int values = 0;
+    int length = 0;
+    for (Field field : fields) {
+      if (field.format != Format.FILLER) {
+        fieldsByName.put(field.name, field);
+        values++;
+      }
+      length += field.length;
+    }
+    this.valueCount = values;
+    this.recordLength = length;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public List<Field> getFields() {
+    return fields;
+  }
+
+  public int getRecordLength() {
+    return recordLength;
+  }
+
+  public Field getField(String name) {
+    Field field = fieldsByName.get(name);
+    if (field == null) {
+      throw new IllegalArgumentException("Unknown field: " + name);
+    }
+    return field;
+  }
+
+  /**
+   * Read the trimmed content of a field in a record.
+   *
+   * @param record a record of the layout
+   * @param name the field name
+   * @return the content of the field without its padding
+   */
+  public String read(CharSequence record, String name) {
+    return getField(name).read(record).trim();
+  }
+
+  /**
+   * Write a record without line separator.
+   *
+   * @param out the destination
+   * @param values the values of the fields in declaration order, fillers excluded. A null value is
+   *     written as an empty one.
+   * @throws IOException
+   */
+  public void write(Writer out, Object... values) throws IOException {
+    if (values.length != valueCount) {
+      throw new IllegalArgumentException(
+          String.format("%d values expected, got %d", valueCount, values.length));
+    }
+
+    int i = 0;
+    for (Field field : fields) {
+      if (field.format == Format.FILLER) {
+        field.write(out, "");
+      } else {
+        Object value = values[i++];
+        field.write(out, value == null ? "" : value.toString());
+      }
+    }
+  }
+
+  public static final class Builder {
+
+    private final List<Field> fields = new ArrayList<>();
+    private int offset;
+
+    private Builder() {}
+
+    public Builder alphaNumeric(String name, int length) {
+      return add(name, Format.ALPHA_NUMERIC, length);
+    }
+
+    public Builder numeric(String name, int length) {
+      return add(name, Format.NUMERIC, length);
+    }
+
+    public Builder filler(int length) {
+      return add(null, Format.FILLER, length);
+    }
+
+    private Builder add(String name, Format format, int length) {
+      fields.add(new Field(name, format, offset, length));
+      offset += length;
+      return this;
+    }
+
+    public FixedWidthRecordLayout build() {
+      return new FixedWidthRecordLayout(new ArrayList<>(fields));
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.tool.file;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/** Writes fixed-width records one per line to a buffered stream. */
+public class FixedWidthWriter implements Closeable {
+
+  public static final String LINE_SEPARATOR = "\r\n";
+
+  private final Writer out;
+  private final String lineSeparator;
+  private int recordCount;
+
+  public FixedWidthWriter(Writer out) {
+    this(out, LINE_SEPARATOR);
+  }
+
+  public FixedWidthWriter(Writer out, String lineSeparator) {
+    this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    this.lineSeparator = lineSeparator;
+  }
+
+  /**
+   * Write a record followed by the line separator.
+   *
+   * @param layout the layout of the record
+   * @param values the values of the fields in declaration order, fillers excluded
+   * @throws IOException
+   */
+  public void write(FixedWidthRecordLayout layout, Object... values) throws IOException {
+    layout.write(out, values);
+    out.write(lineSeparator);
+    recordCount++;
+  }
+
+  public int getRecordCount() {
+    return recordCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
@@ -30,6 +30,7 @@ import java.net.URLEncoder;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +40,9 @@ public final class PdfTool {
   private static final Logger logger =
       LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  /** Memory used to buffer the merged documents before falling back to temporary files. */
+  private static final long MERGE_MAX_MAIN_MEMORY_BYTES = 32L * 1024 * 1024;
+
   private PdfTool() {}
 
   /**
@@ -56,6 +60,9 @@ public final class PdfTool {
   /**
    * Append multiple PDF files into one PDF.
    *
+   * <p>Merged documents are buffered in memory up to {@link #MERGE_MAX_MAIN_MEMORY_BYTES}, then in
+   * temporary files, so that merging a large number of files does not exhaust the heap.
+   *
    * @param fileList a list of path of PDF files to merge.
    * @return The link to access the generated PDF.
    */
@@ -65,9 +72,12 @@ public final class PdfTool {
       pdfMergerUtility.addSource(file);
     }
     Path tmpFile = MetaFiles.createTempFile(null, "");
-    FileOutputStream stream = new FileOutputStream(tmpFile.toFile());
-    pdfMergerUtility.setDestinationStream(stream);
-    pdfMergerUtility.mergeDocuments(null);
+    try (FileOutputStream stream = new FileOutputStream(tmpFile.toFile())) {
+      pdfMergerUtility.setDestinationStream(stream);
+      pdfMergerUtility.mergeDocuments(
+          MemoryUsageSetting.setupMixed(MERGE_MAX_MAIN_MEMORY_BYTES)
+              .setTempDir(tmpFile.getParent().toFile()));
+    }
     return tmpFile.toFile();
   }
 
@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -30,11 +32,36 @@ import javax.xml.bind.Unmarshaller;
 
 public final class Marschaller {
 
+  /** Contexts are thread safe and expensive to create, so they are built once per package. */
+  private static final Map<String, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
   private Marschaller() {}
 
+  /**
+   * Get the JAXB context of the given packages, creating it on first use.
+   *
+   * @param context a colon separated list of package names
+   * @return the shared context
+   * @throws JAXBException
+   */
+  public static JAXBContext getContext(String context) throws JAXBException {
+
+    JAXBContext jaxbContext = CONTEXTS.get(context);
+
+    if (jaxbContext == null) {
+      jaxbContext = JAXBContext.newInstance(context);
+      JAXBContext previous = CONTEXTS.putIfAbsent(context, jaxbContext);
+      if (previous != null) {
+        jaxbContext = previous;
+      }
+    }
+
+    return jaxbContext;
+  }
+
   public static void marschalOutputStream(Object jaxbElement, String context) throws JAXBException {
 
-    JAXBContext jaxbContext = JAXBContext.newInstance(context);
+    JAXBContext jaxbContext = getContext(context);
     marschalOutputStream(jaxbElement, jaxbContext);
   }
 
@@ -50,7 +77,7 @@ public final class Marschaller {
   public static void marschal(Object jaxbElement, String context, StringWriter writer)
       throws JAXBException {
 
-    JAXBContext jaxbContext = JAXBContext.newInstance(context);
+    JAXBContext jaxbContext = getContext(context);
     marschal(jaxbElement, jaxbContext, writer);
   }
 
@@ -70,7 +97,7 @@ public final class Marschaller {
       Object jaxbElement, String context, String destinationFolder, String fileName)
       throws JAXBException, IOException {
 
-    JAXBContext jaxbContext = JAXBContext.newInstance(context);
+    JAXBContext jaxbContext = getContext(context);
     return marschalFile(jaxbElement, jaxbContext, destinationFolder, fileName);
   }
 
@@ -91,7 +118,7 @@ public final class Marschaller {
 
   public static Object unmarschalFile(String context, String data) throws JAXBException {
 
-    JAXBContext jc = JAXBContext.newInstance(context);
+    JAXBContext jc = getContext(context);
 
     return unmarschalFile(jc, data);
   }
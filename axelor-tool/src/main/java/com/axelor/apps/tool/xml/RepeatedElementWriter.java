@@ -0,0 +1,201 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.tool.xml;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+
+/**
+ * Write a JAXB document whose largest part is a list of repeated elements, without holding these
+ * elements in memory.
+ *
+ * <p>The document is marshalled once with the first element twice in the list, which gives the
+ * text before, between and after the repeated elements. The other elements are then marshalled one
+ * by one as fragments, indented like the first one. The output is the same as {@link
+ * Marschaller#marschalFile(Object, JAXBContext, String, String)} with the full list: if the
+ * fragment of the first element does not match its rendering inside the document, {@link
+ * #open(Object, JAXBContext, List, Object, QName, Class, File)} returns null and the caller has to
+ * marshal the whole document.
+ */
+public class RepeatedElementWriter<T> implements Closeable {
+
+  private static final Pattern NAMESPACE_DECLARATION =
+      Pattern.compile(" xmlns(:[\\w.-]+)?=\"[^\"]*\"");
+
+  private final Marshaller fragmentMarshaller;
+  private final QName elementName;
+  private final Class<T> elementClass;
+  private final String indent;
+  private final String suffix;
+  private Writer writer;
+
+  private RepeatedElementWriter(
+      Marshaller fragmentMarshaller,
+      QName elementName,
+      Class<T> elementClass,
+      String indent,
+      String suffix) {
+    this.fragmentMarshaller = fragmentMarshaller;
+    this.elementName = elementName;
+    this.elementClass = elementClass;
+    this.indent = indent;
+    this.suffix = suffix;
+  }
+
+  /**
+   * Start writing the document into the file, up to the first repeated element included.
+   *
+   * @param jaxbElement the document, whose repeated element list is {@code elementList}
+   * @param jaxbContext the context of the document
+   * @param elementList the list of repeated elements of the document, left with the first element
+   *     only
+   * @param firstElement the first repeated element
+   * @param elementName the tag name of the repeated elements
+   * @param elementClass the class of the repeated elements
+   * @param file the file to create
+   * @return the writer to add the next elements with, or null if the output would not be the same
+   *     as a standard marshalling, in which case nothing is written to the file.
+   * @throws JAXBException
+   * @throws IOException
+   */
+  public static <T> RepeatedElementWriter<T> open(
+      Object jaxbElement,
+      JAXBContext jaxbContext,
+      List<T> elementList,
+      T firstElement,
+      QName elementName,
+      Class<T> elementClass,
+      File file)
+      throws JAXBException, IOException {
+
+    Marshaller documentMarshaller = jaxbContext.createMarshaller();
+    documentMarshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+    documentMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+
+    Marshaller fragmentMarshaller = jaxbContext.createMarshaller();
+    fragmentMarshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+    fragmentMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    fragmentMarshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+    elementList.clear();
+    elementList.add(firstElement);
+    elementList.add(firstElement);
+    String document = marshal(documentMarshaller, jaxbElement);
+    elementList.remove(1);
+
+    String startTag = "<" + elementName.getLocalPart();
+    String endTag = "</" + elementName.getLocalPart() + ">";
+
+    int start = document.indexOf(startTag + ">");
+    if (start < 0) {
+      start = document.indexOf(startTag + " ");
+    }
+    if (start < 0) {
+      return null;
+    }
+    int lineStart = document.lastIndexOf('\n', start) + 1;
+    String indent = document.substring(lineStart, start);
+    int end = document.indexOf(endTag, start);
+    end = end < 0 ? end : document.indexOf(endTag, end + endTag.length());
+    if (!indent.trim().isEmpty() || end < 0) {
+      return null;
+    }
+    end += endTag.length();
+
+    RepeatedElementWriter<T> elementWriter =
+        new RepeatedElementWriter<>(
+            fragmentMarshaller, elementName, elementClass, indent, document.substring(end));
+    String fragment = elementWriter.format(firstElement);
+    if (!document.substring(lineStart, end).equals(fragment + "\n" + fragment)) {
+      return null;
+    }
+
+    elementWriter.writer =
+        new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    elementWriter.writer.write(document, 0, lineStart);
+    elementWriter.writer.write(fragment);
+
+    return elementWriter;
+  }
+
+  /**
+   * Append the next repeated element.
+   *
+   * @param element
+   * @throws JAXBException
+   * @throws IOException
+   */
+  public void write(T element) throws JAXBException, IOException {
+    writer.write('\n');
+    writer.write(format(element));
+  }
+
+  /** Write the end of the document and close the file. */
+  @Override
+  public void close() throws IOException {
+    try {
+      writer.write(suffix);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private String format(T element) throws JAXBException {
+    String fragment =
+        marshal(fragmentMarshaller, new JAXBElement<>(elementName, elementClass, element));
+
+    int from = 0;
+    while (from < fragment.length() && fragment.charAt(from) == '\n') {
+      from++;
+    }
+    int to = fragment.length();
+    while (to > from && fragment.charAt(to - 1) == '\n') {
+      to--;
+    }
+    fragment = fragment.substring(from, to);
+
+    // namespaces are declared on the root of the document, not on the repeated elements
+    int firstTagEnd = fragment.indexOf('>') + 1;
+    Matcher matcher = NAMESPACE_DECLARATION.matcher(fragment.substring(0, firstTagEnd));
+    fragment = matcher.replaceAll("") + fragment.substring(firstTagEnd);
+
+    return indent + fragment.replace("\n", "\n" + indent);
+  }
+
+  private static String marshal(Marshaller marshaller, Object jaxbElement) throws JAXBException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    marshaller.marshal(jaxbElement, stream);
+    return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
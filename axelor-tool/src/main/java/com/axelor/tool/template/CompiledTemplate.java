@@ -0,0 +1,68 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.tool.template;
+
+import com.axelor.auth.AuthUtils;
+import com.beust.jcommander.internal.Maps;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.stringtemplate.v4.ST;
+
+/**
+ * A template compiled by a {@link TemplateMaker}. It is immutable: each rendering uses a copy of
+ * the compiled template with its own context.
+ */
+public class CompiledTemplate {
+
+  private final ST prototype;
+  private final Locale locale;
+
+  CompiledTemplate(ST prototype, Locale locale) {
+    this.prototype = prototype;
+    this.locale = locale;
+  }
+
+  public String make(Map<String, Object> context) {
+    ST st = new ST(prototype);
+
+    Map<String, Object> _map = Maps.newHashMap();
+    if (context != null) {
+      _map.putAll(context);
+    }
+
+    // Internal context
+    _map.put("__user__", AuthUtils.getUser());
+    _map.put("__date__", LocalDate.now());
+    _map.put("__time__", LocalTime.now());
+    _map.put("__datetime__", LocalDateTime.now());
+
+    for (String key : _map.keySet()) {
+      Object value = _map.get(key);
+      if (value instanceof String) {
+        value = StringEscapeUtils.escapeXml11(value.toString());
+      }
+      st.add(key, value);
+    }
+
+    return st.render(locale);
+  }
+}
@@ -18,7 +18,6 @@
 package com.axelor.tool.template;
 
 import com.axelor.apps.tool.exception.IExceptionMessage;
-import com.axelor.auth.AuthUtils;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
@@ -42,7 +41,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Map;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.stringtemplate.v4.AttributeRenderer;
 import org.stringtemplate.v4.DateRenderer;
 import org.stringtemplate.v4.Interpreter;
@@ -93,7 +91,15 @@ public class TemplateMaker {
     this.context = makeContext(nameInContext, model, map);
   }
 
-  private Map<String, Object> makeContext(
+  /**
+   * Make the context of a record, to render a {@link CompiledTemplate}.
+   *
+   * @param nameInContext the name of the record in the context, or null to put its fields
+   * @param model the record
+   * @param map additional values, may be null
+   * @return a new context
+   */
+  public static Map<String, Object> makeContext(
       String nameInContext, Model model, Map<String, Object> map) {
     Map<String, Object> _map = Maps.newHashMap();
 
@@ -149,12 +155,6 @@ public class TemplateMaker {
   }
 
   public String make() {
-    if (Strings.isNullOrEmpty(this.template)) {
-      throw new IllegalArgumentException(I18n.get(IExceptionMessage.TEMPLATE_MAKER_2));
-    }
-
-    ST st = new ST(stGroup, template);
-
     Map<String, Object> _map = Maps.newHashMap();
     if (localContext != null && !localContext.isEmpty()) {
       _map.putAll(localContext);
@@ -163,25 +163,24 @@ public class TemplateMaker {
       _map.putAll(context);
     }
 
-    // Internal context
-    _map.put("__user__", AuthUtils.getUser());
-    _map.put("__date__", LocalDate.now());
-    _map.put("__time__", LocalTime.now());
-    _map.put("__datetime__", LocalDateTime.now());
+    return compile(template).make(_map);
+  }
 
-    for (String key : _map.keySet()) {
-      Object value = _map.get(key);
-      if (value instanceof String) {
-        value = StringEscapeUtils.escapeXml11(value.toString());
-      }
-      st.add(key, value);
+  /**
+   * Compile a template once, so that it can be rendered with several contexts, possibly from
+   * several threads.
+   *
+   * @param text the template
+   * @return the compiled template
+   */
+  public CompiledTemplate compile(String text) {
+    if (Strings.isNullOrEmpty(text)) {
+      throw new IllegalArgumentException(I18n.get(IExceptionMessage.TEMPLATE_MAKER_2));
     }
 
-    return _make(st);
-  }
-
-  private String _make(ST st) {
-    return st.render(locale);
+    synchronized (stGroup) {
+      return new CompiledTemplate(new ST(stGroup, text), locale);
+    }
   }
 
   class ModelFormatRenderer implements ModelAdaptor {
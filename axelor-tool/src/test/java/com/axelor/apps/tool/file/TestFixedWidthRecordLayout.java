@@ -0,0 +1,76 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2019 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.apps.tool.file;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFixedWidthRecordLayout {
+
+  private final FixedWidthRecordLayout layout =
+      FixedWidthRecordLayout.builder()
+          .numeric("code", 2)
+          .filler(3)
+          .alphaNumeric("name", 6)
+          .numeric("amount", 5)
+          .build();
+
+  @Test
+  public void write() throws IOException {
+
+    StringWriter out = new StringWriter();
+    try (FixedWidthWriter writer = new FixedWidthWriter(out)) {
+      writer.write(layout, "3", "test", "1234");
+      writer.write(layout, "123", "truncated", "1234567");
+      writer.write(layout, null, null, null);
+      Assert.assertEquals(3, writer.getRecordCount());
+    }
+
+    Assert.assertEquals(16, layout.getRecordLength());
+    Assert.assertEquals(
+        "03   test  01234\r\n23   trunca34567\r\n00         00000\r\n", out.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void writeMissingValue() throws IOException {
+
+    layout.write(new StringWriter(), "3", "test");
+  }
+
+  @Test
+  public void read() throws IOException {
+
+    try (FixedWidthReader reader =
+        new FixedWidthReader(new StringReader("03   test  01234\r\n\r\n23   trunca34567\r\n"))) {
+      Assert.assertEquals("03   test  01234", reader.peek());
+      String record = reader.next();
+      Assert.assertEquals("test", layout.read(record, "name"));
+      Assert.assertEquals("01234", layout.getField("amount").read(record));
+      Assert.assertEquals(1, reader.getLineNumber());
+
+      record = reader.next();
+      Assert.assertEquals("23", layout.read(record, "code"));
+      Assert.assertEquals(3, reader.getLineNumber());
+      Assert.assertFalse(reader.hasNext());
+      Assert.assertNull(reader.next());
+    }
+  }
+}
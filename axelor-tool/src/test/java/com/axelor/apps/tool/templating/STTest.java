@@ -19,11 +19,15 @@ package com.axelor.apps.tool.templating;
 
 import com.axelor.apps.tool.db.Contact;
 import com.axelor.apps.tool.db.Title;
+import com.axelor.tool.template.CompiledTemplate;
 import com.axelor.tool.template.TemplateMaker;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import org.junit.Assert;
@@ -162,6 +166,34 @@ public class STTest {
     }
   }
 
+  @Test
+  public void test4() throws InterruptedException {
+    TemplateMaker maker = new TemplateMaker(new Locale("fr"), '$', '$');
+    CompiledTemplate compiledTemplate = maker.compile(content);
+
+    List<Thread> threads = Lists.newArrayList();
+    List<Throwable> errors = Collections.synchronizedList(Lists.newArrayList());
+    for (int i = 0; i < 4; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 10000; j++) {
+                  String result =
+                      compiledTemplate.make(TemplateMaker.makeContext("contact", contact, map));
+                  Assert.assertEquals(contentFinal, result);
+                }
+              });
+      thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Assert.assertTrue(errors.isEmpty());
+  }
+
   class ThreadTest extends Thread {
     @Override
     public void run() {